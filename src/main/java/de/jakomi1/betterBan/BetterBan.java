@@ -2,10 +2,27 @@ package de.jakomi1.betterBan;
 
 import de.jakomi1.betterBan.commands.*;
 import de.jakomi1.betterBan.database.Database;
+import de.jakomi1.betterBan.events.AuditLogSink;
+import de.jakomi1.betterBan.events.DiscordSink;
+import de.jakomi1.betterBan.events.MetricsSink;
+import de.jakomi1.betterBan.events.ModerationEvents;
+import de.jakomi1.betterBan.events.StaffBroadcastSink;
 import de.jakomi1.betterBan.listener.ChatListener;
 import de.jakomi1.betterBan.listener.JoinListener;
+import de.jakomi1.betterBan.scheduler.Scheduler;
+import de.jakomi1.betterBan.utils.BlockedCommandUtils;
+import de.jakomi1.betterBan.utils.ChatBanUtils;
+import de.jakomi1.betterBan.utils.ChatFilterUtils;
 import de.jakomi1.betterBan.utils.ConfigUtils;
+import de.jakomi1.betterBan.utils.DiscordUtils;
+import de.jakomi1.betterBan.utils.FloodUtils;
+import de.jakomi1.betterBan.utils.HistoryUtils;
+import de.jakomi1.betterBan.utils.IpBanUtils;
+import de.jakomi1.betterBan.utils.PunishmentUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
@@ -35,21 +52,50 @@ public final class BetterBan extends JavaPlugin {
                 getLogger().warning("Couldn't create plugin folder: " + dataFolder.getPath());
             }
         }
-        Database.init();
-        registerCommands();
         chatPrefix = ConfigUtils.getPrefixStyled();
+        DiscordUtils.start();
+        registerSinks();
+        if (!Database.init()) {
+            // Fail closed: without the configured storage no ban is known, so nobody is let in
+            getServer().getPluginManager().registerEvents(new JoinListener(), this);
+            return;
+        }
+        registerCommands();
+        ChatFilterUtils.reload();
         registerListeners();
+        startExpiryTask();
+        HistoryUtils.startArchiveTask();
+        FloodUtils.startEvictionTask();
+        // One tick later every plugin is enabled and their aliases are in the command map
+        Scheduler.runLater(BlockedCommandUtils::compile, 1L);
     }
 
     private void registerCommands() {
         registerCommand("ban", new BanCommand(), new BanCommand());
-        registerCommand("banlist", new BanListCommand(), new EmptyTabCompleter());
+        registerCommand("banlist", new BanListCommand(), new BanListCommand());
         registerCommand("unban", new UnbanCommand(), new UnbanCommand());
         registerCommand("tempban", new TempBanCommand(), new TempBanCommand());
         registerCommand("kick", new KickCommand(), new KickCommand());
         registerCommand("chatban", new ChatBanCommand(), new ChatBanCommand());
-        registerCommand("chatbanlist", new ChatBanListCommand(), new EmptyTabCompleter());
+        registerCommand("chatbanlist", new ChatBanListCommand(), new ChatBanListCommand());
         registerCommand("chatunban", new ChatUnbanCommand(), new ChatUnbanCommand());
+        registerCommand("banhistory", new BanHistoryCommand(), new BanHistoryCommand());
+        registerCommand("banip", new BanIpCommand(), new BanIpCommand());
+        registerCommand("tempbanip", new TempBanIpCommand(), new TempBanIpCommand());
+        registerCommand("unbanip", new UnbanIpCommand(), new UnbanIpCommand());
+        registerCommand("alts", new AltsCommand(), new AltsCommand());
+        registerCommand("chatfilter", new ChatFilterCommand(), new ChatFilterCommand());
+        registerCommand("bansearch", new BanSearchCommand(), new BanSearchCommand());
+    }
+
+    private void registerSinks() {
+        ModerationEvents.register(new DiscordSink());
+        if (ConfigUtils.isStaffBroadcastEnabled()) ModerationEvents.register(new StaffBroadcastSink());
+        if (ConfigUtils.isAuditLogEnabled()) {
+            ModerationEvents.register(new AuditLogSink(new File(dataFolder, "audit.log").toPath()));
+        }
+        ModerationEvents.register(new MetricsSink());
+        ModerationEvents.start();
     }
 
     private void registerListeners() {
@@ -57,15 +103,40 @@ public final class BetterBan extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new ChatListener(), this);
     }
 
+    private void startExpiryTask() {
+        // Tell players whose chat-ban ran out while they are online
+        ChatBanUtils.onChatBanExpire((uuid, punishment) -> {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null) player.sendMessage(chatPrefix + ChatColor.GREEN + "Your chat-ban has expired.");
+        });
+
+        int batchSize = Math.max(1, ConfigUtils.getExpiryBatchSize());
+        long interval = Math.max(1, ConfigUtils.getExpiryIntervalTicks());
+        Scheduler.runRepeating(() -> {
+            PunishmentUtils.expire(batchSize);
+            IpBanUtils.expire(batchSize);
+        }, interval, interval);
+    }
+
     private void registerCommand(String command, CommandExecutor executor, TabCompleter tabCompleter) {
         Objects.requireNonNull(getServer().getPluginCommand(command)).setExecutor(executor);
         Objects.requireNonNull(getServer().getPluginCommand(command)).setTabCompleter(tabCompleter);
     }
 
 
+    /** Only reached for commands without an executor, i.e. if the storage couldn't be started. */
     @Override
-    public void onDisable() {
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        sender.sendMessage(chatPrefix + ChatColor.RED + "BetterBan is disabled because its storage couldn't be started. Check the server log.");
+        return true;
+    }
 
+    @Override
+    public void onDisable() {
+        Database.shutdown();
+        // After the database, so the last expiries still get through; before Discord, which sends what's left
+        ModerationEvents.shutdown();
+        DiscordUtils.shutdown();
     }
     public static boolean isAdmin(Player player) {
         return player.isOp();
@@ -0,0 +1,164 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bidirectional index between accounts and the hosts they logged in from (host keys, see
+ * {@link IpRange#hostKey}), used to find alt accounts.
+ * <p>
+ * Both directions keep their entries in small immutable arrays, most recent last, and are capped:
+ * an account remembers at most {@code maxHostsPerAccount} hosts, a host at most {@code maxAccountsPerHost}
+ * accounts. A host that had to drop accounts is marked as saturated (school, VPN exit, carrier NAT) and is
+ * not followed by {@link #findConnected}, so one shared address can't join thousands of players into one
+ * component. Memory therefore grows linearly with the number of players, and a query only ever touches
+ * the component it returns.
+ * <p>
+ * Reads never lock; writes are serialized.
+ */
+public final class AltIndex {
+
+    /** An account connected to the start account, {@code via} is the host it was reached through. */
+    public record Alt(UUID uuid, long via, int depth) {}
+
+    /**
+     * Result of {@link #findConnected}.
+     *
+     * @param skippedHosts saturated hosts that were not followed
+     * @param truncated    true if the search stopped at the result limit
+     */
+    public record Component(List<Alt> alts, List<Long> skippedHosts, boolean truncated) {}
+
+    private static final long[] NO_HOSTS = new long[0];
+    private static final UUID[] NO_ACCOUNTS = new UUID[0];
+
+    private record Accounts(UUID[] uuids, boolean saturated) {}
+
+    private final ConcurrentHashMap<UUID, long[]> hostsByAccount = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Accounts> accountsByHost = new ConcurrentHashMap<>();
+    private final int maxHostsPerAccount;
+    private final int maxAccountsPerHost;
+
+    public AltIndex(int maxHostsPerAccount, int maxAccountsPerHost) {
+        this.maxHostsPerAccount = Math.max(1, maxHostsPerAccount);
+        this.maxAccountsPerHost = Math.max(1, maxAccountsPerHost);
+    }
+
+    // ==============================================================
+
+    /** Records that {@code uuid} logged in from {@code host}; both become the most recent entry of each other. */
+    public synchronized void add(UUID uuid, long host) {
+        hostsByAccount.put(uuid, moveToEnd(hostsByAccount.getOrDefault(uuid, NO_HOSTS), host, maxHostsPerAccount));
+
+        Accounts accounts = accountsByHost.get(host);
+        UUID[] uuids = accounts != null ? accounts.uuids() : NO_ACCOUNTS;
+        boolean known = indexOf(uuids, uuid) >= 0;
+        UUID[] updated = moveToEnd(uuids, uuid, maxAccountsPerHost);
+        boolean saturated = (accounts != null && accounts.saturated()) || (!known && uuids.length == maxAccountsPerHost);
+        accountsByHost.put(host, new Accounts(updated, saturated));
+    }
+
+    /** Hosts of the account, most recent last. */
+    public long[] getHosts(UUID uuid) {
+        return hostsByAccount.getOrDefault(uuid, NO_HOSTS).clone();
+    }
+
+    // ==============================================================
+
+    /**
+     * Breadth-first search over shared hosts: every account that is connected to {@code start} through any
+     * chain of accounts and hosts, nearest first. Saturated hosts are not followed.
+     *
+     * @param limit maximum number of returned accounts
+     */
+    public Component findConnected(UUID start, int limit) {
+        List<Alt> alts = new ArrayList<>();
+        List<Long> skipped = new ArrayList<>();
+        Set<UUID> seenAccounts = new HashSet<>();
+        Set<Long> seenHosts = new HashSet<>();
+        ArrayDeque<Alt> queue = new ArrayDeque<>();
+
+        seenAccounts.add(start);
+        queue.add(new Alt(start, 0L, 0));
+        while (!queue.isEmpty()) {
+            Alt current = queue.poll();
+            for (long host : hostsByAccount.getOrDefault(current.uuid(), NO_HOSTS)) {
+                if (!seenHosts.add(host)) continue;
+                Accounts accounts = accountsByHost.get(host);
+                if (accounts == null) continue;
+                if (accounts.saturated()) {
+                    skipped.add(host);
+                    continue;
+                }
+                for (UUID uuid : accounts.uuids()) {
+                    if (!seenAccounts.add(uuid)) continue;
+                    if (alts.size() == limit) return new Component(alts, skipped, true);
+                    Alt alt = new Alt(uuid, host, current.depth() + 1);
+                    alts.add(alt);
+                    queue.add(alt);
+                }
+            }
+        }
+        return new Component(alts, skipped, false);
+    }
+
+    // ==============================================================
+
+    private static long[] moveToEnd(long[] values, long value, int max) {
+        int index = -1;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                index = i;
+                break;
+            }
+        }
+        if (index >= 0 && index == values.length - 1) return values;
+
+        long[] result;
+        if (index >= 0) {
+            result = new long[values.length];
+            System.arraycopy(values, 0, result, 0, index);
+            System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+        } else if (values.length < max) {
+            result = Arrays.copyOf(values, values.length + 1);
+        } else {
+            // Full: drop the oldest
+            result = new long[max];
+            System.arraycopy(values, values.length - max + 1, result, 0, max - 1);
+        }
+        result[result.length - 1] = value;
+        return result;
+    }
+
+    private static UUID[] moveToEnd(UUID[] values, UUID value, int max) {
+        int index = indexOf(values, value);
+        if (index >= 0 && index == values.length - 1) return values;
+
+        UUID[] result;
+        if (index >= 0) {
+            result = new UUID[values.length];
+            System.arraycopy(values, 0, result, 0, index);
+            System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+        } else if (values.length < max) {
+            result = Arrays.copyOf(values, values.length + 1);
+        } else {
+            result = new UUID[max];
+            System.arraycopy(values, values.length - max + 1, result, 0, max - 1);
+        }
+        result[result.length - 1] = value;
+        return result;
+    }
+
+    private static int indexOf(UUID[] values, UUID value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,68 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over UUIDs. Bits are only ever set, so concurrent {@link #put} and
+ * {@link #mightContain} need no locking; a negative answer is always correct.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long mask;
+    private final int hashes;
+    private final long capacity;
+
+    /**
+     * @param expectedEntries    number of entries the filter is sized for
+     * @param falsePositiveRate  target false positive rate at {@code expectedEntries}, e.g. 0.01
+     */
+    public BloomFilter(long expectedEntries, double falsePositiveRate) {
+        long n = Math.max(1L, expectedEntries);
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        long numBits = Long.highestOneBit(Math.max(64L, optimalBits));
+        if (numBits < optimalBits) numBits <<= 1;
+
+        this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, numBits >>> 6));
+        this.mask = ((long) bits.length() << 6) - 1;
+        this.hashes = Math.max(1, (int) Math.round((double) numBits / n * ln2));
+        this.capacity = n;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public void put(UUID uuid) {
+        long h1 = mix(uuid.getMostSignificantBits());
+        long h2 = mix(uuid.getLeastSignificantBits()) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + i * h2) & mask;
+            int word = (int) (bit >>> 6);
+            long flag = 1L << bit;
+            long current = bits.get(word);
+            if ((current & flag) == 0) bits.getAndAccumulate(word, flag, (a, b) -> a | b);
+        }
+    }
+
+    public boolean mightContain(UUID uuid) {
+        long h1 = mix(uuid.getMostSignificantBits());
+        long h2 = mix(uuid.getLeastSignificantBits()) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + i * h2) & mask;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,96 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Merges a fresh load from the database into a cache that is already serving requests
+ * (e.g. restored from a {@link CacheSnapshot}), without losing writes that happen during the load.
+ * <p>
+ * Every cache mutation goes through {@link #write}. Between {@link #begin()} and the end of
+ * {@link #finish} the written keys are recorded and the database state is not applied to them:
+ * the cache holds the newer value and the write-behind queue brings the database up to date.
+ */
+public final class CacheReconciler {
+
+    private final PunishmentCache cache;
+    // Guarded by this; null while no reconcile is running
+    private Set<PunishmentKey> dirty;
+
+    public CacheReconciler(PunishmentCache cache) {
+        this.cache = cache;
+    }
+
+    /** Runs a cache mutation for {@code key}. */
+    public synchronized void write(PunishmentKey key, Runnable mutation) {
+        if (dirty != null) dirty.add(key);
+        mutation.run();
+    }
+
+    /** Starts recording writes. Call before reading from the database. */
+    public synchronized void begin() {
+        dirty = new HashSet<>();
+    }
+
+    /** Stops recording writes without touching the cache, e.g. if the database load failed. */
+    public synchronized void abort() {
+        dirty = null;
+    }
+
+    /**
+     * Runs {@code action} for every cache entry, each one under the same lock as {@link #write}, e.g. to
+     * build a secondary index next to a cache that is already serving writes. An entry written in the
+     * meantime is skipped (its write updated the index itself).
+     */
+    public void forEach(PunishmentCache.EntryConsumer action) {
+        cache.forEach((uuid, type, punishment) -> {
+            synchronized (this) {
+                if (punishment.equals(cache.get(uuid, type))) action.accept(uuid, type, punishment);
+            }
+        });
+    }
+
+    /**
+     * Applies the loaded database state to the cache, skipping every key written since {@link #begin()}.
+     *
+     * @param onPut    called for every entry that was added or changed
+     * @param onRemove called for every entry that was removed
+     * @return number of changed entries
+     */
+    public int finish(Map<PunishmentKey, Punishment> loaded, BiConsumer<PunishmentKey, Punishment> onPut,
+                      Consumer<PunishmentKey> onRemove) {
+        int changed = 0;
+        try {
+            for (Map.Entry<PunishmentKey, Punishment> entry : loaded.entrySet()) {
+                PunishmentKey key = entry.getKey();
+                Punishment punishment = entry.getValue();
+                synchronized (this) {
+                    if (dirty.contains(key) || punishment.equals(cache.get(key.uuid(), key.type()))) continue;
+                    cache.put(key.uuid(), key.type(), punishment);
+                    onPut.accept(key, punishment);
+                    changed++;
+                }
+            }
+
+            int[] removed = {0};
+            cache.forEach((uuid, type, punishment) -> {
+                PunishmentKey key = new PunishmentKey(uuid, type);
+                if (loaded.containsKey(key)) return;
+                synchronized (this) {
+                    if (dirty.contains(key) || !cache.remove(uuid, type, punishment)) return;
+                    onRemove.accept(key);
+                    removed[0]++;
+                }
+            });
+            changed += removed[0];
+        } finally {
+            synchronized (this) {
+                dirty = null;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,217 @@
+package de.jakomi1.betterBan.cache;
+
+import de.jakomi1.betterBan.database.PunishmentType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary dump of the punishment cache and the known players, written on shutdown so the
+ * next startup doesn't have to rebuild everything from the database row by row.
+ * <p>
+ * Layout (big-endian): magic, version, high-water mark, punishments, joined UUIDs, CRC32 of everything
+ * before it. The punishment section starts with a type dictionary (enum names, so reordering
+ * {@link PunishmentType} doesn't break old files) and a reason dictionary, so each entry is 2 longs (UUID),
+ * 1 byte (type id), 1 long (end) and 1 int (reason id). The high-water mark is the store's
+ * {@code PunishmentStore#highWaterMark()} when the snapshot was written; the snapshot is only valid while
+ * the store still reports the same value (see {@code StartupUtils}).
+ */
+public final class CacheSnapshot {
+
+    private static final int MAGIC = 0x4242534E; // "BBSN"
+    // 2: one section for all punishment types, 3: high-water mark instead of a random generation, no names
+    private static final int VERSION = 3;
+
+    /** Contents of a snapshot file. */
+    public record Data(String highWaterMark,
+                       Map<PunishmentKey, Punishment> punishments,
+                       Set<UUID> joined) {}
+
+    private CacheSnapshot() {}
+
+    // ==============================================================
+
+    /**
+     * Writes the snapshot to a temporary file and atomically moves it over {@code file}.
+     */
+    public static void write(File file, String highWaterMark, PunishmentCache punishments,
+                             NameIndex joined) throws IOException {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(tmp)) {
+            // Buffer above the checksum, so the CRC is updated in 64 KB blocks instead of per value
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(fileOut, crc), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, highWaterMark);
+            writePunishments(out, punishments);
+
+            List<UUID> uuids = new ArrayList<>(joined.size());
+            joined.forEach((uuid, name) -> uuids.add(uuid));
+            out.writeInt(uuids.size());
+            for (UUID uuid : uuids) writeUuid(out, uuid);
+            out.flush();
+
+            // Trailer: checksum of everything above
+            new DataOutputStream(fileOut).writeLong(crc.getValue());
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot file. The file is memory-mapped and parsed in place.
+     *
+     * @return the contents, or null if the file doesn't exist
+     * @throws IOException if the file is truncated, corrupt or from another format version
+     */
+    public static Data read(File file) throws IOException {
+        if (!file.isFile()) return null;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 16 || size > Integer.MAX_VALUE) throw new IOException("Invalid snapshot size " + size);
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int payload = (int) size - Long.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(in.duplicate().limit(payload));
+            if (in.getLong(payload) != crc.getValue()) throw new IOException("Snapshot checksum mismatch");
+            in.limit(payload);
+
+            if (in.getInt() != MAGIC) throw new IOException("Not a cache snapshot");
+            int version = in.getInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+
+            String highWaterMark = readString(in);
+            Map<PunishmentKey, Punishment> punishments = readPunishments(in);
+
+            int joinedCount = readCount(in);
+            Set<UUID> joined = new HashSet<>(capacity(joinedCount));
+            for (int i = 0; i < joinedCount; i++) joined.add(readUuid(in));
+            return new Data(highWaterMark, punishments, joined);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot is truncated", e);
+        }
+    }
+
+    // ==============================================================
+
+    private static void writePunishments(DataOutputStream out, PunishmentCache cache) throws IOException {
+        List<UUID> uuids = new ArrayList<>(cache.size());
+        List<PunishmentType> types = new ArrayList<>(cache.size());
+        List<Punishment> punishments = new ArrayList<>(cache.size());
+        cache.forEach((uuid, type, punishment) -> {
+            uuids.add(uuid);
+            types.add(type);
+            punishments.add(punishment);
+        });
+
+        PunishmentType[] typeIds = PunishmentType.values();
+        out.writeInt(typeIds.length);
+        for (PunishmentType type : typeIds) writeString(out, type.name());
+
+        // Reason dictionary: large lists share a handful of reasons
+        Map<String, Integer> reasonIds = new LinkedHashMap<>();
+        for (Punishment punishment : punishments) {
+            if (punishment.reason() != null) reasonIds.putIfAbsent(punishment.reason(), reasonIds.size());
+        }
+        out.writeInt(reasonIds.size());
+        for (String reason : reasonIds.keySet()) writeString(out, reason);
+
+        out.writeInt(uuids.size());
+        for (int i = 0; i < uuids.size(); i++) {
+            Punishment punishment = punishments.get(i);
+            writeUuid(out, uuids.get(i));
+            out.writeByte(types.get(i).ordinal());
+            out.writeLong(punishment.endTimestamp());
+            out.writeInt(punishment.reason() != null ? reasonIds.get(punishment.reason()) : -1);
+        }
+    }
+
+    private static Map<PunishmentKey, Punishment> readPunishments(ByteBuffer in) throws IOException {
+        int typeCount = readCount(in);
+        PunishmentType[] types = new PunishmentType[typeCount];
+        for (int i = 0; i < typeCount; i++) {
+            String name = readString(in);
+            try {
+                types[i] = PunishmentType.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown punishment type " + name);
+            }
+        }
+
+        int reasonCount = readCount(in);
+        String[] reasons = new String[reasonCount];
+        for (int i = 0; i < reasonCount; i++) reasons[i] = readString(in);
+
+        int count = readCount(in);
+        Map<PunishmentKey, Punishment> punishments = new HashMap<>(capacity(count));
+        for (int i = 0; i < count; i++) {
+            UUID uuid = readUuid(in);
+            int typeId = in.get() & 0xFF;
+            long end = in.getLong();
+            int reasonId = in.getInt();
+            if (typeId >= typeCount) throw new IOException("Invalid type id " + typeId);
+            if (reasonId >= reasonCount) throw new IOException("Invalid reason id " + reasonId);
+            punishments.put(new PunishmentKey(uuid, types[typeId]),
+                    new Punishment(end, reasonId >= 0 ? reasons[reasonId] : null));
+        }
+        return punishments;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    /** Length-prefixed UTF-8; unlike writeUTF not limited to 64 KB. */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) throw new IOException("Invalid string length " + length);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Entry count; at least one byte per entry must remain, so a corrupt count can't allocate gigabytes. */
+    private static int readCount(ByteBuffer in) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) throw new IOException("Invalid entry count " + count);
+        return count;
+    }
+
+    private static int capacity(int entries) {
+        return (int) Math.min(Integer.MAX_VALUE, entries * 4L / 3 + 1);
+    }
+}
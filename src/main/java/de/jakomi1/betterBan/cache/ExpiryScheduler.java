@@ -0,0 +1,81 @@
+package de.jakomi1.betterBan.cache;
+
+import de.jakomi1.betterBan.database.PunishmentType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Tracks the temporary entries of a {@link PunishmentCache} in a min-heap ordered by end timestamp,
+ * so expiring them costs O(log n) per entry instead of a sweep over the whole cache.
+ * All punishment types share one heap.
+ * <p>
+ * Overwritten or revoked punishments are not removed from the heap. Their entries simply no longer
+ * match the cache when they come due ({@link PunishmentCache#remove(UUID, PunishmentType, Punishment)})
+ * and are dropped.
+ */
+public final class ExpiryScheduler {
+
+    /** A punishment that was removed from the cache because it ran out. */
+    public record Expired(UUID uuid, PunishmentType type, Punishment punishment) {}
+
+    private final PunishmentCache cache;
+    private final PriorityQueue<Expired> heap = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.punishment().endTimestamp(), b.punishment().endTimestamp()));
+
+    public ExpiryScheduler(PunishmentCache cache) {
+        this.cache = cache;
+    }
+
+    /** Registers a punishment that was just put into the cache. Permanent punishments are ignored. */
+    public void schedule(UUID uuid, PunishmentType type, Punishment punishment) {
+        if (punishment.isPermanent()) return;
+        synchronized (heap) {
+            heap.add(new Expired(uuid, type, punishment));
+        }
+    }
+
+    /** Re-registers every temporary entry of the cache, e.g. after it was (re)loaded. */
+    public void scheduleAll() {
+        List<Expired> entries = new ArrayList<>();
+        cache.forEach((uuid, type, punishment) -> {
+            if (!punishment.isPermanent()) entries.add(new Expired(uuid, type, punishment));
+        });
+        synchronized (heap) {
+            heap.clear();
+            heap.addAll(entries);
+        }
+    }
+
+    /**
+     * Removes up to {@code max} punishments that ended at or before {@code now} from the cache.
+     *
+     * @param remove removes one entry from the cache if it still holds the expired punishment (see
+     *               {@link PunishmentCache#remove(UUID, PunishmentType, Punishment)}) and returns whether it did;
+     *               the caller updates its own indexes in the same step
+     * @return the punishments that were actually removed, in end timestamp order
+     */
+    public List<Expired> expire(long now, int max, Predicate<Expired> remove) {
+        List<Expired> expired = new ArrayList<>();
+        while (expired.size() < max) {
+            Expired entry;
+            synchronized (heap) {
+                entry = heap.peek();
+                if (entry == null || entry.punishment().endTimestamp() > now) break;
+                heap.poll();
+            }
+            if (remove.test(entry)) expired.add(entry);
+        }
+        return expired;
+    }
+
+    /** Number of tracked entries, including stale ones that were overwritten in the meantime. */
+    public int pending() {
+        synchronized (heap) {
+            return heap.size();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * IP bans by {@link IpRange}, held in two compressed binary radix (Patricia) tries: one for IPv4, one for IPv6.
+ * <p>
+ * Every node stores a prefix (raw address bytes + bit length); a node without a value only exists where two
+ * branches split. {@link #match} walks a single path from the root, so a lookup is O(address length),
+ * compares each address bit at most once and allocates nothing.
+ * <p>
+ * The tries are persistent: a write copies the path from the root to the changed node and publishes the new
+ * root through a volatile field. Reads (async login threads) never lock and always see a consistent trie;
+ * writes are serialized. IP ban lists are small compared to player bans, so the O(depth) copies are cheap.
+ */
+public final class IpBanTrie {
+
+    private static final class Node {
+        // Network-order bytes, every bit after `bits` cleared; shared between versions, never modified
+        final byte[] key;
+        final int bits;
+        final Punishment value;
+        final Node zero;
+        final Node one;
+
+        Node(byte[] key, int bits, Punishment value, Node zero, Node one) {
+            this.key = key;
+            this.bits = bits;
+            this.value = value;
+            this.zero = zero;
+            this.one = one;
+        }
+    }
+
+    private volatile Node ipv4;
+    private volatile Node ipv6;
+    // Guarded by this
+    private int size;
+
+    // ==============================================================
+
+    /**
+     * The most specific active ban covering the address, or null.
+     *
+     * @param address raw bytes of a single address (4 or 16, IPv4-mapped IPv6 is matched against IPv4 bans)
+     */
+    public Punishment match(byte[] address, long now) {
+        int offset = IpRange.mappedOffset(address);
+        int length = (address.length - offset) * 8;
+        Node node = length == 32 ? ipv4 : length == 128 ? ipv6 : null;
+
+        Punishment best = null;
+        int checked = 0;
+        while (node != null && node.bits <= length) {
+            // Bits before `checked` were already compared against an ancestor
+            if (!bitsEqual(node.key, address, offset, checked, node.bits)) break;
+            checked = node.bits;
+            if (node.value != null && node.value.isActive(now)) best = node.value;
+            if (node.bits == length) break;
+            node = bit(address, offset, node.bits) ? node.one : node.zero;
+        }
+        return best;
+    }
+
+    /** Exact entry for the range, may already be expired. */
+    public Punishment get(IpRange range) {
+        byte[] key = range.address();
+        Node node = root(key);
+        while (node != null && node.bits <= range.prefixLength()) {
+            if (!bitsEqual(node.key, key, 0, 0, node.bits)) return null;
+            if (node.bits == range.prefixLength()) return node.value;
+            node = bit(key, 0, node.bits) ? node.one : node.zero;
+        }
+        return null;
+    }
+
+    public synchronized void put(IpRange range, Punishment punishment) {
+        if (get(range) == null) size++;
+        setRoot(range.address(), insert(root(range.address()), range.address(), range.prefixLength(), punishment));
+    }
+
+    /** @return the removed entry, or null */
+    public synchronized Punishment remove(IpRange range) {
+        return removeIf(range, null);
+    }
+
+    /** Removes the range only if it is still mapped to an equal record. */
+    public synchronized boolean remove(IpRange range, Punishment expected) {
+        return removeIf(range, expected) != null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Visits every entry, IPv4 first, each family in address order. */
+    public void forEach(BiConsumer<IpRange, Punishment> action) {
+        visit(ipv4, action);
+        visit(ipv6, action);
+    }
+
+    /** Replaces the whole contents, e.g. after loading from the database. */
+    public synchronized void replaceAll(Map<IpRange, Punishment> entries) {
+        Node v4 = null;
+        Node v6 = null;
+        for (Map.Entry<IpRange, Punishment> entry : entries.entrySet()) {
+            IpRange range = entry.getKey();
+            if (range.isIpv4()) {
+                v4 = insert(v4, range.address(), range.prefixLength(), entry.getValue());
+            } else {
+                v6 = insert(v6, range.address(), range.prefixLength(), entry.getValue());
+            }
+        }
+        ipv4 = v4;
+        ipv6 = v6;
+        size = entries.size();
+    }
+
+    // ==============================================================
+
+    private Node root(byte[] key) {
+        return key.length == 4 ? ipv4 : ipv6;
+    }
+
+    private void setRoot(byte[] key, Node root) {
+        if (key.length == 4) {
+            ipv4 = root;
+        } else {
+            ipv6 = root;
+        }
+    }
+
+    private Punishment removeIf(IpRange range, Punishment expected) {
+        Punishment[] removed = new Punishment[1];
+        Node root = root(range.address());
+        Node updated = remove(root, range.address(), range.prefixLength(), expected, removed);
+        if (updated != root) setRoot(range.address(), updated);
+        if (removed[0] != null) size--;
+        return removed[0];
+    }
+
+    private static Node insert(Node node, byte[] key, int bits, Punishment value) {
+        if (node == null) return new Node(key, bits, value, null, null);
+
+        int common = commonPrefix(node.key, key, Math.min(node.bits, bits));
+        if (common == node.bits && common == bits) {
+            return new Node(node.key, node.bits, value, node.zero, node.one);
+        }
+        if (common == node.bits) {
+            // Below this node
+            return bit(key, 0, node.bits)
+                    ? new Node(node.key, node.bits, node.value, node.zero, insert(node.one, key, bits, value))
+                    : new Node(node.key, node.bits, node.value, insert(node.zero, key, bits, value), node.one);
+        }
+        if (common == bits) {
+            // New range contains this node
+            return bit(node.key, 0, bits)
+                    ? new Node(key, bits, value, null, node)
+                    : new Node(key, bits, value, node, null);
+        }
+        // Diverge after `common` bits: split with a value-less node
+        Node leaf = new Node(key, bits, value, null, null);
+        byte[] splitKey = truncate(key, common);
+        return bit(key, 0, common)
+                ? new Node(splitKey, common, null, node, leaf)
+                : new Node(splitKey, common, null, leaf, node);
+    }
+
+    private static Node remove(Node node, byte[] key, int bits, Punishment expected, Punishment[] removed) {
+        if (node == null || node.bits > bits || !bitsEqual(node.key, key, 0, 0, node.bits)) return node;
+
+        if (node.bits == bits) {
+            if (node.value == null || (expected != null && !expected.equals(node.value))) return node;
+            removed[0] = node.value;
+            return compact(node, null, node.zero, node.one);
+        }
+
+        boolean one = bit(key, 0, node.bits);
+        Node child = one ? node.one : node.zero;
+        Node updated = remove(child, key, bits, expected, removed);
+        if (updated == child) return node;
+        return one
+                ? compact(node, node.value, node.zero, updated)
+                : compact(node, node.value, updated, node.one);
+    }
+
+    /** Drops value-less nodes with fewer than two children. */
+    private static Node compact(Node node, Punishment value, Node zero, Node one) {
+        if (value == null) {
+            if (zero == null) return one;
+            if (one == null) return zero;
+        }
+        return new Node(node.key, node.bits, value, zero, one);
+    }
+
+    private static void visit(Node node, BiConsumer<IpRange, Punishment> action) {
+        if (node == null) return;
+        if (node.value != null) action.accept(IpRange.of(node.key, node.bits), node.value);
+        visit(node.zero, action);
+        visit(node.one, action);
+    }
+
+    // ==============================================================
+
+    private static boolean bit(byte[] address, int offset, int index) {
+        return (address[offset + (index >>> 3)] & (0x80 >>> (index & 7))) != 0;
+    }
+
+    /** True if bits [from, to) of {@code key} and {@code address} (starting at {@code offset}) are equal. */
+    private static boolean bitsEqual(byte[] key, byte[] address, int offset, int from, int to) {
+        while (from < to) {
+            int i = from >>> 3;
+            int end = Math.min(to, (i + 1) << 3);
+            int mask = (0xFF >>> (from & 7)) & (0xFF << ((i + 1 << 3) - end));
+            if (((key[i] ^ address[offset + i]) & mask) != 0) return false;
+            from = end;
+        }
+        return true;
+    }
+
+    /** Number of equal leading bits, at most {@code max}. */
+    private static int commonPrefix(byte[] a, byte[] b, int max) {
+        int bits = 0;
+        int i = 0;
+        while (bits < max) {
+            int diff = (a[i] ^ b[i]) & 0xFF;
+            if (diff != 0) return Math.min(max, bits + Integer.numberOfLeadingZeros(diff) - 24);
+            bits += 8;
+            i++;
+        }
+        return max;
+    }
+
+    private static byte[] truncate(byte[] key, int bits) {
+        byte[] copy = new byte[key.length];
+        int full = bits >>> 3;
+        System.arraycopy(key, 0, copy, 0, full);
+        if ((bits & 7) != 0) copy[full] = (byte) (key[full] & (0xFF00 >>> (bits & 7)));
+        return copy;
+    }
+}
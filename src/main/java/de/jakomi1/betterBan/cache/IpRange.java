@@ -0,0 +1,209 @@
+package de.jakomi1.betterBan.cache;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+
+/**
+ * A single IPv4 / IPv6 address or a CIDR range, stored as raw network-order bytes (4 or 16) with every bit
+ * after the prefix cleared. IPv4-mapped IPv6 addresses (::ffff:a.b.c.d) are treated as IPv4.
+ */
+public final class IpRange {
+
+    private final byte[] address;
+    private final int prefixLength;
+
+    private IpRange(byte[] address, int prefixLength) {
+        this.address = address;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * Builds a range from raw bytes. Bits after the prefix are cleared.
+     *
+     * @throws IllegalArgumentException if the address has neither 4 nor 16 bytes or the prefix is out of range
+     */
+    public static IpRange of(byte[] address, int prefixLength) {
+        if (address.length != 4 && address.length != 16) {
+            throw new IllegalArgumentException("Invalid address length " + address.length);
+        }
+        int offset = mappedOffset(address);
+        if (offset == 12 && prefixLength >= 96) {
+            address = Arrays.copyOfRange(address, 12, 16);
+            prefixLength -= 96;
+        } else {
+            address = address.clone();
+        }
+        if (prefixLength < 0 || prefixLength > address.length * 8) {
+            throw new IllegalArgumentException("Invalid prefix length /" + prefixLength);
+        }
+        for (int bit = prefixLength; bit < address.length * 8; bit++) {
+            address[bit >>> 3] &= (byte) ~(0x80 >>> (bit & 7));
+        }
+        return new IpRange(address, prefixLength);
+    }
+
+    /** The single address. */
+    public static IpRange of(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return of(bytes, bytes.length * 8);
+    }
+
+    /**
+     * Parses "1.2.3.4", "1.2.3.0/24", "2001:db8::1" or "2001:db8::/32". Only literals are accepted,
+     * nothing is ever resolved via DNS.
+     *
+     * @throws IllegalArgumentException if the input is not a valid address or range
+     */
+    public static IpRange parse(String input) {
+        String text = input.trim();
+        int slash = text.indexOf('/');
+        String host = slash >= 0 ? text.substring(0, slash) : text;
+        if (host.startsWith("[") && host.endsWith("]")) host = host.substring(1, host.length() - 1);
+
+        byte[] bytes = host.indexOf(':') >= 0 ? parseIpv6(host) : parseIpv4(host);
+        int prefixLength = bytes.length * 8;
+        if (slash >= 0) {
+            try {
+                prefixLength = Integer.parseInt(text.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix length in " + input);
+            }
+        }
+        return of(bytes, prefixLength);
+    }
+
+    private static byte[] parseIpv4(String host) {
+        String[] parts = host.split("\\.", -1);
+        if (parts.length != 4) throw new IllegalArgumentException("Invalid IPv4 address " + host);
+        byte[] bytes = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 3 || !part.chars().allMatch(Character::isDigit)) {
+                throw new IllegalArgumentException("Invalid IPv4 address " + host);
+            }
+            int value = Integer.parseInt(part);
+            if (value > 255) throw new IllegalArgumentException("Invalid IPv4 address " + host);
+            bytes[i] = (byte) value;
+        }
+        return bytes;
+    }
+
+    private static byte[] parseIpv6(String host) {
+        // In brackets the JDK only accepts an IPv6 literal; without them an invalid literal falls back to DNS
+        try {
+            byte[] bytes = InetAddress.getByName("[" + host + "]").getAddress();
+            if (bytes.length == 16) return bytes;
+            // The JDK turns ::ffff:a.b.c.d into an Inet4Address; keep 16 bytes so the prefix stays IPv6-based
+            byte[] mapped = new byte[16];
+            mapped[10] = (byte) 0xFF;
+            mapped[11] = (byte) 0xFF;
+            System.arraycopy(bytes, 0, mapped, 12, 4);
+            return mapped;
+        } catch (UnknownHostException | SecurityException e) {
+            throw new IllegalArgumentException("Invalid IPv6 address " + host);
+        }
+    }
+
+    /** 12 for IPv4-mapped IPv6 addresses, otherwise 0. */
+    public static int mappedOffset(byte[] address) {
+        if (address.length != 16) return 0;
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) return 0;
+        }
+        return address[10] == (byte) 0xFF && address[11] == (byte) 0xFF ? 12 : 0;
+    }
+
+    /**
+     * 64-bit key of the host behind an address: IPv4 addresses in the low 32 bits, IPv6 addresses by their
+     * /64 prefix, since an IPv6 host usually owns a whole /64. The two only overlap in ::/32, which holds no
+     * routable addresses.
+     */
+    public static long hostKey(byte[] address) {
+        int offset = mappedOffset(address);
+        if (address.length - offset == 4) return readInt(address, offset) & 0xFFFFFFFFL;
+        return (long) readInt(address, 0) << 32 | readInt(address, 4) & 0xFFFFFFFFL;
+    }
+
+    /** True if {@code hostKey} stands for an IPv4 address. */
+    public static boolean isIpv4HostKey(long hostKey) {
+        return hostKey >>> 32 == 0;
+    }
+
+    /** The address (IPv4) or /64 range (IPv6) of a {@link #hostKey}. */
+    public static IpRange fromHostKey(long hostKey) {
+        if (isIpv4HostKey(hostKey)) {
+            int v = (int) hostKey;
+            return of(new byte[]{(byte) (v >>> 24), (byte) (v >>> 16), (byte) (v >>> 8), (byte) v}, 32);
+        }
+        byte[] bytes = new byte[16];
+        for (int i = 0; i < 8; i++) bytes[i] = (byte) (hostKey >>> (56 - 8 * i));
+        return of(bytes, 64);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8 | bytes[offset + 3] & 0xFF;
+    }
+
+    // ==============================================================
+
+    /** Network-order bytes, do not modify. */
+    public byte[] address() {
+        return address;
+    }
+
+    public int prefixLength() {
+        return prefixLength;
+    }
+
+    public boolean isIpv4() {
+        return address.length == 4;
+    }
+
+    /** True if this range covers exactly one address. */
+    public boolean isSingleAddress() {
+        return prefixLength == address.length * 8;
+    }
+
+    /** True if {@code other} (raw bytes of a single address) lies in this range. */
+    public boolean contains(byte[] other) {
+        int offset = address.length == 4 ? mappedOffset(other) : 0;
+        if (other.length - offset != address.length) return false;
+        int full = prefixLength >>> 3;
+        for (int i = 0; i < full; i++) {
+            if (address[i] != other[offset + i]) return false;
+        }
+        int rest = prefixLength & 7;
+        if (rest == 0) return true;
+        int mask = 0xFF00 >>> rest & 0xFF;
+        return (address[full] & mask) == (other[offset + full] & mask);
+    }
+
+    public boolean contains(InetAddress other) {
+        return contains(other.getAddress());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof IpRange other && prefixLength == other.prefixLength && Arrays.equals(address, other.address);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(address) + prefixLength;
+    }
+
+    /** "1.2.3.4" for single addresses, otherwise CIDR notation. */
+    @Override
+    public String toString() {
+        String host;
+        try {
+            host = InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            // Only thrown for invalid lengths, which the factories reject
+            throw new IllegalStateException(e);
+        }
+        return isSingleAddress() ? host : host + "/" + prefixLength;
+    }
+}
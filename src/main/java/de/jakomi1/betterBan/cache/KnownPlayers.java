@@ -0,0 +1,58 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of every UUID in {@code has_joined}, so {@link #contains} never touches the database.
+ * <p>
+ * A {@link BloomFilter} answers most unknown UUIDs (new players, bot floods, tab completion over
+ * foreign player files) without touching the exact set. Positives are confirmed by the exact
+ * primitive {@link UuidSet}, so there are no false positives.
+ */
+public final class KnownPlayers {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_BLOOM_CAPACITY = 100_000;
+
+    private final UuidSet players;
+    private volatile BloomFilter bloom;
+
+    public KnownPlayers() {
+        this(0);
+    }
+
+    public KnownPlayers(int expectedEntries) {
+        players = new UuidSet(expectedEntries);
+        bloom = new BloomFilter(Math.max(MIN_BLOOM_CAPACITY, expectedEntries * 2L), FALSE_POSITIVE_RATE);
+    }
+
+    public boolean contains(UUID uuid) {
+        if (!bloom.mightContain(uuid)) return false;
+        return players.contains(uuid);
+    }
+
+    /** @return true if the player was not known before */
+    public synchronized boolean add(UUID uuid) {
+        // Bloom first: a concurrent contains() must never see the set entry without the bloom bits
+        bloom.put(uuid);
+        if (!players.add(uuid)) return false;
+
+        if (players.size() > bloom.capacity()) rebuildBloom();
+        return true;
+    }
+
+    public int size() {
+        return players.size();
+    }
+
+    public void forEach(Consumer<UUID> action) {
+        players.forEach(action);
+    }
+
+    private void rebuildBloom() {
+        BloomFilter bigger = new BloomFilter(players.size() * 2L, FALSE_POSITIVE_RATE);
+        players.forEach(bigger::put);
+        bloom = bigger;
+    }
+}
@@ -0,0 +1,48 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small bounded map that evicts the least recently used entry.
+ * <p>
+ * Backed by an access-ordered {@link LinkedHashMap}, so get, put and eviction are O(1). All methods
+ * synchronize on the instance; entries are meant to be tiny (e.g. name lookups), so the lock is held for
+ * a few pointer updates only.
+ */
+public final class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> map;
+    private final int capacity;
+
+    public LruCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.capacity;
+            }
+        };
+    }
+
+    /** @return the value, or null; a hit marks the entry as most recently used */
+    public synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    public synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+}
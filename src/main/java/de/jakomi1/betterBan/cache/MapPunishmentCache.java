@@ -0,0 +1,98 @@
+package de.jakomi1.betterBan.cache;
+
+import de.jakomi1.betterBan.database.PunishmentType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default {@link PunishmentCache}: a {@link ConcurrentHashMap} of immutable {@link PunishmentSet}s, one per player.
+ * Reads are lock-free and return the stored records themselves, so a hit doesn't allocate either.
+ */
+public final class MapPunishmentCache implements PunishmentCache {
+
+    private volatile ConcurrentHashMap<UUID, PunishmentSet> map = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Override
+    public PunishmentSet getAll(UUID uuid) {
+        PunishmentSet set = map.get(uuid);
+        return set != null ? set : PunishmentSet.EMPTY;
+    }
+
+    @Override
+    public void put(UUID uuid, PunishmentType type, Punishment punishment) {
+        map.compute(uuid, (key, set) -> {
+            if (set == null) set = PunishmentSet.EMPTY;
+            if (set.get(type) == null) size.incrementAndGet();
+            return set.with(type, punishment);
+        });
+    }
+
+    @Override
+    public Punishment remove(UUID uuid, PunishmentType type) {
+        Punishment[] removed = new Punishment[1];
+        map.computeIfPresent(uuid, (key, set) -> {
+            removed[0] = set.get(type);
+            return nullIfEmpty(set.without(type));
+        });
+        if (removed[0] != null) size.decrementAndGet();
+        return removed[0];
+    }
+
+    @Override
+    public boolean remove(UUID uuid, PunishmentType type, Punishment expected) {
+        boolean[] removed = new boolean[1];
+        map.computeIfPresent(uuid, (key, set) -> {
+            if (!expected.equals(set.get(type))) return set;
+            removed[0] = true;
+            return nullIfEmpty(set.without(type));
+        });
+        if (removed[0]) size.decrementAndGet();
+        return removed[0];
+    }
+
+    @Override
+    public void removeExpired(long now) {
+        forEach((uuid, type, punishment) -> {
+            if (punishment.isExpired(now)) remove(uuid, type, punishment);
+        });
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void forEach(EntryConsumer action) {
+        PunishmentType[] types = PunishmentType.values();
+        map.forEach((uuid, set) -> {
+            for (PunishmentType type : types) {
+                Punishment punishment = set.get(type);
+                if (punishment != null) action.accept(uuid, type, punishment);
+            }
+        });
+    }
+
+    @Override
+    public void replaceAll(Map<PunishmentKey, Punishment> snapshot) {
+        Map<UUID, Punishment[]> grouped = new HashMap<>();
+        int types = PunishmentType.values().length;
+        snapshot.forEach((key, punishment) ->
+                grouped.computeIfAbsent(key.uuid(), uuid -> new Punishment[types])[key.type().ordinal()] = punishment);
+
+        ConcurrentHashMap<UUID, PunishmentSet> fresh = new ConcurrentHashMap<>(Math.max(16, grouped.size() * 4 / 3 + 1));
+        grouped.forEach((uuid, punishments) -> fresh.put(uuid, PunishmentSet.wrap(punishments)));
+        // Not atomic together with the swap, only used for statistics and sizing
+        size.set(snapshot.size());
+        map = fresh;
+    }
+
+    private static PunishmentSet nullIfEmpty(PunishmentSet set) {
+        return set.isEmpty() ? null : set;
+    }
+}
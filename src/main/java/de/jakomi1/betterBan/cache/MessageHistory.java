@@ -0,0 +1,100 @@
+package de.jakomi1.betterBan.cache;
+
+/**
+ * The last few chat messages of one player as a fixed-size ring buffer of timestamps and content hashes.
+ * The text itself is never stored.
+ * <p>
+ * Both checks look at a constant number of slots, so {@link #record} is O(1) per message regardless of
+ * how much the player writes. Methods synchronize on the instance; only one player's chat thread uses it,
+ * so the lock is uncontended.
+ */
+public final class MessageHistory {
+
+    public enum Verdict {
+        OK,
+        /** Too many messages in the rate window. */
+        RATE,
+        /** The same (normalized) message too often in the duplicate window. */
+        DUPLICATE
+    }
+
+    private final long[] times;
+    private final long[] hashes;
+    private int next;
+    private int size;
+
+    public MessageHistory(int capacity) {
+        times = new long[Math.max(1, capacity)];
+        hashes = new long[times.length];
+    }
+
+    // ==============================================================
+
+    /**
+     * Adds a message and checks the limits, including the new message.
+     *
+     * @param hash          see {@link #hash}, 0 = too short to count as duplicate
+     * @param rateMessages  at most this many messages ...
+     * @param rateWindow    ... within this many millis
+     * @param dupMessages   at most this many equal messages ...
+     * @param dupWindow     ... within this many millis
+     */
+    public synchronized Verdict record(long now, long hash, int rateMessages, long rateWindow,
+                                       int dupMessages, long dupWindow) {
+        times[next] = now;
+        hashes[next] = hash;
+        next = (next + 1) % times.length;
+        if (size < times.length) size++;
+
+        // Rate: the message rateMessages back must be older than the window
+        if (rateMessages < size && rateMessages < times.length && now - timeAgo(rateMessages) < rateWindow) {
+            return Verdict.RATE;
+        }
+
+        if (hash != 0) {
+            int equal = 0;
+            for (int i = 0; i < size; i++) {
+                int slot = Math.floorMod(next - 1 - i, times.length);
+                if (now - times[slot] >= dupWindow) break;
+                if (hashes[slot] == hash && ++equal > dupMessages) return Verdict.DUPLICATE;
+            }
+        }
+        return Verdict.OK;
+    }
+
+    /** Forgets everything, e.g. after the player was punished. */
+    public synchronized void clear() {
+        size = 0;
+        next = 0;
+    }
+
+    // Timestamp of the n-th most recent message, 0 = latest
+    private long timeAgo(int n) {
+        return times[Math.floorMod(next - 1 - n, times.length)];
+    }
+
+    // ==============================================================
+
+    /**
+     * Polynomial hash over the letters of a message, lowercased, with runs of the same letter collapsed;
+     * digits, spaces and punctuation are ignored. "Buy gold!!! 123" and "buy goold 456" therefore hash the
+     * same. One pass, no allocation.
+     *
+     * @return 0 if the message has fewer than {@code minLetters} letters
+     */
+    public static long hash(CharSequence message, int minLetters) {
+        long hash = 1125899906842597L;
+        int letters = 0;
+        char previous = 0;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (!Character.isLetter(c)) continue;
+            c = Character.toLowerCase(c);
+            if (c == previous) continue;
+            previous = c;
+            hash = 31 * hash + c;
+            letters++;
+        }
+        return letters < minLetters || hash == 0 ? 0 : hash;
+    }
+}
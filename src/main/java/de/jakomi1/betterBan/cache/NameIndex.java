@@ -0,0 +1,101 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Case-insensitive, sorted name → UUID index for tab completion.
+ * <p>
+ * Names are kept in a {@link ConcurrentSkipListMap} keyed by the lowercase name, so a prefix query is a
+ * single O(log n) seek followed by reading at most {@code limit} neighbours, independent of the number of
+ * players. Updates are incremental and lock-free for readers.
+ * If two players carry the same name (one of them renamed since), the most recent {@link #put} wins.
+ */
+public final class NameIndex {
+
+    private record Entry(String name, UUID uuid) {}
+
+    private final ConcurrentSkipListMap<String, Entry> byName = new ConcurrentSkipListMap<>();
+    private final Map<UUID, String> byUuid = new ConcurrentHashMap<>();
+
+    public void put(UUID uuid, String name) {
+        if (name == null || name.isEmpty()) return;
+        String old = byUuid.put(uuid, name);
+        if (old != null && !old.equalsIgnoreCase(name)) removeName(old, uuid);
+        byName.put(key(name), new Entry(name, uuid));
+    }
+
+    public void remove(UUID uuid) {
+        String old = byUuid.remove(uuid);
+        if (old != null) removeName(old, uuid);
+    }
+
+    /** Removes every entry whose UUID matches {@code filter}. */
+    public void removeIf(Predicate<UUID> filter) {
+        for (UUID uuid : byUuid.keySet()) {
+            if (filter.test(uuid)) remove(uuid);
+        }
+    }
+
+    public void clear() {
+        byName.clear();
+        byUuid.clear();
+    }
+
+    public String getName(UUID uuid) {
+        return byUuid.get(uuid);
+    }
+
+    /** Exact, case-insensitive lookup. */
+    public UUID getUuid(String name) {
+        Entry entry = byName.get(key(name));
+        return entry != null ? entry.uuid() : null;
+    }
+
+    public int size() {
+        return byUuid.size();
+    }
+
+    public void forEach(BiConsumer<UUID, String> action) {
+        byUuid.forEach(action);
+    }
+
+    /**
+     * Up to {@code limit} names starting with {@code prefix} (ignoring case), in alphabetical order.
+     */
+    public List<String> complete(String prefix, int limit) {
+        return complete(prefix, limit, uuid -> true);
+    }
+
+    /**
+     * Like {@link #complete(String, int)}, but only names whose UUID passes {@code filter}.
+     */
+    public List<String> complete(String prefix, int limit, Predicate<UUID> filter) {
+        String lower = key(prefix);
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (Map.Entry<String, Entry> e : byName.tailMap(lower, true).entrySet()) {
+            if (!e.getKey().startsWith(lower) || result.size() >= limit) break;
+            if (filter.test(e.getValue().uuid())) result.add(e.getValue().name());
+        }
+        return result;
+    }
+
+    // ==============================================================
+
+    private void removeName(String name, UUID uuid) {
+        String k = key(name);
+        Entry entry = byName.get(k);
+        if (entry != null && entry.uuid().equals(uuid)) byName.remove(k, entry);
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
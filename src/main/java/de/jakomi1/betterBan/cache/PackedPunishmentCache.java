@@ -0,0 +1,435 @@
+package de.jakomi1.betterBan.cache;
+
+import de.jakomi1.betterBan.database.PunishmentType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link PunishmentCache} for very large ban lists (hundreds of thousands to millions of entries).
+ * <p>
+ * Players live in parallel primitive arrays (UUID most/least significant bits, a bitmask of the present
+ * punishment types and, per type, end timestamp and reason id) with open addressing and linear probing,
+ * so there is no per-entry object on the heap and all punishments of a player are found with one probe.
+ * Reasons are deduplicated in a reference-counted pool, which matters for imported lists where thousands
+ * of bans share the same handful of reasons.
+ * <p>
+ * Writes take a {@link StampedLock} write lock. Reads are optimistic: they probe without locking and
+ * only fall back to a read lock if a write happened in between. A hit allocates the returned records,
+ * a miss allocates nothing.
+ * <p>
+ * Retained heap with 32 distinct reasons, bans only, each row's reason a separate String as it comes from
+ * JDBC (JDK 17, compressed oops, two punishment types), {@link MapPunishmentCache} vs packed:
+ * 10k: 1.6 MB vs 1.4 MB, 100k: 16.3 MB vs 10.8 MB, 1M: 160 MB vs 86 MB.
+ */
+public final class PackedPunishmentCache implements PunishmentCache {
+
+    private static final PunishmentType[] TYPES = PunishmentType.values();
+    private static final int STRIDE = TYPES.length;
+    private static final int NO_REASON = -1;
+    private static final int MIN_CAPACITY = 16;
+    private static final double MAX_LOAD = 0.6;
+
+    private static final class Table {
+        final long[] msb;
+        final long[] lsb;
+        // Bit per PunishmentType ordinal (at most 8 types), 0 = free slot
+        final byte[] present;
+        // STRIDE entries per slot
+        final long[] end;
+        final int[] reason;
+        final int mask;
+
+        Table(int capacity) {
+            msb = new long[capacity];
+            lsb = new long[capacity];
+            present = new byte[capacity];
+            end = new long[capacity * STRIDE];
+            reason = new int[capacity * STRIDE];
+            mask = capacity - 1;
+            Arrays.fill(reason, NO_REASON);
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private Table table = new Table(MIN_CAPACITY);
+    private ReasonPool reasons = new ReasonPool();
+    // Occupied slots (players) and entries over all types
+    private int slots;
+    private int size;
+
+    // ==============================================================
+
+    @Override
+    public PunishmentSet getAll(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            Table t = table;
+            String[] strings = reasons.strings;
+            int slot = find(t, msb, lsb);
+            if (slot < 0) {
+                if (lock.validate(stamp)) return PunishmentSet.EMPTY;
+            } else {
+                Punishment[] punishments = read(t, slot, strings);
+                if (lock.validate(stamp)) return PunishmentSet.wrap(punishments);
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            int slot = find(table, msb, lsb);
+            if (slot < 0) return PunishmentSet.EMPTY;
+            return PunishmentSet.wrap(read(table, slot, reasons.strings));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Punishment get(UUID uuid, PunishmentType type) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        int bit = 1 << type.ordinal();
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            Table t = table;
+            String[] strings = reasons.strings;
+            int slot = find(t, msb, lsb);
+            boolean hit = slot >= 0 && (t.present[slot] & bit) != 0;
+            int idx = hit ? slot * STRIDE + type.ordinal() : -1;
+            long end = hit ? t.end[idx] : 0L;
+            int reasonId = hit ? t.reason[idx] : NO_REASON;
+            String reason = reasonId >= 0 && reasonId < strings.length ? strings[reasonId] : null;
+            if (lock.validate(stamp)) {
+                return hit ? new Punishment(end, reason) : null;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            int slot = find(table, msb, lsb);
+            if (slot < 0 || (table.present[slot] & bit) == 0) return null;
+            int idx = slot * STRIDE + type.ordinal();
+            return new Punishment(table.end[idx], reasons.get(table.reason[idx]));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void put(UUID uuid, PunishmentType type, Punishment punishment) {
+        long stamp = lock.writeLock();
+        try {
+            putLocked(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), type.ordinal(), punishment);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Punishment remove(UUID uuid, PunishmentType type) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(table, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            if (slot < 0 || (table.present[slot] & (1 << type.ordinal())) == 0) return null;
+            int idx = slot * STRIDE + type.ordinal();
+            Punishment old = new Punishment(table.end[idx], reasons.get(table.reason[idx]));
+            removeEntry(slot, type.ordinal());
+            return old;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(UUID uuid, PunishmentType type, Punishment expected) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(table, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            if (slot < 0 || (table.present[slot] & (1 << type.ordinal())) == 0) return false;
+            int idx = slot * STRIDE + type.ordinal();
+            if (!expected.equals(new Punishment(table.end[idx], reasons.get(table.reason[idx])))) return false;
+            removeEntry(slot, type.ordinal());
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void removeExpired(long now) {
+        long stamp = lock.writeLock();
+        try {
+            Table t = table;
+            long[] expiredMsb = new long[size];
+            long[] expiredLsb = new long[size];
+            int[] expiredType = new int[size];
+            int count = 0;
+            for (int i = 0; i < t.capacity(); i++) {
+                if (t.present[i] == 0) continue;
+                for (int type = 0; type < STRIDE; type++) {
+                    long end = t.end[i * STRIDE + type];
+                    if ((t.present[i] & (1 << type)) != 0 && end != Punishment.PERMANENT && end <= now) {
+                        expiredMsb[count] = t.msb[i];
+                        expiredLsb[count] = t.lsb[i];
+                        expiredType[count] = type;
+                        count++;
+                    }
+                }
+            }
+            // Removing shifts entries, so collect first and delete afterwards
+            for (int i = 0; i < count; i++) {
+                int slot = find(table, expiredMsb[i], expiredLsb[i]);
+                if (slot >= 0) removeEntry(slot, expiredType[i]);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void forEach(EntryConsumer action) {
+        // Copy under the read lock, call the action without it (it may write back into the cache)
+        UUID[] keys;
+        PunishmentType[] types;
+        Punishment[] values;
+        long stamp = lock.readLock();
+        try {
+            Table t = table;
+            keys = new UUID[size];
+            types = new PunishmentType[size];
+            values = new Punishment[size];
+            int n = 0;
+            for (int i = 0; i < t.capacity(); i++) {
+                if (t.present[i] == 0) continue;
+                UUID uuid = new UUID(t.msb[i], t.lsb[i]);
+                for (int type = 0; type < STRIDE; type++) {
+                    if ((t.present[i] & (1 << type)) == 0) continue;
+                    int idx = i * STRIDE + type;
+                    keys[n] = uuid;
+                    types[n] = TYPES[type];
+                    values[n] = new Punishment(t.end[idx], reasons.get(t.reason[idx]));
+                    n++;
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        for (int i = 0; i < keys.length; i++) action.accept(keys[i], types[i], values[i]);
+    }
+
+    @Override
+    public void replaceAll(Map<PunishmentKey, Punishment> snapshot) {
+        long stamp = lock.writeLock();
+        try {
+            // Sized for one type per player; grows if players have several
+            table = new Table(capacityFor(snapshot.size()));
+            reasons = new ReasonPool();
+            slots = 0;
+            size = 0;
+            for (Map.Entry<PunishmentKey, Punishment> entry : snapshot.entrySet()) {
+                UUID uuid = entry.getKey().uuid();
+                putLocked(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(),
+                        entry.getKey().type().ordinal(), entry.getValue());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // ==============================================================
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static int capacityFor(int entries) {
+        int needed = (int) Math.ceil(Math.max(entries, 1) / MAX_LOAD);
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, needed));
+        return capacity < needed ? capacity << 1 : capacity;
+    }
+
+    /**
+     * Slot of the key or -1. Bounded by the capacity so a torn optimistic read can't loop forever.
+     */
+    private static int find(Table t, long msb, long lsb) {
+        int mask = t.mask;
+        int idx = hash(msb, lsb) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            if (t.present[idx] == 0) return -1;
+            if (t.msb[idx] == msb && t.lsb[idx] == lsb) return idx;
+            idx = (idx + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Entries of one slot, indexed by type. May be torn during an optimistic read; the caller validates. */
+    private static Punishment[] read(Table t, int slot, String[] strings) {
+        Punishment[] punishments = new Punishment[STRIDE];
+        int present = t.present[slot];
+        for (int type = 0; type < STRIDE; type++) {
+            if ((present & (1 << type)) == 0) continue;
+            int idx = slot * STRIDE + type;
+            int reasonId = t.reason[idx];
+            String reason = reasonId >= 0 && reasonId < strings.length ? strings[reasonId] : null;
+            punishments[type] = new Punishment(t.end[idx], reason);
+        }
+        return punishments;
+    }
+
+    private void putLocked(long msb, long lsb, int type, Punishment punishment) {
+        int slot = find(table, msb, lsb);
+        if (slot < 0) {
+            if (slots + 1 > table.capacity() * MAX_LOAD) resize(table.capacity() << 1);
+            Table t = table;
+            slot = hash(msb, lsb) & t.mask;
+            while (t.present[slot] != 0) slot = (slot + 1) & t.mask;
+            t.msb[slot] = msb;
+            t.lsb[slot] = lsb;
+            slots++;
+        }
+
+        Table t = table;
+        int idx = slot * STRIDE + type;
+        int newReason = reasons.acquire(punishment.reason());
+        if ((t.present[slot] & (1 << type)) != 0) {
+            reasons.release(t.reason[idx]);
+        } else {
+            size++;
+        }
+        t.reason[idx] = newReason;
+        t.end[idx] = punishment.endTimestamp();
+        t.present[slot] |= (byte) (1 << type);
+    }
+
+    private void resize(int capacity) {
+        Table old = table;
+        Table t = new Table(capacity);
+        for (int i = 0; i < old.capacity(); i++) {
+            if (old.present[i] == 0) continue;
+            int idx = hash(old.msb[i], old.lsb[i]) & t.mask;
+            while (t.present[idx] != 0) idx = (idx + 1) & t.mask;
+            copySlot(old, i, t, idx);
+        }
+        table = t;
+    }
+
+    private static void copySlot(Table from, int src, Table to, int dst) {
+        to.msb[dst] = from.msb[src];
+        to.lsb[dst] = from.lsb[src];
+        to.present[dst] = from.present[src];
+        System.arraycopy(from.end, src * STRIDE, to.end, dst * STRIDE, STRIDE);
+        System.arraycopy(from.reason, src * STRIDE, to.reason, dst * STRIDE, STRIDE);
+    }
+
+    /** Removes one type of a slot; frees the slot once no type is left. */
+    private void removeEntry(int slot, int type) {
+        Table t = table;
+        int idx = slot * STRIDE + type;
+        reasons.release(t.reason[idx]);
+        t.reason[idx] = NO_REASON;
+        t.end[idx] = 0L;
+        t.present[slot] &= (byte) ~(1 << type);
+        size--;
+        if (t.present[slot] == 0) removeSlot(slot);
+    }
+
+    /** Backward-shift deletion, keeps probe chains intact without tombstones. */
+    private void removeSlot(int slot) {
+        Table t = table;
+        int mask = t.mask;
+        int hole = slot;
+        int j = slot;
+        while (true) {
+            j = (j + 1) & mask;
+            if (t.present[j] == 0) break;
+            int home = hash(t.msb[j], t.lsb[j]) & mask;
+            // Entry at j may only move into the hole if its home slot is not cyclically in (hole, j]
+            boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (stays) continue;
+            copySlot(t, j, t, hole);
+            hole = j;
+        }
+        t.msb[hole] = 0L;
+        t.lsb[hole] = 0L;
+        t.present[hole] = 0;
+        Arrays.fill(t.end, hole * STRIDE, hole * STRIDE + STRIDE, 0L);
+        Arrays.fill(t.reason, hole * STRIDE, hole * STRIDE + STRIDE, NO_REASON);
+        slots--;
+    }
+
+    // ==============================================================
+
+    /**
+     * Reference-counted, deduplicated reason strings. Only mutated under the write lock.
+     */
+    private static final class ReasonPool {
+        private final Map<String, Integer> ids = new HashMap<>();
+        String[] strings = new String[16];
+        private int[] refs = new int[16];
+        private int[] free = new int[16];
+        private int freeCount;
+        private int next;
+
+        String get(int id) {
+            return id >= 0 ? strings[id] : null;
+        }
+
+        int acquire(String reason) {
+            if (reason == null) return NO_REASON;
+            Integer existing = ids.get(reason);
+            if (existing != null) {
+                refs[existing]++;
+                return existing;
+            }
+
+            int id;
+            if (freeCount > 0) {
+                id = free[--freeCount];
+            } else {
+                id = next++;
+                if (id == strings.length) {
+                    strings = Arrays.copyOf(strings, id << 1);
+                    refs = Arrays.copyOf(refs, id << 1);
+                }
+            }
+            strings[id] = reason;
+            refs[id] = 1;
+            ids.put(reason, id);
+            return id;
+        }
+
+        void release(int id) {
+            if (id < 0 || --refs[id] > 0) return;
+            ids.remove(strings[id]);
+            strings[id] = null;
+            if (freeCount == free.length) free = Arrays.copyOf(free, freeCount << 1);
+            free[freeCount++] = id;
+        }
+    }
+}
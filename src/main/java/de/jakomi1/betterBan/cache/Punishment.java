@@ -0,0 +1,32 @@
+package de.jakomi1.betterBan.cache;
+
+/**
+ * Immutable snapshot of one active punishment (ban or chat-ban).
+ * An end timestamp of -1 means permanent.
+ */
+public record Punishment(long endTimestamp, String reason) {
+
+    public static final long PERMANENT = -1L;
+
+    public boolean isPermanent() {
+        return endTimestamp == PERMANENT;
+    }
+
+    public boolean isActive(long now) {
+        return endTimestamp == PERMANENT || now < endTimestamp;
+    }
+
+    public boolean isExpired(long now) {
+        return !isActive(now);
+    }
+
+    /** Remaining time in milliseconds, 0 if expired, {@link Long#MAX_VALUE} if permanent. */
+    public long remainingMillis(long now) {
+        if (isPermanent()) return Long.MAX_VALUE;
+        return Math.max(0L, endTimestamp - now);
+    }
+
+    public boolean hasReason() {
+        return reason != null && !reason.isBlank();
+    }
+}
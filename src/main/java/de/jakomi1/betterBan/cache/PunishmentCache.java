@@ -0,0 +1,69 @@
+package de.jakomi1.betterBan.cache;
+
+import de.jakomi1.betterBan.database.PunishmentType;
+import de.jakomi1.betterBan.utils.ConfigUtils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Thread-safe (UUID, {@link PunishmentType}) -> {@link Punishment} cache holding every punishment type.
+ * <p>
+ * Written from the main thread (commands) and read concurrently from the async login / chat threads.
+ * Reads never block and return immutable records, so callers get a consistent view of end timestamp
+ * and reason with a single probe. {@link #getAll} returns every punishment of a player at once; the
+ * not-punished case returns {@link PunishmentSet#EMPTY} / null without allocating.
+ * <p>
+ * Implementation is selected via {@code cache.implementation} in config.yml:
+ * - map (default): {@link MapPunishmentCache}
+ * - packed: {@link PackedPunishmentCache}, primitive arrays for very large ban lists
+ */
+public interface PunishmentCache {
+
+    /** Callback for iterating over all entries. */
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(UUID uuid, PunishmentType type, Punishment punishment);
+    }
+
+    static PunishmentCache create() {
+        return switch (ConfigUtils.getCacheImplementation().toLowerCase(Locale.ROOT)) {
+            case "packed" -> new PackedPunishmentCache();
+            default -> new MapPunishmentCache();
+        };
+    }
+
+    /** Every punishment of the player, never null. */
+    PunishmentSet getAll(UUID uuid);
+
+    /** Raw entry, may already be expired. */
+    default Punishment get(UUID uuid, PunishmentType type) {
+        return getAll(uuid).get(type);
+    }
+
+    /** Entry if it is still active at {@code now}, otherwise null. */
+    default Punishment getActive(UUID uuid, PunishmentType type, long now) {
+        Punishment punishment = get(uuid, type);
+        return punishment != null && punishment.isActive(now) ? punishment : null;
+    }
+
+    void put(UUID uuid, PunishmentType type, Punishment punishment);
+
+    Punishment remove(UUID uuid, PunishmentType type);
+
+    /** Removes the entry only if it is still mapped to an equal record. */
+    boolean remove(UUID uuid, PunishmentType type, Punishment expected);
+
+    void removeExpired(long now);
+
+    /** Number of entries over all types. */
+    int size();
+
+    void forEach(EntryConsumer action);
+
+    /**
+     * Atomically swaps in a freshly loaded snapshot; readers see either the old or the new contents.
+     */
+    void replaceAll(Map<PunishmentKey, Punishment> snapshot);
+}
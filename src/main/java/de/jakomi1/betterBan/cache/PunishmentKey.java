@@ -0,0 +1,10 @@
+package de.jakomi1.betterBan.cache;
+
+import de.jakomi1.betterBan.database.PunishmentType;
+
+import java.util.UUID;
+
+/**
+ * Identifies one punishment: a player can have at most one of each type at a time.
+ */
+public record PunishmentKey(UUID uuid, PunishmentType type) {}
@@ -0,0 +1,124 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * The punishments of one type in list order, for /banlist and /chatbanlist.
+ * <p>
+ * Every entry sits in one sorted set per {@link Sort}, maintained on each write, so a page is a seek
+ * behind the last entry of the previous page (keyset pagination) followed by reading {@code limit}
+ * entries, independent of the total number of punishments. Writers synchronize on the instance; readers
+ * don't lock and may see a write half-applied, which at worst moves one entry between pages.
+ */
+public final class PunishmentListIndex {
+
+    public enum Sort {
+        /** Ending soonest first, permanent last. */
+        EXPIRY,
+        /** Alphabetical, ignoring case. */
+        NAME,
+        /** Newest first. */
+        CREATED
+    }
+
+    /**
+     * @param name      display name, the UUID if the player is unknown
+     * @param createdAt epoch millis, 0 if not known (yet)
+     */
+    public record Entry(UUID uuid, String name, Punishment punishment, long createdAt) {
+
+        private long expirySortKey() {
+            return punishment.isPermanent() ? Long.MAX_VALUE : punishment.endTimestamp();
+        }
+    }
+
+    private static final Comparator<Entry> BY_EXPIRY = Comparator.comparingLong(Entry::expirySortKey)
+            .thenComparing(Entry::uuid);
+    // Compares without lowercasing copies; this runs ~20 times per insert
+    private static final Comparator<Entry> BY_NAME = Comparator.comparing(Entry::name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Entry::uuid);
+    private static final Comparator<Entry> BY_CREATED = Comparator.comparingLong(Entry::createdAt).reversed()
+            .thenComparing(Entry::uuid);
+
+    private final Map<UUID, Entry> byUuid = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> byExpiry = new ConcurrentSkipListSet<>(BY_EXPIRY);
+    private final ConcurrentSkipListSet<Entry> byName = new ConcurrentSkipListSet<>(BY_NAME);
+    private final ConcurrentSkipListSet<Entry> byCreated = new ConcurrentSkipListSet<>(BY_CREATED);
+
+    // ==============================================================
+
+    /** Adds or replaces the entry of {@code uuid}. */
+    public synchronized void put(UUID uuid, String name, Punishment punishment, long createdAt) {
+        replace(new Entry(uuid, name != null ? name : uuid.toString(), punishment, createdAt));
+    }
+
+    /** Adds the entry unless {@code uuid} is already listed. */
+    public synchronized void putIfAbsent(UUID uuid, String name, Punishment punishment, long createdAt) {
+        if (!byUuid.containsKey(uuid)) put(uuid, name, punishment, createdAt);
+    }
+
+    public synchronized void remove(UUID uuid) {
+        Entry old = byUuid.remove(uuid);
+        if (old != null) unlink(old);
+    }
+
+    public synchronized void rename(UUID uuid, String name) {
+        Entry old = byUuid.get(uuid);
+        if (old != null && !old.name().equals(name)) {
+            replace(new Entry(uuid, name, old.punishment(), old.createdAt()));
+        }
+    }
+
+    public synchronized void clear() {
+        byUuid.clear();
+        byExpiry.clear();
+        byName.clear();
+        byCreated.clear();
+    }
+
+    private void replace(Entry entry) {
+        Entry old = byUuid.put(entry.uuid(), entry);
+        if (old != null) unlink(old);
+        byExpiry.add(entry);
+        byName.add(entry);
+        byCreated.add(entry);
+    }
+
+    private void unlink(Entry entry) {
+        byExpiry.remove(entry);
+        byName.remove(entry);
+        byCreated.remove(entry);
+    }
+
+    // ==============================================================
+
+    public int size() {
+        return byUuid.size();
+    }
+
+    /**
+     * Up to {@code limit} entries matching {@code filter} in the given order, starting right behind
+     * {@code after} (null = from the start). {@code after} doesn't have to be in the index anymore.
+     */
+    public List<Entry> page(Sort sort, Entry after, int limit, Predicate<Entry> filter) {
+        NavigableSet<Entry> set = switch (sort) {
+            case EXPIRY -> byExpiry;
+            case NAME -> byName;
+            case CREATED -> byCreated;
+        };
+        List<Entry> result = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : after == null ? set : set.tailSet(after, false)) {
+            if (result.size() >= limit) break;
+            if (filter.test(entry)) result.add(entry);
+        }
+        return result;
+    }
+}
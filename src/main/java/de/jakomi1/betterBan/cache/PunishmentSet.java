@@ -0,0 +1,83 @@
+package de.jakomi1.betterBan.cache;
+
+import de.jakomi1.betterBan.database.PunishmentType;
+
+import java.util.Arrays;
+
+/**
+ * Immutable view of every punishment of one player, indexed by {@link PunishmentType}.
+ * Returned by {@link PunishmentCache#getAll}, so a single cache probe answers "is this player banned,
+ * chat-banned, ...". Entries may already be expired, use {@link #getActive}.
+ */
+public final class PunishmentSet {
+
+    private static final PunishmentType[] TYPES = PunishmentType.values();
+
+    /** Shared instance for players without any punishment. */
+    public static final PunishmentSet EMPTY = new PunishmentSet(new Punishment[TYPES.length]);
+
+    private final Punishment[] punishments;
+
+    private PunishmentSet(Punishment[] punishments) {
+        this.punishments = punishments;
+    }
+
+    /** Builds a set from an array indexed by {@link PunishmentType#ordinal()}; the array is not copied. */
+    static PunishmentSet wrap(Punishment[] punishments) {
+        for (Punishment punishment : punishments) {
+            if (punishment != null) return new PunishmentSet(punishments);
+        }
+        return EMPTY;
+    }
+
+    /** Raw entry of the given type, may already be expired. */
+    public Punishment get(PunishmentType type) {
+        return punishments[type.ordinal()];
+    }
+
+    /** Entry of the given type if it is still active at {@code now}, otherwise null. */
+    public Punishment getActive(PunishmentType type, long now) {
+        Punishment punishment = punishments[type.ordinal()];
+        return punishment != null && punishment.isActive(now) ? punishment : null;
+    }
+
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    /** Number of entries (expired ones included). */
+    public int size() {
+        int size = 0;
+        for (Punishment punishment : punishments) {
+            if (punishment != null) size++;
+        }
+        return size;
+    }
+
+    /** Copy with the entry of {@code type} replaced; a null punishment removes it. */
+    public PunishmentSet with(PunishmentType type, Punishment punishment) {
+        if (punishments[type.ordinal()] == punishment) return this;
+        Punishment[] copy = punishments.clone();
+        copy[type.ordinal()] = punishment;
+        return wrap(copy);
+    }
+
+    public PunishmentSet without(PunishmentType type) {
+        return with(type, null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PunishmentSet other && Arrays.equals(punishments, other.punishments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(punishments);
+    }
+
+    @Override
+    public String toString() {
+        return "PunishmentSet" + Arrays.toString(punishments);
+    }
+}
@@ -0,0 +1,78 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by a long (e.g. an address or subnet prefix), bounded in size.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding its "theoretical arrival time" (GCRA): a request is
+ * allowed if the bucket would not run more than {@code burst} intervals ahead of now, and is then pushed one
+ * interval further with one CAS. There are no locks on the hot path and no per-bucket token arithmetic.
+ * <p>
+ * A bucket whose arrival time lies in the past is full again and therefore equivalent to a missing one;
+ * {@link #evictIdle} drops those. New keys are not tracked while the table is full.
+ */
+public final class RateLimiter {
+
+    public enum Result {
+        ALLOWED,
+        LIMITED,
+        /** The table is full, the key couldn't be tracked. */
+        UNTRACKED
+    }
+
+    private final ConcurrentHashMap<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    // ==============================================================
+
+    /**
+     * Takes one token from the bucket of {@code key}.
+     *
+     * @param now        {@link System#nanoTime()}
+     * @param interval   nanos until one token is refilled
+     * @param burst      bucket capacity, at least 1
+     * @param maxEntries upper bound for the number of buckets (may be exceeded by concurrent inserts)
+     */
+    public Result tryAcquire(long key, long now, long interval, int burst, int maxEntries) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxEntries) return Result.UNTRACKED;
+            // A fresh bucket is full: the first request leaves burst - 1 tokens
+            AtomicLong created = new AtomicLong(now + interval);
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) return Result.ALLOWED;
+        }
+        return tryAcquire(bucket, now, interval, burst) ? Result.ALLOWED : Result.LIMITED;
+    }
+
+    /**
+     * Takes one token from a single bucket, e.g. a global one.
+     *
+     * @param bucket theoretical arrival time in nanos; initialize with {@code System.nanoTime()}
+     */
+    public static boolean tryAcquire(AtomicLong bucket, long now, long interval, int burst) {
+        long limit = (long) burst * interval;
+        while (true) {
+            long tat = bucket.get();
+            long next = (tat - now < 0 ? now : tat) + interval;
+            if (next - now > limit) return false;
+            if (bucket.compareAndSet(tat, next)) return true;
+        }
+    }
+
+    /**
+     * Removes every bucket that is full again. A request racing with the removal may get one extra token.
+     *
+     * @return number of removed buckets
+     */
+    public int evictIdle(long now) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return Math.max(0, before - buckets.size());
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,162 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Exact set of UUIDs stored as two primitive long arrays (open addressing, linear probing).
+ * Roughly 16 bytes per slot instead of a boxed {@code UUID} plus hash node per entry.
+ * Reads are optimistic (see {@link PackedPunishmentCache}), writes take a write lock.
+ * Entries can't be removed.
+ */
+public final class UuidSet {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final double MAX_LOAD = 0.6;
+
+    private static final class Table {
+        final long[] msb;
+        final long[] lsb;
+        // Marks occupied slots, so the all-zero UUID is a valid key
+        final boolean[] used;
+        final int mask;
+
+        Table(int capacity) {
+            msb = new long[capacity];
+            lsb = new long[capacity];
+            used = new boolean[capacity];
+            mask = capacity - 1;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private Table table;
+    private int size;
+
+    public UuidSet() {
+        this(0);
+    }
+
+    public UuidSet(int expectedEntries) {
+        table = new Table(capacityFor(expectedEntries));
+    }
+
+    public boolean contains(UUID uuid) {
+        long m = uuid.getMostSignificantBits();
+        long l = uuid.getLeastSignificantBits();
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            boolean found = find(table, m, l) >= 0;
+            if (lock.validate(stamp)) return found;
+        }
+        stamp = lock.readLock();
+        try {
+            return find(table, m, l) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** @return true if the UUID was not yet in the set */
+    public boolean add(UUID uuid) {
+        long m = uuid.getMostSignificantBits();
+        long l = uuid.getLeastSignificantBits();
+
+        long stamp = lock.writeLock();
+        try {
+            if (size + 1 > table.capacity() * MAX_LOAD) resize(table.capacity() << 1);
+            Table t = table;
+            int idx = hash(m, l) & t.mask;
+            while (t.used[idx]) {
+                if (t.msb[idx] == m && t.lsb[idx] == l) return false;
+                idx = (idx + 1) & t.mask;
+            }
+            t.msb[idx] = m;
+            t.lsb[idx] = l;
+            t.used[idx] = true;
+            size++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Iterates a copy, so the action may call back into the set. */
+    public void forEach(Consumer<UUID> action) {
+        long[] m;
+        long[] l;
+        long stamp = lock.readLock();
+        try {
+            Table t = table;
+            m = new long[size];
+            l = new long[size];
+            int n = 0;
+            for (int i = 0; i < t.capacity(); i++) {
+                if (!t.used[i]) continue;
+                m[n] = t.msb[i];
+                l[n] = t.lsb[i];
+                n++;
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        for (int i = 0; i < m.length; i++) action.accept(new UUID(m[i], l[i]));
+    }
+
+    // ==============================================================
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static int capacityFor(int entries) {
+        int needed = (int) Math.ceil(Math.max(entries, 1) / MAX_LOAD);
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, needed));
+        return capacity < needed ? capacity << 1 : capacity;
+    }
+
+    /** Bounded by the capacity so a torn optimistic read can't loop forever. */
+    private static int find(Table t, long m, long l) {
+        int mask = t.mask;
+        int idx = hash(m, l) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            if (!t.used[idx]) return -1;
+            if (t.msb[idx] == m && t.lsb[idx] == l) return idx;
+            idx = (idx + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        Table old = table;
+        Table t = new Table(capacity);
+        for (int i = 0; i < old.capacity(); i++) {
+            if (!old.used[i]) continue;
+            int idx = hash(old.msb[i], old.lsb[i]) & t.mask;
+            while (t.used[idx]) idx = (idx + 1) & t.mask;
+            t.msb[idx] = old.msb[i];
+            t.lsb[idx] = old.lsb[i];
+            t.used[idx] = true;
+        }
+        table = t;
+    }
+}
@@ -0,0 +1,263 @@
+package de.jakomi1.betterBan.cache;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Blocked words compiled into an Aho-Corasick automaton.
+ * <p>
+ * Messages and words are normalized the same way before matching: lowercase, accents and leetspeak folded
+ * to letters (0 -> o, 4 -> a, @ -> a, $ -> s, ...), punctuation skipped ("b.a.d" is "bad") and whitespace
+ * kept as a single separator. A repeated letter in a message is absorbed unless the word being matched
+ * continues with the same letter, so "baaad" matches "bad" and "ass" does not shrink to "as" (which would hit
+ * "has"). Words match anywhere in the message, not only at word boundaries.
+ * <p>
+ * The automaton is a complete transition table, so {@link #scan} is one array lookup per character and
+ * allocates nothing. Instances are immutable; a new word list means a new instance.
+ */
+public final class WordFilter {
+
+    /** What happens on a match, in ascending severity. */
+    public enum Action {
+        /** The word is replaced by asterisks. */
+        CENSOR,
+        /** The message is not sent. */
+        BLOCK,
+        /** The message is not sent and the player gets a strike. */
+        STRIKE
+    }
+
+    public static final WordFilter EMPTY = compile(Map.of());
+
+    // a-z, 0-9 (digits without a leetspeak meaning), space
+    private static final int ALPHABET = 26 + 10 + 1;
+    private static final int SPACE = ALPHABET - 1;
+    private static final int SKIP = -1;
+    private static final Action[] ACTIONS = Action.values();
+
+    // Symbol for each char below 256, see normalize()
+    private static final byte[] SYMBOLS = new byte[256];
+
+    static {
+        Arrays.fill(SYMBOLS, (byte) SKIP);
+        for (char c = 'a'; c <= 'z'; c++) {
+            SYMBOLS[c] = (byte) (c - 'a');
+            SYMBOLS[Character.toUpperCase(c)] = (byte) (c - 'a');
+        }
+        for (char c = '0'; c <= '9'; c++) SYMBOLS[c] = (byte) (26 + c - '0');
+        // Leetspeak
+        fold("0", 'o');
+        fold("1!|", 'i');
+        fold("3", 'e');
+        fold("4@", 'a');
+        fold("5$", 's');
+        fold("7+", 't');
+        fold("8", 'b');
+        fold("9", 'g');
+        // Latin-1 accents
+        fold("ÀÁÂÃÄÅàáâãäå", 'a');
+        fold("Çç", 'c');
+        fold("ÈÉÊËèéêë", 'e');
+        fold("ÌÍÎÏìíîï", 'i');
+        fold("Ññ", 'n');
+        fold("ÒÓÔÕÖØòóôõöø", 'o');
+        fold("ÙÚÛÜùúûü", 'u');
+        fold("Ýýÿ", 'y');
+        SYMBOLS[' '] = SPACE;
+        SYMBOLS['\t'] = SPACE;
+    }
+
+    private static void fold(String chars, char letter) {
+        for (int i = 0; i < chars.length(); i++) SYMBOLS[chars.charAt(i)] = (byte) (letter - 'a');
+    }
+
+    // next[state * ALPHABET + symbol], complete: failure links are already resolved
+    private final int[] next;
+    // Most severe action of all words ending in this state (ordinal + 1, 0 = none)
+    private final byte[] action;
+    // Length in symbols of the longest word ending in this state, 0 = none
+    private final int[] matchLength;
+    // Length of the prefix a state stands for
+    private final int[] depth;
+    private final int words;
+
+    private WordFilter(int[] next, byte[] action, int[] matchLength, int[] depth, int words) {
+        this.next = next;
+        this.action = action;
+        this.matchLength = matchLength;
+        this.depth = depth;
+        this.words = words;
+    }
+
+    // ==============================================================
+
+    /**
+     * Builds the automaton. Words that are empty after normalization are ignored; if a word occurs twice
+     * the more severe action wins.
+     */
+    public static WordFilter compile(Map<String, Action> entries) {
+        // Trie with goto table, grown on demand
+        int capacity = 64;
+        int[] next = new int[capacity * ALPHABET];
+        Arrays.fill(next, -1);
+        byte[] action = new byte[capacity];
+        int[] depth = new int[capacity];
+        int states = 1;
+        int words = 0;
+
+        for (Map.Entry<String, Action> entry : entries.entrySet()) {
+            String word = entry.getKey();
+            int state = 0;
+            int previous = SKIP;
+            int length = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int symbol = normalize(word.charAt(i));
+                if (symbol == SKIP || (symbol == SPACE && (previous == SPACE || length == 0))) continue;
+                previous = symbol;
+
+                int target = next[state * ALPHABET + symbol];
+                if (target < 0) {
+                    if (states == capacity) {
+                        capacity *= 2;
+                        int oldLength = next.length;
+                        next = Arrays.copyOf(next, capacity * ALPHABET);
+                        Arrays.fill(next, oldLength, next.length, -1);
+                        action = Arrays.copyOf(action, capacity);
+                        depth = Arrays.copyOf(depth, capacity);
+                    }
+                    target = states++;
+                    next[state * ALPHABET + symbol] = target;
+                    depth[target] = length + 1;
+                }
+                state = target;
+                length++;
+            }
+            if (length == 0) continue;
+            byte severity = (byte) (entry.getValue().ordinal() + 1);
+            if (action[state] == 0) words++;
+            if (severity > action[state]) action[state] = severity;
+        }
+
+        // BFS: failure links turn the trie into a complete automaton
+        int[] fail = new int[states];
+        int[] matchLength = new int[states];
+        int[] table = Arrays.copyOf(next, states * ALPHABET);
+        byte[] actions = Arrays.copyOf(action, states);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int child = table[symbol];
+            if (child < 0) {
+                table[symbol] = 0;
+            } else {
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (actions[state] != 0) matchLength[state] = depth[state];
+            // Words ending at a suffix of this state also end here
+            if (actions[fail[state]] > actions[state]) actions[state] = actions[fail[state]];
+            if (matchLength[state] == 0) matchLength[state] = matchLength[fail[state]];
+
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int child = table[state * ALPHABET + symbol];
+                int fallback = table[fail[state] * ALPHABET + symbol];
+                if (child < 0) {
+                    table[state * ALPHABET + symbol] = fallback;
+                } else {
+                    fail[child] = fallback;
+                    queue.add(child);
+                }
+            }
+        }
+        return new WordFilter(table, actions, matchLength, Arrays.copyOf(depth, states), words);
+    }
+
+    /** Symbol of a char after case, accent and leetspeak folding, or -1 if it is skipped. */
+    static int normalize(char c) {
+        if (c < 256) return SYMBOLS[c];
+        if (Character.isWhitespace(c)) return SPACE;
+        char lower = Character.toLowerCase(c);
+        return lower < 256 ? SYMBOLS[lower] : SKIP;
+    }
+
+    // ==============================================================
+
+    /** Number of distinct words. */
+    public int size() {
+        return words;
+    }
+
+    /**
+     * The most severe action of any word in the message, or null if there is none.
+     * Single pass, no allocation.
+     */
+    public Action scan(CharSequence message) {
+        if (words == 0) return null;
+        int state = 0;
+        int previous = SKIP;
+        int worst = 0;
+        for (int i = 0; i < message.length(); i++) {
+            int symbol = normalize(message.charAt(i));
+            if (symbol == SKIP) continue;
+            int target = next[state * ALPHABET + symbol];
+            // A repeated letter is absorbed unless the word continues with the same letter
+            if (symbol == previous && depth[target] <= depth[state]) continue;
+            previous = symbol;
+            state = target;
+            if (action[state] > worst) {
+                worst = action[state];
+                if (worst == ACTIONS.length) break;
+            }
+        }
+        return worst == 0 ? null : ACTIONS[worst - 1];
+    }
+
+    /**
+     * Copy of the message with every match replaced by asterisks (whitespace inside a match is kept).
+     * Returns the message itself if nothing matches.
+     */
+    public String censor(String message) {
+        if (words == 0) return message;
+        char[] censored = null;
+        // Original index of the last symbols, enough for the longest word
+        int[] positions = new int[Math.max(1, maxMatchLength())];
+        int count = 0;
+        int state = 0;
+        int previous = SKIP;
+        boolean extend = false;
+
+        for (int i = 0; i < message.length(); i++) {
+            int symbol = normalize(message.charAt(i));
+            if (symbol == SKIP) continue;
+            int target = next[state * ALPHABET + symbol];
+            if (symbol == previous && depth[target] <= depth[state]) {
+                // Repeats of the last letter of a match belong to it ("baddd")
+                if (extend) censored[i] = '*';
+                continue;
+            }
+            previous = symbol;
+            positions[count++ % positions.length] = i;
+            state = target;
+
+            int length = matchLength[state];
+            extend = length > 0;
+            if (length > 0) {
+                if (censored == null) censored = message.toCharArray();
+                int start = positions[(count - length) % positions.length];
+                for (int j = start; j <= i; j++) {
+                    if (!Character.isWhitespace(censored[j])) censored[j] = '*';
+                }
+            }
+        }
+        return censored == null ? message : new String(censored);
+    }
+
+    private int maxMatchLength() {
+        int max = 0;
+        for (int length : matchLength) max = Math.max(max, length);
+        return max;
+    }
+}
@@ -0,0 +1,160 @@
+package de.jakomi1.betterBan.commands;
+
+import de.jakomi1.betterBan.cache.AltIndex;
+import de.jakomi1.betterBan.cache.IpRange;
+import de.jakomi1.betterBan.scheduler.Scheduler;
+import de.jakomi1.betterBan.utils.AltUtils;
+import de.jakomi1.betterBan.utils.BanUtils;
+import de.jakomi1.betterBan.utils.Moderator;
+import de.jakomi1.betterBan.utils.NameResolver;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+import static de.jakomi1.betterBan.BetterBan.isAdmin;
+
+/**
+ * /alts <player>                 - accounts that share addresses with the player (directly or through other alts)
+ * /alts <player> ban [Reason...] - permanently bans the player and all of them
+ */
+public class AltsCommand implements CommandExecutor, TabCompleter {
+
+    private static final int SHOWN_ADDRESSES = 5;
+
+    @Override
+    public boolean onCommand(CommandSender sender,
+                             Command command,
+                             String label,
+                             String[] args) {
+
+        // Permission check
+        if (sender instanceof Player player && !isAdmin(player)) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "You don't have permission for this.");
+            return true;
+        }
+
+        if (args.length < 1 || (args.length >= 2 && !args[1].equalsIgnoreCase("ban"))) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "Usage: /alts <Name> [ban [Reason...]]");
+            return true;
+        }
+
+        NameResolver.resolve(args[0]).whenComplete((resolved, error) -> Scheduler.run(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                sender.sendMessage(chatPrefix + ChatColor.RED + "Something went wrong, see the console.");
+            } else if (resolved.isEmpty()) {
+                sender.sendMessage(chatPrefix + ChatColor.RED + "This player has never joined the server.");
+            } else {
+                show(sender, args, resolved.get().uuid(), resolved.get().name());
+            }
+        }));
+        return true;
+    }
+
+    private static void show(CommandSender sender, String[] args, UUID uuid, String name) {
+        AltIndex.Component component = AltUtils.findAlts(uuid);
+
+        if (args.length >= 2) {
+            String reason = args.length >= 3 ? String.join(" ", Arrays.copyOfRange(args, 2, args.length)).trim() : null;
+            banAll(sender, uuid, name, component, reason);
+            return;
+        }
+
+        IpRange[] addresses = AltUtils.getAddresses(uuid);
+        List<String> shown = new ArrayList<>();
+        for (int i = 0; i < Math.min(SHOWN_ADDRESSES, addresses.length); i++) shown.add(addresses[i].toString());
+        if (addresses.length > SHOWN_ADDRESSES) shown.add("+" + (addresses.length - SHOWN_ADDRESSES) + " more");
+        sender.sendMessage(chatPrefix + ChatColor.YELLOW + "Addresses of " + name + ": " + ChatColor.GRAY
+                + (shown.isEmpty() ? "none recorded" : String.join(", ", shown)));
+
+        if (component.alts().isEmpty()) {
+            sender.sendMessage(chatPrefix + ChatColor.GREEN + "No accounts share an address with " + name + ".");
+        } else {
+            sender.sendMessage(chatPrefix + ChatColor.YELLOW + component.alts().size()
+                    + (component.truncated() ? "+" : "") + " connected account(s):");
+            for (AltIndex.Alt alt : component.alts()) {
+                String altName = BanUtils.getName(alt.uuid()).orElse(alt.uuid().toString());
+                sender.sendMessage(ChatColor.DARK_GRAY + "- " + (BanUtils.isBanned(alt.uuid()) ? ChatColor.RED : ChatColor.WHITE)
+                        + altName + ChatColor.GRAY + " via " + AltUtils.formatHost(alt.via())
+                        + (alt.depth() > 1 ? " (" + alt.depth() + " hops)" : ""));
+            }
+        }
+        if (!component.skippedHosts().isEmpty()) {
+            sender.sendMessage(chatPrefix + ChatColor.GRAY + "Ignored " + component.skippedHosts().size()
+                    + " shared address(es) with too many accounts.");
+        }
+    }
+
+    private static void banAll(CommandSender sender, UUID uuid, String name, AltIndex.Component component, String reason) {
+        List<UUID> targets = new ArrayList<>();
+        targets.add(uuid);
+        for (AltIndex.Alt alt : component.alts()) targets.add(alt.uuid());
+
+        // Each account goes through the pipeline like /ban, so a concurrent /ban or /unban of it is applied in order
+        Moderator by = Moderator.of(sender);
+        List<CompletableFuture<String>> bans = new ArrayList<>();
+        for (UUID target : targets) {
+            CommandPipeline.Target account = new CommandPipeline.Target(target, BanUtils.getName(target).orElse(target.toString()));
+            bans.add(CommandPipeline.submit(account, t -> {
+                // Already banned accounts keep their ban
+                if (BanUtils.isBanned(t.uuid())) return null;
+                BanUtils.permanentBan(t.uuid(), reason, by);
+                return t.name();
+            }, (t, bannedName) -> {
+                // Kick if online
+                if (bannedName != null) CommandPipeline.kickIfOnline(t.uuid(), BanUtils.getBanMessage(t.uuid()));
+            }));
+        }
+
+        CompletableFuture.allOf(bans.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> Scheduler.run(() -> {
+            List<String> banned = new ArrayList<>();
+            for (CompletableFuture<String> ban : bans) {
+                if (!ban.isCompletedExceptionally() && ban.join() != null) banned.add(ban.join());
+            }
+            if (error != null) {
+                // Bans that went through are still reported below
+                error.printStackTrace();
+                sender.sendMessage(chatPrefix + ChatColor.RED + "Something went wrong, see the console.");
+            }
+            if (banned.isEmpty()) {
+                if (error == null) {
+                    sender.sendMessage(chatPrefix + ChatColor.RED + name + " and all connected accounts are already banned!");
+                }
+                return;
+            }
+
+            // Feedback to executor
+            sender.sendMessage(chatPrefix + ChatColor.YELLOW + "Permanently banned " + banned.size() + " account(s): "
+                    + ChatColor.GRAY + String.join(", ", banned));
+            if (reason != null && !reason.isBlank()) {
+                sender.sendMessage(chatPrefix + ChatColor.GRAY + "-> Reason: " + reason);
+            }
+        }));
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender,
+                                      Command command,
+                                      String alias,
+                                      String[] args) {
+        if (sender instanceof Player player && !isAdmin(player)) return List.of();
+
+        if (args.length == 1) {
+            return BanUtils.completeKnownNames(args[0]);
+        }
+        if (args.length == 2 && "ban".startsWith(args[1].toLowerCase())) {
+            return List.of("ban");
+        }
+        return List.of();
+    }
+}
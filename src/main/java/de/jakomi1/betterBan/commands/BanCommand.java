@@ -1,10 +1,9 @@
 package de.jakomi1.betterBan.commands;
 
+import de.jakomi1.betterBan.utils.AltUtils;
 import de.jakomi1.betterBan.utils.BanUtils;
-import de.jakomi1.betterBan.utils.DiscordUtils;
+import de.jakomi1.betterBan.utils.Moderator;
 import org.bukkit.ChatColor;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -13,9 +12,7 @@ import org.bukkit.entity.Player;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import static de.jakomi1.betterBan.BetterBan.chatPrefix;
 import static de.jakomi1.betterBan.BetterBan.isAdmin;
@@ -39,52 +36,40 @@ public class BanCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        // Target player
-        OfflinePlayer target = Bukkit.getOfflinePlayer(args[0]);
-        UUID uuid = target.getUniqueId();
-
-        // Check if the player has ever joined the server
-        if (!BanUtils.hasJoinedBefore(uuid)) {
-            sender.sendMessage(chatPrefix + ChatColor.RED + "This player has never joined the server.");
-            return true;
-        }
-
-        // Check if player is already banned
-        if (BanUtils.isBanned(uuid)) {
-            sender.sendMessage(chatPrefix + ChatColor.RED +
-                    (target.getName() != null ? target.getName() : uuid.toString()) + " is already banned!");
-            return true;
-        }
-
         // Reason from arguments
         String reason = args.length >= 2 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)).trim() : null;
+        Moderator by = Moderator.of(sender);
 
-        // Save ban (permanent)
-        BanUtils.permanentBan(uuid, reason);
+        // Resolve, check and save off the main thread, feedback and kick back on it
+        CommandPipeline.execute(sender, args[0], target -> {
+            UUID uuid = target.uuid();
 
-        String name = target.getName() != null ? target.getName() : uuid.toString();
-        String executor = sender instanceof Player ? sender.getName() : "the console";
+            // Check if the player has ever joined the server
+            if (!BanUtils.hasJoinedBefore(uuid)) {
+                throw new CommandPipeline.Rejected("This player has never joined the server.");
+            }
 
-        // Feedback to executor
-        sender.sendMessage(chatPrefix + ChatColor.YELLOW + name + " has been permanently banned.");
-        if (reason != null && !reason.isBlank()) {
-            sender.sendMessage(chatPrefix + ChatColor.GRAY + "-> Reason: " + reason);
-        }
+            // Check if player is already banned
+            if (BanUtils.isBanned(uuid)) {
+                throw new CommandPipeline.Rejected(target.name() + " is already banned!");
+            }
 
-        // Discord-Log
-        DiscordUtils.sendColoredMessage(
-                name + " was permanently banned by " + executor +
-                        (reason != null ? "\n*Reason: " + reason : "*"),
-                0xFF0000
-        );
-
-        // Kick if online
-        if (target.isOnline()) {
-            Player online = target.getPlayer();
-            if (online != null) {
-                online.kickPlayer(BanUtils.getBanMessage(uuid));
+            // Save ban (permanent)
+            BanUtils.permanentBan(uuid, reason, by);
+            return AltUtils.getAltHint(uuid, target.name());
+        }, (target, altHint) -> {
+            String name = target.name();
+
+            // Feedback to executor
+            sender.sendMessage(chatPrefix + ChatColor.YELLOW + name + " has been permanently banned.");
+            if (reason != null && !reason.isBlank()) {
+                sender.sendMessage(chatPrefix + ChatColor.GRAY + "-> Reason: " + reason);
             }
-        }
+            if (altHint != null) sender.sendMessage(altHint);
+
+            // Kick if online
+            CommandPipeline.kickIfOnline(target.uuid(), BanUtils.getBanMessage(target.uuid()));
+        });
 
         return true;
     }
@@ -98,12 +83,7 @@ public class BanCommand implements CommandExecutor, TabCompleter {
 
         if (args.length == 1) {
             // Only suggest players who have joined before
-            return Arrays.stream(Bukkit.getOfflinePlayers())
-                    .filter(p -> BanUtils.hasJoinedBefore(p.getUniqueId()))
-                    .map(OfflinePlayer::getName)
-                    .filter(Objects::nonNull)
-                    .filter(n -> n.toLowerCase().startsWith(args[0].toLowerCase()))
-                    .collect(Collectors.toList());
+            return BanUtils.completeKnownNames(args[0]);
         }
 
         return List.of();
@@ -0,0 +1,172 @@
+package de.jakomi1.betterBan.commands;
+
+import de.jakomi1.betterBan.cache.IpRange;
+import de.jakomi1.betterBan.database.HistoryAction;
+import de.jakomi1.betterBan.database.HistoryEntry;
+import de.jakomi1.betterBan.scheduler.Scheduler;
+import de.jakomi1.betterBan.utils.BanUtils;
+import de.jakomi1.betterBan.utils.HistoryUtils;
+import de.jakomi1.betterBan.utils.IpBanUtils;
+import de.jakomi1.betterBan.utils.NameResolver;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+import static de.jakomi1.betterBan.BetterBan.isAdmin;
+
+/**
+ * /banhistory <player>             - last punishments of a player (including archived ones)
+ * /banhistory <IP[/Prefix]>        - last bans of an address or range
+ * /banhistory staff <name> [days]  - actions of a moderator in the last days (default 7)
+ */
+public class BanHistoryCommand implements CommandExecutor, TabCompleter {
+
+    private static final int LIMIT = 10;
+    private static final int DEFAULT_STAFF_DAYS = 7;
+
+    @Override
+    public boolean onCommand(CommandSender sender,
+                             Command command,
+                             String label,
+                             String[] args) {
+
+        if (sender instanceof Player player && !isAdmin(player)) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "You don't have permission for this.");
+            return true;
+        }
+
+        if (args.length < 1 || (args[0].equalsIgnoreCase("staff") && args.length < 2)) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "Usage: /banhistory <player|IP[/Prefix]> | /banhistory staff <name> [days]");
+            return true;
+        }
+
+        boolean staff = args[0].equalsIgnoreCase("staff");
+        int days = DEFAULT_STAFF_DAYS;
+        if (staff && args.length >= 3) {
+            try {
+                days = Math.max(1, Integer.parseInt(args[2]));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(chatPrefix + ChatColor.RED + "Invalid number of days: " + args[2]);
+                return true;
+            }
+        }
+
+        if (!staff) {
+            IpRange range = parseRange(args[0]);
+            if (range != null) {
+                show(sender, IpBanUtils.historyId(range), range.toString(), false, days);
+                return true;
+            }
+        }
+
+        int staffDays = days;
+        NameResolver.resolve(staff ? args[1] : args[0]).whenComplete((resolved, error) -> Scheduler.run(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                sender.sendMessage(chatPrefix + ChatColor.RED + "Couldn't load the history.");
+            } else if (resolved.isEmpty()) {
+                sender.sendMessage(chatPrefix + ChatColor.RED + "This player has never joined the server.");
+            } else {
+                show(sender, resolved.get().uuid(), resolved.get().name(), staff, staffDays);
+            }
+        }));
+        return true;
+    }
+
+    /** The address or range, null for anything else (player names never contain '.' or ':'). */
+    private static IpRange parseRange(String arg) {
+        if (arg.indexOf('.') < 0 && arg.indexOf(':') < 0) return null;
+        try {
+            return IpRange.parse(arg);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void show(CommandSender sender, UUID uuid, String name, boolean staff, int days) {
+        CompletableFuture<List<HistoryEntry>> history;
+        String title;
+        if (staff) {
+            long now = System.currentTimeMillis();
+            history = HistoryUtils.getHistoryByExecutor(uuid, now - TimeUnit.DAYS.toMillis(days), now + 1, LIMIT);
+            title = "Actions by " + name + " in the last " + days + (days == 1 ? " day:" : " days:");
+        } else {
+            history = HistoryUtils.getHistory(uuid, LIMIT);
+            title = "History of " + name + ":";
+        }
+
+        history.whenComplete((entries, error) -> Scheduler.run(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                sender.sendMessage(chatPrefix + ChatColor.RED + "Couldn't load the history.");
+                return;
+            }
+            if (entries.isEmpty()) {
+                sender.sendMessage(chatPrefix + ChatColor.GRAY + "No history found for " + name + ".");
+                return;
+            }
+            sender.sendMessage(chatPrefix + ChatColor.YELLOW + title);
+            for (HistoryEntry entry : entries) send(sender, entry, staff);
+        }));
+    }
+
+    private static void send(CommandSender sender, HistoryEntry entry, boolean showTarget) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        ChatColor color = switch (entry.action()) {
+            case CREATE -> ChatColor.RED;
+            case EXPIRE -> ChatColor.GRAY;
+            case REVOKE -> ChatColor.GREEN;
+        };
+
+        String type = HistoryUtils.typeLabel(entry);
+        String action = switch (entry.action()) {
+            case CREATE -> entry.endTimestamp() == -1 ? "permanent " + type
+                    : !entry.hasCreatedAt() ? type + " until " + format.format(new Date(entry.endTimestamp()))
+                    : type + " for " + BanUtils.formatDuration(entry.endTimestamp() - entry.createdAt());
+            case EXPIRE -> type + " expired";
+            case REVOKE -> type + " lifted";
+        };
+
+        String date = entry.hasCreatedAt() ? format.format(new Date(entry.createdAt())) : "unknown date";
+        String line = ChatColor.DARK_GRAY + date + " " + color + action;
+        if (showTarget) line += ChatColor.GRAY + " - " + HistoryUtils.targetName(entry.uuid());
+        if (entry.action() != HistoryAction.EXPIRE && entry.executorName() != null) {
+            line += ChatColor.GRAY + " by " + entry.executorName();
+        }
+        sender.sendMessage(line);
+
+        if (entry.action() == HistoryAction.CREATE && entry.reason() != null && !entry.reason().isBlank()) {
+            sender.sendMessage(ChatColor.DARK_GRAY + "-> Reason: " + entry.reason());
+        }
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender,
+                                      Command command,
+                                      String alias,
+                                      String[] args) {
+        if (sender instanceof Player player && !isAdmin(player)) return List.of();
+
+        if (args.length == 1) {
+            List<String> names = new ArrayList<>(BanUtils.completeKnownNames(args[0]));
+            if ("staff".startsWith(args[0].toLowerCase())) names.add(0, "staff");
+            return names;
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("staff")) {
+            return BanUtils.completeKnownNames(args[1]);
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,102 @@
+package de.jakomi1.betterBan.commands;
+
+import de.jakomi1.betterBan.cache.IpRange;
+import de.jakomi1.betterBan.utils.IpBanUtils;
+import de.jakomi1.betterBan.utils.Moderator;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+import static de.jakomi1.betterBan.BetterBan.isAdmin;
+
+public class BanIpCommand implements CommandExecutor, TabCompleter {
+
+    @Override
+    public boolean onCommand(CommandSender sender,
+                             Command command,
+                             String label,
+                             String[] args) {
+
+        // Permission check
+        if (sender instanceof Player player && !isAdmin(player)) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "You don't have permission for this.");
+            return true;
+        }
+
+        // -confirm may stand anywhere and is not part of the reason
+        boolean confirmed = Arrays.asList(args).contains(IpBanUtils.CONFIRM_FLAG);
+        if (confirmed) args = Arrays.stream(args).filter(arg -> !arg.equals(IpBanUtils.CONFIRM_FLAG)).toArray(String[]::new);
+
+        // /banip <IP[/Prefix]|Name> [-confirm] [Reason...]
+        if (args.length < 1) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "Usage: /banip <IP[/Prefix]|Name> [-confirm] [Reason...]");
+            return true;
+        }
+
+        IpRange range;
+        try {
+            range = IpBanUtils.parseTarget(args[0]);
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "Invalid IP address or range: " + args[0]);
+            return true;
+        }
+
+        if (!confirmed && IpBanUtils.needsConfirmation(range)) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + range + " is wider than /" + IpBanUtils.getMinPrefixLength(range)
+                    + ". Add " + IpBanUtils.CONFIRM_FLAG + " to ban it anyway.");
+            return true;
+        }
+
+        // Check if the range is already banned
+        if (IpBanUtils.getActiveBan(range) != null) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + range + " is already banned!");
+            return true;
+        }
+
+        // Reason from arguments
+        String reason = args.length >= 2 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)).trim() : null;
+        if (reason != null && reason.isBlank()) reason = null;
+
+        // Save ban (permanent), kicks matching players
+        List<String> kicked = IpBanUtils.permanentBan(range, reason, Moderator.of(sender));
+
+
+        // Feedback to executor
+        sender.sendMessage(chatPrefix + ChatColor.YELLOW + range + " has been permanently banned.");
+        if (reason != null) {
+            sender.sendMessage(chatPrefix + ChatColor.GRAY + "-> Reason: " + reason);
+        }
+        if (!kicked.isEmpty()) {
+            sender.sendMessage(chatPrefix + ChatColor.GRAY + "Kicked: " + String.join(", ", kicked));
+        }
+
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender,
+                                      Command command,
+                                      String alias,
+                                      String[] args) {
+        if (sender instanceof Player player && !isAdmin(player)) return List.of();
+
+        if (args.length == 1) {
+            // Online players, their current address is banned
+            return Bukkit.getOnlinePlayers().stream()
+                    .map(Player::getName)
+                    .filter(name -> name.toLowerCase().startsWith(args[0].toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+
+        return List.of();
+    }
+}
@@ -0,0 +1,171 @@
+package de.jakomi1.betterBan.commands;
+
+import de.jakomi1.betterBan.database.HistoryEntry;
+import de.jakomi1.betterBan.database.PunishmentType;
+import de.jakomi1.betterBan.database.SearchQuery;
+import de.jakomi1.betterBan.scheduler.Scheduler;
+import de.jakomi1.betterBan.utils.BanUtils;
+import de.jakomi1.betterBan.utils.ConfigUtils;
+import de.jakomi1.betterBan.utils.HistoryUtils;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+import static de.jakomi1.betterBan.BetterBan.isAdmin;
+
+/**
+ * /bansearch <words...> [--type=ban|chatban] [--since=30d] [--until=1d] [--page=N]
+ * - issued punishments whose reason contains all words, best match first (including archived ones)
+ */
+public class BanSearchCommand implements CommandExecutor, TabCompleter {
+
+    @Override
+    public boolean onCommand(CommandSender sender,
+                             Command command,
+                             String label,
+                             String[] args) {
+
+        // Permission check
+        if (sender instanceof Player player && !isAdmin(player)) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "You don't have permission for this.");
+            return true;
+        }
+
+        StringBuilder text = new StringBuilder();
+        PunishmentType type = null;
+        long now = System.currentTimeMillis();
+        long from = 0L;
+        long to = now + 1;
+        int page = 1;
+
+        try {
+            for (String arg : args) {
+                String lower = arg.toLowerCase(Locale.ROOT);
+                if (lower.startsWith("--type=")) {
+                    type = switch (lower.substring(7)) {
+                        case "ban" -> PunishmentType.BAN;
+                        case "chatban" -> PunishmentType.CHAT_BAN;
+                        default -> throw new IllegalArgumentException("Unknown type");
+                    };
+                } else if (lower.startsWith("--since=")) {
+                    from = now - parseDuration(lower.substring(8));
+                } else if (lower.startsWith("--until=")) {
+                    to = now - parseDuration(lower.substring(8));
+                } else if (lower.startsWith("--page=")) {
+                    page = Integer.parseInt(lower.substring(7));
+                    if (page < 1) throw new IllegalArgumentException("Invalid page");
+                } else {
+                    text.append(arg).append(' ');
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            sendUsage(sender);
+            return true;
+        }
+
+        SearchQuery query = SearchQuery.of(text.toString(), type, from, to);
+        if (query == null) {
+            sendUsage(sender);
+            return true;
+        }
+
+        // One more than a page, to know whether there is a next one
+        int pageSize = Math.max(1, ConfigUtils.getBanListPageSize());
+        int currentPage = page;
+        String words = text.toString().trim();
+        HistoryUtils.search(query, (page - 1) * pageSize, pageSize + 1)
+                .thenApply(entries -> format(entries, pageSize))
+                .whenComplete((lines, error) -> Scheduler.run(() -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                        sender.sendMessage(chatPrefix + ChatColor.RED + "Couldn't search the history.");
+                        return;
+                    }
+                    if (lines.isEmpty()) {
+                        sender.sendMessage(chatPrefix + ChatColor.GRAY + (currentPage == 1
+                                ? "No punishments found for \"" + words + "\"."
+                                : "Page " + currentPage + " is empty."));
+                        return;
+                    }
+                    sender.sendMessage(chatPrefix + ChatColor.YELLOW + "Punishments matching \"" + words + "\""
+                            + ChatColor.GRAY + " (page " + currentPage + "):");
+                    for (int i = 0; i < Math.min(pageSize, lines.size()); i++) sender.sendMessage(lines.get(i));
+                    if (lines.size() > pageSize) {
+                        String options = Arrays.stream(args)
+                                .filter(arg -> !arg.toLowerCase(Locale.ROOT).startsWith("--page="))
+                                .collect(Collectors.joining(" "));
+                        sender.sendMessage(chatPrefix + ChatColor.GRAY + "Next page: /" + label + " "
+                                + options + " --page=" + (currentPage + 1));
+                    }
+                }));
+        return true;
+    }
+
+    /** One chat message (two lines) per entry; runs on the async thread, as names may come from the database. */
+    private static List<String[]> format(List<HistoryEntry> entries, int pageSize) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        List<String[]> lines = new ArrayList<>(entries.size());
+        for (HistoryEntry entry : entries) {
+            String type = HistoryUtils.typeLabel(entry);
+            String duration = entry.endTimestamp() == -1 ? "permanent " + type
+                    : !entry.hasCreatedAt() ? type + " until " + format.format(new Date(entry.endTimestamp()))
+                    : type + " for " + BanUtils.formatDuration(entry.endTimestamp() - entry.createdAt());
+            String name = HistoryUtils.targetName(entry.uuid());
+
+            String date = entry.hasCreatedAt() ? format.format(new Date(entry.createdAt())) : "unknown date";
+            String line = ChatColor.DARK_GRAY + date + " "
+                    + ChatColor.GRAY + name + " " + ChatColor.RED + duration;
+            if (entry.executorName() != null) line += ChatColor.GRAY + " by " + entry.executorName();
+            lines.add(new String[]{line, ChatColor.DARK_GRAY + "-> Reason: " + entry.reason()});
+            // The extra entry only tells that there is a next page
+            if (lines.size() > pageSize) break;
+        }
+        return lines;
+    }
+
+    private static void sendUsage(CommandSender sender) {
+        sender.sendMessage(chatPrefix + ChatColor.RED
+                + "Usage: /bansearch <words...> [--type=ban|chatban] [--since=30d] [--until=1d] [--page=N]");
+    }
+
+    private long parseDuration(String input) throws IllegalArgumentException {
+        // allowed: <number><m|h|d>
+        if (input.endsWith("m")) {
+            return Long.parseLong(input.substring(0, input.length() - 1)) * 60_000L;
+        } else if (input.endsWith("h")) {
+            return Long.parseLong(input.substring(0, input.length() - 1)) * 60 * 60_000L;
+        } else if (input.endsWith("d")) {
+            return Long.parseLong(input.substring(0, input.length() - 1)) * 24 * 60 * 60_000L;
+        } else {
+            throw new IllegalArgumentException("Invalid time format");
+        }
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender,
+                                      Command command,
+                                      String alias,
+                                      String[] args) {
+        if (sender instanceof Player player && !isAdmin(player)) return List.of();
+        if (args.length == 0) return List.of();
+
+        String current = args[args.length - 1].toLowerCase(Locale.ROOT);
+        if (!current.startsWith("--")) return List.of();
+        return Stream.of("--type=ban", "--type=chatban", "--since=7d", "--since=30d", "--until=", "--page=")
+                .filter(opt -> opt.startsWith(current))
+                .collect(Collectors.toList());
+    }
+}
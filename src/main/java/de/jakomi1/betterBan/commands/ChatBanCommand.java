@@ -2,9 +2,7 @@ package de.jakomi1.betterBan.commands;
 
 import de.jakomi1.betterBan.utils.BanUtils;
 import de.jakomi1.betterBan.utils.ChatBanUtils;
-import de.jakomi1.betterBan.utils.DiscordUtils;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
+import de.jakomi1.betterBan.utils.Moderator;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -14,7 +12,6 @@ import org.bukkit.ChatColor;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -42,79 +39,63 @@ public class ChatBanCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        OfflinePlayer target = Bukkit.getOfflinePlayer(args[0]);
-        UUID uuid = target.getUniqueId();
-
-        // Check if player has ever joined
-        if (!BanUtils.hasJoinedBefore(uuid)) {
-            sender.sendMessage(chatPrefix + ChatColor.RED + "This player has never joined the server.");
-            return true;
-        }
-
-        // Check if player is already chat-banned
-        if (ChatBanUtils.isChatBanned(uuid)) {
-            sender.sendMessage(chatPrefix + ChatColor.RED +
-                    (target.getName() != null ? target.getName() : uuid.toString()) + " is already chat-banned!");
-            return true;
-        }
-
         String durationRaw = args[1].toLowerCase();
         boolean permanent = durationRaw.equalsIgnoreCase("permanent");
-        long delta = 0L;
+        long parsed = 0L;
 
         if (!permanent) {
             try {
-                delta = parseDuration(durationRaw);
+                parsed = parseDuration(durationRaw);
             } catch (IllegalArgumentException e) {
                 sender.sendMessage(chatPrefix + ChatColor.RED +
                         "Invalid time format. Example: 10m, 2h, 1d, or 'permanent'.");
                 return true;
             }
         }
+        long delta = parsed;
 
         // Optional reason
         String reason = args.length >= 3 ? String.join(" ", Arrays.copyOfRange(args, 2, args.length)).trim() : null;
-
-        // Save chat-ban in DB/cache
-        if (permanent) {
-            ChatBanUtils.chatPermanentBan(uuid, reason);
-        } else {
-            ChatBanUtils.chatTempBan(uuid, delta, reason);
-        }
-
-        String name = Objects.toString(target.getName(), uuid.toString());
+        Moderator by = Moderator.of(sender);
         String executor = sender instanceof Player ? sender.getName() : "the console";
         String remaining = permanent ? "permanent" : BanUtils.formatDuration(delta);
 
-        // Feedback to executor
-        sender.sendMessage(chatPrefix + ChatColor.YELLOW +
-                name + " has been chat-banned (" + remaining + ").");
-        if (reason != null && !reason.isBlank()) {
-            sender.sendMessage(chatPrefix + ChatColor.GRAY + "Reason: " + reason);
-        }
+        // Resolve, check and save off the main thread, feedback back on it
+        CommandPipeline.execute(sender, args[0], target -> {
+            UUID uuid = target.uuid();
+
+            // Check if player has ever joined
+            if (!BanUtils.hasJoinedBefore(uuid)) {
+                throw new CommandPipeline.Rejected("This player has never joined the server.");
+            }
+
+            // Check if player is already chat-banned
+            if (ChatBanUtils.isChatBanned(uuid)) {
+                throw new CommandPipeline.Rejected(target.name() + " is already chat-banned!");
+            }
+
+            // Save chat-ban in DB/cache
+            if (permanent) {
+                ChatBanUtils.chatPermanentBan(uuid, reason, by);
+            } else {
+                ChatBanUtils.chatTempBan(uuid, delta, reason, by);
+            }
+            return null;
+        }, (target, ignored) -> {
+            String name = target.name();
 
-        // Discord notification (use an orange-ish color for mutes)
-        DiscordUtils.sendColoredMessage(
-                name + " was chat-banned by " + executor + " (" + remaining + ")" +
-                        (reason != null ? "\n*Reason: " + reason : "*"),
-                0xFFA500
-        );
-
-        // Notify the target player if they are online
-        Player onlineTarget = Bukkit.getPlayer(uuid); // returns null if offline
-        if (onlineTarget != null && onlineTarget.isOnline()) {
-            // Inform the player who got muted
-            onlineTarget.sendMessage(chatPrefix + ChatColor.YELLOW +
-                    "You have been chat-banned by " + executor + " (" + remaining + ").");
+            // Feedback to executor
+            sender.sendMessage(chatPrefix + ChatColor.YELLOW +
+                    name + " has been chat-banned (" + remaining + ").");
             if (reason != null && !reason.isBlank()) {
-                onlineTarget.sendMessage(chatPrefix + ChatColor.GRAY + "Reason: " + reason);
+                sender.sendMessage(chatPrefix + ChatColor.GRAY + "Reason: " + reason);
             }
-            // Optional: also send the standardized chat-ban message used when they try to chat
-            // (keeps consistency with ChatListener). Uncomment if you want that as well:
-            // onlineTarget.sendMessage(ChatBanUtils.getChatBanMessage(uuid));
-        }
 
-        // Do NOT kick — chat-ban only mutes chat. (If you want to kick as well, we can add it.)
+            // Inform the player who got muted, if online. Do NOT kick — chat-ban only mutes chat.
+            CommandPipeline.notifyIfOnline(target.uuid(),
+                    chatPrefix + ChatColor.YELLOW + "You have been chat-banned by " + executor + " (" + remaining + ").",
+                    reason != null && !reason.isBlank() ? chatPrefix + ChatColor.GRAY + "Reason: " + reason : null);
+        });
 
         return true;
     }
@@ -141,12 +122,7 @@ public class ChatBanCommand implements CommandExecutor, TabCompleter {
 
         if (args.length == 1) {
             // Suggest only players who joined before
-            return Arrays.stream(Bukkit.getOfflinePlayers())
-                    .filter(p -> BanUtils.hasJoinedBefore(p.getUniqueId()))
-                    .map(OfflinePlayer::getName)
-                    .filter(Objects::nonNull)
-                    .filter(n -> n.toLowerCase().startsWith(args[0].toLowerCase()))
-                    .collect(Collectors.toList());
+            return BanUtils.completeKnownNames(args[0]);
         }
 
         if (args.length == 2) {
@@ -0,0 +1,64 @@
+package de.jakomi1.betterBan.commands;
+
+import de.jakomi1.betterBan.scheduler.Scheduler;
+import de.jakomi1.betterBan.utils.ChatFilterUtils;
+import de.jakomi1.betterBan.utils.ConfigUtils;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+import static de.jakomi1.betterBan.BetterBan.isAdmin;
+
+/**
+ * /chatfilter reload - reloads the config and recompiles the word filter
+ */
+public class ChatFilterCommand implements CommandExecutor, TabCompleter {
+
+    @Override
+    public boolean onCommand(CommandSender sender,
+                             Command command,
+                             String label,
+                             String[] args) {
+
+        // Permission check
+        if (sender instanceof Player player && !isAdmin(player)) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "You don't have permission for this.");
+            return true;
+        }
+
+        if (args.length != 1 || !args[0].equalsIgnoreCase("reload")) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "Usage: /chatfilter reload");
+            return true;
+        }
+
+        ConfigUtils.loadConfig();
+        ChatFilterUtils.reload().whenComplete((words, error) -> Scheduler.run(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                sender.sendMessage(chatPrefix + ChatColor.RED + "Couldn't compile the chat filter, the old one stays active.");
+                return;
+            }
+            sender.sendMessage(chatPrefix + ChatColor.GREEN + "Chat filter reloaded with " + words + " word(s).");
+        }));
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender,
+                                      Command command,
+                                      String alias,
+                                      String[] args) {
+        if (sender instanceof Player player && !isAdmin(player)) return List.of();
+
+        if (args.length == 1 && "reload".startsWith(args[0].toLowerCase())) {
+            return List.of("reload");
+        }
+        return List.of();
+    }
+}
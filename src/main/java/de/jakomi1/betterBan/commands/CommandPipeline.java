@@ -0,0 +1,143 @@
+package de.jakomi1.betterBan.commands;
+
+import de.jakomi1.betterBan.scheduler.Scheduler;
+import de.jakomi1.betterBan.utils.NameResolver;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+
+/**
+ * Runs moderation commands against a player off the main thread:
+ * <ol>
+ *     <li>resolve the name to a UUID (async unless the answer is in memory),</li>
+ *     <li>check and persist (async),</li>
+ *     <li>feedback, Discord log and kick (main thread, or the global region on Folia).</li>
+ * </ol>
+ * Steps 2 and 3 of commands against the same UUID run one after another in submission order, so e.g.
+ * two moderators banning the same player can't both pass the "already banned" check, and a ban followed
+ * by an unban is applied and reported in that order.
+ */
+final class CommandPipeline {
+
+    /** Resolved target of a command. */
+    record Target(UUID uuid, String name) {}
+
+    /**
+     * Thrown by the async step to stop the command with a message to the sender, e.g. "is already banned".
+     */
+    static final class Rejected extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Rejected(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    // Last submitted command per target; removed again when nothing is queued behind it
+    private static final ConcurrentHashMap<UUID, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+
+    private CommandPipeline() {}
+
+    // ==============================================================
+
+    /**
+     * @param name  player name as typed by the sender
+     * @param async checks and writes, runs off the main thread; may throw {@link Rejected}
+     * @param sync  feedback and effects on online players, gets the result of {@code async}
+     */
+    static <T> void execute(CommandSender sender, String name,
+                            Function<Target, T> async, BiConsumer<Target, T> sync) {
+        resolve(name)
+                .thenCompose(target -> submit(target, async, sync))
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof Rejected) {
+                        Scheduler.run(() -> sender.sendMessage(chatPrefix + ChatColor.RED + cause.getMessage()));
+                    } else {
+                        cause.printStackTrace();
+                        Scheduler.run(() -> sender.sendMessage(chatPrefix + ChatColor.RED + "Something went wrong, see the console."));
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Steps 2 and 3 for a target that is already resolved, e.g. the accounts found by /alts. Errors are left
+     * to the caller.
+     *
+     * @return completes with the result of {@code async} once {@code sync} has run
+     */
+    static <T> CompletableFuture<T> submit(Target target, Function<Target, T> async, BiConsumer<Target, T> sync) {
+        return serialize(target.uuid(), () -> Scheduler.supplyAsync(() -> async.apply(target))
+                .thenCompose(result -> onMainThread(() -> sync.accept(target, result)).thenApply(ignored -> result)));
+    }
+
+    /**
+     * Name to UUID through the {@link NameResolver} (memory, then the local database). Names nobody on this
+     * server has ever carried are rejected.
+     */
+    static CompletableFuture<Target> resolve(String name) {
+        return NameResolver.resolve(name).thenApply(resolved -> resolved
+                .map(player -> new Target(player.uuid(), player.name()))
+                .orElseThrow(() -> new Rejected("This player has never joined the server.")));
+    }
+
+    /**
+     * Starts {@code step} once every step submitted before for this UUID has finished (successfully or not).
+     */
+    private static <T> CompletableFuture<T> serialize(UUID uuid, Supplier<CompletableFuture<T>> step) {
+        CompletableFuture<T> done = new CompletableFuture<>();
+        CompletableFuture<?> previous = tails.put(uuid, done);
+        CompletableFuture<?> start = previous == null
+                ? CompletableFuture.completedFuture(null)
+                : previous.handle((ignored, error) -> null);
+
+        start.thenCompose(ignored -> step.get()).whenComplete((result, error) -> {
+            tails.remove(uuid, done);
+            if (error != null) done.completeExceptionally(error);
+            else done.complete(result);
+        });
+        return done;
+    }
+
+    private static CompletableFuture<Void> onMainThread(Runnable runnable) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Scheduler.run(() -> {
+            try {
+                runnable.run();
+                future.complete(null);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /** Kicks the player if online, on the thread that owns them. */
+    static void kickIfOnline(UUID uuid, String message) {
+        Player online = Bukkit.getPlayer(uuid);
+        if (online != null) Scheduler.runForEntity(online, () -> online.kickPlayer(message));
+    }
+
+    /** Sends messages to the player if online, on the thread that owns them. */
+    static void notifyIfOnline(UUID uuid, String... messages) {
+        Player online = Bukkit.getPlayer(uuid);
+        if (online == null) return;
+        Scheduler.runForEntity(online, () -> {
+            for (String message : messages) {
+                if (message != null) online.sendMessage(message);
+            }
+        });
+    }
+}
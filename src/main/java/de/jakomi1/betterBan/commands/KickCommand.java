@@ -1,6 +1,8 @@
 package de.jakomi1.betterBan.commands;
 
-import de.jakomi1.betterBan.utils.DiscordUtils;
+import de.jakomi1.betterBan.events.ModerationEvent;
+import de.jakomi1.betterBan.events.ModerationEvents;
+import de.jakomi1.betterBan.utils.Moderator;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
@@ -64,10 +66,9 @@ public class KickCommand implements CommandExecutor, TabCompleter {
         // Executor name (console friendly)
         String executor = sender instanceof Player ? sender.getName() : "the console";
 
-        // Discord notification
-        String discordMsg = target.getName() + " was kicked by " + executor
-                + (reason != null ? "\n*Reason: " + reason : "*");
-        DiscordUtils.sendColoredMessage(discordMsg, 16753920);
+        // Notify Discord, staff and the audit log
+        ModerationEvents.publish(ModerationEvent.of(ModerationEvent.Type.KICK, target.getUniqueId(), target.getName(),
+                Moderator.of(sender), 0L, reason));
 
         // Feedback to executor
         String executorFeedback = chatPrefix + ChatColor.YELLOW + target.getName()
@@ -0,0 +1,188 @@
+package de.jakomi1.betterBan.commands;
+
+import de.jakomi1.betterBan.cache.PunishmentListIndex;
+import de.jakomi1.betterBan.database.PunishmentType;
+import de.jakomi1.betterBan.utils.BanUtils;
+import de.jakomi1.betterBan.utils.ConfigUtils;
+import de.jakomi1.betterBan.utils.PunishmentUtils;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+
+/**
+ * Shared implementation of /banlist and /chatbanlist:
+ * {@code /<label> [page] [--sort=expiry|name|created] [--filter=perm|temp|reason:text]}.
+ * <p>
+ * Pages are read from the sorted {@link PunishmentListIndex} with keyset pagination. For every sender the
+ * last entry of each page they have seen is remembered, so the next page (or any page seen before) is a
+ * seek plus {@code page size} entries. Jumping ahead walks the pages in between once.
+ */
+final class PunishmentListing {
+
+    private static final int MAX_REMEMBERED_PAGES = 1000;
+
+    /** The query a cursor belongs to and the last entry of each page served so far. */
+    private record Cursor(String query, List<PunishmentListIndex.Entry> pageEnds) {}
+
+    private final PunishmentType type;
+    private final String title;
+    private final String emptyMessage;
+    private final ConcurrentHashMap<String, Cursor> cursors = new ConcurrentHashMap<>();
+
+    PunishmentListing(PunishmentType type, String title, String emptyMessage) {
+        this.type = type;
+        this.title = title;
+        this.emptyMessage = emptyMessage;
+    }
+
+    // ==============================================================
+
+    void list(CommandSender sender, String label, String[] args) {
+        int page = 1;
+        PunishmentListIndex.Sort sort = PunishmentListIndex.Sort.EXPIRY;
+        String filterArg = null;
+
+        for (String arg : args) {
+            String lower = arg.toLowerCase(Locale.ROOT);
+            if (lower.startsWith("--sort=")) {
+                try {
+                    sort = PunishmentListIndex.Sort.valueOf(lower.substring(7).toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    sendUsage(sender, label);
+                    return;
+                }
+            } else if (lower.startsWith("--filter=")) {
+                filterArg = arg.substring(9);
+                if (parseFilter(filterArg) == null) {
+                    sendUsage(sender, label);
+                    return;
+                }
+            } else {
+                try {
+                    page = Integer.parseInt(arg);
+                } catch (NumberFormatException e) {
+                    page = 0;
+                }
+                if (page < 1) {
+                    sendUsage(sender, label);
+                    return;
+                }
+            }
+        }
+
+        PunishmentListIndex listing = PunishmentUtils.getListing(type);
+        if (listing.size() == 0) {
+            sender.sendMessage(chatPrefix + ChatColor.GRAY + emptyMessage);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Predicate<PunishmentListIndex.Entry> custom = filterArg != null ? parseFilter(filterArg) : entry -> true;
+        Predicate<PunishmentListIndex.Entry> filter = entry -> entry.punishment().isActive(now) && custom.test(entry);
+
+        // One more than a page, to know whether there is a next one
+        int pageSize = Math.max(1, ConfigUtils.getBanListPageSize());
+        List<PunishmentListIndex.Entry> entries = fetch(sender, listing, sort, filterArg, filter, page, pageSize + 1);
+        if (entries == null || entries.isEmpty()) {
+            sender.sendMessage(chatPrefix + ChatColor.GRAY + (page == 1
+                    ? "No entries match this filter."
+                    : "Page " + page + " is empty."));
+            return;
+        }
+
+        String options = " --sort=" + sort.name().toLowerCase(Locale.ROOT)
+                + (filterArg != null ? " --filter=" + filterArg : "");
+        sender.sendMessage(chatPrefix + ChatColor.YELLOW + title + ChatColor.GRAY + " (page " + page
+                + ", sorted by " + sort.name().toLowerCase(Locale.ROOT)
+                + (filterArg != null ? ", filter " + filterArg : "") + ")");
+
+        for (int i = 0; i < Math.min(pageSize, entries.size()); i++) {
+            PunishmentListIndex.Entry entry = entries.get(i);
+            String suffix = entry.punishment().isPermanent()
+                    ? "Permanent"
+                    : BanUtils.formatDuration(entry.punishment().remainingMillis(now));
+            sender.sendMessage(ChatColor.GRAY + entry.name() + " >> " + suffix
+                    + (entry.punishment().hasReason() ? ChatColor.DARK_GRAY + " - " + entry.punishment().reason() : ""));
+        }
+
+        if (entries.size() > pageSize) {
+            sender.sendMessage(chatPrefix + ChatColor.GRAY + "Next page: /" + label + " " + (page + 1) + options);
+        }
+    }
+
+    /**
+     * Up to {@code limit} entries of the page, continuing from the sender's cursor.
+     *
+     * @return null if the page lies behind the last entry
+     */
+    private List<PunishmentListIndex.Entry> fetch(CommandSender sender, PunishmentListIndex listing,
+                                                  PunishmentListIndex.Sort sort, String filterArg,
+                                                  Predicate<PunishmentListIndex.Entry> filter,
+                                                  int page, int limit) {
+        String query = sort + "|" + (filterArg != null ? filterArg.toLowerCase(Locale.ROOT) : "");
+        String key = sender instanceof Player player ? player.getUniqueId().toString() : sender.getName();
+        Cursor cursor = cursors.get(key);
+        // Page 1 starts over, so page ends remembered from an older listing don't stick around
+        if (cursor == null || !cursor.query().equals(query) || page == 1) {
+            cursor = new Cursor(query, new ArrayList<>());
+            cursors.put(key, cursor);
+        }
+
+        List<PunishmentListIndex.Entry> pageEnds = cursor.pageEnds();
+        int pageSize = limit - 1;
+        synchronized (pageEnds) {
+            // Walk the pages the sender hasn't seen yet, remembering where each one ends
+            while (pageEnds.size() < page - 1) {
+                PunishmentListIndex.Entry after = pageEnds.isEmpty() ? null : pageEnds.get(pageEnds.size() - 1);
+                List<PunishmentListIndex.Entry> skipped = listing.page(sort, after, pageSize, filter);
+                if (skipped.size() < pageSize || pageEnds.size() >= MAX_REMEMBERED_PAGES) return null;
+                pageEnds.add(skipped.get(pageSize - 1));
+            }
+
+            PunishmentListIndex.Entry after = page == 1 ? null : pageEnds.get(page - 2);
+            List<PunishmentListIndex.Entry> entries = listing.page(sort, after, limit, filter);
+            if (entries.size() > pageSize && pageEnds.size() == page - 1 && pageEnds.size() < MAX_REMEMBERED_PAGES) {
+                pageEnds.add(entries.get(pageSize - 1));
+            }
+            return entries;
+        }
+    }
+
+    private static Predicate<PunishmentListIndex.Entry> parseFilter(String filter) {
+        String lower = filter.toLowerCase(Locale.ROOT);
+        if (lower.equals("perm")) return entry -> entry.punishment().isPermanent();
+        if (lower.equals("temp")) return entry -> !entry.punishment().isPermanent();
+        if (lower.startsWith("reason:") && lower.length() > 7) {
+            String text = lower.substring(7);
+            return entry -> entry.punishment().hasReason()
+                    && entry.punishment().reason().toLowerCase(Locale.ROOT).contains(text);
+        }
+        return null;
+    }
+
+    private static void sendUsage(CommandSender sender, String label) {
+        sender.sendMessage(chatPrefix + ChatColor.RED + "Usage: /" + label
+                + " [page] [--sort=expiry|name|created] [--filter=perm|temp|reason:text]");
+    }
+
+    // ==============================================================
+
+    static List<String> complete(String[] args) {
+        if (args.length == 0) return List.of();
+        String current = args[args.length - 1].toLowerCase(Locale.ROOT);
+        return Stream.of("--sort=expiry", "--sort=name", "--sort=created",
+                        "--filter=perm", "--filter=temp", "--filter=reason:")
+                .filter(opt -> opt.startsWith(current))
+                .collect(Collectors.toList());
+    }
+}
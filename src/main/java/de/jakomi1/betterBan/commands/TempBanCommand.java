@@ -1,9 +1,8 @@
 package de.jakomi1.betterBan.commands;
 
+import de.jakomi1.betterBan.utils.AltUtils;
 import de.jakomi1.betterBan.utils.BanUtils;
-import de.jakomi1.betterBan.utils.DiscordUtils;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
+import de.jakomi1.betterBan.utils.Moderator;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -13,7 +12,6 @@ import org.bukkit.ChatColor;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -41,22 +39,6 @@ public class TempBanCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        OfflinePlayer target = Bukkit.getOfflinePlayer(args[0]);
-        UUID uuid = target.getUniqueId();
-
-        // Check if player has ever joined
-        if (!BanUtils.hasJoinedBefore(uuid)) {
-            sender.sendMessage(chatPrefix + ChatColor.RED + "This player has never joined the server.");
-            return true;
-        }
-
-        // Check if player is already banned
-        if (BanUtils.isBanned(uuid)) {
-            sender.sendMessage(chatPrefix + ChatColor.RED +
-                    (target.getName() != null ? target.getName() : uuid.toString()) + " is already banned!");
-            return true;
-        }
-
         // Parse duration
         long delta;
         try {
@@ -67,39 +49,42 @@ public class TempBanCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        long endTimestamp = System.currentTimeMillis() + delta;
-
         // Optional reason
         String reason = args.length >= 3 ? String.join(" ", Arrays.copyOfRange(args, 2, args.length)).trim() : null;
-
-        // Save ban in DB
-        BanUtils.tempBan(uuid, delta, reason);
-
-        String name = Objects.toString(target.getName(), uuid.toString());
-        String executor = sender instanceof Player ? sender.getName() : "the console";
+        Moderator by = Moderator.of(sender);
         String remaining = BanUtils.formatDuration(delta);
 
-        // Feedback to executor
-        sender.sendMessage(chatPrefix + ChatColor.YELLOW +
-                name + " has been banned for " + remaining + ".");
-        if (reason != null && !reason.isBlank()) {
-            sender.sendMessage(chatPrefix + ChatColor.GRAY + "Reason: " + reason);
-        }
-
-        // Discord notification
-        DiscordUtils.sendColoredMessage(
-                name + " was banned by " + executor + " for " + remaining +
-                        (reason != null ? "\n*Reason: " + reason : "*"),
-                0xFF0000
-        );
-
-        // Kick if online
-        if (target.isOnline() && target.getPlayer() != null) {
-            target.getPlayer().kickPlayer(
-                    chatPrefix + ChatColor.RED + "You have been banned!" +
-                            (reason != null ? "\nReason: " + reason : "")
-            );
-        }
+        // Resolve, check and save off the main thread, feedback and kick back on it
+        CommandPipeline.execute(sender, args[0], target -> {
+            UUID uuid = target.uuid();
+
+            // Check if player has ever joined
+            if (!BanUtils.hasJoinedBefore(uuid)) {
+                throw new CommandPipeline.Rejected("This player has never joined the server.");
+            }
+
+            // Check if player is already banned
+            if (BanUtils.isBanned(uuid)) {
+                throw new CommandPipeline.Rejected(target.name() + " is already banned!");
+            }
+
+            // Save ban in DB
+            BanUtils.tempBan(uuid, delta, reason, by);
+            return AltUtils.getAltHint(uuid, target.name());
+        }, (target, altHint) -> {
+            String name = target.name();
+
+            // Feedback to executor
+            sender.sendMessage(chatPrefix + ChatColor.YELLOW +
+                    name + " has been banned for " + remaining + ".");
+            if (reason != null && !reason.isBlank()) {
+                sender.sendMessage(chatPrefix + ChatColor.GRAY + "Reason: " + reason);
+            }
+            if (altHint != null) sender.sendMessage(altHint);
+
+            // Kick if online
+            CommandPipeline.kickIfOnline(target.uuid(), BanUtils.getBanMessage(target.uuid()));
+        });
 
         return true;
     }
@@ -126,12 +111,7 @@ public class TempBanCommand implements CommandExecutor, TabCompleter {
 
         if (args.length == 1) {
             // Suggest only players who joined before
-            return Arrays.stream(Bukkit.getOfflinePlayers())
-                    .filter(p -> BanUtils.hasJoinedBefore(p.getUniqueId()))
-                    .map(OfflinePlayer::getName)
-                    .filter(Objects::nonNull)
-                    .filter(n -> n.toLowerCase().startsWith(args[0].toLowerCase()))
-                    .collect(Collectors.toList());
+            return BanUtils.completeKnownNames(args[0]);
         }
 
         if (args.length == 2) {
@@ -0,0 +1,134 @@
+package de.jakomi1.betterBan.commands;
+
+import de.jakomi1.betterBan.cache.IpRange;
+import de.jakomi1.betterBan.utils.BanUtils;
+import de.jakomi1.betterBan.utils.IpBanUtils;
+import de.jakomi1.betterBan.utils.Moderator;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+import static de.jakomi1.betterBan.BetterBan.isAdmin;
+
+public class TempBanIpCommand implements CommandExecutor, TabCompleter {
+
+    @Override
+    public boolean onCommand(CommandSender sender,
+                             Command command,
+                             String label,
+                             String[] args) {
+        // Permission check
+        if (sender instanceof Player player && !isAdmin(player)) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "You don't have permission for this.");
+            return true;
+        }
+
+        // -confirm may stand anywhere and is not part of the reason
+        boolean confirmed = Arrays.asList(args).contains(IpBanUtils.CONFIRM_FLAG);
+        if (confirmed) args = Arrays.stream(args).filter(arg -> !arg.equals(IpBanUtils.CONFIRM_FLAG)).toArray(String[]::new);
+
+        // /tempbanip <IP[/Prefix]|Name> <Duration> [-confirm] [Reason...]
+        if (args.length < 2) {
+            sender.sendMessage(chatPrefix + ChatColor.RED +
+                    "Usage: /tempbanip <IP[/Prefix]|Name> <Duration> [-confirm] [Reason...]. Example: 10m, 2h, 1d");
+            return true;
+        }
+
+        IpRange range;
+        try {
+            range = IpBanUtils.parseTarget(args[0]);
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "Invalid IP address or range: " + args[0]);
+            return true;
+        }
+
+        if (!confirmed && IpBanUtils.needsConfirmation(range)) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + range + " is wider than /" + IpBanUtils.getMinPrefixLength(range)
+                    + ". Add " + IpBanUtils.CONFIRM_FLAG + " to ban it anyway.");
+            return true;
+        }
+
+        // Check if the range is already banned
+        if (IpBanUtils.getActiveBan(range) != null) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + range + " is already banned!");
+            return true;
+        }
+
+        // Parse duration
+        long delta;
+        try {
+            delta = parseDuration(args[1].toLowerCase());
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(chatPrefix + ChatColor.RED +
+                    "Invalid time format. Example: 10m, 2h, 1d");
+            return true;
+        }
+
+        // Optional reason
+        String reason = args.length >= 3 ? String.join(" ", Arrays.copyOfRange(args, 2, args.length)).trim() : null;
+        if (reason != null && reason.isBlank()) reason = null;
+
+        // Save ban, kicks matching players
+        List<String> kicked = IpBanUtils.tempBan(range, delta, reason, Moderator.of(sender));
+
+        String remaining = BanUtils.formatDuration(delta);
+
+        // Feedback to executor
+        sender.sendMessage(chatPrefix + ChatColor.YELLOW + range + " has been banned for " + remaining + ".");
+        if (reason != null) {
+            sender.sendMessage(chatPrefix + ChatColor.GRAY + "Reason: " + reason);
+        }
+        if (!kicked.isEmpty()) {
+            sender.sendMessage(chatPrefix + ChatColor.GRAY + "Kicked: " + String.join(", ", kicked));
+        }
+
+        return true;
+    }
+
+    private long parseDuration(String input) throws IllegalArgumentException {
+        // allowed: <number><m|h|d>
+        if (input.endsWith("m")) {
+            return Long.parseLong(input.substring(0, input.length() - 1)) * 60_000L;
+        } else if (input.endsWith("h")) {
+            return Long.parseLong(input.substring(0, input.length() - 1)) * 60 * 60_000L;
+        } else if (input.endsWith("d")) {
+            return Long.parseLong(input.substring(0, input.length() - 1)) * 24 * 60 * 60_000L;
+        } else {
+            throw new IllegalArgumentException("Invalid time format");
+        }
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender,
+                                      Command command,
+                                      String alias,
+                                      String[] args) {
+        if (sender instanceof Player player && !isAdmin(player)) return List.of();
+
+        if (args.length == 1) {
+            return Bukkit.getOnlinePlayers().stream()
+                    .map(Player::getName)
+                    .filter(name -> name.toLowerCase().startsWith(args[0].toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+
+        if (args.length == 2) {
+            // Duration suggestions
+            return Stream.of("10m", "30m", "1h", "2h", "1d")
+                    .filter(opt -> opt.startsWith(args[1].toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+
+        return List.of();
+    }
+}
@@ -1,9 +1,7 @@
 package de.jakomi1.betterBan.commands;
 
 import de.jakomi1.betterBan.utils.BanUtils;
-import de.jakomi1.betterBan.utils.DiscordUtils;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
+import de.jakomi1.betterBan.utils.Moderator;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -12,9 +10,6 @@ import org.bukkit.entity.Player;
 import org.bukkit.ChatColor;
 
 import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
-import java.util.stream.Collectors;
 
 import static de.jakomi1.betterBan.BetterBan.chatPrefix;
 import static de.jakomi1.betterBan.BetterBan.isAdmin;
@@ -34,29 +29,23 @@ public class UnbanCommand implements CommandExecutor, TabCompleter {
                 return true;
             }
 
-            OfflinePlayer target = Bukkit.getOfflinePlayer(args[0]);
-            UUID uuid = target.getUniqueId();
+            Moderator by = Moderator.of(sender);
 
-            // Check if player is banned
-            if (!BanUtils.isBanned(uuid)) {
-                sender.sendMessage(chatPrefix + ChatColor.RED +
-                        (target.getName() != null ? target.getName() : uuid.toString()) + " is not banned.");
-                return true;
-            }
-
-            // Remove ban from DB
-            BanUtils.unban(uuid);
+            // Resolve, check and remove off the main thread, feedback back on it
+            CommandPipeline.execute(sender, args[0], target -> {
+                // Check if player is banned
+                if (!BanUtils.isBanned(target.uuid())) {
+                    throw new CommandPipeline.Rejected(target.name() + " is not banned.");
+                }
 
-            // Feedback
-            sender.sendMessage(chatPrefix + ChatColor.GRAY +
-                    (target.getName() != null ? target.getName() : uuid.toString()) + " has been unbanned.");
+                // Remove ban from DB
+                BanUtils.unban(target.uuid(), by);
+                return null;
+            }, (target, ignored) -> {
+                // Feedback
+                sender.sendMessage(chatPrefix + ChatColor.GRAY + target.name() + " has been unbanned.");
 
-            String executor = sender instanceof Player ? sender.getName() : "the console";
-            DiscordUtils.sendColoredMessage(
-                    (target.getName() != null ? target.getName() : uuid.toString()) +
-                            " was unbanned by " + executor + ".",
-                    0x00FF00
-            );
+            });
 
         } else {
             sender.sendMessage(chatPrefix + ChatColor.RED + "You don't have permission for this.");
@@ -74,12 +63,7 @@ public class UnbanCommand implements CommandExecutor, TabCompleter {
         if (sender instanceof Player player && !isAdmin(player)) return List.of();
 
         if (args.length == 1) {
-            return BanUtils.getAllBans().keySet().stream()
-                    .map(Bukkit::getOfflinePlayer)
-                    .map(OfflinePlayer::getName)
-                    .filter(Objects::nonNull)
-                    .filter(name -> name.toLowerCase().startsWith(args[0].toLowerCase()))
-                    .collect(Collectors.toList());
+            return BanUtils.completeBannedNames(args[0]);
         }
 
         return List.of();
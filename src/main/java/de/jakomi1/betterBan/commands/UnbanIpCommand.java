@@ -0,0 +1,75 @@
+package de.jakomi1.betterBan.commands;
+
+import de.jakomi1.betterBan.cache.IpRange;
+import de.jakomi1.betterBan.utils.IpBanUtils;
+import de.jakomi1.betterBan.utils.Moderator;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+import static de.jakomi1.betterBan.BetterBan.isAdmin;
+
+public class UnbanIpCommand implements CommandExecutor, TabCompleter {
+
+    @Override
+    public boolean onCommand(CommandSender sender,
+                             Command command,
+                             String label,
+                             String[] args) {
+
+        // Permission check
+        if (sender instanceof Player player && !isAdmin(player)) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "You don't have permission for this.");
+            return true;
+        }
+
+        // /unbanip <IP[/Prefix]>
+        if (args.length != 1) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "Usage: /unbanip <IP[/Prefix]>");
+            return true;
+        }
+
+        IpRange range;
+        try {
+            range = IpRange.parse(args[0]);
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + "Invalid IP address or range: " + args[0]);
+            return true;
+        }
+
+        if (!IpBanUtils.unban(range, Moderator.of(sender))) {
+            sender.sendMessage(chatPrefix + ChatColor.RED + range + " is not banned.");
+            return true;
+        }
+
+        sender.sendMessage(chatPrefix + ChatColor.GREEN + range + " has been unbanned.");
+
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender,
+                                      Command command,
+                                      String alias,
+                                      String[] args) {
+        if (sender instanceof Player player && !isAdmin(player)) return List.of();
+
+        if (args.length == 1) {
+            // Currently banned addresses and ranges
+            return IpBanUtils.getAllIpBans().keySet().stream()
+                    .map(IpRange::toString)
+                    .filter(range -> range.startsWith(args[0]))
+                    .limit(50)
+                    .collect(Collectors.toList());
+        }
+
+        return List.of();
+    }
+}
@@ -1,21 +1,37 @@
 package de.jakomi1.betterBan.database;
 
-import de.jakomi1.betterBan.utils.BanUtils;
-import de.jakomi1.betterBan.utils.ChatBanUtils;
+import de.jakomi1.betterBan.utils.ConfigUtils;
+import de.jakomi1.betterBan.utils.StartupUtils;
 
 import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static de.jakomi1.betterBan.BetterBan.plugin;
 
 /**
  * Zentrale DB-Utility.
- * - Datenbank-Datei: database.db (im Plugin-Ordner)
- * - Stellt Connection-Factory zur Verfügung
- * - Erstellt grundlegende Tabellen (schema_version + whitelist) beim Init
+ * - Datenbank-Datei: database.db (im Plugin-Ordner), alternativ ein DB-Server (storage.type)
+ * - Wählt das {@link PunishmentStore}-Backend aus
+ * - Hält einen kleinen Pool langlebiger Connections: eine Writer-Connection und N Reader-Connections
+ * - Journal-Mode WAL: Reader blockieren nie hinter dem Writer
+ * - Server-Connections (MySQL, MariaDB, PostgreSQL) werden nach einer Pause geprüft und bei Bedarf neu geöffnet
+ * - Writes laufen über die {@link WriteBehindQueue} (Group-Commit auf einem eigenen Thread)
  * <p>
  * Erweiterungen:
  * - Weitere Basistabellen / Migrations können hier ergänzt werden.
@@ -23,11 +39,29 @@ import static de.jakomi1.betterBan.BetterBan.plugin;
 public final class Database {
 
     private static final String DB_FILE_NAME = "database.db";
-    private static final String JDBC_URL;
+    private static final String SQLITE_URL;
+
+    // Wie lange ein Caller maximal auf eine freie Reader-Connection wartet
+    private static final long READER_TIMEOUT_MILLIS = 5000L;
+
+    // Server-Connections, die länger ungenutzt waren, werden vor der Ausgabe geprüft (z.B. MySQL wait_timeout)
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 1000L;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private static final ReentrantLock writeLock = new ReentrantLock();
+    private static Connection writer;
+    private static BlockingQueue<Connection> readers;
+    private static final List<Connection> allReaders = new ArrayList<>();
+    private static boolean sqlite;
+    private static String jdbcUrl;
+    private static String jdbcUser;
+    private static String jdbcPassword;
+    private static final Map<Connection, Long> lastUsed = new ConcurrentHashMap<>();
+    private static PunishmentStore store;
 
     static {
         File dbFile = new File(plugin.getDataFolder(), DB_FILE_NAME);
-        JDBC_URL = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        SQLITE_URL = "jdbc:sqlite:" + dbFile.getAbsolutePath();
     }
 
     private Database() { /* utility */ }
@@ -36,37 +70,292 @@ public final class Database {
      * Liefert den JDBC URL (z.B. jdbc:sqlite:/path/to/plugins/…/database.db)
      */
     public static String getJdbcUrl() {
-        return JDBC_URL;
+        return jdbcUrl != null ? jdbcUrl : SQLITE_URL;
+    }
+
+    /**
+     * Liefert die (einzige) Writer-Connection. Der Aufrufer hält den Write-Lock,
+     * bis er die Connection schließt – Caller sollte try-with-resources verwenden.
+     * close() gibt die Connection nur an den Pool zurück.
+     */
+    public static Connection getWriteConnection() throws SQLException {
+        if (writer == null) throw new SQLException("Database is not initialized");
+        writeLock.lock();
+        Connection conn;
+        try {
+            conn = writer = checked(writer, false);
+        } catch (SQLException | RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+        return pooled(conn, () -> {
+            try {
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            } finally {
+                lastUsed.put(conn, System.currentTimeMillis());
+                writeLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Liefert eine Reader-Connection aus dem Pool (query_only).
+     * Caller sollte try-with-resources verwenden; close() gibt die Connection zurück.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        if (readers == null) throw new SQLException("Database is not initialized");
+        BlockingQueue<Connection> pool = readers;
+        Connection borrowed;
+        try {
+            borrowed = pool.poll(READER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a reader connection", e);
+        }
+        if (borrowed == null) throw new SQLTimeoutException("No reader connection available");
+
+        Connection conn;
+        try {
+            conn = checked(borrowed, true);
+        } catch (SQLException | RuntimeException e) {
+            // Kaputte Connection zurücklegen, der nächste Aufruf versucht es erneut
+            pool.offer(borrowed);
+            throw e;
+        }
+        if (conn != borrowed) {
+            synchronized (allReaders) {
+                allReaders.remove(borrowed);
+                allReaders.add(conn);
+            }
+        }
+        return pooled(conn, () -> {
+            lastUsed.put(conn, System.currentTimeMillis());
+            pool.offer(conn);
+        });
     }
 
     /**
      * Öffnet eine Connection zur zentralen Datenbank.
-     * Caller sollte try-with-resources verwenden.
+     * Entspricht {@link #getWriteConnection()}; für reine Lesezugriffe {@link #getReadConnection()} nutzen.
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(JDBC_URL);
+        return getWriteConnection();
     }
 
     /**
-     * Initialisiert die Datenbank: PRAGMAs und grundlegende Tabellen.
+     * Liefert das aktive Storage-Backend (siehe storage.type in der config.yml).
+     */
+    public static PunishmentStore getStore() {
+        return store;
+    }
+
+    /**
+     * Initialisiert die Datenbank: Backend-Auswahl, Connection-Pool, PRAGMAs und grundlegende Tabellen.
      * Wird beim Plugin-Startup aufgerufen.
+     * <p>
+     * Kein Fallback auf den Memory-Store: ohne das konfigurierte Backend wäre kein Bann bekannt und jeder
+     * neue Bann ginge beim Neustart verloren. Stattdessen bleibt {@link #getStore()} null und Logins werden
+     * abgewiesen (siehe JoinListener), bis die Storage wieder erreichbar ist und der Server neu startet.
+     *
+     * @return false, wenn das konfigurierte Backend nicht gestartet werden konnte
+     */
+    public static boolean init() {
+        String type = ConfigUtils.getStorageType().toLowerCase(Locale.ROOT);
+        try {
+            store = openStore(type);
+            plugin.getLogger().info("Using " + store.name() + " storage");
+        } catch (SQLException | IllegalArgumentException e) {
+            e.printStackTrace();
+            plugin.getLogger().severe("Couldn't initialize '" + type + "' storage - refusing all logins until it is "
+                    + "reachable and the server is restarted!");
+            closePool();
+            store = null;
+            return false;
+        }
+
+        WriteBehindQueue.start();
+
+        // Caches: Snapshot vom letzten Shutdown, danach Abgleich mit der DB im Hintergrund
+        StartupUtils.loadCaches();
+        return true;
+    }
+
+    /**
+     * Öffnet den Connection-Pool für {@code type} und legt Tabellen / Migrations an.
+     */
+    static PunishmentStore openStore(String type) throws SQLException {
+        PunishmentStore opened = switch (type) {
+            case "memory" -> new MemoryPunishmentStore();
+            case "sqlite" -> {
+                openPool(SQLITE_URL, null, null, true);
+                yield new SqlitePunishmentStore();
+            }
+            default -> {
+                SqlDialect dialect = SqlDialect.fromConfig(type);
+                openPool(ConfigUtils.getStorageJdbcUrl(), ConfigUtils.getStorageUsername(),
+                        ConfigUtils.getStoragePassword(), false);
+                yield new JdbcPunishmentStore(dialect);
+            }
+        };
+        opened.init();
+        return opened;
+    }
+
+    /**
+     * Schließt alle Connections. Vorher wird ein WAL-Checkpoint ausgeführt,
+     * damit die -wal Datei nicht bis zum nächsten Start liegen bleibt.
      */
-    public static void init() {
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
+    public static void shutdown() {
+        // Ausstehende Writes zuerst committen
+        WriteBehindQueue.shutdown();
+
+        // Caches und DB sind jetzt identisch -> Snapshot für den nächsten Start
+        StartupUtils.saveSnapshot();
+
+        if (writer != null && sqlite) {
+            writeLock.lock();
+            try (Statement stmt = writer.createStatement()) {
+                stmt.execute("PRAGMA wal_checkpoint(TRUNCATE);");
+            } catch (SQLException e) {
+                e.printStackTrace();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        closePool();
+    }
+
+    // ==============================================================
+
+    private static void openPool(String url, String user, String password, boolean isSqlite) throws SQLException {
+        int readerCount = Math.max(1, ConfigUtils.getReaderConnections());
+        sqlite = isSqlite;
+        jdbcUrl = url;
+        jdbcUser = user;
+        jdbcPassword = password;
+
+        writer = open(url, user, password);
+        if (sqlite) {
+            try (Statement stmt = writer.createStatement()) {
+                // journal_mode ist persistent in der DB-Datei, muss aber vom Writer gesetzt werden
+                stmt.execute("PRAGMA journal_mode = WAL;");
+            }
+        }
+        configure(writer);
+
+        readers = new ArrayBlockingQueue<>(readerCount);
+        for (int i = 0; i < readerCount; i++) {
+            Connection conn = open(url, user, password);
+            configure(conn);
+            if (sqlite) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("PRAGMA query_only = ON;");
+                }
+            } else {
+                conn.setReadOnly(true);
+            }
+            synchronized (allReaders) {
+                allReaders.add(conn);
+            }
+            readers.add(conn);
+        }
+    }
+
+    private static Connection open(String url, String user, String password) throws SQLException {
+        return user == null || user.isEmpty()
+                ? DriverManager.getConnection(url)
+                : DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * Prüft eine Server-Connection, die länger ungenutzt war, und ersetzt sie, falls der Server sie inzwischen
+     * geschlossen hat. SQLite-Connections werden nie ungültig.
+     */
+    private static Connection checked(Connection conn, boolean reader) throws SQLException {
+        if (sqlite) return conn;
+        Long used = lastUsed.get(conn);
+        if (used != null && System.currentTimeMillis() - used < VALIDATE_AFTER_IDLE_MILLIS) return conn;
+        if (conn.isValid(VALIDATION_TIMEOUT_SECONDS)) return conn;
+
+        plugin.getLogger().warning("Database connection was closed by the server, reconnecting");
+        Connection reopened = open(jdbcUrl, jdbcUser, jdbcPassword);
+        if (reader) reopened.setReadOnly(true);
+        lastUsed.remove(conn);
+        closeQuietly(conn);
+        return reopened;
+    }
+
+    static void closePool() {
+        synchronized (allReaders) {
+            for (Connection conn : allReaders) closeQuietly(conn);
+            allReaders.clear();
+        }
+        readers = null;
+
+        closeQuietly(writer);
+        writer = null;
+        lastUsed.clear();
+    }
+
+    private static void configure(Connection conn) throws SQLException {
+        if (!sqlite) return;
+        try (Statement stmt = conn.createStatement()) {
             // Aktivieren von Foreign Keys (falls später benötigt)
-            stmt.executeUpdate("PRAGMA foreign_keys = ON;");
-
-            // Tabelle für Schema-Versionen / Migrations
-            stmt.executeUpdate("""
-                    CREATE TABLE IF NOT EXISTS schema_version (
-                        id INTEGER PRIMARY KEY AUTOINCREMENT,
-                        name TEXT UNIQUE NOT NULL,
-                        version INTEGER NOT NULL,
-                        applied_at TEXT NOT NULL DEFAULT (datetime('now'))
-                    );
-                    """);
-            BanUtils.init();
-            ChatBanUtils.init();
+            stmt.execute("PRAGMA foreign_keys = ON;");
+            stmt.execute("PRAGMA synchronous = NORMAL;");
+            stmt.execute("PRAGMA busy_timeout = 5000;");
+            stmt.execute("PRAGMA temp_store = MEMORY;");
+            stmt.execute("PRAGMA mmap_size = " + ConfigUtils.getMmapSizeMb() * 1024L * 1024L + ";");
+            // negativer Wert = Größe in KiB statt in Pages
+            stmt.execute("PRAGMA cache_size = -" + ConfigUtils.getCacheSizeMb() * 1024L + ";");
+        }
+    }
+
+    /**
+     * Wrappt eine Pool-Connection, sodass close() nur {@code release} ausführt.
+     */
+    private static Connection pooled(Connection delegate, Runnable release) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean released;
+
+            @Override
+            public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!released) {
+                            released = true;
+                            release.run();
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return released || delegate.isClosed();
+                    }
+                    default -> {
+                        if (released) throw new SQLException("Connection already returned to pool");
+                        try {
+                            return method.invoke(delegate, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn == null) return;
+        try {
+            conn.close();
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,13 @@
+package de.jakomi1.betterBan.database;
+
+/**
+ * What happened to a punishment, see {@link HistoryEntry}.
+ */
+public enum HistoryAction {
+    /** Issued (or replaced by a new punishment). */
+    CREATE,
+    /** Ran out. */
+    EXPIRE,
+    /** Lifted by a moderator before it ran out. */
+    REVOKE
+}
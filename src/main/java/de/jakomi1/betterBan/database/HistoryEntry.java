@@ -0,0 +1,28 @@
+package de.jakomi1.betterBan.database;
+
+import java.util.UUID;
+
+/**
+ * One row of the append-only punishment_history table.
+ *
+ * @param id           row id, 0 for entries that are not written yet
+ * @param executor     UUID of the moderator, null for the console and automatic actions
+ * @param executorName name of the moderator at the time of the action, null if unknown
+ * @param endTimestamp end of the punishment, -1 for permanent
+ * @param createdAt    time of the action (epoch millis), 0 if unknown
+ */
+public record HistoryEntry(long id,
+                           UUID uuid,
+                           PunishmentType type,
+                           HistoryAction action,
+                           UUID executor,
+                           String executorName,
+                           String reason,
+                           long endTimestamp,
+                           long createdAt) {
+
+    /** Whether the time of the action is known; it isn't for punishments issued before the history existed. */
+    public boolean hasCreatedAt() {
+        return createdAt != 0L;
+    }
+}
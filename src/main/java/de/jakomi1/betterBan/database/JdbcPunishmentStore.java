@@ -0,0 +1,197 @@
+package de.jakomi1.betterBan.database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Backend for a shared database server (MySQL / MariaDB / PostgreSQL), so several servers
+ * of a network see the same bans. H2 is supported for local testing, e.g.
+ * {@code jdbc:h2:./betterban;MODE=MySQL}.
+ * <p>
+ * The JDBC driver has to be on the server classpath.
+ */
+public class JdbcPunishmentStore extends SqlPunishmentStore {
+
+    /** Player and executor names; wider than Minecraft's 16 characters for prefixed and console names. */
+    private static final String NAME_TYPE = "VARCHAR(64)";
+
+    private final SqlDialect dialect;
+
+    public JdbcPunishmentStore(SqlDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    public SqlDialect getDialect() {
+        return dialect;
+    }
+
+    @Override
+    public String name() {
+        return "JDBC (" + dialect.name().toLowerCase() + ")";
+    }
+
+    @Override
+    protected void createTables(Statement stmt) throws SQLException {
+        stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    id %s,
+                    name VARCHAR(255) UNIQUE NOT NULL,
+                    version INTEGER NOT NULL,
+                    applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                )
+                """.formatted(dialect.autoIncrementPrimaryKey()));
+
+        stmt.executeUpdate("""
+            CREATE TABLE IF NOT EXISTS has_joined (
+                uuid %s PRIMARY KEY,
+                name VARCHAR(16) NOT NULL
+            )
+        """.formatted(dialect.uuidType()));
+    }
+
+    @Override
+    protected List<Migration> migrations() {
+        return List.of(
+                // Also creates the pre-7 tables on fresh installs, so migrations 2, 3 and 7 have something to convert.
+                // MySQL commits each DDL statement, so every step must be safe to re-run after a failure
+                Migration.of(1, "add_end_timestamp_indexes",
+                        Migration.statements(legacyPunishmentDdl("bans"), legacyPunishmentDdl("chat_bans")),
+                        createIndex("idx_bans_end_timestamp", "bans", "end_timestamp"),
+                        createIndex("idx_chat_bans_end_timestamp", "chat_bans", "end_timestamp")),
+                binaryUuidMigration(2, "bans",
+                        "end_timestamp " + dialect.bigintType() + " NOT NULL, reason TEXT",
+                        new String[]{"end_timestamp", "reason"},
+                        createIndex("idx_bans_end_timestamp", "bans", "end_timestamp")),
+                binaryUuidMigration(3, "chat_bans",
+                        "end_timestamp " + dialect.bigintType() + " NOT NULL, reason TEXT",
+                        new String[]{"end_timestamp", "reason"},
+                        createIndex("idx_chat_bans_end_timestamp", "chat_bans", "end_timestamp")),
+                binaryUuidMigration(4, "has_joined", "name VARCHAR(16) NOT NULL",
+                        new String[]{"name"}),
+                Migration.sql(5, "create_plugin_meta",
+                        "CREATE TABLE IF NOT EXISTS plugin_meta (meta_key VARCHAR(64) PRIMARY KEY, meta_value VARCHAR(255))"),
+                Migration.of(6, "create_punishment_history",
+                        Migration.statements(
+                                "CREATE TABLE IF NOT EXISTS punishment_history (" + historyDdl(dialect.autoIncrementPrimaryKey()) + ")",
+                                "CREATE TABLE IF NOT EXISTS punishment_history_archive (" + historyDdl(dialect.bigintType() + " PRIMARY KEY") + ")"),
+                        createIndex("idx_history_player", "punishment_history",
+                                "uuid, created_at, type, action, end_timestamp, executor_name"),
+                        createIndex("idx_history_executor", "punishment_history",
+                                "executor, created_at, uuid, type, action"),
+                        createIndex("idx_history_archive_player", "punishment_history_archive", "uuid, created_at")),
+                Migration.of(7, "merge_punishment_tables",
+                        Migration.statements("CREATE TABLE IF NOT EXISTS punishments (uuid " + dialect.binaryUuidType() + " NOT NULL"
+                                + ", type VARCHAR(16) NOT NULL"
+                                + ", end_timestamp " + dialect.bigintType() + " NOT NULL"
+                                + ", reason TEXT"
+                                + ", PRIMARY KEY (uuid, type))"),
+                        mergeLegacyPunishments("bans", PunishmentType.BAN),
+                        mergeLegacyPunishments("chat_bans", PunishmentType.CHAT_BAN),
+                        createIndex("idx_punishments_end_timestamp", "punishments", "type, end_timestamp")),
+                Migration.sql(8, "create_ip_bans",
+                        "CREATE TABLE IF NOT EXISTS ip_bans (address " + dialect.ipAddressType() + " NOT NULL"
+                                + ", prefix_length INTEGER NOT NULL"
+                                + ", end_timestamp " + dialect.bigintType() + " NOT NULL"
+                                + ", reason TEXT"
+                                + ", PRIMARY KEY (address, prefix_length))"),
+                Migration.of(9, "create_player_ips",
+                        Migration.statements("CREATE TABLE IF NOT EXISTS player_ips (uuid " + dialect.binaryUuidType() + " NOT NULL"
+                                + ", address " + dialect.bigintType() + " NOT NULL"
+                                + ", first_seen " + dialect.bigintType() + " NOT NULL"
+                                + ", last_seen " + dialect.bigintType() + " NOT NULL"
+                                + ", PRIMARY KEY (uuid, address))"),
+                        createIndex("idx_player_ips_address", "player_ips", "address")),
+                // Existing players are copied over in chunks, with first_seen / last_seen 0 (unknown)
+                nameLookupMigration(10,
+                        conn -> {
+                            try (Statement stmt = conn.createStatement()) {
+                                if (!hasColumn(conn, "has_joined", "name_lower")) {
+                                    stmt.executeUpdate("ALTER TABLE has_joined ADD COLUMN name_lower VARCHAR(16)");
+                                }
+                                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS name_history (uuid " + dialect.binaryUuidType() + " NOT NULL"
+                                        + ", name_lower VARCHAR(16) NOT NULL"
+                                        + ", name VARCHAR(16) NOT NULL"
+                                        + ", first_seen " + dialect.bigintType() + " NOT NULL"
+                                        + ", last_seen " + dialect.bigintType() + " NOT NULL"
+                                        + ", PRIMARY KEY (uuid, name_lower))");
+                            }
+                        },
+                        conn -> {
+                            try (Statement stmt = conn.createStatement()) {
+                                if (!hasIndex(conn, "has_joined", "idx_has_joined_name_lower")) {
+                                    stmt.executeUpdate("CREATE INDEX idx_has_joined_name_lower ON has_joined (name_lower)");
+                                }
+                                if (!hasIndex(conn, "name_history", "idx_name_history_name")) {
+                                    stmt.executeUpdate("CREATE INDEX idx_name_history_name ON name_history (name_lower, last_seen)");
+                                }
+                            }
+                        }),
+                // Punishments issued before the history existed (migration 6) get their CREATE row
+                historyBackfillMigration(11),
+                // Bedrock names carry a Floodgate prefix and console executors a suffix such as "(Discord)";
+                // MySQL in strict mode rejected those writes with VARCHAR(16)
+                Migration.sql(12, "widen_name_columns",
+                        dialect.alterColumnType("has_joined", "name", NAME_TYPE, true),
+                        dialect.alterColumnType("has_joined", "name_lower", NAME_TYPE, false),
+                        dialect.alterColumnType("name_history", "name_lower", NAME_TYPE, true),
+                        dialect.alterColumnType("name_history", "name", NAME_TYPE, true),
+                        dialect.alterColumnType("punishment_history", "executor_name", NAME_TYPE, false),
+                        dialect.alterColumnType("punishment_history_archive", "executor_name", NAME_TYPE, false))
+        );
+    }
+
+    /**
+     * Copies a pre-7 table into punishments and drops it. Rows that are already there are skipped, and a
+     * table that is gone was merged by an earlier, interrupted run.
+     */
+    private static Migration.Step mergeLegacyPunishments(String table, PunishmentType type) {
+        return conn -> {
+            if (!hasTable(conn, table)) return;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("INSERT INTO punishments (uuid, type, end_timestamp, reason)"
+                        + " SELECT l.uuid, '" + type.name() + "', l.end_timestamp, l.reason FROM " + table + " l"
+                        + " WHERE NOT EXISTS (SELECT 1 FROM punishments p WHERE p.uuid = l.uuid AND p.type = '" + type.name() + "')");
+                stmt.executeUpdate("DROP TABLE " + table);
+            }
+        };
+    }
+
+    private String legacyPunishmentDdl(String table) {
+        return "CREATE TABLE IF NOT EXISTS " + table + " (uuid " + dialect.uuidType() + " PRIMARY KEY"
+                + ", end_timestamp " + dialect.bigintType() + " NOT NULL"
+                + ", reason TEXT)";
+    }
+
+    private String historyDdl(String idColumn) {
+        return "id " + idColumn
+                + ", uuid " + dialect.binaryUuidType() + " NOT NULL"
+                + ", type VARCHAR(16) NOT NULL"
+                + ", action VARCHAR(16) NOT NULL"
+                + ", executor " + dialect.binaryUuidType()
+                + ", executor_name VARCHAR(16)"
+                + ", reason TEXT"
+                + ", end_timestamp " + dialect.bigintType() + " NOT NULL"
+                + ", created_at " + dialect.bigintType() + " NOT NULL";
+    }
+
+    @Override
+    protected String binaryUuidType() {
+        return dialect.binaryUuidType();
+    }
+
+    @Override
+    protected String upsertSql(String table, int keyColumns, String... columns) {
+        return dialect.upsert(table, keyColumns, columns);
+    }
+
+    @Override
+    protected String upsertPunishmentSql() {
+        return dialect.upsert("punishments", 2, "uuid", "type", "end_timestamp", "reason");
+    }
+
+    @Override
+    protected String upsertJoinedSql() {
+        return dialect.upsert("has_joined", "uuid", "name", "name_lower");
+    }
+}
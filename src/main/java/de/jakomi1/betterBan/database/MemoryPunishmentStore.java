@@ -0,0 +1,290 @@
+package de.jakomi1.betterBan.database;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Pure in-memory backend. Nothing survives a restart; meant for benchmarks and tests.
+ */
+public class MemoryPunishmentStore implements PunishmentStore {
+
+    private record Row(long endTimestamp, String reason) {}
+
+    private record IpRow(byte[] address, int prefixLength, long endTimestamp, String reason) {}
+
+    private record PlayerIpRow(UUID uuid, long address, long firstSeen, long lastSeen) {}
+
+    private record NameRow(UUID uuid, String name, long firstSeen, long lastSeen) {}
+
+    private final Map<PunishmentType, Map<UUID, Row>> punishments = new EnumMap<>(PunishmentType.class);
+    private final Map<UUID, String> joined = new ConcurrentHashMap<>();
+    // Key: hex address + "/" + prefix length
+    private final Map<String, IpRow> ipBans = new ConcurrentHashMap<>();
+    // Key: uuid + "/" + address
+    private final Map<String, PlayerIpRow> playerIps = new ConcurrentHashMap<>();
+    // Key: uuid + "/" + lowercase name
+    private final Map<String, NameRow> nameHistory = new ConcurrentHashMap<>();
+    private final Map<String, String> meta = new ConcurrentHashMap<>();
+    // Guarded by itself; archived rows are simply dropped
+    private final List<HistoryEntry> history = new ArrayList<>();
+    private final AtomicLong historyIds = new AtomicLong();
+
+    public MemoryPunishmentStore() {
+        for (PunishmentType type : PunishmentType.values()) {
+            punishments.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void init() {
+        // nothing to create
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public void loadPunishments(PunishmentConsumer consumer) {
+        punishments.forEach((type, rows) ->
+                rows.forEach((uuid, row) -> consumer.accept(uuid, type, row.endTimestamp(), row.reason())));
+    }
+
+    @Override
+    public void loadPunishmentCreated(CreatedConsumer consumer) {
+        Map<String, HistoryEntry> latest = new HashMap<>();
+        synchronized (history) {
+            for (HistoryEntry entry : history) {
+                if (entry.action() == HistoryAction.CREATE) latest.put(entry.type() + ":" + entry.uuid(), entry);
+            }
+        }
+        punishments.forEach((type, rows) -> rows.keySet().forEach(uuid -> {
+            HistoryEntry entry = latest.get(type + ":" + uuid);
+            if (entry != null) consumer.accept(uuid, type, entry.createdAt());
+        }));
+    }
+
+    @Override
+    public void loadIpBans(IpBanConsumer consumer) {
+        ipBans.values().forEach(row ->
+                consumer.accept(row.address().clone(), row.prefixLength(), row.endTimestamp(), row.reason()));
+    }
+
+    private static String ipKey(byte[] address, int prefixLength) {
+        return HexFormat.of().formatHex(address) + "/" + prefixLength;
+    }
+
+    @Override
+    public void loadPlayerIps(PlayerIpConsumer consumer) {
+        playerIps.values().stream()
+                .sorted(Comparator.comparingLong(PlayerIpRow::lastSeen))
+                .forEach(row -> consumer.accept(row.uuid(), row.address(), row.firstSeen(), row.lastSeen()));
+    }
+
+    @Override
+    public void loadJoined(JoinedConsumer consumer) {
+        joined.forEach(consumer::accept);
+    }
+
+    @Override
+    public boolean hasJoined(UUID uuid) {
+        return joined.containsKey(uuid);
+    }
+
+    @Override
+    public Optional<String> getName(UUID uuid) {
+        return Optional.ofNullable(joined.get(uuid));
+    }
+
+    @Override
+    public Optional<UUID> findUuidByName(String name) {
+        for (Map.Entry<UUID, String> entry : joined.entrySet()) {
+            if (entry.getValue().equalsIgnoreCase(name)) return Optional.of(entry.getKey());
+        }
+        return nameHistory.values().stream()
+                .filter(row -> row.name().equalsIgnoreCase(name))
+                .max(Comparator.comparingLong(NameRow::lastSeen))
+                .map(NameRow::uuid);
+    }
+
+    @Override
+    public Optional<String> getMeta(String key) {
+        return Optional.ofNullable(meta.get(key));
+    }
+
+    @Override
+    public String highWaterMark() {
+        long count = 0, ends = 0, reasons = 0;
+        for (Map<UUID, Row> rows : punishments.values()) {
+            for (Row row : rows.values()) {
+                count++;
+                ends += row.endTimestamp() % 1_000_000_007L;
+                if (row.reason() != null) reasons += row.reason().length();
+            }
+        }
+        long seen = nameHistory.values().stream().mapToLong(NameRow::lastSeen).max().orElse(0L);
+        return historyIds.get() + ":" + count + ":" + ends + ":" + reasons
+                + ":" + joined.size() + ":" + seen;
+    }
+
+    @Override
+    public List<HistoryEntry> getHistory(UUID uuid, int limit) {
+        return queryHistory(entry -> entry.uuid().equals(uuid), limit);
+    }
+
+    @Override
+    public List<HistoryEntry> getHistoryByExecutor(UUID executor, long from, long to, int limit) {
+        return queryHistory(entry -> executor.equals(entry.executor())
+                && entry.createdAt() >= from && entry.createdAt() < to, limit);
+    }
+
+    @Override
+    public int archiveHistory(long before, int limit) {
+        synchronized (history) {
+            int moved = 0;
+            while (moved < limit && moved < history.size() && history.get(moved).createdAt() < before) {
+                moved++;
+            }
+            // One shift of the remaining rows instead of one per removed row
+            history.subList(0, moved).clear();
+            return moved;
+        }
+    }
+
+    @Override
+    public List<HistoryEntry> searchHistory(SearchQuery query, int offset, int limit) {
+        return queryHistory(query::matchesEntry, offset, limit);
+    }
+
+    private List<HistoryEntry> queryHistory(Predicate<HistoryEntry> filter, int limit) {
+        return queryHistory(filter, 0, limit);
+    }
+
+    private List<HistoryEntry> queryHistory(Predicate<HistoryEntry> filter, int offset, int limit) {
+        List<HistoryEntry> result = new ArrayList<>();
+        int skipped = 0;
+        synchronized (history) {
+            for (int i = history.size() - 1; i >= 0 && result.size() < limit; i--) {
+                if (!filter.test(history.get(i))) continue;
+                if (skipped < offset) skipped++;
+                else result.add(history.get(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Writer openWriter() {
+        return new MemoryWriter();
+    }
+
+    // ==============================================================
+
+    /** Buffers all operations and applies them on commit. */
+    private class MemoryWriter implements Writer {
+        private final List<Runnable> pending = new ArrayList<>();
+
+        @Override
+        public void upsertPunishment(PunishmentType type, UUID uuid, long endTimestamp, String reason) {
+            pending.add(() -> punishments.get(type).put(uuid, new Row(endTimestamp, reason)));
+        }
+
+        @Override
+        public void deletePunishment(PunishmentType type, UUID uuid) {
+            pending.add(() -> punishments.get(type).remove(uuid));
+        }
+
+        @Override
+        public void deleteExpired(PunishmentType type, long now) {
+            pending.add(() -> punishments.get(type).values()
+                    .removeIf(row -> row.endTimestamp() != -1 && row.endTimestamp() < now));
+        }
+
+        @Override
+        public void deleteExpired(PunishmentType type, UUID uuid, long endTimestamp) {
+            pending.add(() -> punishments.get(type).computeIfPresent(uuid,
+                    (key, row) -> row.endTimestamp() == endTimestamp ? null : row));
+        }
+
+        @Override
+        public void markJoined(UUID uuid, String name) {
+            pending.add(() -> joined.put(uuid, name));
+        }
+
+        @Override
+        public void recordName(UUID uuid, String name, long seen) {
+            pending.add(() -> nameHistory.merge(uuid + "/" + name.toLowerCase(Locale.ROOT),
+                    new NameRow(uuid, name, seen, seen),
+                    (old, row) -> new NameRow(uuid, name, old.firstSeen(), seen)));
+        }
+
+        @Override
+        public void upsertIpBan(byte[] address, int prefixLength, long endTimestamp, String reason) {
+            IpRow row = new IpRow(address.clone(), prefixLength, endTimestamp, reason);
+            pending.add(() -> ipBans.put(ipKey(address, prefixLength), row));
+        }
+
+        @Override
+        public void deleteIpBan(byte[] address, int prefixLength) {
+            String key = ipKey(address, prefixLength);
+            pending.add(() -> ipBans.remove(key));
+        }
+
+        @Override
+        public void deleteExpiredIpBan(byte[] address, int prefixLength, long endTimestamp) {
+            String key = ipKey(address, prefixLength);
+            pending.add(() -> ipBans.computeIfPresent(key,
+                    (k, row) -> row.endTimestamp() == endTimestamp ? null : row));
+        }
+
+        @Override
+        public void recordPlayerIp(UUID uuid, long address, long seen) {
+            pending.add(() -> playerIps.merge(uuid + "/" + address, new PlayerIpRow(uuid, address, seen, seen),
+                    (old, row) -> new PlayerIpRow(uuid, address, old.firstSeen(), seen)));
+        }
+
+        @Override
+        public void appendHistory(HistoryEntry entry) {
+            pending.add(() -> {
+                synchronized (history) {
+                    history.add(new HistoryEntry(historyIds.incrementAndGet(), entry.uuid(), entry.type(),
+                            entry.action(), entry.executor(), entry.executorName(), entry.reason(),
+                            entry.endTimestamp(), entry.createdAt()));
+                }
+            });
+        }
+
+        @Override
+        public void setMeta(String key, String value) {
+            pending.add(() -> meta.put(key, value));
+        }
+
+        @Override
+        public void commit() {
+            for (Runnable op : pending) op.run();
+            pending.clear();
+        }
+
+        @Override
+        public void rollback() {
+            pending.clear();
+        }
+
+        @Override
+        public void close() {
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.jakomi1.betterBan.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A single, ordered schema migration. Applied migrations are recorded by name in {@code schema_version}.
+ * <p>
+ * Simple migrations run in one transaction. Chunked migrations run {@code setup} in one transaction,
+ * then call {@code chunk} repeatedly (one transaction per chunk) until it reports 0 processed rows,
+ * and finally run {@code finish}. Setup and chunks must be safe to re-run, because a crash
+ * in between leaves the migration unrecorded and it starts over on the next boot.
+ * <p>
+ * MySQL commits every DDL statement implicitly, so a failed migration can't rely on being rolled back:
+ * a CREATE may already be applied when a later statement fails. All steps must therefore be safe to
+ * re-run on a partly migrated schema (CREATE TABLE IF NOT EXISTS, DROP TABLE IF EXISTS, indexes and
+ * columns guarded by a metadata check).
+ */
+public final class Migration {
+
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface ChunkStep {
+        /** Processes at most {@code chunkSize} rows and returns how many were processed. */
+        int apply(Connection conn, int chunkSize) throws SQLException;
+    }
+
+    private final int version;
+    private final String name;
+    private final Step setup;
+    private final ChunkStep chunk;
+    private final Step finish;
+
+    private Migration(int version, String name, Step setup, ChunkStep chunk, Step finish) {
+        if (version <= 0) throw new IllegalArgumentException("version must be > 0");
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("name must not be blank");
+        this.version = version;
+        this.name = name;
+        this.setup = setup;
+        this.chunk = chunk;
+        this.finish = finish;
+    }
+
+    /** Migration running the given steps in order, in one transaction. */
+    public static Migration of(int version, String name, Step... steps) {
+        return new Migration(version, name, conn -> {
+            for (Step step : steps) step.apply(conn);
+        }, null, null);
+    }
+
+    /** Migration consisting of plain SQL statements executed in order. */
+    public static Migration sql(int version, String name, String... statements) {
+        return of(version, name, statements(statements));
+    }
+
+    /** Step executing plain SQL statements in order. */
+    public static Step statements(String... statements) {
+        return conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : statements) stmt.executeUpdate(sql);
+            }
+        };
+    }
+
+    public static Migration chunked(int version, String name, Step setup, ChunkStep chunk, Step finish) {
+        return new Migration(version, name, setup, chunk, finish);
+    }
+
+    public int version() {
+        return version;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    Step setup() {
+        return setup;
+    }
+
+    ChunkStep chunk() {
+        return chunk;
+    }
+
+    Step finish() {
+        return finish;
+    }
+
+    boolean isChunked() {
+        return chunk != null;
+    }
+}
@@ -0,0 +1,140 @@
+package de.jakomi1.betterBan.database;
+
+import de.jakomi1.betterBan.utils.ConfigUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Applies pending {@link Migration}s in version order and records them in {@code schema_version}.
+ * Runs on the writer connection; each chunk of a chunked migration gets its own transaction
+ * and releases the write lock afterwards, so the database is never locked for the whole backfill.
+ */
+public final class MigrationRunner {
+
+    // Log progress of chunked migrations every n rows
+    private static final long PROGRESS_INTERVAL = 100_000L;
+    // Suffix of the schema_version row recorded when all chunks of a migration are through
+    private static final String CHUNKS_DONE = ":chunks-done";
+
+    private MigrationRunner() {}
+
+    public static void run(List<Migration> migrations) throws SQLException {
+        List<Migration> ordered = new ArrayList<>(migrations);
+        ordered.sort(Comparator.comparingInt(Migration::version));
+
+        Set<Integer> versions = new HashSet<>();
+        for (Migration migration : ordered) {
+            if (!versions.add(migration.version())) {
+                throw new IllegalStateException("Duplicate migration version " + migration.version());
+            }
+        }
+
+        Set<String> applied = loadApplied();
+        for (Migration migration : ordered) {
+            if (applied.contains(migration.name())) continue;
+
+            long start = System.currentTimeMillis();
+            plugin.getLogger().info("Applying migration " + migration.version() + " (" + migration.name() + ")");
+            if (migration.isChunked()) {
+                runChunked(migration, applied);
+            } else {
+                runInTransaction(migration, migration.setup(), true);
+            }
+            plugin.getLogger().info("Migration " + migration.name() + " done in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    // ==============================================================
+
+    private static Set<String> loadApplied() throws SQLException {
+        Set<String> applied = new HashSet<>();
+        try (Connection conn = Database.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name FROM schema_version")) {
+            while (rs.next()) applied.add(rs.getString("name"));
+        }
+        return applied;
+    }
+
+    /**
+     * Once all chunks are through, a marker row is recorded, so a failed {@code finish} is retried on the next
+     * boot without running setup and chunks again. Finish steps may swap tables (with implicit commits on
+     * MySQL), after which re-reading the source table would no longer be safe.
+     */
+    private static void runChunked(Migration migration, Set<String> applied) throws SQLException {
+        String chunksDone = migration.name() + CHUNKS_DONE;
+        if (!applied.contains(chunksDone)) {
+            runAllChunks(migration);
+            try (Connection conn = Database.getWriteConnection()) {
+                conn.setAutoCommit(false);
+                record(conn, chunksDone, migration.version());
+                conn.commit();
+            }
+        } else {
+            plugin.getLogger().info("Migration " + migration.name() + ": rows already copied, finishing");
+        }
+
+        try (Connection conn = Database.getWriteConnection()) {
+            conn.setAutoCommit(false);
+            if (migration.finish() != null) migration.finish().apply(conn);
+            record(conn, migration.name(), migration.version());
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM schema_version WHERE name = ?")) {
+                ps.setString(1, chunksDone);
+                ps.executeUpdate();
+            }
+            conn.commit();
+        }
+    }
+
+    private static void runAllChunks(Migration migration) throws SQLException {
+        if (migration.setup() != null) runInTransaction(migration, migration.setup(), false);
+
+        int chunkSize = Math.max(1, ConfigUtils.getMigrationChunkSize());
+        long total = 0;
+        long nextLog = PROGRESS_INTERVAL;
+        while (true) {
+            int processed;
+            try (Connection conn = Database.getWriteConnection()) {
+                conn.setAutoCommit(false);
+                processed = migration.chunk().apply(conn, chunkSize);
+                conn.commit();
+            }
+            if (processed <= 0) break;
+
+            total += processed;
+            if (total >= nextLog) {
+                plugin.getLogger().info("Migration " + migration.name() + ": " + total + " rows processed");
+                nextLog += PROGRESS_INTERVAL;
+            }
+        }
+    }
+
+    private static void runInTransaction(Migration migration, Migration.Step step, boolean record) throws SQLException {
+        try (Connection conn = Database.getWriteConnection()) {
+            conn.setAutoCommit(false);
+            if (step != null) step.apply(conn);
+            if (record) record(conn, migration.name(), migration.version());
+            conn.commit();
+        }
+    }
+
+    private static void record(Connection conn, String name, int version) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO schema_version (name, version) VALUES (?, ?)")) {
+            ps.setString(1, name);
+            ps.setInt(2, version);
+            ps.executeUpdate();
+        }
+    }
+}
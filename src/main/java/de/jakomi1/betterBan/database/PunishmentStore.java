@@ -0,0 +1,160 @@
+package de.jakomi1.betterBan.database;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Persistence backend for bans, chat-bans and known players.
+ * <p>
+ * The backend is selected via {@code storage.type} in config.yml:
+ * - sqlite (default): {@link SqlitePunishmentStore}
+ * - memory: {@link MemoryPunishmentStore}, nothing is persisted
+ * - mysql / mariadb / postgresql / h2: {@link JdbcPunishmentStore}
+ * <p>
+ * Reads may be called from any thread. Writes go through a {@link Writer},
+ * which the {@link WriteBehindQueue} opens once per group commit.
+ */
+public interface PunishmentStore {
+
+    /** Callback for streaming rows out of the store without building intermediate collections. */
+    @FunctionalInterface
+    interface PunishmentConsumer {
+        void accept(UUID uuid, PunishmentType type, long endTimestamp, String reason);
+    }
+
+    /** Callback for streaming the creation time of punishments. */
+    @FunctionalInterface
+    interface CreatedConsumer {
+        void accept(UUID uuid, PunishmentType type, long createdAt);
+    }
+
+    /** Callback for streaming ip_bans rows; the address is 4 or 16 raw bytes. */
+    @FunctionalInterface
+    interface IpBanConsumer {
+        void accept(byte[] address, int prefixLength, long endTimestamp, String reason);
+    }
+
+    /** Callback for streaming player_ips rows; the address is a host key, see IpRange#hostKey. */
+    @FunctionalInterface
+    interface PlayerIpConsumer {
+        void accept(UUID uuid, long address, long firstSeen, long lastSeen);
+    }
+
+    /** Callback for streaming has_joined rows. */
+    @FunctionalInterface
+    interface JoinedConsumer {
+        void accept(UUID uuid, String name);
+    }
+
+    /**
+     * A unit of work against the store. Nothing is visible to readers before {@link #commit()}.
+     */
+    interface Writer extends AutoCloseable {
+        void upsertPunishment(PunishmentType type, UUID uuid, long endTimestamp, String reason) throws SQLException;
+
+        void deletePunishment(PunishmentType type, UUID uuid) throws SQLException;
+
+        void deleteExpired(PunishmentType type, long now) throws SQLException;
+
+        /** Deletes the punishment only if it still ends at {@code endTimestamp} (i.e. was not re-issued). */
+        void deleteExpired(PunishmentType type, UUID uuid, long endTimestamp) throws SQLException;
+
+        void markJoined(UUID uuid, String name) throws SQLException;
+
+        /** Records that {@code uuid} carried {@code name} at {@code seen}; keeps first_seen, updates last_seen. */
+        void recordName(UUID uuid, String name, long seen) throws SQLException;
+
+        void upsertIpBan(byte[] address, int prefixLength, long endTimestamp, String reason) throws SQLException;
+
+        void deleteIpBan(byte[] address, int prefixLength) throws SQLException;
+
+        /** Deletes the IP ban only if it still ends at {@code endTimestamp} (i.e. was not re-issued). */
+        void deleteExpiredIpBan(byte[] address, int prefixLength, long endTimestamp) throws SQLException;
+
+        /** Records a login of {@code uuid} from {@code address}; keeps first_seen, updates last_seen. */
+        void recordPlayerIp(UUID uuid, long address, long seen) throws SQLException;
+
+        /** Appends a row to punishment_history. History rows are never updated. */
+        void appendHistory(HistoryEntry entry) throws SQLException;
+
+        /** Stores a small plugin-internal value in plugin_meta . */
+        void setMeta(String key, String value) throws SQLException;
+
+        void commit() throws SQLException;
+
+        void rollback() throws SQLException;
+
+        @Override
+        void close() throws SQLException;
+    }
+
+    /** Creates the tables if necessary. Called once from {@link Database#init()}. */
+    void init() throws SQLException;
+
+    /** Name used in log messages. */
+    String name();
+
+    /** Streams every punishment of every type (used to build the in-memory cache at startup). */
+    void loadPunishments(PunishmentConsumer consumer) throws SQLException;
+
+    /**
+     * Streams when each punishment was issued, taken from its latest CREATE row in the history (hot or
+     * archived). Punishments without such a row are skipped.
+     */
+    void loadPunishmentCreated(CreatedConsumer consumer) throws SQLException;
+
+    /** Streams every IP / range ban (used to build the in-memory trie at startup). */
+    void loadIpBans(IpBanConsumer consumer) throws SQLException;
+
+    /** Streams every login address, oldest last_seen first (used to build the alt-account index at startup). */
+    void loadPlayerIps(PlayerIpConsumer consumer) throws SQLException;
+
+    /** Streams every known player (used to build the in-memory index at startup). */
+    void loadJoined(JoinedConsumer consumer) throws SQLException;
+
+    boolean hasJoined(UUID uuid) throws SQLException;
+
+    Optional<String> getName(UUID uuid) throws SQLException;
+
+    /**
+     * The player carrying {@code name} (ignoring case), or else the one who carried it last according to
+     * name_history. Uses the name_lower indexes, never a scan.
+     */
+    Optional<UUID> findUuidByName(String name) throws SQLException;
+
+    Optional<String> getMeta(String key) throws SQLException;
+
+    /**
+     * Cheap fingerprint of the rows the caches are built from: the highest history ids, count and checksums
+     * of the punishments, the number of known players and the latest name sighting. Any write through a
+     * {@link Writer} changes it; direct edits that keep all counts and sums (e.g. swapping two end dates)
+     * are not detected.
+     */
+    String highWaterMark() throws SQLException;
+
+    /** History of a player (including archived rows), newest first. */
+    List<HistoryEntry> getHistory(UUID uuid, int limit) throws SQLException;
+
+    /** Actions of a moderator in [from, to), newest first. Only the hot table is searched. */
+    List<HistoryEntry> getHistoryByExecutor(UUID executor, long from, long to, int limit) throws SQLException;
+
+    /**
+     * Issued punishments (CREATE rows, hot and archived) whose reason matches {@code query}, best match
+     * first. Stores with a full-text index rank by relevance, the others newest first. Punishments issued
+     * before the history existed have a CREATE row without a time (created_at 0), so a query with a lower
+     * time bound leaves them out.
+     */
+    List<HistoryEntry> searchHistory(SearchQuery query, int offset, int limit) throws SQLException;
+
+    /**
+     * Moves up to {@code limit} history rows created before {@code before} into punishment_history_archive,
+     * in one transaction.
+     *
+     * @return number of moved rows; less than {@code limit} means nothing is left to archive
+     */
+    int archiveHistory(long before, int limit) throws SQLException;
+
+    Writer openWriter() throws SQLException;
+}
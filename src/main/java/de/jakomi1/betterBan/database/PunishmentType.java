@@ -0,0 +1,10 @@
+package de.jakomi1.betterBan.database;
+
+/**
+ * Kinds of punishments the plugin persists. All of them live in the punishments table,
+ * keyed by (uuid, type); the enum name is stored in the type column.
+ */
+public enum PunishmentType {
+    BAN,
+    CHAT_BAN
+}
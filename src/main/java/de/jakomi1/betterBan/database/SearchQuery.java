@@ -0,0 +1,70 @@
+package de.jakomi1.betterBan.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A search over the reasons of issued punishments, see {@link PunishmentStore#searchHistory}.
+ * <p>
+ * The text is split into words (letters and digits); a result has to contain all of them. A word ending
+ * in {@code *} also matches longer words ("adver*" finds "advertising").
+ *
+ * @param terms lowercase words, never empty
+ * @param type  only this type, null for all
+ * @param from  created at or after (epoch millis)
+ * @param to    created before (epoch millis)
+ */
+public record SearchQuery(List<Term> terms, PunishmentType type, long from, long to) {
+
+    public record Term(String text, boolean prefix) {}
+
+    /**
+     * @return null if the text contains no word
+     */
+    public static SearchQuery of(String text, PunishmentType type, long from, long to) {
+        List<Term> terms = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (!word.isEmpty()) {
+                terms.add(new Term(word.toString().toLowerCase(Locale.ROOT), c == '*'));
+                word.setLength(0);
+            }
+        }
+        return terms.isEmpty() ? null : new SearchQuery(List.copyOf(terms), type, from, to);
+    }
+
+    /** The terms as an FTS5 query: every word quoted, so no word is read as an operator. */
+    public String toMatchExpression() {
+        StringBuilder match = new StringBuilder();
+        for (Term term : terms) {
+            if (!match.isEmpty()) match.append(' ');
+            match.append('"').append(term.text()).append('"');
+            if (term.prefix()) match.append('*');
+        }
+        return match.toString();
+    }
+
+    /**
+     * Plain substring check of every word, for stores without a full-text index. Finds a superset of
+     * what FTS5 finds ("ban" also matches "banned").
+     */
+    public boolean matches(String reason) {
+        if (reason == null) return false;
+        String lower = reason.toLowerCase(Locale.ROOT);
+        for (Term term : terms) {
+            if (!lower.contains(term.text())) return false;
+        }
+        return true;
+    }
+
+    public boolean matchesEntry(HistoryEntry entry) {
+        return entry.action() == HistoryAction.CREATE
+                && (type == null || entry.type() == type)
+                && entry.createdAt() >= from && entry.createdAt() < to
+                && matches(entry.reason());
+    }
+}
@@ -0,0 +1,100 @@
+package de.jakomi1.betterBan.database;
+
+import java.util.Locale;
+
+/**
+ * SQL differences between the server databases supported by {@link JdbcPunishmentStore}.
+ */
+public enum SqlDialect {
+    MYSQL,
+    POSTGRESQL,
+    H2;
+
+    public static SqlDialect fromConfig(String type) {
+        return switch (type.toLowerCase(Locale.ROOT)) {
+            case "mysql", "mariadb" -> MYSQL;
+            case "postgresql", "postgres" -> POSTGRESQL;
+            case "h2" -> H2;
+            default -> throw new IllegalArgumentException("Unknown storage type: " + type);
+        };
+    }
+
+    /** Column type for legacy TEXT UUID keys (MySQL can't index plain TEXT). */
+    public String uuidType() {
+        return "VARCHAR(36)";
+    }
+
+    /** Column type for 16-byte binary UUIDs (see {@link UuidCodec}). */
+    public String binaryUuidType() {
+        return this == POSTGRESQL ? "BYTEA" : "BINARY(16)";
+    }
+
+    /** Column type for raw IPv4 / IPv6 addresses (4 or 16 bytes). */
+    public String ipAddressType() {
+        return this == POSTGRESQL ? "BYTEA" : "VARBINARY(16)";
+    }
+
+    /** 64-bit integer type; INTEGER is 32-bit on MySQL and PostgreSQL. */
+    public String bigintType() {
+        return "BIGINT";
+    }
+
+    /**
+     * Changes the type of an existing column, keeping its NOT NULL constraint. Running it again is a no-op,
+     * as MySQL commits the statement before a migration is recorded.
+     */
+    public String alterColumnType(String table, String column, String type, boolean notNull) {
+        return this == MYSQL
+                ? "ALTER TABLE " + table + " MODIFY " + column + " " + type + (notNull ? " NOT NULL" : " NULL")
+                : "ALTER TABLE " + table + " ALTER COLUMN " + column + " SET DATA TYPE " + type;
+    }
+
+    public String autoIncrementPrimaryKey() {
+        return switch (this) {
+            case MYSQL -> "BIGINT PRIMARY KEY AUTO_INCREMENT";
+            case POSTGRESQL -> "BIGSERIAL PRIMARY KEY";
+            case H2 -> "BIGINT AUTO_INCREMENT PRIMARY KEY";
+        };
+    }
+
+    /**
+     * Builds an insert-or-update statement. The first column is the primary key,
+     * all others are overwritten on conflict.
+     */
+    public String upsert(String table, String... columns) {
+        return upsert(table, 1, columns);
+    }
+
+    /**
+     * Builds an insert-or-update statement. The first {@code keyColumns} columns form the primary key,
+     * all others are overwritten on conflict.
+     */
+    public String upsert(String table, int keyColumns, String... columns) {
+        String key = String.join(", ", java.util.Arrays.copyOf(columns, keyColumns));
+        String cols = String.join(", ", columns);
+        String params = String.join(", ", java.util.Collections.nCopies(columns.length, "?"));
+
+        StringBuilder sb = new StringBuilder();
+        switch (this) {
+            case MYSQL -> {
+                sb.append("INSERT INTO ").append(table).append(" (").append(cols).append(") VALUES (").append(params)
+                        .append(") ON DUPLICATE KEY UPDATE ");
+                for (int i = keyColumns; i < columns.length; i++) {
+                    if (i > keyColumns) sb.append(", ");
+                    sb.append(columns[i]).append(" = VALUES(").append(columns[i]).append(")");
+                }
+            }
+            case POSTGRESQL -> {
+                sb.append("INSERT INTO ").append(table).append(" (").append(cols).append(") VALUES (").append(params)
+                        .append(") ON CONFLICT (").append(key).append(") DO UPDATE SET ");
+                for (int i = keyColumns; i < columns.length; i++) {
+                    if (i > keyColumns) sb.append(", ");
+                    sb.append(columns[i]).append(" = EXCLUDED.").append(columns[i]);
+                }
+            }
+            case H2 -> sb.append("MERGE INTO ").append(table).append(" (").append(cols).append(") KEY (").append(key)
+                    .append(") VALUES (").append(params).append(")");
+        }
+        return sb.toString();
+    }
+}
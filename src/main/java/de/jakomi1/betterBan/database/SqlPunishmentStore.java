@@ -0,0 +1,775 @@
+package de.jakomi1.betterBan.database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Shared JDBC plumbing for the SQL backends. Subclasses only provide DDL and upsert statements.
+ * UUID keys are stored as 16-byte binary (see {@link UuidCodec}).
+ * Connections come from the {@link Database} pool: reads use a reader connection,
+ * a {@link Writer} holds the single writer connection until it is closed.
+ */
+public abstract class SqlPunishmentStore implements PunishmentStore {
+
+    protected static final String HISTORY_COLUMNS =
+            "uuid, type, action, executor, executor_name, reason, end_timestamp, created_at";
+
+    /** Creates all tables / indexes. Runs inside a transaction on the writer connection. */
+    protected abstract void createTables(Statement stmt) throws SQLException;
+
+    /** Ordered schema migrations on top of {@link #createTables}, applied by the {@link MigrationRunner}. */
+    protected abstract List<Migration> migrations();
+
+    /** Upsert for (uuid, type, end_timestamp, reason) into punishments. */
+    protected abstract String upsertPunishmentSql();
+
+    /** Upsert for (uuid, name, name_lower) into has_joined. */
+    protected abstract String upsertJoinedSql();
+
+    /** Column type for 16-byte binary UUID keys. */
+    protected abstract String binaryUuidType();
+
+    /** Insert-or-replace into {@code table}; the first column is the primary key. */
+    protected String upsertSql(String table, String... columns) {
+        return upsertSql(table, 1, columns);
+    }
+
+    /** Insert-or-replace into {@code table}; the first {@code keyColumns} columns form the primary key. */
+    protected abstract String upsertSql(String table, int keyColumns, String... columns);
+
+    /** Appended to CREATE TABLE for tables keyed by binary UUIDs (e.g. WITHOUT ROWID). */
+    protected String binaryKeyTableOptions() {
+        return "";
+    }
+
+    @Override
+    public void init() throws SQLException {
+        try (Connection conn = Database.getWriteConnection();
+             Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            createTables(stmt);
+            conn.commit();
+        }
+        MigrationRunner.run(migrations());
+    }
+
+    @Override
+    public void loadPunishments(PunishmentConsumer consumer) throws SQLException {
+        try (Connection conn = Database.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT uuid, type, end_timestamp, reason FROM punishments")) {
+
+            while (rs.next()) {
+                String type = rs.getString(2);
+                PunishmentType punishmentType;
+                try {
+                    punishmentType = PunishmentType.valueOf(type);
+                } catch (IllegalArgumentException e) {
+                    // Written by a newer plugin version
+                    plugin.getLogger().warning("Skipping punishment with unknown type '" + type + "'");
+                    continue;
+                }
+                consumer.accept(UuidCodec.read(rs, 1), punishmentType, rs.getLong(3), rs.getString(4));
+            }
+        }
+    }
+
+    @Override
+    public void loadPunishmentCreated(CreatedConsumer consumer) throws SQLException {
+        // One index seek per active punishment on (uuid, created_at, type, action, ...)
+        String latestCreate = " WHERE h.uuid = p.uuid AND h.type = p.type AND h.action = 'CREATE'";
+        try (Connection conn = Database.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT p.uuid, p.type, COALESCE("
+                     + "(SELECT MAX(h.created_at) FROM punishment_history h" + latestCreate + "), "
+                     + "(SELECT MAX(h.created_at) FROM punishment_history_archive h" + latestCreate + "), 0)"
+                     + " FROM punishments p")) {
+
+            while (rs.next()) {
+                long createdAt = rs.getLong(3);
+                if (createdAt == 0L) continue;
+                PunishmentType type;
+                try {
+                    type = PunishmentType.valueOf(rs.getString(2));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                consumer.accept(UuidCodec.read(rs, 1), type, createdAt);
+            }
+        }
+    }
+
+    @Override
+    public void loadIpBans(IpBanConsumer consumer) throws SQLException {
+        try (Connection conn = Database.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT address, prefix_length, end_timestamp, reason FROM ip_bans")) {
+
+            while (rs.next()) {
+                consumer.accept(rs.getBytes(1), rs.getInt(2), rs.getLong(3), rs.getString(4));
+            }
+        }
+    }
+
+    @Override
+    public void loadPlayerIps(PlayerIpConsumer consumer) throws SQLException {
+        try (Connection conn = Database.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT uuid, address, first_seen, last_seen FROM player_ips ORDER BY last_seen")) {
+
+            while (rs.next()) {
+                consumer.accept(UuidCodec.read(rs, 1), rs.getLong(2), rs.getLong(3), rs.getLong(4));
+            }
+        }
+    }
+
+    @Override
+    public void loadJoined(JoinedConsumer consumer) throws SQLException {
+        try (Connection conn = Database.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT uuid, name FROM has_joined")) {
+
+            while (rs.next()) {
+                consumer.accept(UuidCodec.read(rs, 1), rs.getString(2));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasJoined(UUID uuid) throws SQLException {
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM has_joined WHERE uuid = ?")) {
+            UuidCodec.bind(ps, 1, uuid);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    @Override
+    public Optional<String> getName(UUID uuid) throws SQLException {
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT name FROM has_joined WHERE uuid = ?")) {
+            UuidCodec.bind(ps, 1, uuid);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return Optional.of(rs.getString("name"));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<UUID> findUuidByName(String name) throws SQLException {
+        String lower = name.toLowerCase(Locale.ROOT);
+        try (Connection conn = Database.getReadConnection()) {
+            // Current owner first; an old name may have been taken by someone else since
+            for (String sql : new String[]{
+                    "SELECT uuid FROM has_joined WHERE name_lower = ?",
+                    "SELECT uuid FROM name_history WHERE name_lower = ? ORDER BY last_seen DESC LIMIT 1"}) {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, lower);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) return Optional.of(UuidCodec.read(rs, 1));
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> getMeta(String key) throws SQLException {
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT meta_value FROM plugin_meta WHERE meta_key = ?")) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return Optional.ofNullable(rs.getString(1));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public String highWaterMark() throws SQLException {
+        // end_timestamp modulo a prime, so the sum can't overflow even for millions of rows
+        try (Connection conn = Database.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM"
+                     + " (SELECT COALESCE(MAX(id), 0) AS history FROM punishment_history) h,"
+                     + " (SELECT COALESCE(MAX(id), 0) AS archive FROM punishment_history_archive) a,"
+                     + " (SELECT COUNT(*) AS punishments, COALESCE(SUM(end_timestamp % 1000000007), 0) AS ends,"
+                     + " COALESCE(SUM(LENGTH(reason)), 0) AS reasons FROM punishments) p,"
+                     + " (SELECT COUNT(*) AS joined FROM has_joined) j,"
+                     + " (SELECT COALESCE(MAX(last_seen), 0) AS seen FROM name_history) n")) {
+            rs.next();
+            StringBuilder mark = new StringBuilder();
+            for (int i = 1; i <= 7; i++) {
+                if (i > 1) mark.append(':');
+                mark.append(rs.getLong(i));
+            }
+            return mark.toString();
+        }
+    }
+
+    @Override
+    public List<HistoryEntry> getHistory(UUID uuid, int limit) throws SQLException {
+        String select = "SELECT id, " + HISTORY_COLUMNS + " FROM %s WHERE uuid = ?";
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT * FROM (" + select.formatted("punishment_history")
+                             + " UNION ALL " + select.formatted("punishment_history_archive")
+                             + ") h ORDER BY created_at DESC, id DESC LIMIT ?")) {
+            UuidCodec.bind(ps, 1, uuid);
+            UuidCodec.bind(ps, 2, uuid);
+            ps.setInt(3, limit);
+            return readHistory(ps);
+        }
+    }
+
+    @Override
+    public List<HistoryEntry> getHistoryByExecutor(UUID executor, long from, long to, int limit) throws SQLException {
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT id, " + HISTORY_COLUMNS
+                     + " FROM punishment_history WHERE executor = ? AND created_at >= ? AND created_at < ?"
+                     + " ORDER BY created_at DESC LIMIT ?")) {
+            UuidCodec.bind(ps, 1, executor);
+            ps.setLong(2, from);
+            ps.setLong(3, to);
+            ps.setInt(4, limit);
+            return readHistory(ps);
+        }
+    }
+
+    /**
+     * Without a full-text index: every word as a LIKE pattern, newest first. Scans the CREATE rows
+     * in the time range; SQLite overrides this with an FTS5 lookup.
+     */
+    @Override
+    public List<HistoryEntry> searchHistory(SearchQuery query, int offset, int limit) throws SQLException {
+        StringBuilder where = new StringBuilder(" WHERE action = 'CREATE' AND created_at >= ? AND created_at < ?");
+        if (query.type() != null) where.append(" AND type = ?");
+        for (int i = 0; i < query.terms().size(); i++) where.append(" AND LOWER(reason) LIKE ? ESCAPE '!'");
+        String select = "SELECT id, " + HISTORY_COLUMNS + " FROM %s" + where;
+
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT * FROM (" + select.formatted("punishment_history")
+                             + " UNION ALL " + select.formatted("punishment_history_archive")
+                             + ") h ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?")) {
+            int index = 1;
+            for (int table = 0; table < 2; table++) {
+                ps.setLong(index++, query.from());
+                ps.setLong(index++, query.to());
+                if (query.type() != null) ps.setString(index++, query.type().name());
+                for (SearchQuery.Term term : query.terms()) {
+                    String escaped = term.text().replace("!", "!!").replace("%", "!%").replace("_", "!_");
+                    ps.setString(index++, "%" + escaped + "%");
+                }
+            }
+            ps.setInt(index++, limit);
+            ps.setInt(index, offset);
+            return readHistory(ps);
+        }
+    }
+
+    @Override
+    public int archiveHistory(long before, int limit) throws SQLException {
+        try (Connection conn = Database.getWriteConnection()) {
+            conn.setAutoCommit(false);
+            long maxId;
+            // ids grow with created_at, so the oldest rows are a prefix of the id order
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT MAX(id) FROM (SELECT id FROM punishment_history WHERE created_at < ? ORDER BY id LIMIT ?) t")) {
+                ps.setLong(1, before);
+                ps.setInt(2, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    maxId = rs.next() ? rs.getLong(1) : 0L;
+                    if (rs.wasNull()) maxId = 0L;
+                }
+            }
+            if (maxId == 0L) return 0;
+
+            try (PreparedStatement copy = conn.prepareStatement(
+                    "INSERT INTO punishment_history_archive (id, " + HISTORY_COLUMNS + ") SELECT id, " + HISTORY_COLUMNS
+                            + " FROM punishment_history WHERE id <= ? AND created_at < ?");
+                 PreparedStatement delete = conn.prepareStatement(
+                         "DELETE FROM punishment_history WHERE id <= ? AND created_at < ?")) {
+                copy.setLong(1, maxId);
+                copy.setLong(2, before);
+                copy.executeUpdate();
+                delete.setLong(1, maxId);
+                delete.setLong(2, before);
+                int moved = delete.executeUpdate();
+                conn.commit();
+                return moved;
+            }
+        }
+    }
+
+    protected static List<HistoryEntry> readHistory(PreparedStatement ps) throws SQLException {
+        List<HistoryEntry> entries = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                PunishmentType type;
+                HistoryAction action;
+                try {
+                    type = PunishmentType.valueOf(rs.getString(3));
+                    action = HistoryAction.valueOf(rs.getString(4));
+                } catch (IllegalArgumentException e) {
+                    // Written by a newer plugin version, like in loadPunishments()
+                    plugin.getLogger().warning("Skipping history row " + rs.getLong(1) + " with unknown type '"
+                            + rs.getString(3) + "' or action '" + rs.getString(4) + "'");
+                    continue;
+                }
+                entries.add(new HistoryEntry(
+                        rs.getLong(1),
+                        UuidCodec.read(rs, 2),
+                        type,
+                        action,
+                        UuidCodec.readNullable(rs, 5),
+                        rs.getString(6),
+                        rs.getString(7),
+                        rs.getLong(8),
+                        rs.getLong(9)));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public Writer openWriter() throws SQLException {
+        Connection conn = Database.getWriteConnection();
+        try {
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return new SqlWriter(conn);
+    }
+
+    // ==============================================================
+
+    /**
+     * Rebuilds {@code table} with a binary UUID key. The rows are copied in keyset-paginated chunks
+     * (ordered by the old TEXT key), then the old table is dropped and the new one renamed.
+     * Re-running after a crash is safe: the copy uses an upsert into the new table, and a swap that was
+     * interrupted between its statements (MySQL commits each one) is completed from where it stopped.
+     *
+     * @param columnsDdl     DDL of all columns except the key, e.g. "end_timestamp INTEGER NOT NULL, reason TEXT"
+     * @param valueColumns   names of those columns, in the same order
+     * @param finish         steps run after the swap (e.g. recreating indexes); must be safe to re-run
+     */
+    protected Migration binaryUuidMigration(int version, String table, String columnsDdl,
+                                            String[] valueColumns, Migration.Step... finish) {
+        String newTable = table + "_v2";
+        String[] allColumns = new String[valueColumns.length + 1];
+        allColumns[0] = "uuid";
+        System.arraycopy(valueColumns, 0, allColumns, 1, valueColumns.length);
+
+        String select = "SELECT " + String.join(", ", allColumns) + " FROM " + table
+                + " WHERE uuid > ? ORDER BY uuid LIMIT ?";
+        String insert = upsertSql(newTable, allColumns);
+        String[] cursor = {""};
+
+        return Migration.chunked(version, "binary_uuid_" + table,
+                conn -> {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.executeUpdate("CREATE TABLE IF NOT EXISTS " + newTable + " (uuid " + binaryUuidType()
+                                + " PRIMARY KEY, " + columnsDdl + ")" + binaryKeyTableOptions());
+                    }
+                },
+                (conn, chunkSize) -> {
+                    int rows = 0;
+                    try (PreparedStatement read = conn.prepareStatement(select);
+                         PreparedStatement write = conn.prepareStatement(insert)) {
+                        read.setString(1, cursor[0]);
+                        read.setInt(2, chunkSize);
+                        try (ResultSet rs = read.executeQuery()) {
+                            while (rs.next()) {
+                                String key = rs.getString(1);
+                                cursor[0] = key;
+                                rows++;
+                                UUID uuid;
+                                try {
+                                    uuid = UUID.fromString(key);
+                                } catch (IllegalArgumentException e) {
+                                    plugin.getLogger().warning("Skipping row with invalid uuid '" + key + "' in " + table);
+                                    continue;
+                                }
+                                UuidCodec.bind(write, 1, uuid);
+                                for (int i = 0; i < valueColumns.length; i++) {
+                                    write.setObject(i + 2, rs.getObject(i + 2));
+                                }
+                                write.addBatch();
+                            }
+                        }
+                        if (rows > 0) write.executeBatch();
+                    }
+                    return rows;
+                },
+                conn -> {
+                    // Without the new table the swap is already through
+                    if (hasTable(conn, newTable)) {
+                        try (Statement stmt = conn.createStatement()) {
+                            stmt.executeUpdate("DROP TABLE IF EXISTS " + table);
+                            stmt.executeUpdate("ALTER TABLE " + newTable + " RENAME TO " + table);
+                        }
+                    }
+                    for (Migration.Step step : finish) step.apply(conn);
+                });
+    }
+
+    /**
+     * Fills has_joined.name_lower and copies every player's current name into name_history, in
+     * keyset-paginated chunks over has_joined (ordered by the binary uuid), so a large player table is
+     * never locked in one transaction. Names are lowercased like at runtime ({@link Locale#ROOT}).
+     * Re-running after a crash is safe: both writes are idempotent.
+     *
+     * @param setup  adds the name_lower column and creates name_history; must be safe to re-run
+     * @param finish creates the indexes once the rows are in
+     */
+    protected Migration nameLookupMigration(int version, Migration.Step setup, Migration.Step finish) {
+        String insert = upsertSql("name_history", 2, "uuid", "name_lower", "name", "first_seen", "last_seen");
+        byte[][] cursor = {null};
+
+        return Migration.chunked(version, "create_name_lookup", setup,
+                (conn, chunkSize) -> {
+                    int rows = 0;
+                    try (PreparedStatement read = conn.prepareStatement("SELECT uuid, name FROM has_joined"
+                            + (cursor[0] != null ? " WHERE uuid > ?" : "") + " ORDER BY uuid LIMIT ?");
+                         PreparedStatement update = conn.prepareStatement(
+                                 "UPDATE has_joined SET name_lower = ? WHERE uuid = ?");
+                         PreparedStatement history = conn.prepareStatement(insert)) {
+                        int index = 1;
+                        if (cursor[0] != null) read.setBytes(index++, cursor[0]);
+                        read.setInt(index, chunkSize);
+                        try (ResultSet rs = read.executeQuery()) {
+                            while (rs.next()) {
+                                byte[] uuid = rs.getBytes(1);
+                                String name = rs.getString(2);
+                                String lower = name.toLowerCase(Locale.ROOT);
+                                cursor[0] = uuid;
+                                rows++;
+
+                                update.setString(1, lower);
+                                update.setBytes(2, uuid);
+                                update.addBatch();
+                                // Existing players: first_seen / last_seen 0 (unknown)
+                                history.setBytes(1, uuid);
+                                history.setString(2, lower);
+                                history.setString(3, name);
+                                history.setLong(4, 0L);
+                                history.setLong(5, 0L);
+                                history.addBatch();
+                            }
+                        }
+                        if (rows > 0) {
+                            update.executeBatch();
+                            history.executeBatch();
+                        }
+                    }
+                    return rows;
+                },
+                finish);
+    }
+
+    /**
+     * Appends a CREATE row to the history for every punishment that has none, hot or archived. Those are
+     * punishments issued before the history existed; without the row they are missing from /banhistory and
+     * /bansearch. The issue time and the moderator are unknown, so created_at is 0 and executor is null.
+     * Keyset-paginated over punishments (uuid, type); re-running after a crash is safe, since rows that got
+     * their CREATE row are no longer selected.
+     */
+    protected Migration historyBackfillMigration(int version) {
+        String missing = " NOT EXISTS (SELECT 1 FROM %s h WHERE h.uuid = p.uuid AND h.type = p.type AND h.action = 'CREATE')";
+        String where = missing.formatted("punishment_history") + " AND" + missing.formatted("punishment_history_archive");
+        Object[] cursor = {null, null};
+
+        return Migration.chunked(version, "backfill_history_creates", conn -> {},
+                (conn, chunkSize) -> {
+                    int rows = 0;
+                    try (PreparedStatement read = conn.prepareStatement("SELECT p.uuid, p.type, p.end_timestamp, p.reason"
+                            + " FROM punishments p WHERE" + where
+                            + (cursor[0] != null ? " AND (p.uuid > ? OR (p.uuid = ? AND p.type > ?))" : "")
+                            + " ORDER BY p.uuid, p.type LIMIT ?");
+                         PreparedStatement write = conn.prepareStatement("INSERT INTO punishment_history ("
+                                 + HISTORY_COLUMNS + ") VALUES (?, ?, 'CREATE', NULL, NULL, ?, ?, 0)")) {
+                        int index = 1;
+                        if (cursor[0] != null) {
+                            read.setBytes(index++, (byte[]) cursor[0]);
+                            read.setBytes(index++, (byte[]) cursor[0]);
+                            read.setString(index++, (String) cursor[1]);
+                        }
+                        read.setInt(index, chunkSize);
+                        try (ResultSet rs = read.executeQuery()) {
+                            while (rs.next()) {
+                                cursor[0] = rs.getBytes(1);
+                                cursor[1] = rs.getString(2);
+                                rows++;
+                                write.setBytes(1, (byte[]) cursor[0]);
+                                write.setString(2, (String) cursor[1]);
+                                write.setString(3, rs.getString(4));
+                                write.setLong(4, rs.getLong(3));
+                                write.addBatch();
+                            }
+                        }
+                        if (rows > 0) write.executeBatch();
+                    }
+                    return rows;
+                },
+                conn -> {});
+    }
+
+    /**
+     * Creates an index unless one with that name exists. MySQL has no CREATE INDEX IF NOT EXISTS, and as it
+     * commits every DDL statement, a migration re-run after a failure may find the index already there.
+     */
+    protected static Migration.Step createIndex(String index, String table, String columns) {
+        return conn -> {
+            if (hasIndex(conn, table, index)) return;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+            }
+        };
+    }
+
+    /** Whether {@code table} exists, ignoring case. */
+    protected static boolean hasTable(Connection conn, String table) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet rs = meta.getTables(conn.getCatalog(), null, name, null)) {
+                while (rs.next()) {
+                    // "_" is a wildcard in the pattern
+                    if (table.equalsIgnoreCase(rs.getString("TABLE_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Whether {@code table} has {@code column}, ignoring case (H2 reports upper-case names). */
+    protected static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, name, null)) {
+                while (rs.next()) {
+                    if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Whether an index called {@code index} exists on {@code table}, ignoring case. */
+    protected static boolean hasIndex(Connection conn, String table, String index) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, name, false, true)) {
+                while (rs.next()) {
+                    if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ==============================================================
+
+    /**
+     * Writer on the pooled writer connection. Prepared statements are reused for the whole batch.
+     */
+    protected class SqlWriter implements Writer {
+        protected final Connection conn;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        protected SqlWriter(Connection conn) {
+            this.conn = conn;
+        }
+
+        protected PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement ps = statements.get(sql);
+            if (ps == null) {
+                ps = conn.prepareStatement(sql);
+                statements.put(sql, ps);
+            }
+            return ps;
+        }
+
+        @Override
+        public void upsertPunishment(PunishmentType type, UUID uuid, long endTimestamp, String reason) throws SQLException {
+            PreparedStatement ps = prepare(upsertPunishmentSql());
+            UuidCodec.bind(ps, 1, uuid);
+            ps.setString(2, type.name());
+            ps.setLong(3, endTimestamp);
+            ps.setString(4, reason);
+            ps.executeUpdate();
+        }
+
+        @Override
+        public void deletePunishment(PunishmentType type, UUID uuid) throws SQLException {
+            PreparedStatement ps = prepare("DELETE FROM punishments WHERE uuid = ? AND type = ?");
+            UuidCodec.bind(ps, 1, uuid);
+            ps.setString(2, type.name());
+            ps.executeUpdate();
+        }
+
+        @Override
+        public void deleteExpired(PunishmentType type, long now) throws SQLException {
+            PreparedStatement ps = prepare(
+                    "DELETE FROM punishments WHERE type = ? AND end_timestamp != -1 AND end_timestamp < ?");
+            ps.setString(1, type.name());
+            ps.setLong(2, now);
+            ps.executeUpdate();
+        }
+
+        @Override
+        public void deleteExpired(PunishmentType type, UUID uuid, long endTimestamp) throws SQLException {
+            PreparedStatement ps = prepare(
+                    "DELETE FROM punishments WHERE uuid = ? AND type = ? AND end_timestamp = ?");
+            UuidCodec.bind(ps, 1, uuid);
+            ps.setString(2, type.name());
+            ps.setLong(3, endTimestamp);
+            ps.executeUpdate();
+        }
+
+        @Override
+        public void markJoined(UUID uuid, String name) throws SQLException {
+            PreparedStatement ps = prepare(upsertJoinedSql());
+            UuidCodec.bind(ps, 1, uuid);
+            ps.setString(2, name);
+            ps.setString(3, name.toLowerCase(Locale.ROOT));
+            ps.executeUpdate();
+        }
+
+        @Override
+        public void recordName(UUID uuid, String name, long seen) throws SQLException {
+            // Same as recordPlayerIp: UPDATE first, so first_seen is kept
+            String lower = name.toLowerCase(Locale.ROOT);
+            PreparedStatement update = prepare(
+                    "UPDATE name_history SET name = ?, last_seen = ? WHERE uuid = ? AND name_lower = ?");
+            update.setString(1, name);
+            update.setLong(2, seen);
+            UuidCodec.bind(update, 3, uuid);
+            update.setString(4, lower);
+            if (update.executeUpdate() > 0) return;
+
+            PreparedStatement insert = prepare(
+                    "INSERT INTO name_history (uuid, name_lower, name, first_seen, last_seen) VALUES (?, ?, ?, ?, ?)");
+            UuidCodec.bind(insert, 1, uuid);
+            insert.setString(2, lower);
+            insert.setString(3, name);
+            insert.setLong(4, seen);
+            insert.setLong(5, seen);
+            insert.executeUpdate();
+        }
+
+        @Override
+        public void upsertIpBan(byte[] address, int prefixLength, long endTimestamp, String reason) throws SQLException {
+            PreparedStatement ps = prepare(upsertSql("ip_bans", 2, "address", "prefix_length", "end_timestamp", "reason"));
+            ps.setBytes(1, address);
+            ps.setInt(2, prefixLength);
+            ps.setLong(3, endTimestamp);
+            ps.setString(4, reason);
+            ps.executeUpdate();
+        }
+
+        @Override
+        public void deleteIpBan(byte[] address, int prefixLength) throws SQLException {
+            PreparedStatement ps = prepare("DELETE FROM ip_bans WHERE address = ? AND prefix_length = ?");
+            ps.setBytes(1, address);
+            ps.setInt(2, prefixLength);
+            ps.executeUpdate();
+        }
+
+        @Override
+        public void deleteExpiredIpBan(byte[] address, int prefixLength, long endTimestamp) throws SQLException {
+            PreparedStatement ps = prepare(
+                    "DELETE FROM ip_bans WHERE address = ? AND prefix_length = ? AND end_timestamp = ?");
+            ps.setBytes(1, address);
+            ps.setInt(2, prefixLength);
+            ps.setLong(3, endTimestamp);
+            ps.executeUpdate();
+        }
+
+        @Override
+        public void recordPlayerIp(UUID uuid, long address, long seen) throws SQLException {
+            // UPDATE first, INSERT only for new pairs: the upsert statements would overwrite first_seen
+            PreparedStatement update = prepare(
+                    "UPDATE player_ips SET last_seen = ? WHERE uuid = ? AND address = ?");
+            update.setLong(1, seen);
+            UuidCodec.bind(update, 2, uuid);
+            update.setLong(3, address);
+            if (update.executeUpdate() > 0) return;
+
+            PreparedStatement insert = prepare(
+                    "INSERT INTO player_ips (uuid, address, first_seen, last_seen) VALUES (?, ?, ?, ?)");
+            UuidCodec.bind(insert, 1, uuid);
+            insert.setLong(2, address);
+            insert.setLong(3, seen);
+            insert.setLong(4, seen);
+            insert.executeUpdate();
+        }
+
+        @Override
+        public void appendHistory(HistoryEntry entry) throws SQLException {
+            PreparedStatement ps = prepare("INSERT INTO punishment_history (" + HISTORY_COLUMNS
+                    + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            UuidCodec.bind(ps, 1, entry.uuid());
+            ps.setString(2, entry.type().name());
+            ps.setString(3, entry.action().name());
+            UuidCodec.bindNullable(ps, 4, entry.executor());
+            ps.setString(5, entry.executorName());
+            ps.setString(6, entry.reason());
+            ps.setLong(7, entry.endTimestamp());
+            ps.setLong(8, entry.createdAt());
+            ps.executeUpdate();
+        }
+
+        @Override
+        public void setMeta(String key, String value) throws SQLException {
+            PreparedStatement ps = prepare(upsertSql("plugin_meta", "meta_key", "meta_value"));
+            ps.setString(1, key);
+            ps.setString(2, value);
+            ps.executeUpdate();
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            conn.commit();
+        }
+
+        @Override
+        public void rollback() throws SQLException {
+            conn.rollback();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            for (PreparedStatement ps : statements.values()) {
+                try {
+                    ps.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+            statements.clear();
+            // Rolls back anything uncommitted and releases the write lock
+            conn.close();
+        }
+    }
+}
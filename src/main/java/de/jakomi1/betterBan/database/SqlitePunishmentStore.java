@@ -0,0 +1,311 @@
+package de.jakomi1.betterBan.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Default backend: the local SQLite file managed by {@link Database}.
+ */
+public class SqlitePunishmentStore extends SqlPunishmentStore {
+
+    // bans / chat_bans vor Migration 2 (TEXT-UUID)
+    private static final String LEGACY_PUNISHMENT_DDL = """
+            CREATE TABLE IF NOT EXISTS %s (
+                uuid TEXT PRIMARY KEY,
+                end_timestamp INTEGER NOT NULL,
+                reason TEXT
+            )
+            """;
+
+    private static final String HISTORY_DDL = """
+            id %s,
+            uuid BLOB NOT NULL,
+            type TEXT NOT NULL,
+            action TEXT NOT NULL,
+            executor BLOB,
+            executor_name TEXT,
+            reason TEXT,
+            end_timestamp INTEGER NOT NULL,
+            created_at INTEGER NOT NULL
+            """;
+
+    @Override
+    public String name() {
+        return "SQLite";
+    }
+
+    @Override
+    protected void createTables(Statement stmt) throws SQLException {
+        // Tabelle für Schema-Versionen / Migrations
+        stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    name TEXT UNIQUE NOT NULL,
+                    version INTEGER NOT NULL,
+                    applied_at TEXT NOT NULL DEFAULT (datetime('now'))
+                );
+                """);
+
+        stmt.executeUpdate("""
+            CREATE TABLE IF NOT EXISTS has_joined (
+                uuid TEXT PRIMARY KEY,
+                name TEXT NOT NULL
+            );
+        """);
+    }
+
+    @Override
+    protected List<Migration> migrations() {
+        return List.of(
+                // clearExpired* filtert auf end_timestamp -> ohne Index ein Full-Table-Scan.
+                // Legt bei neuen Installationen auch die alten Tabellen an, die Migration 7 zusammenführt
+                Migration.sql(1, "add_end_timestamp_indexes",
+                        LEGACY_PUNISHMENT_DDL.formatted("bans"),
+                        LEGACY_PUNISHMENT_DDL.formatted("chat_bans"),
+                        "CREATE INDEX IF NOT EXISTS idx_bans_end_timestamp ON bans (end_timestamp)",
+                        "CREATE INDEX IF NOT EXISTS idx_chat_bans_end_timestamp ON chat_bans (end_timestamp)"),
+                // UUID als 16-Byte BLOB statt 36-Zeichen TEXT, Tabellen WITHOUT ROWID
+                binaryUuidMigration(2, "bans", "end_timestamp INTEGER NOT NULL, reason TEXT",
+                        new String[]{"end_timestamp", "reason"},
+                        Migration.statements("CREATE INDEX IF NOT EXISTS idx_bans_end_timestamp ON bans (end_timestamp)")),
+                binaryUuidMigration(3, "chat_bans", "end_timestamp INTEGER NOT NULL, reason TEXT",
+                        new String[]{"end_timestamp", "reason"},
+                        Migration.statements("CREATE INDEX IF NOT EXISTS idx_chat_bans_end_timestamp ON chat_bans (end_timestamp)")),
+                binaryUuidMigration(4, "has_joined", "name TEXT NOT NULL",
+                        new String[]{"name"}),
+                // Key/Value-Tabelle für interne Werte (z.B. Generation des Cache-Snapshots)
+                Migration.sql(5, "create_plugin_meta",
+                        "CREATE TABLE IF NOT EXISTS plugin_meta (meta_key TEXT PRIMARY KEY, meta_value TEXT)"),
+                // Append-only Historie; AUTOINCREMENT, damit ids nach dem Archivieren nicht wiederverwendet werden
+                Migration.sql(6, "create_punishment_history",
+                        "CREATE TABLE IF NOT EXISTS punishment_history (" + HISTORY_DDL.formatted("INTEGER PRIMARY KEY AUTOINCREMENT") + ")",
+                        "CREATE TABLE IF NOT EXISTS punishment_history_archive (" + HISTORY_DDL.formatted("INTEGER PRIMARY KEY") + ")",
+                        // Covering: Historie eines Spielers / Aktionen eines Teammitglieds im Zeitraum
+                        "CREATE INDEX IF NOT EXISTS idx_history_player ON punishment_history "
+                                + "(uuid, created_at, type, action, end_timestamp, executor_name)",
+                        "CREATE INDEX IF NOT EXISTS idx_history_executor ON punishment_history "
+                                + "(executor, created_at, uuid, type, action)",
+                        "CREATE INDEX IF NOT EXISTS idx_history_archive_player ON punishment_history_archive (uuid, created_at)"),
+                // bans + chat_bans -> eine Tabelle mit (uuid, type) als Schlüssel
+                Migration.sql(7, "merge_punishment_tables",
+                        """
+                        CREATE TABLE IF NOT EXISTS punishments (
+                            uuid BLOB NOT NULL,
+                            type TEXT NOT NULL,
+                            end_timestamp INTEGER NOT NULL,
+                            reason TEXT,
+                            PRIMARY KEY (uuid, type)
+                        ) WITHOUT ROWID
+                        """,
+                        "INSERT OR REPLACE INTO punishments (uuid, type, end_timestamp, reason) "
+                                + "SELECT uuid, 'BAN', end_timestamp, reason FROM bans",
+                        "INSERT OR REPLACE INTO punishments (uuid, type, end_timestamp, reason) "
+                                + "SELECT uuid, 'CHAT_BAN', end_timestamp, reason FROM chat_bans",
+                        "DROP TABLE bans",
+                        "DROP TABLE chat_bans",
+                        "CREATE INDEX IF NOT EXISTS idx_punishments_end_timestamp ON punishments (type, end_timestamp)"),
+                // IP-/Range-Banns: Adresse als 4/16 Bytes, Schlüssel (address, prefix_length)
+                Migration.sql(8, "create_ip_bans",
+                        """
+                        CREATE TABLE IF NOT EXISTS ip_bans (
+                            address BLOB NOT NULL,
+                            prefix_length INTEGER NOT NULL,
+                            end_timestamp INTEGER NOT NULL,
+                            reason TEXT,
+                            PRIMARY KEY (address, prefix_length)
+                        ) WITHOUT ROWID
+                        """),
+                // Login-Adressen für die Zweitaccount-Erkennung; address ist der Host-Key (IPv4 bzw. IPv6-/64)
+                Migration.sql(9, "create_player_ips",
+                        """
+                        CREATE TABLE IF NOT EXISTS player_ips (
+                            uuid BLOB NOT NULL,
+                            address INTEGER NOT NULL,
+                            first_seen INTEGER NOT NULL,
+                            last_seen INTEGER NOT NULL,
+                            PRIMARY KEY (uuid, address)
+                        ) WITHOUT ROWID
+                        """,
+                        "CREATE INDEX IF NOT EXISTS idx_player_ips_address ON player_ips (address)"),
+                historySearchMigration(10),
+                // Namensauflösung ohne Mojang-Abfrage: Name in Kleinbuchstaben mit Index, dazu frühere Namen.
+                // Bestehende Spieler werden in Chunks übernommen (first_seen/last_seen = 0, unbekannt)
+                nameLookupMigration(11,
+                        conn -> {
+                            try (Statement stmt = conn.createStatement()) {
+                                if (!hasColumn(conn, "has_joined", "name_lower")) {
+                                    stmt.executeUpdate("ALTER TABLE has_joined ADD COLUMN name_lower TEXT");
+                                }
+                                stmt.executeUpdate("""
+                                        CREATE TABLE IF NOT EXISTS name_history (
+                                            uuid BLOB NOT NULL,
+                                            name_lower TEXT NOT NULL,
+                                            name TEXT NOT NULL,
+                                            first_seen INTEGER NOT NULL,
+                                            last_seen INTEGER NOT NULL,
+                                            PRIMARY KEY (uuid, name_lower)
+                                        ) WITHOUT ROWID
+                                        """);
+                            }
+                        },
+                        conn -> {
+                            try (Statement stmt = conn.createStatement()) {
+                                stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_has_joined_name_lower ON has_joined (name_lower)");
+                                stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_name_history_name ON name_history (name_lower, last_seen)");
+                            }
+                        }),
+                // CREATE-Einträge für Strafen von vor der Historie (Migration 6), damit /bansearch auch deren
+                // Gründe findet; der Trigger aus Migration 10 nimmt sie in den Suchindex auf
+                historyBackfillMigration(12)
+        );
+    }
+
+    // ==============================================================
+
+    // null = not checked yet; false if this SQLite build has no FTS5
+    private volatile Boolean historySearch;
+
+    /**
+     * FTS5-Index über die Gründe aller CREATE-Einträge der Historie (rowid = id des Eintrags).
+     * Contentless, der Text steht nur in der Historie. Neue Einträge kommen per Trigger dazu; beim
+     * Archivieren bleibt die id gleich, deshalb findet der Index auch archivierte Einträge.
+     */
+    private Migration historySearchMigration(int version) {
+        long[] cursor = {0L};
+        return Migration.chunked(version, "create_history_search",
+                conn -> {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.executeUpdate("DROP TRIGGER IF EXISTS trg_history_search");
+                        stmt.executeUpdate("DROP TABLE IF EXISTS history_search");
+                        stmt.executeUpdate("CREATE VIRTUAL TABLE history_search USING fts5(reason, content='',"
+                                + " tokenize='unicode61 remove_diacritics 2', prefix='2 3')");
+                        stmt.executeUpdate("""
+                                CREATE TRIGGER trg_history_search AFTER INSERT ON punishment_history
+                                WHEN NEW.action = 'CREATE' AND NEW.reason IS NOT NULL
+                                BEGIN
+                                    INSERT INTO history_search (rowid, reason) VALUES (NEW.id, NEW.reason);
+                                END
+                                """);
+                        historySearch = true;
+                    } catch (SQLException e) {
+                        // Nur /bansearch fällt dann auf LIKE zurück
+                        if (!String.valueOf(e.getMessage()).contains("fts5")) throw e;
+                        plugin.getLogger().warning("SQLite was built without FTS5, /bansearch scans the history instead");
+                        historySearch = false;
+                    }
+                },
+                (conn, chunkSize) -> {
+                    if (Boolean.FALSE.equals(historySearch)) return 0;
+                    String select = "SELECT id, reason FROM %s WHERE id > ? AND action = 'CREATE' AND reason IS NOT NULL";
+                    int rows = 0;
+                    try (PreparedStatement read = conn.prepareStatement(
+                            "SELECT id, reason FROM (" + select.formatted("punishment_history_archive")
+                                    + " UNION ALL " + select.formatted("punishment_history") + ") ORDER BY id LIMIT ?");
+                         PreparedStatement write = conn.prepareStatement(
+                                 "INSERT INTO history_search (rowid, reason) VALUES (?, ?)")) {
+                        read.setLong(1, cursor[0]);
+                        read.setLong(2, cursor[0]);
+                        read.setInt(3, chunkSize);
+                        try (ResultSet rs = read.executeQuery()) {
+                            while (rs.next()) {
+                                cursor[0] = rs.getLong(1);
+                                write.setLong(1, cursor[0]);
+                                write.setString(2, rs.getString(2));
+                                write.addBatch();
+                                rows++;
+                            }
+                        }
+                        write.executeBatch();
+                    }
+                    return rows;
+                },
+                conn -> {});
+    }
+
+    /**
+     * Ranked by bm25 through the FTS5 index; the time range and type are applied to the matches.
+     */
+    @Override
+    public List<HistoryEntry> searchHistory(SearchQuery query, int offset, int limit) throws SQLException {
+        if (!hasHistorySearch()) return super.searchHistory(query, offset, limit);
+
+        String where = " WHERE %1$s.created_at >= ? AND %1$s.created_at < ?"
+                + (query.type() != null ? " AND %1$s.type = ?" : "");
+        String select = "SELECT %1$s.id, %1$s." + HISTORY_COLUMNS.replace(", ", ", %1$s.")
+                + ", m.score FROM m JOIN %2$s %1$s ON %1$s.id = m.id" + where;
+
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "WITH m AS (SELECT rowid AS id, rank AS score FROM history_search WHERE history_search MATCH ?)"
+                             + " SELECT * FROM (" + select.formatted("h", "punishment_history")
+                             + " UNION ALL " + select.formatted("a", "punishment_history_archive")
+                             + ") ORDER BY score, id DESC LIMIT ? OFFSET ?")) {
+            int index = 1;
+            ps.setString(index++, query.toMatchExpression());
+            for (int table = 0; table < 2; table++) {
+                ps.setLong(index++, query.from());
+                ps.setLong(index++, query.to());
+                if (query.type() != null) ps.setString(index++, query.type().name());
+            }
+            ps.setInt(index++, limit);
+            ps.setInt(index, offset);
+            return readHistory(ps);
+        }
+    }
+
+    private boolean hasHistorySearch() throws SQLException {
+        Boolean available = historySearch;
+        if (available == null) {
+            try (Connection conn = Database.getReadConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(
+                         "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'history_search'")) {
+                available = rs.next();
+            }
+            historySearch = available;
+        }
+        return available;
+    }
+
+    @Override
+    protected String binaryUuidType() {
+        return "BLOB";
+    }
+
+    @Override
+    protected String binaryKeyTableOptions() {
+        return " WITHOUT ROWID";
+    }
+
+    @Override
+    protected String upsertSql(String table, int keyColumns, String... columns) {
+        return "INSERT OR REPLACE INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", java.util.Collections.nCopies(columns.length, "?")) + ")";
+    }
+
+    @Override
+    protected String upsertPunishmentSql() {
+        return """
+             INSERT INTO punishments (uuid, type, end_timestamp, reason)
+             VALUES (?, ?, ?, ?)
+             ON CONFLICT(uuid, type) DO UPDATE SET
+                 end_timestamp = excluded.end_timestamp,
+                 reason = excluded.reason;
+         """;
+    }
+
+    @Override
+    protected String upsertJoinedSql() {
+        return """
+             INSERT INTO has_joined (uuid, name, name_lower)
+             VALUES (?, ?, ?)
+             ON CONFLICT(uuid) DO UPDATE SET name = excluded.name, name_lower = excluded.name_lower
+         """;
+    }
+}
@@ -0,0 +1,74 @@
+package de.jakomi1.betterBan.database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * Stores UUIDs as 16-byte big-endian binary (most significant bits first) instead of 36-char strings.
+ * Binding and reading go straight from/to the two longs, without a {@code UUID.toString()} /
+ * {@code UUID.fromString()} round trip.
+ */
+public final class UuidCodec {
+
+    public static final int LENGTH = 16;
+
+    private UuidCodec() {}
+
+    public static byte[] toBytes(UUID uuid) {
+        byte[] bytes = new byte[LENGTH];
+        putLong(bytes, 0, uuid.getMostSignificantBits());
+        putLong(bytes, 8, uuid.getLeastSignificantBits());
+        return bytes;
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != LENGTH) {
+            throw new IllegalArgumentException("Expected " + LENGTH + " bytes, got " + (bytes == null ? "null" : bytes.length));
+        }
+        return new UUID(getLong(bytes, 0), getLong(bytes, 8));
+    }
+
+    public static void bind(PreparedStatement ps, int index, UUID uuid) throws SQLException {
+        ps.setBytes(index, toBytes(uuid));
+    }
+
+    /** Like {@link #bind}, but binds SQL NULL for a null UUID. */
+    public static void bindNullable(PreparedStatement ps, int index, UUID uuid) throws SQLException {
+        if (uuid == null) ps.setNull(index, Types.BINARY);
+        else bind(ps, index, uuid);
+    }
+
+    /** Like {@link #read(ResultSet, int)}, but returns null for SQL NULL. */
+    public static UUID readNullable(ResultSet rs, int column) throws SQLException {
+        byte[] bytes = rs.getBytes(column);
+        return bytes != null ? fromBytes(bytes) : null;
+    }
+
+    public static UUID read(ResultSet rs, String column) throws SQLException {
+        return fromBytes(rs.getBytes(column));
+    }
+
+    public static UUID read(ResultSet rs, int column) throws SQLException {
+        return fromBytes(rs.getBytes(column));
+    }
+
+    // ==============================================================
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,302 @@
+package de.jakomi1.betterBan.database;
+
+import de.jakomi1.betterBan.utils.ConfigUtils;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Write-behind pipeline for all punishment / join writes.
+ * - Callers update their in-memory cache immediately and {@link #submit} the SQL write
+ * - A single writer thread drains the bounded queue, coalesces writes per key (last write wins)
+ *   and commits them as one transaction every few milliseconds
+ * - {@link #flush()} / {@link #flushAndWait(long)} for callers that need durability; the future fails if
+ *   a write submitted before it could not be committed
+ */
+public final class WriteBehindQueue {
+
+    /** A single write, executed against the store inside the group-commit transaction. */
+    @FunctionalInterface
+    public interface Write {
+        void apply(PunishmentStore.Writer writer) throws SQLException;
+    }
+
+    private record Pending(String key, Write write) {}
+
+    private record Barrier(CompletableFuture<Void> future) {}
+
+    private static final Object STOP = new Object();
+
+    /** Attempts to open the store for a batch before its writes are given up. */
+    private static final int OPEN_ATTEMPTS = 5;
+    private static final long OPEN_BACKOFF_MILLIS = 250L;
+
+    private static BlockingQueue<Object> queue;
+    private static Thread writerThread;
+    private static volatile boolean running;
+
+    // Metrics
+    private static final AtomicLong committedWrites = new AtomicLong();
+    private static final AtomicLong committedBatches = new AtomicLong();
+    private static volatile long lastCommitNanos;
+    private static volatile long maxCommitNanos;
+    private static volatile long avgCommitNanos;
+
+    private WriteBehindQueue() {}
+
+    // ==============================================================
+
+    public static synchronized void start() {
+        if (running) return;
+        queue = new LinkedBlockingQueue<>(Math.max(1, ConfigUtils.getWriteQueueCapacity()));
+        running = true;
+        writerThread = new Thread(WriteBehindQueue::runWriter, "BetterBan-Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Flushes everything that is still queued and stops the writer thread.
+     * Blocks the calling thread; used from onDisable().
+     */
+    public static synchronized void shutdown() {
+        if (!running) return;
+        try {
+            flushAndWait(30_000L);
+        } catch (TimeoutException e) {
+            plugin.getLogger().severe("Write queue did not drain in time, " + getQueueDepth() + " writes lost");
+        }
+        running = false;
+        queue.offer(STOP);
+        try {
+            writerThread.join(5_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    /**
+     * Queues a write. Writes with the same key are coalesced, only the latest one is committed.
+     * Blocks if the queue is full (backpressure) instead of dropping the write.
+     */
+    public static void submit(String key, Write write) {
+        if (!running) {
+            // Writer not running (startup failure / after shutdown): write through
+            applyDirect(write);
+            return;
+        }
+        try {
+            queue.put(new Pending(key, write));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            applyDirect(write);
+        }
+    }
+
+    /**
+     * Returns a future that completes once every write submitted before this call is committed.
+     */
+    public static CompletableFuture<Void> flush() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!running) {
+            future.complete(null);
+            return future;
+        }
+        try {
+            queue.put(new Barrier(future));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Flushes and blocks until all previously submitted writes are committed.
+     */
+    public static void flushAndWait(long timeoutMillis) throws TimeoutException {
+        try {
+            flush().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (java.util.concurrent.ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ==============================================================
+
+    public static int getQueueDepth() {
+        BlockingQueue<Object> q = queue;
+        return q != null ? q.size() : 0;
+    }
+
+    public static long getCommittedWrites() {
+        return committedWrites.get();
+    }
+
+    public static long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    /** Duration of the last group commit in microseconds. */
+    public static long getLastCommitMicros() {
+        return lastCommitNanos / 1000L;
+    }
+
+    /** Exponential moving average of the group commit duration in microseconds. */
+    public static long getAverageCommitMicros() {
+        return avgCommitNanos / 1000L;
+    }
+
+    /** Longest group commit since startup in microseconds. */
+    public static long getMaxCommitMicros() {
+        return maxCommitNanos / 1000L;
+    }
+
+    // ==============================================================
+
+    private static void runWriter() {
+        long intervalMillis = Math.max(1L, ConfigUtils.getCommitIntervalMillis());
+        Map<String, Write> batch = new LinkedHashMap<>();
+        // Writes lost since the last barrier; the next barrier reports them
+        int failed = 0;
+        boolean stop = false;
+
+        while (!stop) {
+            Object first;
+            try {
+                first = queue.take();
+            } catch (InterruptedException e) {
+                if (!running) break;
+                continue;
+            }
+
+            // Collect everything that arrives within the commit interval
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+            Object item = first;
+            while (item != null) {
+                if (item == STOP) {
+                    stop = true;
+                    break;
+                }
+                if (item instanceof Pending pending) {
+                    // remove + put: the surviving write moves to the position of its latest submit
+                    batch.remove(pending.key());
+                    batch.put(pending.key(), pending.write());
+                } else if (item instanceof Barrier barrier) {
+                    failed += commitOrDrop(batch);
+                    if (failed == 0) {
+                        barrier.future().complete(null);
+                    } else {
+                        barrier.future().completeExceptionally(new SQLException(failed + " writes could not be committed"));
+                        failed = 0;
+                    }
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) break;
+                try {
+                    item = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    item = null;
+                }
+            }
+            failed += commitOrDrop(batch);
+        }
+        commitOrDrop(batch);
+    }
+
+    /**
+     * Commits the batch, retrying with backoff while the store can't be opened. Never throws, so the writer
+     * thread survives any failing write.
+     *
+     * @return the number of writes that were lost; the batch is empty afterwards either way
+     */
+    private static int commitOrDrop(Map<String, Write> batch) {
+        int size = batch.size();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return commit(batch);
+            } catch (SQLException | RuntimeException e) {
+                // Nothing of the batch was applied, the whole batch can be tried again
+                if (attempt >= OPEN_ATTEMPTS) {
+                    e.printStackTrace();
+                    plugin.getLogger().severe("Couldn't open the database, " + size + " writes lost");
+                    batch.clear();
+                    return size;
+                }
+                try {
+                    Thread.sleep(OPEN_BACKOFF_MILLIS << (attempt - 1));
+                } catch (InterruptedException interrupted) {
+                    // Interrupts only wake the writer up for shutdown
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies and commits the batch as one transaction, or one by one if that fails.
+     *
+     * @return the number of writes that failed
+     * @throws SQLException if the store couldn't be opened; the batch is left untouched then
+     */
+    private static int commit(Map<String, Write> batch) throws SQLException {
+        if (batch.isEmpty()) return 0;
+        long start = System.nanoTime();
+        int failed = 0;
+
+        PunishmentStore.Writer writer = Database.getStore().openWriter();
+        try (writer) {
+            try {
+                for (Write write : batch.values()) write.apply(writer);
+                writer.commit();
+            } catch (SQLException | RuntimeException e) {
+                writer.rollback();
+                // Retry one by one so a single failing write doesn't drop the whole batch
+                for (Write write : batch.values()) {
+                    try {
+                        write.apply(writer);
+                        writer.commit();
+                    } catch (SQLException | RuntimeException single) {
+                        single.printStackTrace();
+                        writer.rollback();
+                        failed++;
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Rollback or close failed: whatever wasn't committed yet is gone
+            e.printStackTrace();
+        }
+
+        long took = System.nanoTime() - start;
+        lastCommitNanos = took;
+        if (took > maxCommitNanos) maxCommitNanos = took;
+        long avg = avgCommitNanos;
+        avgCommitNanos = avg == 0 ? took : avg + (took - avg) / 8;
+        committedWrites.addAndGet(batch.size() - failed);
+        committedBatches.incrementAndGet();
+        batch.clear();
+        return failed;
+    }
+
+    private static void applyDirect(Write write) {
+        try (PunishmentStore.Writer writer = Database.getStore().openWriter()) {
+            write.apply(writer);
+            writer.commit();
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
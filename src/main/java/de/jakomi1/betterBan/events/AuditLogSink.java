@@ -0,0 +1,107 @@
+package de.jakomi1.betterBan.events;
+
+import de.jakomi1.betterBan.utils.JsonUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Appends every moderation action (expiries included) to a JSON-lines file, one object per line:
+ * <pre>
+ * {"time":"2024-05-01T12:00:00Z","type":"BAN","target":"...","targetName":"Steve","actor":"...","actorName":"Alex",
+ *  "endTimestamp":-1,"duration":-1,"reason":"Griefing"}
+ * </pre>
+ * Writes are buffered and flushed whenever the queue runs empty, i.e. once per burst. If the disk can't keep
+ * up, the actions that didn't fit are recorded as one {@code "type":"OVERFLOW"} line with counts per type, so
+ * the file shows that something is missing.
+ */
+public final class AuditLogSink implements ModerationSink {
+
+    private final Path file;
+    private BufferedWriter writer;
+
+    public AuditLogSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public String name() {
+        return "AuditLog";
+    }
+
+    @Override
+    public int capacity() {
+        return 10_000;
+    }
+
+    @Override
+    public Overflow overflow() {
+        return Overflow.COALESCE;
+    }
+
+    @Override
+    public void accept(ModerationEvent event) throws IOException {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"time\":\"").append(Instant.ofEpochMilli(event.createdAt())).append('"');
+        json.append(",\"type\":\"").append(event.type()).append('"');
+        json.append(",\"target\":");
+        JsonUtils.appendString(json, uuid(event.target()));
+        json.append(",\"targetName\":");
+        JsonUtils.appendString(json, event.targetName());
+        json.append(",\"actor\":");
+        JsonUtils.appendString(json, uuid(event.actor().uuid()));
+        json.append(",\"actorName\":");
+        JsonUtils.appendString(json, event.actor().name());
+        json.append(",\"endTimestamp\":").append(event.endTimestamp());
+        json.append(",\"duration\":").append(event.duration());
+        json.append(",\"reason\":");
+        JsonUtils.appendString(json, event.reason());
+        write(json.append('}'));
+    }
+
+    @Override
+    public void coalesced(Map<ModerationEvent.Type, Integer> counts) throws IOException {
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"time\":\"").append(Instant.now()).append("\",\"type\":\"OVERFLOW\",\"counts\":{");
+        boolean first = true;
+        for (Map.Entry<ModerationEvent.Type, Integer> entry : counts.entrySet()) {
+            if (!first) json.append(',');
+            json.append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            first = false;
+        }
+        write(json.append("}}"));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void write(CharSequence line) throws IOException {
+        if (writer == null) {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        writer.append(line).append('\n');
+    }
+
+    private static String uuid(UUID uuid) {
+        return uuid != null ? uuid.toString() : null;
+    }
+}
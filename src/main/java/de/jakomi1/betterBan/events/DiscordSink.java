@@ -0,0 +1,67 @@
+package de.jakomi1.betterBan.events;
+
+import de.jakomi1.betterBan.utils.DiscordUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Posts moderation actions to the Discord webhook. Expiries are not posted.
+ * <p>
+ * {@link DiscordUtils} only queues the message for its dispatcher, so this sink rarely falls behind; if it
+ * does, the actions that didn't fit are posted as one summary.
+ */
+public final class DiscordSink implements ModerationSink {
+
+    @Override
+    public String name() {
+        return "Discord";
+    }
+
+    @Override
+    public int capacity() {
+        return 1000;
+    }
+
+    @Override
+    public Overflow overflow() {
+        return Overflow.COALESCE;
+    }
+
+    @Override
+    public void accept(ModerationEvent event) {
+        if (event.type().isExpiry()) return;
+        DiscordUtils.sendColoredMessage(
+                event.describe() + (event.hasReason() ? "\n*Reason: " + event.reason() + "*" : ""),
+                color(event.type())
+        );
+    }
+
+    @Override
+    public void coalesced(Map<ModerationEvent.Type, Integer> counts) {
+        List<String> parts = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<ModerationEvent.Type, Integer> entry : counts.entrySet()) {
+            if (entry.getKey().isExpiry()) continue;
+            parts.add(entry.getValue() + "x " + entry.getKey().name().toLowerCase(Locale.ROOT).replace('_', ' '));
+            total += entry.getValue();
+        }
+        if (total == 0) return;
+        DiscordUtils.sendColoredMessage(
+                total + " more moderation action(s) were not posted individually: " + String.join(", ", parts),
+                0x808080
+        );
+    }
+
+    private static int color(ModerationEvent.Type type) {
+        return switch (type) {
+            case BAN, IP_BAN -> 0xFF0000;
+            // orange-ish for mutes and kicks
+            case CHAT_BAN, KICK, LOCKDOWN -> 0xFFA500;
+            case UNBAN, CHAT_UNBAN, IP_UNBAN, LOCKDOWN_ENDED -> 0x00FF00;
+            case BAN_EXPIRED, CHAT_BAN_EXPIRED, IP_BAN_EXPIRED -> 0x808080;
+        };
+    }
+}
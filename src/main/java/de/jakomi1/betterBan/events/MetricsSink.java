@@ -0,0 +1,63 @@
+package de.jakomi1.betterBan.events;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Counts moderation actions per type since the plugin was enabled. Events that didn't fit into the queue are
+ * still counted, so the numbers are exact; the totals are logged on shutdown.
+ */
+public final class MetricsSink implements ModerationSink {
+
+    private static final ModerationEvent.Type[] TYPES = ModerationEvent.Type.values();
+
+    private final AtomicLongArray counts = new AtomicLongArray(TYPES.length);
+
+    @Override
+    public String name() {
+        return "Metrics";
+    }
+
+    @Override
+    public int capacity() {
+        return 1000;
+    }
+
+    @Override
+    public Overflow overflow() {
+        return Overflow.COALESCE;
+    }
+
+    @Override
+    public void accept(ModerationEvent event) {
+        counts.incrementAndGet(event.type().ordinal());
+    }
+
+    @Override
+    public void coalesced(Map<ModerationEvent.Type, Integer> coalesced) {
+        coalesced.forEach((type, count) -> counts.addAndGet(type.ordinal(), count));
+    }
+
+    @Override
+    public void close() {
+        StringJoiner summary = new StringJoiner(", ");
+        snapshot().forEach((type, count) -> {
+            if (count > 0) summary.add(type + "=" + count);
+        });
+        if (summary.length() > 0) plugin.getLogger().info("Moderation actions this session: " + summary);
+    }
+
+    public long getCount(ModerationEvent.Type type) {
+        return counts.get(type.ordinal());
+    }
+
+    public Map<ModerationEvent.Type, Long> snapshot() {
+        Map<ModerationEvent.Type, Long> snapshot = new EnumMap<>(ModerationEvent.Type.class);
+        for (ModerationEvent.Type type : TYPES) snapshot.put(type, counts.get(type.ordinal()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,110 @@
+package de.jakomi1.betterBan.events;
+
+import de.jakomi1.betterBan.cache.Punishment;
+import de.jakomi1.betterBan.database.PunishmentType;
+import de.jakomi1.betterBan.utils.BanUtils;
+import de.jakomi1.betterBan.utils.Moderator;
+
+import java.util.UUID;
+
+/**
+ * Something a moderator (or the plugin itself) did to a player, an address or the server, published once by
+ * the write path through {@link ModerationEvents#publish}.
+ *
+ * @param target       null for IP bans and lockdowns
+ * @param targetName   player name, the UUID if unknown, or the address / range of an IP ban
+ * @param endTimestamp end of the punishment in epoch millis, {@link Punishment#PERMANENT} for permanent ones,
+ *                     0 for events without a duration (unban, kick)
+ * @param reason       null if none was given
+ * @param createdAt    epoch millis
+ */
+public record ModerationEvent(Type type, UUID target, String targetName, Moderator actor,
+                              long endTimestamp, String reason, long createdAt) {
+
+    public enum Type {
+        BAN,
+        UNBAN,
+        BAN_EXPIRED,
+        CHAT_BAN,
+        CHAT_UNBAN,
+        CHAT_BAN_EXPIRED,
+        IP_BAN,
+        IP_UNBAN,
+        IP_BAN_EXPIRED,
+        KICK,
+        /** Flood protection let only known players in; no target. */
+        LOCKDOWN,
+        LOCKDOWN_ENDED;
+
+        public boolean isExpiry() {
+            return this == BAN_EXPIRED || this == CHAT_BAN_EXPIRED || this == IP_BAN_EXPIRED;
+        }
+
+        public static Type issued(PunishmentType type) {
+            return switch (type) {
+                case BAN -> BAN;
+                case CHAT_BAN -> CHAT_BAN;
+            };
+        }
+
+        public static Type revoked(PunishmentType type) {
+            return switch (type) {
+                case BAN -> UNBAN;
+                case CHAT_BAN -> CHAT_UNBAN;
+            };
+        }
+
+        public static Type expired(PunishmentType type) {
+            return switch (type) {
+                case BAN -> BAN_EXPIRED;
+                case CHAT_BAN -> CHAT_BAN_EXPIRED;
+            };
+        }
+    }
+
+    public static ModerationEvent of(Type type, UUID target, String targetName, Moderator actor,
+                                     long endTimestamp, String reason) {
+        return new ModerationEvent(type, target, targetName != null ? targetName : String.valueOf(target), actor,
+                endTimestamp, reason, System.currentTimeMillis());
+    }
+
+    public boolean isPermanent() {
+        return endTimestamp == Punishment.PERMANENT;
+    }
+
+    /** Millis from {@link #createdAt} to the end; -1 for permanent, 0 for events without a duration. */
+    public long duration() {
+        if (isPermanent()) return Punishment.PERMANENT;
+        return endTimestamp == 0L ? 0L : Math.max(0L, endTimestamp - createdAt);
+    }
+
+    public boolean hasReason() {
+        return reason != null && !reason.isBlank();
+    }
+
+    /** Actor as shown in messages: "the console" instead of "Console". */
+    public String actorName() {
+        return Moderator.CONSOLE.equals(actor) ? "the console" : actor.name();
+    }
+
+    /** One line without the reason, e.g. "Steve was banned by Alex for 2 days". */
+    public String describe() {
+        String by = " by " + actorName();
+        String length = isPermanent() ? "" : " for " + BanUtils.formatDuration(duration());
+        String permanently = isPermanent() ? "permanently " : "";
+        return switch (type) {
+            case BAN -> targetName + " was " + permanently + "banned" + by + length;
+            case UNBAN -> targetName + " was unbanned" + by;
+            case BAN_EXPIRED -> "The ban of " + targetName + " has expired";
+            case CHAT_BAN -> targetName + " was " + permanently + "chat-banned" + by + length;
+            case CHAT_UNBAN -> targetName + " was un-chat-banned" + by;
+            case CHAT_BAN_EXPIRED -> "The chat-ban of " + targetName + " has expired";
+            case IP_BAN -> targetName + " was " + permanently + "IP-banned" + by + length;
+            case IP_UNBAN -> targetName + " was IP-unbanned" + by;
+            case IP_BAN_EXPIRED -> "The IP ban of " + targetName + " has expired";
+            case KICK -> targetName + " was kicked" + by;
+            case LOCKDOWN -> "Connection flood detected, lockdown enabled: only known players can join";
+            case LOCKDOWN_ENDED -> "Lockdown ended, new players can join again";
+        };
+    }
+}
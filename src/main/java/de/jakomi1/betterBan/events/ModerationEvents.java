@@ -0,0 +1,64 @@
+package de.jakomi1.betterBan.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fans {@link ModerationEvent}s out to the registered {@link ModerationSink}s.
+ * <p>
+ * {@link #publish} only puts the event into each sink's bounded queue and never blocks, so neither a slow
+ * webhook nor a slow disk can back up into command or login handling. Each sink runs on its own thread.
+ */
+public final class ModerationEvents {
+
+    /** Queue state of one sink, for diagnostics. */
+    public record SinkStats(String name, int queueDepth, long dropped) {}
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 3_000L;
+
+    private static final List<SinkWorker> workers = new CopyOnWriteArrayList<>();
+    private static volatile boolean started;
+
+    private ModerationEvents() {}
+
+    // ==============================================================
+
+    /** Adds a sink; registered after {@link #start()}, it starts right away. */
+    public static synchronized void register(ModerationSink sink) {
+        SinkWorker worker = new SinkWorker(sink);
+        workers.add(worker);
+        if (started) worker.start();
+    }
+
+    public static synchronized void start() {
+        started = true;
+        workers.forEach(SinkWorker::start);
+    }
+
+    /**
+     * Lets every sink hand over what is still queued (a few seconds at most) and stops the threads.
+     * Used from onDisable().
+     */
+    public static synchronized void shutdown() {
+        started = false;
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        for (SinkWorker worker : workers) {
+            worker.shutdown(Math.max(1L, deadline - System.currentTimeMillis()));
+        }
+        workers.clear();
+    }
+
+    /** Hands the event to every sink. Safe to call from any thread; events published before start() wait. */
+    public static void publish(ModerationEvent event) {
+        for (SinkWorker worker : workers) worker.offer(event);
+    }
+
+    public static List<SinkStats> getStats() {
+        List<SinkStats> stats = new ArrayList<>(workers.size());
+        for (SinkWorker worker : workers) {
+            stats.add(new SinkStats(worker.sink().name(), worker.queueDepth(), worker.totalDropped()));
+        }
+        return stats;
+    }
+}
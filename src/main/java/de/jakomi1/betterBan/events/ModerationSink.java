@@ -0,0 +1,40 @@
+package de.jakomi1.betterBan.events;
+
+import java.util.Map;
+
+/**
+ * A consumer of {@link ModerationEvent}s, registered with {@link ModerationEvents#register}.
+ * <p>
+ * Every sink has its own bounded queue and thread, so a slow sink only ever delays itself. All methods are
+ * called on that thread, one at a time.
+ */
+public interface ModerationSink {
+
+    /** What happens to a new event while the sink's queue is full. */
+    enum Overflow {
+        /** The new event is dropped; the drop count is logged once the sink has caught up. */
+        DROP_NEWEST,
+        /** The oldest queued event is dropped to make room, e.g. for notifications where only recent ones matter. */
+        DROP_OLDEST,
+        /** The new event is counted per type, and {@link #coalesced} gets the counts once the sink has caught up. */
+        COALESCE
+    }
+
+    /** Used for the thread name and in log messages. */
+    String name();
+
+    int capacity();
+
+    Overflow overflow();
+
+    void accept(ModerationEvent event) throws Exception;
+
+    /** Events that didn't fit into the queue ({@link Overflow#COALESCE} only), per type. */
+    default void coalesced(Map<ModerationEvent.Type, Integer> counts) throws Exception {}
+
+    /** Called whenever the queue has run empty, e.g. to flush a buffered writer. */
+    default void flush() throws Exception {}
+
+    /** Called once on shutdown, after the remaining events were handed over. */
+    default void close() throws Exception {}
+}
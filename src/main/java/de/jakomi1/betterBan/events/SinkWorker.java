@@ -0,0 +1,146 @@
+package de.jakomi1.betterBan.events;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Queue and thread of one {@link ModerationSink}. {@link #offer} never blocks; what happens when the queue
+ * is full is up to the sink's {@link ModerationSink.Overflow} policy.
+ */
+final class SinkWorker {
+
+    private final ModerationSink sink;
+    private final LinkedBlockingDeque<ModerationEvent> queue;
+    private Thread thread;
+    private volatile boolean running;
+
+    // Guarded by counts; reported once the queue has run empty (not by this, shutdown() holds that while joining)
+    private final Object counts = new Object();
+    private long dropped;
+    private final Map<ModerationEvent.Type, Integer> coalesced = new EnumMap<>(ModerationEvent.Type.class);
+    private long totalDropped;
+
+    SinkWorker(ModerationSink sink) {
+        this.sink = sink;
+        this.queue = new LinkedBlockingDeque<>(Math.max(1, sink.capacity()));
+    }
+
+    // ==============================================================
+
+    void offer(ModerationEvent event) {
+        if (queue.offerLast(event)) return;
+        switch (sink.overflow()) {
+            case DROP_NEWEST -> countDropped(1);
+            case DROP_OLDEST -> {
+                // Another publisher may take the free slot first, then the new event is dropped instead
+                if (queue.pollFirst() != null) countDropped(1);
+                if (!queue.offerLast(event)) countDropped(1);
+            }
+            case COALESCE -> {
+                synchronized (counts) {
+                    coalesced.merge(event.type(), 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    private void countDropped(long count) {
+        synchronized (counts) {
+            dropped += count;
+            totalDropped += count;
+        }
+    }
+
+    synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "BetterBan-Sink-" + sink.name());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops the thread once it has handed over what is queued, waiting at most {@code timeoutMillis}. */
+    synchronized void shutdown(long timeoutMillis) {
+        if (!running) return;
+        running = false;
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            plugin.getLogger().warning("Moderation sink " + sink.name() + " did not finish in time, "
+                    + queue.size() + " event(s) lost");
+        }
+        thread = null;
+    }
+
+    ModerationSink sink() {
+        return sink;
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    long totalDropped() {
+        synchronized (counts) {
+            return totalDropped;
+        }
+    }
+
+    // ==============================================================
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            ModerationEvent event;
+            try {
+                event = queue.pollFirst(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (event == null) continue;
+            try {
+                sink.accept(event);
+            } catch (Exception e) {
+                plugin.getLogger().severe("Moderation sink " + sink.name() + " failed on " + event.type());
+                e.printStackTrace();
+            }
+            if (queue.isEmpty()) caughtUp();
+        }
+        caughtUp();
+        try {
+            sink.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Reports drops and coalesced events, then lets the sink flush. */
+    private void caughtUp() {
+        long lost;
+        Map<ModerationEvent.Type, Integer> merged;
+        synchronized (counts) {
+            lost = dropped;
+            dropped = 0;
+            merged = coalesced.isEmpty() ? Map.of() : new EnumMap<>(coalesced);
+            coalesced.clear();
+        }
+
+        try {
+            if (lost > 0) {
+                plugin.getLogger().warning("Moderation sink " + sink.name() + " couldn't keep up, "
+                        + lost + " event(s) dropped");
+            }
+            if (!merged.isEmpty()) sink.coalesced(merged);
+            sink.flush();
+        } catch (Exception e) {
+            plugin.getLogger().severe("Moderation sink " + sink.name() + " failed to flush");
+            e.printStackTrace();
+        }
+    }
+}
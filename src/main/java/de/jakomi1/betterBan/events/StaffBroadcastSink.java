@@ -0,0 +1,49 @@
+package de.jakomi1.betterBan.events;
+
+import de.jakomi1.betterBan.BetterBan;
+import de.jakomi1.betterBan.scheduler.Scheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+
+/**
+ * Announces moderation actions to the online admins, except the one who took the action (they already get
+ * feedback from the command). Expiries are not announced.
+ * <p>
+ * Only recent actions matter in chat, so a full queue drops the oldest ones.
+ */
+public final class StaffBroadcastSink implements ModerationSink {
+
+    @Override
+    public String name() {
+        return "StaffBroadcast";
+    }
+
+    @Override
+    public int capacity() {
+        return 100;
+    }
+
+    @Override
+    public Overflow overflow() {
+        return Overflow.DROP_OLDEST;
+    }
+
+    @Override
+    public void accept(ModerationEvent event) {
+        if (event.type().isExpiry()) return;
+        String message = chatPrefix + ChatColor.DARK_GRAY + "[Staff] " + ChatColor.GRAY + event.describe()
+                + (event.hasReason() ? ChatColor.DARK_GRAY + " - " + event.reason() : "");
+        UUID actor = event.actor().uuid();
+
+        Scheduler.run(() -> {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                if (BetterBan.isAdmin(player) && !player.getUniqueId().equals(actor)) player.sendMessage(message);
+            }
+        });
+    }
+}
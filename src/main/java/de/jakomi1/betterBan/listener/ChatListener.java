@@ -1,6 +1,12 @@
 package de.jakomi1.betterBan.listener;
 
+import de.jakomi1.betterBan.cache.MessageHistory;
+import de.jakomi1.betterBan.cache.Punishment;
+import de.jakomi1.betterBan.cache.WordFilter;
+import de.jakomi1.betterBan.utils.BlockedCommandUtils;
 import de.jakomi1.betterBan.utils.ChatBanUtils;
+import de.jakomi1.betterBan.utils.ChatFilterUtils;
+import de.jakomi1.betterBan.utils.SpamUtils;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -8,41 +14,71 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.util.UUID;
 
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+import static de.jakomi1.betterBan.BetterBan.isAdmin;
+
 public class ChatListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = false)
     public void onPlayerChat(AsyncPlayerChatEvent event) {
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
-        if (ChatBanUtils.isChatBanned(uuid)) {
+        Punishment chatBan = ChatBanUtils.getActiveChatBan(uuid);
+        if (chatBan != null) {
             event.setCancelled(true);
-            player.sendMessage(ChatBanUtils.getChatBanMessage(uuid));
+            player.sendMessage(ChatBanUtils.getChatBanMessage(chatBan));
+            return;
         }
-    }
 
-    private static final String[] MESSAGE_COMMANDS = {
-            "msg", "tell", "w", "whisper","teammsg", "minecraft:teammsg",
-            "minecraft:msg", "minecraft:tell", "minecraft:w", "minecraft:whisper"
-    };
+        // Spam-Schutz: Ringpuffer mit Zeitstempeln und Hashes, Admins sind ausgenommen
+        if (!isAdmin(player)) {
+            MessageHistory.Verdict verdict = SpamUtils.check(uuid, event.getMessage());
+            if (verdict != MessageHistory.Verdict.OK) {
+                event.setCancelled(true);
+                player.sendMessage(SpamUtils.punish(uuid, verdict));
+                return;
+            }
+        }
+
+        // Wortfilter: ein Durchlauf über die Nachricht, ohne Allokation
+        WordFilter filter = ChatFilterUtils.getFilter();
+        WordFilter.Action action = filter.scan(event.getMessage());
+        if (action == null) return;
+
+        switch (action) {
+            case CENSOR -> event.setMessage(filter.censor(event.getMessage()));
+            case BLOCK -> {
+                event.setCancelled(true);
+                player.sendMessage(chatPrefix + ChatColor.RED + "Your message contains a blocked word and was not sent.");
+            }
+            case STRIKE -> {
+                event.setCancelled(true);
+                player.sendMessage(ChatFilterUtils.strike(uuid));
+            }
+        }
+    }
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = false)
     public void onCommand(PlayerCommandPreprocessEvent event) {
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
 
-        if (!ChatBanUtils.isChatBanned(uuid)) return;
+        Punishment chatBan = ChatBanUtils.getActiveChatBan(uuid);
+        if (chatBan == null) return;
 
-        String message = event.getMessage().toLowerCase();
-
-        for (String cmd : MESSAGE_COMMANDS) {
-            if (message.startsWith("/" + cmd + " ")) {
-                event.setCancelled(true);
-                player.sendMessage(ChatBanUtils.getChatBanMessage(uuid));
-                return;
-            }
+        // Only chat-banned players get here: one lookup of the first token
+        if (BlockedCommandUtils.isBlocked(event.getMessage())) {
+            event.setCancelled(true);
+            player.sendMessage(ChatBanUtils.getChatBanMessage(chatBan));
         }
     }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        SpamUtils.forget(event.getPlayer().getUniqueId());
+    }
 }
@@ -1,6 +1,14 @@
 package de.jakomi1.betterBan.listener;
 
+import de.jakomi1.betterBan.cache.Punishment;
+import de.jakomi1.betterBan.database.Database;
+import de.jakomi1.betterBan.utils.AltUtils;
 import de.jakomi1.betterBan.utils.BanUtils;
+import de.jakomi1.betterBan.utils.ConfigUtils;
+import de.jakomi1.betterBan.utils.FloodUtils;
+import de.jakomi1.betterBan.utils.IpBanUtils;
+import de.jakomi1.betterBan.utils.StartupUtils;
+import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -10,6 +18,8 @@ import org.bukkit.event.player.PlayerJoinEvent;
 
 import java.util.UUID;
 
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+
 public class JoinListener implements Listener {
     /*@EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
@@ -22,22 +32,49 @@ public class JoinListener implements Listener {
     public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
         String name = event.getName();
         UUID uuid = event.getUniqueId();
-        String ip = event.getAddress().getHostAddress();
 
+        // Storage nicht gestartet: keine Banns bekannt, also niemanden reinlassen
+        if (Database.getStore() == null) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                    chatPrefix + ChatColor.RED + "The server can't check bans right now, please try again later.");
+            return;
+        }
 
-        if (!BanUtils.hasJoinedBefore(uuid)) {
-            BanUtils.markJoined(uuid, name);
+        // Flood-Schutz zuerst: nur In-Memory-Buckets, kein DB-Zugriff, kein Warten
+        String throttled = FloodUtils.checkConnection(event.getAddress());
+        if (throttled != null) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, throttled);
+            return;
+        }
+
+        // Direkt nach dem Start: kurz warten, bis die Banns geladen sind, statt ungeprüft reinzulassen
+        if (!StartupUtils.awaitReady(ConfigUtils.getLoginWaitMillis())) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                    chatPrefix + ChatColor.RED + "The server is still starting, please try again in a moment.");
+            return;
+        }
+
+        // Lockdown: unbekannte Spieler werden abgewiesen, bevor irgendetwas geschrieben wird
+        if (FloodUtils.isLockdown() && !BanUtils.hasJoinedBefore(uuid)) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, FloodUtils.getLockdownMessage());
+            return;
+        }
+        // Bei jedem Login: neue Spieler eintragen, umbenannte Spieler unter dem neuen Namen auffindbar machen
+        BanUtils.markJoined(uuid, name);
+        // Adresse für die Zweitaccount-Erkennung merken, auch bei gebannten Accounts (Schreiben läuft gebündelt)
+        AltUtils.recordLogin(uuid, event.getAddress());
+
+        // Bannprüfung: ein Cache-Zugriff liefert einen unveränderlichen Datensatz
+        Punishment ban = BanUtils.getActiveBan(uuid);
+        if (ban != null) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_BANNED, BanUtils.getBanMessage(ban));
+            return;
         }
 
-        // Bannprüfung
-        if (BanUtils.isBanned(uuid)) {
-            if (BanUtils.isPermanent(uuid)) {
-                event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_BANNED,
-                        BanUtils.getBanMessage(uuid));
-            } else {
-                event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_BANNED,
-                        BanUtils.getBanMessage(uuid));
-            }
+        // IP-/Range-Bann: ein Trie-Durchlauf über die Adressbytes
+        Punishment ipBan = IpBanUtils.getActiveBan(event.getAddress());
+        if (ipBan != null) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_BANNED, IpBanUtils.getIpBanMessage(ipBan));
             return;
         }
 
@@ -452,6 +452,31 @@ public final class Scheduler {
         }
     }
 
+    /**
+     * Führt die Aufgabe auf dem Thread aus, dem die Entity gehört (Folia: Entity-Scheduler,
+     * sonst Main-Thread). Wird die Entity vorher entfernt (z.B. Spieler offline), entfällt die Aufgabe.
+     */
+    public static void runForEntity(Entity entity, Runnable runnable) {
+        Objects.requireNonNull(entity);
+        Objects.requireNonNull(runnable);
+        if (FOLIA_AVAILABLE) {
+            try {
+                Object entityScheduler = entity.getClass().getMethod("getScheduler").invoke(entity);
+                if (entityScheduler != null) {
+                    Method exec = entityScheduler.getClass().getMethod("execute", Plugin.class, Runnable.class, Runnable.class, long.class);
+                    exec.invoke(entityScheduler, plugin, runnable, null, 1L);
+                    return;
+                }
+            } catch (ReflectiveOperationException ignored) { /* fallback */ }
+        }
+
+        if (Bukkit.isPrimaryThread()) {
+            runnable.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, runnable);
+        }
+    }
+
     public static void removeEntitySafe(Entity entity) {
         if (entity == null) return;
         if (!FOLIA_AVAILABLE) {
@@ -0,0 +1,92 @@
+package de.jakomi1.betterBan.utils;
+
+import de.jakomi1.betterBan.cache.AltIndex;
+import de.jakomi1.betterBan.cache.IpRange;
+import de.jakomi1.betterBan.database.Database;
+import de.jakomi1.betterBan.database.WriteBehindQueue;
+
+import org.bukkit.ChatColor;
+
+import java.net.InetAddress;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+
+/**
+ * Alt-account detection: which accounts logged in from the same hosts.
+ * <p>
+ * Every login is recorded in player_ips through the {@link WriteBehindQueue}, so logins never wait on it,
+ * and in an in-memory {@link AltIndex}, which answers {@link #findAlts} without touching the database.
+ */
+public final class AltUtils {
+
+    // Created on first use, after the config is loaded
+    private static final AltIndex index = new AltIndex(
+            ConfigUtils.getAltsMaxIpsPerAccount(), ConfigUtils.getAltsMaxAccountsPerIp());
+
+    private AltUtils() {}
+
+    // ==============================================================
+
+    /**
+     * Loads all recorded logins into the index. Runs on the cache loader thread; logins recorded in the
+     * meantime are kept.
+     *
+     * @return false if the database couldn't be read
+     */
+    public static boolean init() {
+        try {
+            // Oldest first, so the caps keep the most recent hosts and accounts
+            Database.getStore().loadPlayerIps((uuid, address, firstSeen, lastSeen) -> index.add(uuid, address));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    /** Records a login; called from the pre-login check. */
+    public static void recordLogin(UUID uuid, InetAddress address) {
+        long host = IpRange.hostKey(address.getAddress());
+        long now = System.currentTimeMillis();
+        index.add(uuid, host);
+        // Coalesced per (account, host): repeated logins only update last_seen once per batch
+        WriteBehindQueue.submit("player_ips:" + uuid + ":" + host, writer -> writer.recordPlayerIp(uuid, host, now));
+    }
+
+    // ==============================================================
+
+    /**
+     * Every account connected to {@code uuid} through shared hosts, nearest first, at most
+     * {@code alts.max-results}. Memory only, safe to call on the main thread.
+     */
+    public static AltIndex.Component findAlts(UUID uuid) {
+        return index.findConnected(uuid, Math.max(1, ConfigUtils.getAltsMaxResults()));
+    }
+
+    /**
+     * Hint for the moderator after a ban, or null if the player has no known alts.
+     */
+    public static String getAltHint(UUID uuid, String name) {
+        AltIndex.Component component = findAlts(uuid);
+        if (component.alts().isEmpty()) return null;
+        int count = component.alts().size();
+        return chatPrefix + ChatColor.GOLD + count + (component.truncated() ? "+" : "")
+                + (count == 1 ? " other account shares" : " other accounts share") + " an address with " + name
+                + ChatColor.GRAY + " -> /alts " + name;
+    }
+
+    /** Hosts the account logged in from, most recent first. */
+    public static IpRange[] getAddresses(UUID uuid) {
+        long[] hosts = index.getHosts(uuid);
+        IpRange[] ranges = new IpRange[hosts.length];
+        for (int i = 0; i < hosts.length; i++) ranges[i] = IpRange.fromHostKey(hosts[hosts.length - 1 - i]);
+        return ranges;
+    }
+
+    /** Host key as text: the IPv4 address or the IPv6 /64. */
+    public static String formatHost(long host) {
+        return IpRange.fromHostKey(host).toString();
+    }
+}
@@ -1,189 +1,204 @@
 package de.jakomi1.betterBan.utils;
 
+import de.jakomi1.betterBan.cache.KnownPlayers;
+import de.jakomi1.betterBan.cache.NameIndex;
+import de.jakomi1.betterBan.cache.Punishment;
 import de.jakomi1.betterBan.database.Database;
+import de.jakomi1.betterBan.database.PunishmentType;
+import de.jakomi1.betterBan.database.WriteBehindQueue;
 import org.bukkit.ChatColor;
 
-import java.sql.*;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 import static de.jakomi1.betterBan.BetterBan.chatPrefix;
 
 public final class BanUtils {
 
-    // Cache for bans: UUID -> BanData
-    private static final Map<UUID, BanData> banCache = new HashMap<>();
+    // Every UUID in has_joined, so join checks and tab completion never query the database
+    private static volatile KnownPlayers knownPlayers = new KnownPlayers();
 
-    private BanUtils() {}
+    // Name index of all known players, for tab completion and name lookups
+    private static final NameIndex knownNames = new NameIndex();
+    // Players whose name was set by a login during loadKnownPlayers(); their loaded row may be older.
+    // Null while no load is running. Guarded by nameLock.
+    private static final Object nameLock = new Object();
+    private static Set<UUID> namedDuringLoad;
 
-    private static class BanData {
-        final long endTimestamp;
-        final String reason;
+    /** Maximum number of suggestions returned per tab-complete request. */
+    public static final int COMPLETION_LIMIT = 50;
 
-        BanData(long endTimestamp, String reason) {
-            this.endTimestamp = endTimestamp;
-            this.reason = reason;
-        }
-    }
+    private BanUtils() {}
 
     // ==============================================================
 
-    public static void init() {
-        try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement()) {
-
-            stmt.executeUpdate("""
-                CREATE TABLE IF NOT EXISTS bans (
-                    uuid TEXT PRIMARY KEY,
-                    end_timestamp INTEGER NOT NULL,
-                    reason TEXT
-                );
-            """);
-
-            stmt.executeUpdate("""
-                CREATE TABLE IF NOT EXISTS has_joined (
-                    uuid TEXT PRIMARY KEY,
-                    name TEXT NOT NULL
-                );
-            """);
-
-            // Load cache initially
-            loadCache();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Loads (or reconciles) the known players and the punishment cache from the database.
+     * Safe to call while the caches are in use.
+     *
+     * @return false if the database couldn't be read
+     */
+    public static boolean init() {
+        // Load cache initially
+        boolean players = loadKnownPlayers();
+        return PunishmentUtils.init() && players;
     }
 
-    private static void loadCache() {
-        banCache.clear();
-        try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT uuid, end_timestamp, reason FROM bans")) {
+    /**
+     * Fills the known players from a snapshot of the last shutdown, see {@link StartupUtils}. Runs before the
+     * first login, so the index can simply be replaced.
+     * The snapshot only holds the UUIDs, which login checks need; the names follow with {@link #loadKnownPlayers()}.
+     */
+    static void restore(Set<UUID> joined) {
+        KnownPlayers index = new KnownPlayers(joined.size());
+        joined.forEach(index::add);
+        knownPlayers = index;
+    }
 
-            while (rs.next()) {
-                UUID uuid = UUID.fromString(rs.getString("uuid"));
-                long end = rs.getLong("end_timestamp");
-                String reason = rs.getString("reason");
-                banCache.put(uuid, new BanData(end, reason));
-            }
+    static NameIndex getKnownNames() {
+        return knownNames;
+    }
 
+    /**
+     * Merges has_joined into the live indexes. Logins may run at the same time: UUIDs are only ever added, and
+     * a name set by a login during the load is not overwritten with the (possibly older) loaded one.
+     */
+    static boolean loadKnownPlayers() {
+        synchronized (nameLock) {
+            namedDuringLoad = new HashSet<>();
+        }
+        try {
+            Database.getStore().loadJoined((uuid, name) -> {
+                knownPlayers.add(uuid);
+                synchronized (nameLock) {
+                    if (!namedDuringLoad.contains(uuid)) knownNames.put(uuid, name);
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
+        } finally {
+            synchronized (nameLock) {
+                namedDuringLoad = null;
+            }
         }
+        return true;
     }
 
     // ==============================================================
 
     public static void ban(UUID uuid, long endTimestamp, String reason) {
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement("""
-                 INSERT INTO bans (uuid, end_timestamp, reason)
-                 VALUES (?, ?, ?)
-                 ON CONFLICT(uuid) DO UPDATE SET
-                     end_timestamp = excluded.end_timestamp,
-                     reason = excluded.reason;
-             """)) {
-
-            ps.setString(1, uuid.toString());
-            ps.setLong(2, endTimestamp);
-            ps.setString(3, reason);
-            ps.executeUpdate();
-
-            // Update cache
-            banCache.put(uuid, new BanData(endTimestamp, reason));
+        ban(uuid, endTimestamp, reason, Moderator.SYSTEM);
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    public static void ban(UUID uuid, long endTimestamp, String reason, Moderator by) {
+        PunishmentUtils.punish(uuid, PunishmentType.BAN, endTimestamp, reason, by);
     }
 
     public static void permanentBan(UUID uuid, String reason) {
-        ban(uuid, -1, reason);
+        permanentBan(uuid, reason, Moderator.SYSTEM);
+    }
+
+    public static void permanentBan(UUID uuid, String reason, Moderator by) {
+        ban(uuid, Punishment.PERMANENT, reason, by);
     }
 
     public static void tempBan(UUID uuid, long durationMillis, String reason) {
-        ban(uuid, System.currentTimeMillis() + durationMillis, reason);
+        tempBan(uuid, durationMillis, reason, Moderator.SYSTEM);
     }
 
-    public static void unban(UUID uuid) {
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement("DELETE FROM bans WHERE uuid = ?")) {
+    public static void tempBan(UUID uuid, long durationMillis, String reason, Moderator by) {
+        ban(uuid, System.currentTimeMillis() + durationMillis, reason, by);
+    }
 
-            ps.setString(1, uuid.toString());
-            ps.executeUpdate();
+    public static void unban(UUID uuid) {
+        unban(uuid, Moderator.SYSTEM);
+    }
 
-            // Remove from cache
-            banCache.remove(uuid);
+    public static void unban(UUID uuid, Moderator by) {
+        PunishmentUtils.revoke(uuid, PunishmentType.BAN, by);
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Single cache probe for login checks: the active ban, or null if the player is not banned.
+     */
+    public static Punishment getActiveBan(UUID uuid) {
+        return PunishmentUtils.getActive(uuid, PunishmentType.BAN);
     }
 
     public static boolean isBanned(UUID uuid) {
-        BanData data = banCache.get(uuid);
-        if (data != null) return data.endTimestamp == -1 || System.currentTimeMillis() < data.endTimestamp;
-        return false;
+        return PunishmentUtils.isPunished(uuid, PunishmentType.BAN);
     }
 
     public static String getReason(UUID uuid) {
-        BanData data = banCache.get(uuid);
-        return data != null ? data.reason : null;
+        Punishment punishment = PunishmentUtils.get(uuid, PunishmentType.BAN);
+        return punishment != null ? punishment.reason() : null;
     }
 
     public static Long getEnd(UUID uuid) {
-        BanData data = banCache.get(uuid);
-        return data != null ? data.endTimestamp : null;
+        Punishment punishment = PunishmentUtils.get(uuid, PunishmentType.BAN);
+        return punishment != null ? punishment.endTimestamp() : null;
     }
 
     public static boolean isPermanent(UUID uuid) {
-        BanData data = banCache.get(uuid);
-        return data != null && data.endTimestamp == -1;
+        Punishment punishment = PunishmentUtils.get(uuid, PunishmentType.BAN);
+        return punishment != null && punishment.isPermanent();
     }
 
     public static Map<UUID, Map<String,Object>> getAllBans() {
-        Map<UUID, Map<String,Object>> bans = new LinkedHashMap<>();
-        for (Map.Entry<UUID, BanData> entry : banCache.entrySet()) {
+        return toLegacyMap(PunishmentUtils.getAllActive(PunishmentType.BAN));
+    }
+
+    /** Old map-of-maps format of getAllBans / getAllChatBans. */
+    static Map<UUID, Map<String,Object>> toLegacyMap(Map<UUID, Punishment> punishments) {
+        Map<UUID, Map<String,Object>> result = new LinkedHashMap<>();
+        punishments.forEach((uuid, punishment) -> {
             Map<String, Object> data = new HashMap<>();
-            data.put("end_timestamp", entry.getValue().endTimestamp);
-            data.put("reason", entry.getValue().reason);
-            bans.put(entry.getKey(), data);
-        }
-        return bans;
+            data.put("end_timestamp", punishment.endTimestamp());
+            data.put("reason", punishment.reason());
+            result.put(uuid, data);
+        });
+        return result;
     }
 
+    /** Expires every punishment that is due, bans and all other types alike. */
     public static void clearExpiredBans() {
-        long now = System.currentTimeMillis();
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement(
-                     "DELETE FROM bans WHERE end_timestamp != -1 AND end_timestamp < ?")) {
+        PunishmentUtils.clearExpired();
+    }
 
-            ps.setLong(1, now);
-            ps.executeUpdate();
+    /** Registers a callback that runs whenever a temporary ban expires. */
+    public static void onBanExpire(BiConsumer<UUID, Punishment> listener) {
+        PunishmentUtils.onExpire(PunishmentType.BAN, listener);
+    }
 
-            // Clean cache
-            banCache.entrySet().removeIf(e -> e.getValue().endTimestamp != -1 && e.getValue().endTimestamp < now);
+    // ==============================================================
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /** Names of players that joined before, for tab completion. */
+    public static List<String> completeKnownNames(String prefix) {
+        return knownNames.complete(prefix, COMPLETION_LIMIT);
+    }
+
+    /** Names of currently banned players, for tab completion. */
+    public static List<String> completeBannedNames(String prefix) {
+        return PunishmentUtils.completePunishedNames(PunishmentType.BAN, prefix);
     }
 
     // ==============================================================
 
     public static String getBanMessage(UUID uuid) {
-        Long end = getEnd(uuid);
-        String reason = getReason(uuid);
-
-        if (end == null) return chatPrefix + ChatColor.GREEN + "You are not banned.";
+        Punishment ban = PunishmentUtils.get(uuid, PunishmentType.BAN);
+        if (ban == null) return chatPrefix + ChatColor.GREEN + "You are not banned.";
+        return getBanMessage(ban);
+    }
 
-        boolean permanent = end == -1;
-        String base = permanent
+    public static String getBanMessage(Punishment ban) {
+        String base = ban.isPermanent()
                 ? chatPrefix + ChatColor.RED + "You are permanently banned!"
-                : chatPrefix + ChatColor.RED + "You are banned for " + formatDuration(end - System.currentTimeMillis()) + "!";
+                : chatPrefix + ChatColor.RED + "You are banned for " + formatDuration(ban.endTimestamp() - System.currentTimeMillis()) + "!";
 
-        if (reason != null && !reason.isBlank()) {
-            base += ChatColor.GRAY + "\nReason: " + reason;
+        if (ban.hasReason()) {
+            base += ChatColor.GRAY + "\nReason: " + ban.reason();
         }
 
         return base;
@@ -207,39 +222,58 @@ public final class BanUtils {
 
     // ==============================================================
 
+    /**
+     * Records a login: adds first-time players to the known players and keeps the stored name, the name
+     * history and the name lookups current when a player joins under a new name. Costs nothing for a known
+     * player under their known name, so it is called on every login.
+     */
     public static void markJoined(UUID uuid, String name) {
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement("""
-             INSERT INTO has_joined (uuid, name)
-             VALUES (?, ?)
-             ON CONFLICT(uuid) DO UPDATE SET name = excluded.name
-         """)) {
-            ps.setString(1, uuid.toString());
-            ps.setString(2, name);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+        String old = knownNames.getName(uuid);
+        // Lock-free fast path for the usual login
+        if (name.equals(old) && knownPlayers.contains(uuid)) return;
+        boolean added = knownPlayers.add(uuid);
+        if (!added && name.equals(old)) return;
+
+        synchronized (nameLock) {
+            if (namedDuringLoad != null) namedDuringLoad.add(uuid);
+            knownNames.put(uuid, name);
         }
+        if (!name.equals(old)) {
+            PunishmentUtils.rename(uuid, name);
+            NameResolver.invalidate(old, name);
+        }
+        long now = System.currentTimeMillis();
+        WriteBehindQueue.submit("has_joined:" + uuid, writer -> {
+            writer.markJoined(uuid, name);
+            writer.recordName(uuid, name, now);
+        });
     }
 
+    /**
+     * Answered from memory only, safe to call per login and per tab-complete keystroke.
+     */
     public static boolean hasJoinedBefore(UUID uuid) {
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM has_joined WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            ResultSet rs = ps.executeQuery();
-            return rs.next();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return knownPlayers.contains(uuid);
+    }
+
+    /**
+     * UUID of the player currently carrying {@code name} (ignoring case), or null. Never queries the database;
+     * commands use {@link NameResolver}, which also finds earlier names.
+     */
+    public static UUID getKnownUuid(String name) {
+        return knownNames.getUuid(name);
+    }
+
+    /** Last known name from memory, or null. Never queries the database. */
+    static String knownName(UUID uuid) {
+        return knownNames.getName(uuid);
     }
 
     public static Optional<String> getName(UUID uuid) {
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement("SELECT name FROM has_joined WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) return Optional.of(rs.getString("name"));
+        String name = knownNames.getName(uuid);
+        if (name != null) return Optional.of(name);
+        try {
+            return Database.getStore().getName(uuid);
         } catch (SQLException e) {
             e.printStackTrace();
         }
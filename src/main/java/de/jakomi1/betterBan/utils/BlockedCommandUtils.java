@@ -0,0 +1,109 @@
+package de.jakomi1.betterBan.utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandMap;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Commands that chat-banned players can't use (private messages, /me, ...).
+ * <p>
+ * The configured names are expanded with every label the server's command map knows for the same
+ * command: aliases (/r, /m), namespaced labels (/essentials:msg) and other plugins' overrides. The result
+ * is one immutable hash set of lowercase labels, so a check is a single lookup of the first token.
+ */
+public final class BlockedCommandUtils {
+
+    // Lowercase labels without slash; replaced as a whole on compile()
+    private static volatile Set<String> blocked = Set.of();
+
+    private BlockedCommandUtils() {}
+
+    // ==============================================================
+
+    /**
+     * Builds the label set from the config and the command map. Call after all plugins are enabled,
+     * otherwise their aliases are missing.
+     */
+    public static void compile() {
+        Set<String> labels = new HashSet<>();
+        for (String name : ConfigUtils.getBlockedCommands()) {
+            String label = normalize(name);
+            if (!label.isEmpty()) labels.add(label);
+        }
+        int configured = labels.size();
+
+        Map<String, Command> known = getKnownCommands();
+        if (known != null) {
+            // Every command one of the configured labels resolves to ...
+            Map<Command, Boolean> commands = new IdentityHashMap<>();
+            for (String label : labels) {
+                Command command = known.get(label);
+                if (command != null) commands.put(command, Boolean.TRUE);
+            }
+            // ... and every label that leads to one of them
+            known.forEach((label, command) -> {
+                if (command != null && commands.containsKey(command)) labels.add(label.toLowerCase(Locale.ROOT));
+            });
+        }
+
+        blocked = Set.copyOf(labels);
+        plugin.getLogger().info("Blocking " + labels.size() + " command labels for chat-banned players ("
+                + configured + " configured)");
+    }
+
+    /**
+     * True if the command line (as in PlayerCommandPreprocessEvent, with leading slash) starts with
+     * a blocked label. Only the first token is copied.
+     */
+    public static boolean isBlocked(String message) {
+        int start = message.startsWith("/") ? 1 : 0;
+        int end = message.indexOf(' ', start);
+        if (end < 0) end = message.length();
+        if (end == start) return false;
+        return blocked.contains(message.substring(start, end).toLowerCase(Locale.ROOT));
+    }
+
+    // ==============================================================
+
+    private static String normalize(String name) {
+        String label = name.trim().toLowerCase(Locale.ROOT);
+        return label.startsWith("/") ? label.substring(1) : label;
+    }
+
+    /**
+     * The label -> command map of the server's SimpleCommandMap. Bukkit 1.8 has no API for it,
+     * so it is read via reflection; null if that fails (only the configured labels are used then).
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Command> getKnownCommands() {
+        try {
+            Method getCommandMap = Bukkit.getServer().getClass().getMethod("getCommandMap");
+            CommandMap commandMap = (CommandMap) getCommandMap.invoke(Bukkit.getServer());
+
+            Class<?> type = commandMap.getClass();
+            while (type != null) {
+                try {
+                    Field field = type.getDeclaredField("knownCommands");
+                    field.setAccessible(true);
+                    return (Map<String, Command>) field.get(commandMap);
+                } catch (NoSuchFieldException e) {
+                    type = type.getSuperclass();
+                }
+            }
+            plugin.getLogger().warning("Couldn't find the known commands of " + commandMap.getClass().getName());
+        } catch (ReflectiveOperationException | ClassCastException | SecurityException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+}
@@ -1,70 +1,29 @@
 package de.jakomi1.betterBan.utils;
 
-import de.jakomi1.betterBan.database.Database;
+import de.jakomi1.betterBan.cache.Punishment;
+import de.jakomi1.betterBan.database.PunishmentType;
 import org.bukkit.ChatColor;
 
-import java.sql.*;
-import java.util.*;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
 
 import static de.jakomi1.betterBan.BetterBan.chatPrefix;
 
 public final class ChatBanUtils {
-    // Cache for chat-bans: UUID -> ChatBanData
-    private static final Map<UUID, ChatBanData> chatBanCache = new HashMap<>();
 
     private ChatBanUtils() {}
 
-    private static class ChatBanData {
-        final long endTimestamp;
-        final String reason;
-
-        ChatBanData(long endTimestamp, String reason) {
-            this.endTimestamp = endTimestamp;
-            this.reason = reason;
-        }
-    }
-
     // ==============================================================
 
     /**
-     * Initialize tables and load cache.
+     * Loads (or reconciles) the punishment cache from the database. Safe to call while the cache is in use.
+     *
+     * @return false if the database couldn't be read
      */
-    public static void init() {
-        try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement()) {
-
-            stmt.executeUpdate("""
-                CREATE TABLE IF NOT EXISTS chat_bans (
-                    uuid TEXT PRIMARY KEY,
-                    end_timestamp INTEGER NOT NULL,
-                    reason TEXT
-                );
-            """);
-
-            // Load cache initially
-            loadCache();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private static void loadCache() {
-        chatBanCache.clear();
-        try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT uuid, end_timestamp, reason FROM chat_bans")) {
-
-            while (rs.next()) {
-                UUID uuid = UUID.fromString(rs.getString("uuid"));
-                long end = rs.getLong("end_timestamp");
-                String reason = rs.getString("reason");
-                chatBanCache.put(uuid, new ChatBanData(end, reason));
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    public static boolean init() {
+        return PunishmentUtils.init();
     }
 
     // ==============================================================
@@ -73,98 +32,80 @@ public final class ChatBanUtils {
      * Create or update a chat-ban.
      */
     public static void chatBan(UUID uuid, long endTimestamp, String reason) {
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement("""
-                 INSERT INTO chat_bans (uuid, end_timestamp, reason)
-                 VALUES (?, ?, ?)
-                 ON CONFLICT(uuid) DO UPDATE SET
-                     end_timestamp = excluded.end_timestamp,
-                     reason = excluded.reason;
-             """)) {
-
-            ps.setString(1, uuid.toString());
-            ps.setLong(2, endTimestamp);
-            ps.setString(3, reason);
-            ps.executeUpdate();
-
-            // Update cache
-            chatBanCache.put(uuid, new ChatBanData(endTimestamp, reason));
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        chatBan(uuid, endTimestamp, reason, Moderator.SYSTEM);
+    }
+
+    public static void chatBan(UUID uuid, long endTimestamp, String reason, Moderator by) {
+        PunishmentUtils.punish(uuid, PunishmentType.CHAT_BAN, endTimestamp, reason, by);
     }
 
     public static void chatPermanentBan(UUID uuid, String reason) {
-        chatBan(uuid, -1, reason);
+        chatPermanentBan(uuid, reason, Moderator.SYSTEM);
+    }
+
+    public static void chatPermanentBan(UUID uuid, String reason, Moderator by) {
+        chatBan(uuid, Punishment.PERMANENT, reason, by);
     }
 
     public static void chatTempBan(UUID uuid, long durationMillis, String reason) {
-        chatBan(uuid, System.currentTimeMillis() + durationMillis, reason);
+        chatTempBan(uuid, durationMillis, reason, Moderator.SYSTEM);
     }
 
-    public static void chatUnban(UUID uuid) {
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement("DELETE FROM chat_bans WHERE uuid = ?")) {
+    public static void chatTempBan(UUID uuid, long durationMillis, String reason, Moderator by) {
+        chatBan(uuid, System.currentTimeMillis() + durationMillis, reason, by);
+    }
 
-            ps.setString(1, uuid.toString());
-            ps.executeUpdate();
+    public static void chatUnban(UUID uuid) {
+        chatUnban(uuid, Moderator.SYSTEM);
+    }
 
-            // Remove from cache
-            chatBanCache.remove(uuid);
+    public static void chatUnban(UUID uuid, Moderator by) {
+        PunishmentUtils.revoke(uuid, PunishmentType.CHAT_BAN, by);
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Single cache probe for chat checks: the active chat-ban, or null if the player may chat.
+     */
+    public static Punishment getActiveChatBan(UUID uuid) {
+        return PunishmentUtils.getActive(uuid, PunishmentType.CHAT_BAN);
     }
 
     public static boolean isChatBanned(UUID uuid) {
-        ChatBanData data = chatBanCache.get(uuid);
-        if (data != null) return data.endTimestamp == -1 || System.currentTimeMillis() < data.endTimestamp;
-        return false;
+        return PunishmentUtils.isPunished(uuid, PunishmentType.CHAT_BAN);
     }
 
     public static String getChatReason(UUID uuid) {
-        ChatBanData data = chatBanCache.get(uuid);
-        return data != null ? data.reason : null;
+        Punishment punishment = PunishmentUtils.get(uuid, PunishmentType.CHAT_BAN);
+        return punishment != null ? punishment.reason() : null;
     }
 
     public static Long getChatEnd(UUID uuid) {
-        ChatBanData data = chatBanCache.get(uuid);
-        return data != null ? data.endTimestamp : null;
+        Punishment punishment = PunishmentUtils.get(uuid, PunishmentType.CHAT_BAN);
+        return punishment != null ? punishment.endTimestamp() : null;
     }
 
     public static boolean isChatPermanent(UUID uuid) {
-        ChatBanData data = chatBanCache.get(uuid);
-        return data != null && data.endTimestamp == -1;
+        Punishment punishment = PunishmentUtils.get(uuid, PunishmentType.CHAT_BAN);
+        return punishment != null && punishment.isPermanent();
     }
 
     public static Map<UUID, Map<String,Object>> getAllChatBans() {
-        Map<UUID, Map<String,Object>> bans = new LinkedHashMap<>();
-        for (Map.Entry<UUID, ChatBanData> entry : chatBanCache.entrySet()) {
-            Map<String, Object> data = new HashMap<>();
-            data.put("end_timestamp", entry.getValue().endTimestamp);
-            data.put("reason", entry.getValue().reason);
-            bans.put(entry.getKey(), data);
-        }
-        return bans;
+        return BanUtils.toLegacyMap(PunishmentUtils.getAllActive(PunishmentType.CHAT_BAN));
     }
 
+    /** Expires every punishment that is due, chat-bans and all other types alike. */
     public static void clearExpiredChatBans() {
-        long now = System.currentTimeMillis();
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement(
-                     "DELETE FROM chat_bans WHERE end_timestamp != -1 AND end_timestamp < ?")) {
-
-            ps.setLong(1, now);
-            ps.executeUpdate();
+        PunishmentUtils.clearExpired();
+    }
 
-            // Clean cache
-            chatBanCache.entrySet().removeIf(e -> e.getValue().endTimestamp != -1 && e.getValue().endTimestamp < now);
+    /** Registers a callback that runs whenever a temporary chat-ban expires. */
+    public static void onChatBanExpire(BiConsumer<UUID, Punishment> listener) {
+        PunishmentUtils.onExpire(PunishmentType.CHAT_BAN, listener);
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /** Names of currently chat-banned players, for tab completion. */
+    public static List<String> completeChatBannedNames(String prefix) {
+        return PunishmentUtils.completePunishedNames(PunishmentType.CHAT_BAN, prefix);
     }
 
     // ==============================================================
@@ -173,18 +114,18 @@ public final class ChatBanUtils {
      * Message shown to a player who is chat-banned.
      */
     public static String getChatBanMessage(UUID uuid) {
-        Long end = getChatEnd(uuid);
-        String reason = getChatReason(uuid);
-
-        if (end == null) return chatPrefix + ChatColor.GREEN + "You are not chat-banned.";
+        Punishment chatBan = PunishmentUtils.get(uuid, PunishmentType.CHAT_BAN);
+        if (chatBan == null) return chatPrefix + ChatColor.GREEN + "You are not chat-banned.";
+        return getChatBanMessage(chatBan);
+    }
 
-        boolean permanent = end == -1;
-        String base = permanent
+    public static String getChatBanMessage(Punishment chatBan) {
+        String base = chatBan.isPermanent()
                 ? chatPrefix + ChatColor.RED + "You are permanently chat-banned!"
-                : chatPrefix + ChatColor.RED + "You are chat-banned for " + BanUtils.formatDuration(end - System.currentTimeMillis()) + "!";
+                : chatPrefix + ChatColor.RED + "You are chat-banned for " + BanUtils.formatDuration(chatBan.endTimestamp() - System.currentTimeMillis()) + "!";
 
-        if (reason != null && !reason.isBlank()) {
-            base += ChatColor.GRAY + "\n>> Reason: " + reason;
+        if (chatBan.hasReason()) {
+            base += ChatColor.GRAY + "\n>> Reason: " + chatBan.reason();
         }
 
         return base;
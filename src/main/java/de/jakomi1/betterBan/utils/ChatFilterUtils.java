@@ -0,0 +1,169 @@
+package de.jakomi1.betterBan.utils;
+
+import de.jakomi1.betterBan.cache.Punishment;
+import de.jakomi1.betterBan.cache.WordFilter;
+import de.jakomi1.betterBan.scheduler.Scheduler;
+import org.bukkit.ChatColor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Word filter for chat messages, see {@link WordFilter}.
+ * <p>
+ * The automaton and the strike rules are rebuilt off the main thread and swapped in as one immutable
+ * {@link Rules} object, so the async chat threads always see a complete, consistent filter.
+ * Strikes are counted in memory; enough of them escalate to a temporary chat-ban.
+ */
+public final class ChatFilterUtils {
+
+    /**
+     * @param strikeBans chat-ban duration per strike in millis, 0 = warning only, {@link Punishment#PERMANENT}
+     * @param resetMillis time without a strike after which the count starts over
+     */
+    private record Rules(WordFilter filter, long[] strikeBans, long resetMillis) {}
+
+    private record Strikes(int count, long last) {}
+
+    private static volatile Rules rules = new Rules(WordFilter.EMPTY, new long[0], 0L);
+    private static final ConcurrentHashMap<UUID, Strikes> strikes = new ConcurrentHashMap<>();
+    // Beyond this many players with strikes, entries past their reset time are dropped
+    private static final int STRIKES_PRUNE_THRESHOLD = 10_000;
+
+    private ChatFilterUtils() {}
+
+    // ==============================================================
+
+    /**
+     * Reads the word list from the config and compiles it on an async thread. The running filter stays
+     * in use until the new one is complete.
+     *
+     * @return number of words in the new filter
+     */
+    public static CompletableFuture<Integer> reload() {
+        // Config values are read here, the expensive part runs async
+        boolean enabled = ConfigUtils.isChatFilterEnabled();
+        String defaultAction = ConfigUtils.getChatFilterDefaultAction();
+        List<String> words = List.copyOf(ConfigUtils.getChatFilterWords());
+        List<String> strikeBans = List.copyOf(ConfigUtils.getChatFilterStrikeBans());
+        long resetMillis = Math.max(1, ConfigUtils.getChatFilterStrikeResetMinutes()) * 60_000L;
+
+        return Scheduler.supplyAsync(() -> {
+            Rules compiled = new Rules(
+                    enabled ? WordFilter.compile(parseWords(words, defaultAction)) : WordFilter.EMPTY,
+                    parseStrikeBans(strikeBans), resetMillis);
+            rules = compiled;
+            return compiled.filter().size();
+        });
+    }
+
+    private static Map<String, WordFilter.Action> parseWords(List<String> words, String defaultAction) {
+        WordFilter.Action fallback = parseAction(defaultAction);
+        if (fallback == null) {
+            plugin.getLogger().warning("Unknown chat filter action '" + defaultAction + "', using censor");
+            fallback = WordFilter.Action.CENSOR;
+        }
+
+        Map<String, WordFilter.Action> entries = new HashMap<>();
+        for (String entry : words) {
+            WordFilter.Action action = fallback;
+            String word = entry;
+            int colon = entry.indexOf(':');
+            if (colon > 0) {
+                WordFilter.Action prefixed = parseAction(entry.substring(0, colon));
+                if (prefixed != null) {
+                    action = prefixed;
+                    word = entry.substring(colon + 1);
+                }
+            }
+            entries.merge(word, action, (a, b) -> a.compareTo(b) >= 0 ? a : b);
+        }
+        return entries;
+    }
+
+    private static WordFilter.Action parseAction(String name) {
+        try {
+            return WordFilter.Action.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long[] parseStrikeBans(List<String> values) {
+        long[] durations = new long[values.size()];
+        for (int i = 0; i < durations.length; i++) {
+            String value = values.get(i).trim().toLowerCase(Locale.ROOT);
+            try {
+                durations[i] = value.equals("permanent") ? Punishment.PERMANENT
+                        : value.equals("0") ? 0L : parseDuration(value);
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid chat filter strike duration '" + value + "', using a warning");
+                durations[i] = 0L;
+            }
+        }
+        return durations;
+    }
+
+    /** "10m", "2h" or "1d" in millis; also used for the spam chat-ban. */
+    static long parseDuration(String input) throws IllegalArgumentException {
+        // allowed: <number><m|h|d>
+        if (input.endsWith("m")) {
+            return Long.parseLong(input.substring(0, input.length() - 1)) * 60_000L;
+        } else if (input.endsWith("h")) {
+            return Long.parseLong(input.substring(0, input.length() - 1)) * 60 * 60_000L;
+        } else if (input.endsWith("d")) {
+            return Long.parseLong(input.substring(0, input.length() - 1)) * 24 * 60 * 60_000L;
+        } else {
+            throw new IllegalArgumentException("Invalid time format");
+        }
+    }
+
+    // ==============================================================
+
+    /** The current filter; never null, empty while disabled. */
+    public static WordFilter getFilter() {
+        return rules.filter();
+    }
+
+    /**
+     * Records a strike and escalates to a chat-ban if the strike rules say so. Safe to call from the
+     * async chat thread.
+     *
+     * @return the message for the player
+     */
+    public static String strike(UUID uuid) {
+        Rules current = rules;
+        long now = System.currentTimeMillis();
+        Strikes updated = strikes.compute(uuid, (key, old) ->
+                old == null || now - old.last() > current.resetMillis()
+                        ? new Strikes(1, now)
+                        : new Strikes(old.count() + 1, now));
+        if (strikes.size() > STRIKES_PRUNE_THRESHOLD) {
+            strikes.values().removeIf(s -> now - s.last() > current.resetMillis());
+        }
+
+        int count = updated.count();
+        long[] bans = current.strikeBans();
+        long duration = bans.length == 0 ? 0L : bans[Math.min(count, bans.length) - 1];
+        if (duration == 0L) {
+            return chatPrefix + ChatColor.RED + "Your message contains a blocked word and was not sent."
+                    + ChatColor.GRAY + " (Strike " + count + ")";
+        }
+
+        String reason = "Chat filter (strike " + count + ")";
+        if (duration == Punishment.PERMANENT) {
+            ChatBanUtils.chatPermanentBan(uuid, reason, Moderator.SYSTEM);
+        } else {
+            ChatBanUtils.chatTempBan(uuid, duration, reason, Moderator.SYSTEM);
+        }
+        return ChatBanUtils.getChatBanMessage(uuid);
+    }
+}
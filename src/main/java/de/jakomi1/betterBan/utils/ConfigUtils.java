@@ -8,6 +8,7 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -23,6 +24,81 @@ public class ConfigUtils {
     // Default-Prefix (legacy color codes mit §)
     private static final String DEFAULT_PREFIX = "§7[§4BB§7]";
 
+    // Storage-Backend: sqlite, memory, mysql, mariadb, postgresql, h2
+    private static final String DEFAULT_STORAGE_TYPE = "sqlite";
+
+    // Defaults für den SQLite Connection-Pool
+    private static final int DEFAULT_READER_CONNECTIONS = 4;
+    private static final int DEFAULT_MMAP_SIZE_MB = 64;
+    private static final int DEFAULT_CACHE_SIZE_MB = 16;
+    private static final int DEFAULT_WRITE_QUEUE_CAPACITY = 10_000;
+    private static final int DEFAULT_COMMIT_INTERVAL_MS = 5;
+    private static final int DEFAULT_MIGRATION_CHUNK_SIZE = 5_000;
+
+    // Punishment cache: map oder packed
+    private static final String DEFAULT_CACHE_IMPLEMENTATION = "map";
+
+    // Ablauf von Temp-Bans: Intervall in Ticks, max. Einträge pro Batch
+    private static final int DEFAULT_EXPIRY_INTERVAL_TICKS = 20;
+    private static final int DEFAULT_EXPIRY_BATCH_SIZE = 500;
+
+    // Startup: wie lange ein Login auf die geladenen Caches wartet, Cache-Snapshot an/aus
+    private static final boolean DEFAULT_CACHE_SNAPSHOT = true;
+    private static final int DEFAULT_LOGIN_WAIT_MS = 10000;
+
+    // Historie: nach wie vielen Tagen Einträge ins Archiv wandern, Intervall und Chunk-Größe
+    private static final int DEFAULT_HISTORY_RETENTION_DAYS = 90;
+    private static final int DEFAULT_HISTORY_ARCHIVE_INTERVAL_MINUTES = 60;
+    private static final int DEFAULT_HISTORY_ARCHIVE_CHUNK_SIZE = 1000;
+
+    // Flood-Schutz: Token-Buckets pro IP und Subnetz (/24 bzw. /48), Lockdown ab X Logins pro Sekunde
+    private static final boolean DEFAULT_FLOOD_PROTECTION = true;
+    private static final int DEFAULT_FLOOD_ADDRESS_BURST = 5;
+    private static final int DEFAULT_FLOOD_ADDRESS_PER_MINUTE = 12;
+    private static final int DEFAULT_FLOOD_SUBNET_BURST = 20;
+    private static final int DEFAULT_FLOOD_SUBNET_PER_MINUTE = 60;
+    private static final int DEFAULT_FLOOD_MAX_TRACKED = 100_000;
+    private static final int DEFAULT_LOCKDOWN_JOINS_PER_SECOND = 30;
+    private static final int DEFAULT_LOCKDOWN_DURATION_SECONDS = 120;
+
+    // Zweitaccount-Erkennung: Obergrenzen im Index und Trefferlimit pro Abfrage
+    private static final int DEFAULT_ALTS_MAX_IPS_PER_ACCOUNT = 32;
+    private static final int DEFAULT_ALTS_MAX_ACCOUNTS_PER_IP = 16;
+    private static final int DEFAULT_ALTS_MAX_RESULTS = 100;
+
+    // IP-Banns: kürzeste Präfixlänge ohne -confirm, damit /banip 0.0.0.0/0 nicht versehentlich alle sperrt
+    private static final int DEFAULT_IP_BAN_MIN_PREFIX_IPV4 = 16;
+    private static final int DEFAULT_IP_BAN_MIN_PREFIX_IPV6 = 32;
+
+    // Chat-Bann: blockierte Befehle, Aliase aus der Command-Map werden beim Start ergänzt
+    private static final List<String> DEFAULT_BLOCKED_COMMANDS = List.of(
+            "msg", "tell", "w", "whisper", "teammsg", "tm", "r", "reply", "m", "t", "pm", "me", "mail");
+
+    // Wortfilter: Aktion (censor, block, strike), Wortliste, Chat-Bann-Dauer pro Strike
+    private static final boolean DEFAULT_CHAT_FILTER = true;
+    private static final String DEFAULT_CHAT_FILTER_ACTION = "censor";
+    private static final List<String> DEFAULT_CHAT_FILTER_WORDS = List.of();
+    private static final List<String> DEFAULT_CHAT_FILTER_STRIKE_BANS = List.of("0", "0", "10m", "1h", "1d");
+    private static final int DEFAULT_CHAT_FILTER_STRIKE_RESET_MINUTES = 1440;
+
+    // Spam-Erkennung: max. Nachrichten pro Zeitfenster, max. gleiche Nachrichten, Chat-Bann-Dauer
+    private static final boolean DEFAULT_SPAM_PROTECTION = true;
+    private static final int DEFAULT_SPAM_RATE_MESSAGES = 5;
+    private static final int DEFAULT_SPAM_RATE_SECONDS = 3;
+    private static final int DEFAULT_SPAM_DUPLICATE_MESSAGES = 3;
+    private static final int DEFAULT_SPAM_DUPLICATE_SECONDS = 60;
+    private static final String DEFAULT_SPAM_CHAT_BAN_DURATION = "10m";
+
+    // Ban-Listen: Einträge pro Seite
+    private static final int DEFAULT_BAN_LIST_PAGE_SIZE = 10;
+
+    // Namensauflösung: Größe des LRU-Caches
+    private static final int DEFAULT_NAME_RESOLVER_CACHE_SIZE = 1024;
+
+    // Benachrichtigungen: Team-Broadcast im Spiel, Audit-Log als JSON-Lines
+    private static final boolean DEFAULT_STAFF_BROADCAST = true;
+    private static final boolean DEFAULT_AUDIT_LOG = true;
+
     // Regex zum Entfernen von Legacy-Farbcodes (&x oder §x), case-insensitive
     // entfernt einfache Codes wie §a oder &c. Für komplexere Hex-Formate müsste erweitert werden.
     private static final Pattern LEGACY_COLOR_PATTERN = Pattern.compile("(?i)(?:§|&)[0-9A-FK-OR]");
@@ -44,6 +120,81 @@ public class ConfigUtils {
                 // Prefix default
                 config.set("prefix", DEFAULT_PREFIX);
 
+                // Storage backend defaults
+                config.set("storage.type", DEFAULT_STORAGE_TYPE);
+                config.set("storage.jdbc-url", "");
+                config.set("storage.username", "");
+                config.set("storage.password", "");
+
+                // Database pool defaults
+                config.set("database.reader-connections", DEFAULT_READER_CONNECTIONS);
+                config.set("database.mmap-size-mb", DEFAULT_MMAP_SIZE_MB);
+                config.set("database.cache-size-mb", DEFAULT_CACHE_SIZE_MB);
+                config.set("database.write-queue-capacity", DEFAULT_WRITE_QUEUE_CAPACITY);
+                config.set("database.commit-interval-ms", DEFAULT_COMMIT_INTERVAL_MS);
+                config.set("database.migration-chunk-size", DEFAULT_MIGRATION_CHUNK_SIZE);
+
+                // Cache implementation: map (default) or packed (primitive arrays, large ban lists)
+                config.set("cache.implementation", DEFAULT_CACHE_IMPLEMENTATION);
+
+                // Expiry of temporary bans / chat-bans
+                config.set("expiry.interval-ticks", DEFAULT_EXPIRY_INTERVAL_TICKS);
+                config.set("expiry.batch-size", DEFAULT_EXPIRY_BATCH_SIZE);
+
+                // Startup: cache snapshot and how long logins wait for the caches
+                config.set("startup.cache-snapshot", DEFAULT_CACHE_SNAPSHOT);
+                config.set("startup.login-wait-ms", DEFAULT_LOGIN_WAIT_MS);
+
+                // Punishment history archiving
+                config.set("history.retention-days", DEFAULT_HISTORY_RETENTION_DAYS);
+                config.set("history.archive-interval-minutes", DEFAULT_HISTORY_ARCHIVE_INTERVAL_MINUTES);
+                config.set("history.archive-chunk-size", DEFAULT_HISTORY_ARCHIVE_CHUNK_SIZE);
+
+                // Flood protection defaults
+                config.set("flood-protection.enabled", DEFAULT_FLOOD_PROTECTION);
+                config.set("flood-protection.per-address.burst", DEFAULT_FLOOD_ADDRESS_BURST);
+                config.set("flood-protection.per-address.per-minute", DEFAULT_FLOOD_ADDRESS_PER_MINUTE);
+                config.set("flood-protection.per-subnet.burst", DEFAULT_FLOOD_SUBNET_BURST);
+                config.set("flood-protection.per-subnet.per-minute", DEFAULT_FLOOD_SUBNET_PER_MINUTE);
+                config.set("flood-protection.max-tracked", DEFAULT_FLOOD_MAX_TRACKED);
+                config.set("flood-protection.lockdown.joins-per-second", DEFAULT_LOCKDOWN_JOINS_PER_SECOND);
+                config.set("flood-protection.lockdown.duration-seconds", DEFAULT_LOCKDOWN_DURATION_SECONDS);
+
+                // Alt detection defaults
+                config.set("alts.max-ips-per-account", DEFAULT_ALTS_MAX_IPS_PER_ACCOUNT);
+                config.set("alts.max-accounts-per-ip", DEFAULT_ALTS_MAX_ACCOUNTS_PER_IP);
+                config.set("alts.max-results", DEFAULT_ALTS_MAX_RESULTS);
+                config.set("ip-bans.min-prefix-ipv4", DEFAULT_IP_BAN_MIN_PREFIX_IPV4);
+                config.set("ip-bans.min-prefix-ipv6", DEFAULT_IP_BAN_MIN_PREFIX_IPV6);
+
+                // Chat-ban defaults
+                config.set("chat-ban.blocked-commands", DEFAULT_BLOCKED_COMMANDS);
+
+                // Chat filter defaults
+                config.set("chat-filter.enabled", DEFAULT_CHAT_FILTER);
+                config.set("chat-filter.default-action", DEFAULT_CHAT_FILTER_ACTION);
+                config.set("chat-filter.words", DEFAULT_CHAT_FILTER_WORDS);
+                config.set("chat-filter.strike-bans", DEFAULT_CHAT_FILTER_STRIKE_BANS);
+                config.set("chat-filter.strike-reset-minutes", DEFAULT_CHAT_FILTER_STRIKE_RESET_MINUTES);
+
+                // Spam protection defaults
+                config.set("spam.enabled", DEFAULT_SPAM_PROTECTION);
+                config.set("spam.rate-messages", DEFAULT_SPAM_RATE_MESSAGES);
+                config.set("spam.rate-seconds", DEFAULT_SPAM_RATE_SECONDS);
+                config.set("spam.duplicate-messages", DEFAULT_SPAM_DUPLICATE_MESSAGES);
+                config.set("spam.duplicate-seconds", DEFAULT_SPAM_DUPLICATE_SECONDS);
+                config.set("spam.chat-ban-duration", DEFAULT_SPAM_CHAT_BAN_DURATION);
+
+                // Ban list defaults
+                config.set("ban-list.page-size", DEFAULT_BAN_LIST_PAGE_SIZE);
+
+                // Name resolver defaults
+                config.set("name-resolver.cache-size", DEFAULT_NAME_RESOLVER_CACHE_SIZE);
+
+                // Notification defaults
+                config.set("notifications.staff-broadcast", DEFAULT_STAFF_BROADCAST);
+                config.set("notifications.audit-log", DEFAULT_AUDIT_LOG);
+
                 config.save(configFile);
 
                 Bukkit.getLogger().info("Created new config.yml with default keys");
@@ -57,6 +208,53 @@ public class ConfigUtils {
             if (!config.contains("webhook-url")) config.set("webhook-url", "");
             if (!config.contains("enable-webhook")) config.set("enable-webhook", false);
             if (!config.contains("prefix")) config.set("prefix", DEFAULT_PREFIX);
+            if (!config.contains("storage.type")) config.set("storage.type", DEFAULT_STORAGE_TYPE);
+            if (!config.contains("storage.jdbc-url")) config.set("storage.jdbc-url", "");
+            if (!config.contains("storage.username")) config.set("storage.username", "");
+            if (!config.contains("storage.password")) config.set("storage.password", "");
+            if (!config.contains("database.reader-connections")) config.set("database.reader-connections", DEFAULT_READER_CONNECTIONS);
+            if (!config.contains("database.mmap-size-mb")) config.set("database.mmap-size-mb", DEFAULT_MMAP_SIZE_MB);
+            if (!config.contains("database.cache-size-mb")) config.set("database.cache-size-mb", DEFAULT_CACHE_SIZE_MB);
+            if (!config.contains("database.write-queue-capacity")) config.set("database.write-queue-capacity", DEFAULT_WRITE_QUEUE_CAPACITY);
+            if (!config.contains("database.commit-interval-ms")) config.set("database.commit-interval-ms", DEFAULT_COMMIT_INTERVAL_MS);
+            if (!config.contains("database.migration-chunk-size")) config.set("database.migration-chunk-size", DEFAULT_MIGRATION_CHUNK_SIZE);
+            if (!config.contains("cache.implementation")) config.set("cache.implementation", DEFAULT_CACHE_IMPLEMENTATION);
+            if (!config.contains("expiry.interval-ticks")) config.set("expiry.interval-ticks", DEFAULT_EXPIRY_INTERVAL_TICKS);
+            if (!config.contains("expiry.batch-size")) config.set("expiry.batch-size", DEFAULT_EXPIRY_BATCH_SIZE);
+            if (!config.contains("startup.cache-snapshot")) config.set("startup.cache-snapshot", DEFAULT_CACHE_SNAPSHOT);
+            if (!config.contains("startup.login-wait-ms")) config.set("startup.login-wait-ms", DEFAULT_LOGIN_WAIT_MS);
+            if (!config.contains("history.retention-days")) config.set("history.retention-days", DEFAULT_HISTORY_RETENTION_DAYS);
+            if (!config.contains("history.archive-interval-minutes")) config.set("history.archive-interval-minutes", DEFAULT_HISTORY_ARCHIVE_INTERVAL_MINUTES);
+            if (!config.contains("history.archive-chunk-size")) config.set("history.archive-chunk-size", DEFAULT_HISTORY_ARCHIVE_CHUNK_SIZE);
+            if (!config.contains("flood-protection.enabled")) config.set("flood-protection.enabled", DEFAULT_FLOOD_PROTECTION);
+            if (!config.contains("flood-protection.per-address.burst")) config.set("flood-protection.per-address.burst", DEFAULT_FLOOD_ADDRESS_BURST);
+            if (!config.contains("flood-protection.per-address.per-minute")) config.set("flood-protection.per-address.per-minute", DEFAULT_FLOOD_ADDRESS_PER_MINUTE);
+            if (!config.contains("flood-protection.per-subnet.burst")) config.set("flood-protection.per-subnet.burst", DEFAULT_FLOOD_SUBNET_BURST);
+            if (!config.contains("flood-protection.per-subnet.per-minute")) config.set("flood-protection.per-subnet.per-minute", DEFAULT_FLOOD_SUBNET_PER_MINUTE);
+            if (!config.contains("flood-protection.max-tracked")) config.set("flood-protection.max-tracked", DEFAULT_FLOOD_MAX_TRACKED);
+            if (!config.contains("flood-protection.lockdown.joins-per-second")) config.set("flood-protection.lockdown.joins-per-second", DEFAULT_LOCKDOWN_JOINS_PER_SECOND);
+            if (!config.contains("flood-protection.lockdown.duration-seconds")) config.set("flood-protection.lockdown.duration-seconds", DEFAULT_LOCKDOWN_DURATION_SECONDS);
+            if (!config.contains("alts.max-ips-per-account")) config.set("alts.max-ips-per-account", DEFAULT_ALTS_MAX_IPS_PER_ACCOUNT);
+            if (!config.contains("alts.max-accounts-per-ip")) config.set("alts.max-accounts-per-ip", DEFAULT_ALTS_MAX_ACCOUNTS_PER_IP);
+            if (!config.contains("alts.max-results")) config.set("alts.max-results", DEFAULT_ALTS_MAX_RESULTS);
+            if (!config.contains("ip-bans.min-prefix-ipv4")) config.set("ip-bans.min-prefix-ipv4", DEFAULT_IP_BAN_MIN_PREFIX_IPV4);
+            if (!config.contains("ip-bans.min-prefix-ipv6")) config.set("ip-bans.min-prefix-ipv6", DEFAULT_IP_BAN_MIN_PREFIX_IPV6);
+            if (!config.contains("chat-ban.blocked-commands")) config.set("chat-ban.blocked-commands", DEFAULT_BLOCKED_COMMANDS);
+            if (!config.contains("chat-filter.enabled")) config.set("chat-filter.enabled", DEFAULT_CHAT_FILTER);
+            if (!config.contains("chat-filter.default-action")) config.set("chat-filter.default-action", DEFAULT_CHAT_FILTER_ACTION);
+            if (!config.contains("chat-filter.words")) config.set("chat-filter.words", DEFAULT_CHAT_FILTER_WORDS);
+            if (!config.contains("chat-filter.strike-bans")) config.set("chat-filter.strike-bans", DEFAULT_CHAT_FILTER_STRIKE_BANS);
+            if (!config.contains("chat-filter.strike-reset-minutes")) config.set("chat-filter.strike-reset-minutes", DEFAULT_CHAT_FILTER_STRIKE_RESET_MINUTES);
+            if (!config.contains("spam.enabled")) config.set("spam.enabled", DEFAULT_SPAM_PROTECTION);
+            if (!config.contains("spam.rate-messages")) config.set("spam.rate-messages", DEFAULT_SPAM_RATE_MESSAGES);
+            if (!config.contains("spam.rate-seconds")) config.set("spam.rate-seconds", DEFAULT_SPAM_RATE_SECONDS);
+            if (!config.contains("spam.duplicate-messages")) config.set("spam.duplicate-messages", DEFAULT_SPAM_DUPLICATE_MESSAGES);
+            if (!config.contains("spam.duplicate-seconds")) config.set("spam.duplicate-seconds", DEFAULT_SPAM_DUPLICATE_SECONDS);
+            if (!config.contains("spam.chat-ban-duration")) config.set("spam.chat-ban-duration", DEFAULT_SPAM_CHAT_BAN_DURATION);
+            if (!config.contains("ban-list.page-size")) config.set("ban-list.page-size", DEFAULT_BAN_LIST_PAGE_SIZE);
+            if (!config.contains("name-resolver.cache-size")) config.set("name-resolver.cache-size", DEFAULT_NAME_RESOLVER_CACHE_SIZE);
+            if (!config.contains("notifications.staff-broadcast")) config.set("notifications.staff-broadcast", DEFAULT_STAFF_BROADCAST);
+            if (!config.contains("notifications.audit-log")) config.set("notifications.audit-log", DEFAULT_AUDIT_LOG);
 
             try {
                 config.save(configFile);
@@ -69,6 +267,53 @@ public class ConfigUtils {
         cache.put("webhook-url", config.getString("webhook-url", ""));
         cache.put("enable-webhook", config.getBoolean("enable-webhook", false));
         cache.put("prefix", config.getString("prefix", DEFAULT_PREFIX));
+        cache.put("storage.type", config.getString("storage.type", DEFAULT_STORAGE_TYPE));
+        cache.put("storage.jdbc-url", config.getString("storage.jdbc-url", ""));
+        cache.put("storage.username", config.getString("storage.username", ""));
+        cache.put("storage.password", config.getString("storage.password", ""));
+        cache.put("database.reader-connections", config.getInt("database.reader-connections", DEFAULT_READER_CONNECTIONS));
+        cache.put("database.mmap-size-mb", config.getInt("database.mmap-size-mb", DEFAULT_MMAP_SIZE_MB));
+        cache.put("database.cache-size-mb", config.getInt("database.cache-size-mb", DEFAULT_CACHE_SIZE_MB));
+        cache.put("database.write-queue-capacity", config.getInt("database.write-queue-capacity", DEFAULT_WRITE_QUEUE_CAPACITY));
+        cache.put("database.commit-interval-ms", config.getInt("database.commit-interval-ms", DEFAULT_COMMIT_INTERVAL_MS));
+        cache.put("database.migration-chunk-size", config.getInt("database.migration-chunk-size", DEFAULT_MIGRATION_CHUNK_SIZE));
+        cache.put("cache.implementation", config.getString("cache.implementation", DEFAULT_CACHE_IMPLEMENTATION));
+        cache.put("expiry.interval-ticks", config.getInt("expiry.interval-ticks", DEFAULT_EXPIRY_INTERVAL_TICKS));
+        cache.put("expiry.batch-size", config.getInt("expiry.batch-size", DEFAULT_EXPIRY_BATCH_SIZE));
+        cache.put("startup.cache-snapshot", config.getBoolean("startup.cache-snapshot", DEFAULT_CACHE_SNAPSHOT));
+        cache.put("startup.login-wait-ms", config.getInt("startup.login-wait-ms", DEFAULT_LOGIN_WAIT_MS));
+        cache.put("history.retention-days", config.getInt("history.retention-days", DEFAULT_HISTORY_RETENTION_DAYS));
+        cache.put("history.archive-interval-minutes", config.getInt("history.archive-interval-minutes", DEFAULT_HISTORY_ARCHIVE_INTERVAL_MINUTES));
+        cache.put("history.archive-chunk-size", config.getInt("history.archive-chunk-size", DEFAULT_HISTORY_ARCHIVE_CHUNK_SIZE));
+        cache.put("flood-protection.enabled", config.getBoolean("flood-protection.enabled", DEFAULT_FLOOD_PROTECTION));
+        cache.put("flood-protection.per-address.burst", config.getInt("flood-protection.per-address.burst", DEFAULT_FLOOD_ADDRESS_BURST));
+        cache.put("flood-protection.per-address.per-minute", config.getInt("flood-protection.per-address.per-minute", DEFAULT_FLOOD_ADDRESS_PER_MINUTE));
+        cache.put("flood-protection.per-subnet.burst", config.getInt("flood-protection.per-subnet.burst", DEFAULT_FLOOD_SUBNET_BURST));
+        cache.put("flood-protection.per-subnet.per-minute", config.getInt("flood-protection.per-subnet.per-minute", DEFAULT_FLOOD_SUBNET_PER_MINUTE));
+        cache.put("flood-protection.max-tracked", config.getInt("flood-protection.max-tracked", DEFAULT_FLOOD_MAX_TRACKED));
+        cache.put("flood-protection.lockdown.joins-per-second", config.getInt("flood-protection.lockdown.joins-per-second", DEFAULT_LOCKDOWN_JOINS_PER_SECOND));
+        cache.put("flood-protection.lockdown.duration-seconds", config.getInt("flood-protection.lockdown.duration-seconds", DEFAULT_LOCKDOWN_DURATION_SECONDS));
+        cache.put("alts.max-ips-per-account", config.getInt("alts.max-ips-per-account", DEFAULT_ALTS_MAX_IPS_PER_ACCOUNT));
+        cache.put("alts.max-accounts-per-ip", config.getInt("alts.max-accounts-per-ip", DEFAULT_ALTS_MAX_ACCOUNTS_PER_IP));
+        cache.put("alts.max-results", config.getInt("alts.max-results", DEFAULT_ALTS_MAX_RESULTS));
+        cache.put("ip-bans.min-prefix-ipv4", config.getInt("ip-bans.min-prefix-ipv4", DEFAULT_IP_BAN_MIN_PREFIX_IPV4));
+        cache.put("ip-bans.min-prefix-ipv6", config.getInt("ip-bans.min-prefix-ipv6", DEFAULT_IP_BAN_MIN_PREFIX_IPV6));
+        cache.put("chat-ban.blocked-commands", config.getStringList("chat-ban.blocked-commands"));
+        cache.put("chat-filter.enabled", config.getBoolean("chat-filter.enabled", DEFAULT_CHAT_FILTER));
+        cache.put("chat-filter.default-action", config.getString("chat-filter.default-action", DEFAULT_CHAT_FILTER_ACTION));
+        cache.put("chat-filter.words", config.getStringList("chat-filter.words"));
+        cache.put("chat-filter.strike-bans", config.getStringList("chat-filter.strike-bans"));
+        cache.put("chat-filter.strike-reset-minutes", config.getInt("chat-filter.strike-reset-minutes", DEFAULT_CHAT_FILTER_STRIKE_RESET_MINUTES));
+        cache.put("spam.enabled", config.getBoolean("spam.enabled", DEFAULT_SPAM_PROTECTION));
+        cache.put("spam.rate-messages", config.getInt("spam.rate-messages", DEFAULT_SPAM_RATE_MESSAGES));
+        cache.put("spam.rate-seconds", config.getInt("spam.rate-seconds", DEFAULT_SPAM_RATE_SECONDS));
+        cache.put("spam.duplicate-messages", config.getInt("spam.duplicate-messages", DEFAULT_SPAM_DUPLICATE_MESSAGES));
+        cache.put("spam.duplicate-seconds", config.getInt("spam.duplicate-seconds", DEFAULT_SPAM_DUPLICATE_SECONDS));
+        cache.put("spam.chat-ban-duration", config.getString("spam.chat-ban-duration", DEFAULT_SPAM_CHAT_BAN_DURATION));
+        cache.put("ban-list.page-size", config.getInt("ban-list.page-size", DEFAULT_BAN_LIST_PAGE_SIZE));
+        cache.put("name-resolver.cache-size", config.getInt("name-resolver.cache-size", DEFAULT_NAME_RESOLVER_CACHE_SIZE));
+        cache.put("notifications.staff-broadcast", config.getBoolean("notifications.staff-broadcast", DEFAULT_STAFF_BROADCAST));
+        cache.put("notifications.audit-log", config.getBoolean("notifications.audit-log", DEFAULT_AUDIT_LOG));
     }
 
     /** Get webhook URL from cache */
@@ -99,6 +344,317 @@ public class ConfigUtils {
         saveConfig();
     }
 
+    /** --- Database-API --- */
+
+    /** Storage backend (sqlite, memory, mysql, mariadb, postgresql, h2) */
+    public static String getStorageType() {
+        if (!cache.containsKey("storage.type")) loadConfig();
+        return (String) cache.getOrDefault("storage.type", DEFAULT_STORAGE_TYPE);
+    }
+
+    /** JDBC URL for server backends, e.g. jdbc:mysql://host:3306/betterban */
+    public static String getStorageJdbcUrl() {
+        if (!cache.containsKey("storage.jdbc-url")) loadConfig();
+        return (String) cache.getOrDefault("storage.jdbc-url", "");
+    }
+
+    public static String getStorageUsername() {
+        if (!cache.containsKey("storage.username")) loadConfig();
+        return (String) cache.getOrDefault("storage.username", "");
+    }
+
+    public static String getStoragePassword() {
+        if (!cache.containsKey("storage.password")) loadConfig();
+        return (String) cache.getOrDefault("storage.password", "");
+    }
+
+    /** Number of pooled read-only SQLite connections */
+    public static int getReaderConnections() {
+        if (!cache.containsKey("database.reader-connections")) loadConfig();
+        return (int) cache.getOrDefault("database.reader-connections", DEFAULT_READER_CONNECTIONS);
+    }
+
+    /** SQLite mmap_size in MiB (per connection) */
+    public static int getMmapSizeMb() {
+        if (!cache.containsKey("database.mmap-size-mb")) loadConfig();
+        return (int) cache.getOrDefault("database.mmap-size-mb", DEFAULT_MMAP_SIZE_MB);
+    }
+
+    /** SQLite page cache size in MiB (per connection) */
+    public static int getCacheSizeMb() {
+        if (!cache.containsKey("database.cache-size-mb")) loadConfig();
+        return (int) cache.getOrDefault("database.cache-size-mb", DEFAULT_CACHE_SIZE_MB);
+    }
+
+    /** Max number of pending writes before submit() blocks */
+    public static int getWriteQueueCapacity() {
+        if (!cache.containsKey("database.write-queue-capacity")) loadConfig();
+        return (int) cache.getOrDefault("database.write-queue-capacity", DEFAULT_WRITE_QUEUE_CAPACITY);
+    }
+
+    /** How long the writer thread collects writes before a group commit */
+    public static int getCommitIntervalMillis() {
+        if (!cache.containsKey("database.commit-interval-ms")) loadConfig();
+        return (int) cache.getOrDefault("database.commit-interval-ms", DEFAULT_COMMIT_INTERVAL_MS);
+    }
+
+    /** Rows per transaction for chunked schema migrations */
+    public static int getMigrationChunkSize() {
+        if (!cache.containsKey("database.migration-chunk-size")) loadConfig();
+        return (int) cache.getOrDefault("database.migration-chunk-size", DEFAULT_MIGRATION_CHUNK_SIZE);
+    }
+
+    /** --- Cache-API --- */
+
+    /** Punishment cache implementation (map, packed) */
+    public static String getCacheImplementation() {
+        if (!cache.containsKey("cache.implementation")) loadConfig();
+        return (String) cache.getOrDefault("cache.implementation", DEFAULT_CACHE_IMPLEMENTATION);
+    }
+
+    /** --- Expiry-API --- */
+
+    /** How often expired temporary punishments are removed */
+    public static int getExpiryIntervalTicks() {
+        if (!cache.containsKey("expiry.interval-ticks")) loadConfig();
+        return (int) cache.getOrDefault("expiry.interval-ticks", DEFAULT_EXPIRY_INTERVAL_TICKS);
+    }
+
+    /** Max expired punishments removed (and deleted in one write) per run */
+    public static int getExpiryBatchSize() {
+        if (!cache.containsKey("expiry.batch-size")) loadConfig();
+        return (int) cache.getOrDefault("expiry.batch-size", DEFAULT_EXPIRY_BATCH_SIZE);
+    }
+
+    /** --- Startup-API --- */
+
+    /** Write a binary cache snapshot on shutdown and load it on startup */
+    public static boolean isCacheSnapshotEnabled() {
+        if (!cache.containsKey("startup.cache-snapshot")) loadConfig();
+        return (boolean) cache.getOrDefault("startup.cache-snapshot", DEFAULT_CACHE_SNAPSHOT);
+    }
+
+    /** How long a login waits for the ban cache before it is refused */
+    public static int getLoginWaitMillis() {
+        if (!cache.containsKey("startup.login-wait-ms")) loadConfig();
+        return (int) cache.getOrDefault("startup.login-wait-ms", DEFAULT_LOGIN_WAIT_MS);
+    }
+
+    /** --- History-API --- */
+
+    /** Days a history row stays in the hot table before it is archived */
+    public static int getHistoryRetentionDays() {
+        if (!cache.containsKey("history.retention-days")) loadConfig();
+        return (int) cache.getOrDefault("history.retention-days", DEFAULT_HISTORY_RETENTION_DAYS);
+    }
+
+    /** How often old history rows are archived */
+    public static int getHistoryArchiveIntervalMinutes() {
+        if (!cache.containsKey("history.archive-interval-minutes")) loadConfig();
+        return (int) cache.getOrDefault("history.archive-interval-minutes", DEFAULT_HISTORY_ARCHIVE_INTERVAL_MINUTES);
+    }
+
+    /** History rows moved per archive transaction */
+    public static int getHistoryArchiveChunkSize() {
+        if (!cache.containsKey("history.archive-chunk-size")) loadConfig();
+        return (int) cache.getOrDefault("history.archive-chunk-size", DEFAULT_HISTORY_ARCHIVE_CHUNK_SIZE);
+    }
+
+    /** --- Flood-Protection-API --- */
+
+    /** Whether pre-login connections are rate limited */
+    public static boolean isFloodProtectionEnabled() {
+        if (!cache.containsKey("flood-protection.enabled")) loadConfig();
+        return (boolean) cache.getOrDefault("flood-protection.enabled", DEFAULT_FLOOD_PROTECTION);
+    }
+
+    /** Logins one address may make in a row */
+    public static int getFloodAddressBurst() {
+        if (!cache.containsKey("flood-protection.per-address.burst")) loadConfig();
+        return (int) cache.getOrDefault("flood-protection.per-address.burst", DEFAULT_FLOOD_ADDRESS_BURST);
+    }
+
+    /** Sustained logins per minute and address */
+    public static int getFloodAddressPerMinute() {
+        if (!cache.containsKey("flood-protection.per-address.per-minute")) loadConfig();
+        return (int) cache.getOrDefault("flood-protection.per-address.per-minute", DEFAULT_FLOOD_ADDRESS_PER_MINUTE);
+    }
+
+    /** Logins one /24 (IPv6: /48) subnet may make in a row */
+    public static int getFloodSubnetBurst() {
+        if (!cache.containsKey("flood-protection.per-subnet.burst")) loadConfig();
+        return (int) cache.getOrDefault("flood-protection.per-subnet.burst", DEFAULT_FLOOD_SUBNET_BURST);
+    }
+
+    /** Sustained logins per minute and subnet */
+    public static int getFloodSubnetPerMinute() {
+        if (!cache.containsKey("flood-protection.per-subnet.per-minute")) loadConfig();
+        return (int) cache.getOrDefault("flood-protection.per-subnet.per-minute", DEFAULT_FLOOD_SUBNET_PER_MINUTE);
+    }
+
+    /** Upper bound for tracked addresses and subnets each */
+    public static int getFloodMaxTracked() {
+        if (!cache.containsKey("flood-protection.max-tracked")) loadConfig();
+        return (int) cache.getOrDefault("flood-protection.max-tracked", DEFAULT_FLOOD_MAX_TRACKED);
+    }
+
+    /** Login attempts per second (all addresses) that switch on lockdown mode */
+    public static int getLockdownJoinsPerSecond() {
+        if (!cache.containsKey("flood-protection.lockdown.joins-per-second")) loadConfig();
+        return (int) cache.getOrDefault("flood-protection.lockdown.joins-per-second", DEFAULT_LOCKDOWN_JOINS_PER_SECOND);
+    }
+
+    /** How long lockdown mode stays on after the last attempt over the threshold */
+    public static int getLockdownDurationSeconds() {
+        if (!cache.containsKey("flood-protection.lockdown.duration-seconds")) loadConfig();
+        return (int) cache.getOrDefault("flood-protection.lockdown.duration-seconds", DEFAULT_LOCKDOWN_DURATION_SECONDS);
+    }
+
+    /** --- Alt-Detection-API --- */
+
+    /** Addresses remembered per account, most recent first */
+    public static int getAltsMaxIpsPerAccount() {
+        if (!cache.containsKey("alts.max-ips-per-account")) loadConfig();
+        return (int) cache.getOrDefault("alts.max-ips-per-account", DEFAULT_ALTS_MAX_IPS_PER_ACCOUNT);
+    }
+
+    /** Accounts per address before it counts as shared (VPN, school) and is ignored */
+    public static int getAltsMaxAccountsPerIp() {
+        if (!cache.containsKey("alts.max-accounts-per-ip")) loadConfig();
+        return (int) cache.getOrDefault("alts.max-accounts-per-ip", DEFAULT_ALTS_MAX_ACCOUNTS_PER_IP);
+    }
+
+    /** Maximum number of accounts returned by /alts */
+    public static int getAltsMaxResults() {
+        if (!cache.containsKey("alts.max-results")) loadConfig();
+        return (int) cache.getOrDefault("alts.max-results", DEFAULT_ALTS_MAX_RESULTS);
+    }
+
+    /** --- IP-Ban-API --- */
+
+    /** Shortest IPv4 prefix /banip and /tempbanip accept without -confirm */
+    public static int getIpBanMinPrefixIpv4() {
+        if (!cache.containsKey("ip-bans.min-prefix-ipv4")) loadConfig();
+        return (int) cache.getOrDefault("ip-bans.min-prefix-ipv4", DEFAULT_IP_BAN_MIN_PREFIX_IPV4);
+    }
+
+    /** Shortest IPv6 prefix /banip and /tempbanip accept without -confirm */
+    public static int getIpBanMinPrefixIpv6() {
+        if (!cache.containsKey("ip-bans.min-prefix-ipv6")) loadConfig();
+        return (int) cache.getOrDefault("ip-bans.min-prefix-ipv6", DEFAULT_IP_BAN_MIN_PREFIX_IPV6);
+    }
+
+    /** --- Chat-Ban-API --- */
+
+    /** Commands chat-banned players can't use; aliases and namespaced labels are added at startup */
+    @SuppressWarnings("unchecked")
+    public static List<String> getBlockedCommands() {
+        if (!cache.containsKey("chat-ban.blocked-commands")) loadConfig();
+        return (List<String>) cache.getOrDefault("chat-ban.blocked-commands", DEFAULT_BLOCKED_COMMANDS);
+    }
+
+    /** --- Chat-Filter-API --- */
+
+    /** Whether chat messages are checked against the word list */
+    public static boolean isChatFilterEnabled() {
+        if (!cache.containsKey("chat-filter.enabled")) loadConfig();
+        return (boolean) cache.getOrDefault("chat-filter.enabled", DEFAULT_CHAT_FILTER);
+    }
+
+    /** Action for words without a prefix: censor, block or strike */
+    public static String getChatFilterDefaultAction() {
+        if (!cache.containsKey("chat-filter.default-action")) loadConfig();
+        return (String) cache.getOrDefault("chat-filter.default-action", DEFAULT_CHAT_FILTER_ACTION);
+    }
+
+    /** Blocked words, optionally prefixed with their action ("block:word") */
+    @SuppressWarnings("unchecked")
+    public static List<String> getChatFilterWords() {
+        if (!cache.containsKey("chat-filter.words")) loadConfig();
+        return (List<String>) cache.getOrDefault("chat-filter.words", DEFAULT_CHAT_FILTER_WORDS);
+    }
+
+    /** Chat-ban per strike (0 = warning only, 'permanent'); the last entry applies to all further strikes */
+    @SuppressWarnings("unchecked")
+    public static List<String> getChatFilterStrikeBans() {
+        if (!cache.containsKey("chat-filter.strike-bans")) loadConfig();
+        return (List<String>) cache.getOrDefault("chat-filter.strike-bans", DEFAULT_CHAT_FILTER_STRIKE_BANS);
+    }
+
+    /** Minutes without a strike after which the count starts over */
+    public static int getChatFilterStrikeResetMinutes() {
+        if (!cache.containsKey("chat-filter.strike-reset-minutes")) loadConfig();
+        return (int) cache.getOrDefault("chat-filter.strike-reset-minutes", DEFAULT_CHAT_FILTER_STRIKE_RESET_MINUTES);
+    }
+
+    /** --- Spam-Protection-API --- */
+
+    /** Whether chat spam is chat-banned automatically */
+    public static boolean isSpamProtectionEnabled() {
+        if (!cache.containsKey("spam.enabled")) loadConfig();
+        return (boolean) cache.getOrDefault("spam.enabled", DEFAULT_SPAM_PROTECTION);
+    }
+
+    /** Messages a player may send within spam.rate-seconds */
+    public static int getSpamRateMessages() {
+        if (!cache.containsKey("spam.rate-messages")) loadConfig();
+        return (int) cache.getOrDefault("spam.rate-messages", DEFAULT_SPAM_RATE_MESSAGES);
+    }
+
+    /** Window of the message rate limit */
+    public static int getSpamRateSeconds() {
+        if (!cache.containsKey("spam.rate-seconds")) loadConfig();
+        return (int) cache.getOrDefault("spam.rate-seconds", DEFAULT_SPAM_RATE_SECONDS);
+    }
+
+    /** Equal messages a player may send within spam.duplicate-seconds */
+    public static int getSpamDuplicateMessages() {
+        if (!cache.containsKey("spam.duplicate-messages")) loadConfig();
+        return (int) cache.getOrDefault("spam.duplicate-messages", DEFAULT_SPAM_DUPLICATE_MESSAGES);
+    }
+
+    /** Window of the duplicate limit */
+    public static int getSpamDuplicateSeconds() {
+        if (!cache.containsKey("spam.duplicate-seconds")) loadConfig();
+        return (int) cache.getOrDefault("spam.duplicate-seconds", DEFAULT_SPAM_DUPLICATE_SECONDS);
+    }
+
+    /** Chat-ban for tripping a limit (10m, 2h, 1d) */
+    public static String getSpamChatBanDuration() {
+        if (!cache.containsKey("spam.chat-ban-duration")) loadConfig();
+        return (String) cache.getOrDefault("spam.chat-ban-duration", DEFAULT_SPAM_CHAT_BAN_DURATION);
+    }
+
+    /** --- Ban lists --- */
+
+    /** Entries per page of /banlist and /chatbanlist. */
+    public static int getBanListPageSize() {
+        if (!cache.containsKey("ban-list.page-size")) loadConfig();
+        return (int) cache.getOrDefault("ban-list.page-size", DEFAULT_BAN_LIST_PAGE_SIZE);
+    }
+
+    /** --- Name resolver --- */
+
+    /** Number of name lookups kept in memory by the name resolver. */
+    public static int getNameResolverCacheSize() {
+        if (!cache.containsKey("name-resolver.cache-size")) loadConfig();
+        return (int) cache.getOrDefault("name-resolver.cache-size", DEFAULT_NAME_RESOLVER_CACHE_SIZE);
+    }
+
+    /** --- Notifications --- */
+
+    /** Whether moderation actions are announced to online admins */
+    public static boolean isStaffBroadcastEnabled() {
+        if (!cache.containsKey("notifications.staff-broadcast")) loadConfig();
+        return (boolean) cache.getOrDefault("notifications.staff-broadcast", DEFAULT_STAFF_BROADCAST);
+    }
+
+    /** Whether moderation actions are appended to audit.log (one JSON object per line) */
+    public static boolean isAuditLogEnabled() {
+        if (!cache.containsKey("notifications.audit-log")) loadConfig();
+        return (boolean) cache.getOrDefault("notifications.audit-log", DEFAULT_AUDIT_LOG);
+    }
+
     /** --- Prefix-API --- */
 
     /** Return the raw prefix string from config (may contain § or & codes) */
@@ -0,0 +1,400 @@
+package de.jakomi1.betterBan.utils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Delivers Discord webhook messages from a single thread.
+ * <ul>
+ *     <li>Messages are queued without blocking and sent as up to 10 embeds per request (Discord's limit),
+ *     so a wave of bans becomes a handful of requests instead of one connection per ban.</li>
+ *     <li>One {@link HttpClient} is shared, so the connection to Discord is kept alive between requests.</li>
+ *     <li>The X-RateLimit headers of every response are honoured: once the bucket is empty the thread waits
+ *     for its reset, and a 429 is retried after Retry-After.</li>
+ *     <li>Batches that can't be delivered (network or Discord down) and whatever is still queued at shutdown
+ *     go to a small outbox file, which is retried later and read again after a restart.</li>
+ * </ul>
+ * The webhook URL and the outbox file are passed in, so the dispatcher also runs against a local stub server.
+ */
+public final class DiscordDispatcher {
+
+    /** One message; {@code createdAt} becomes the embed timestamp, so a late delivery shows when it happened. */
+    public record Embed(String description, int color, long createdAt) {}
+
+    private static final int MAX_EMBEDS = 10;
+    // Discord limits: 4096 characters per description, 6000 for all embeds of one message
+    private static final int MAX_DESCRIPTION = 4096;
+    private static final int MAX_TOTAL_CHARS = 6000;
+
+    private static final int QUEUE_CAPACITY = 5000;
+    private static final int MAX_OUTBOX = 1000;
+    // How long a batch waits for more messages once the queue has run dry
+    private static final long LINGER_MILLIS = 250L;
+    private static final int MAX_ATTEMPTS = 3;
+    // Longer Retry-After / bucket resets are waited out in the outbox instead of on the thread
+    private static final long MAX_WAIT_MILLIS = 60_000L;
+    private static final long OUTBOX_RETRY_MILLIS = 60_000L;
+
+    private final Supplier<String> webhookUrl;
+    private final Path outbox;
+    private final HttpClient client;
+    private final Logger logger;
+
+    private final LinkedBlockingDeque<Embed> queue = new LinkedBlockingDeque<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    // Guards the outbox file, which the thread, send() after shutdown and shutdown() itself write
+    private final Object outboxLock = new Object();
+    private Thread thread;
+    private volatile boolean stopped;
+
+    // Dispatcher thread only
+    private String lastUrl;
+    private String bucket;
+    private long bucketResetAt;
+    private long outboxRetryAt;
+
+    /**
+     * @param webhookUrl read before every request; null or blank drops the messages (webhook disabled)
+     * @param outbox     file for undelivered messages, created on demand
+     */
+    public DiscordDispatcher(Supplier<String> webhookUrl, Path outbox, Logger logger) {
+        this(webhookUrl, outbox, logger, HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build());
+    }
+
+    public DiscordDispatcher(Supplier<String> webhookUrl, Path outbox, Logger logger, HttpClient client) {
+        this.webhookUrl = webhookUrl;
+        this.outbox = outbox;
+        this.logger = logger;
+        this.client = client;
+    }
+
+    // ==============================================================
+
+    public synchronized void start() {
+        if (thread != null || stopped) return;
+        thread = new Thread(this::run, "BetterBan-Discord");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the thread; the batch in flight and everything still queued go to the outbox.
+     * Blocks the calling thread for at most a few seconds; used from onDisable().
+     */
+    public synchronized void shutdown() {
+        stopped = true;
+        if (thread == null) {
+            writeOutbox(drainQueue());
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join(5_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /** Queues a message, never blocks. Safe to call from any thread, also before {@link #start()}. */
+    public void send(String description, int color) {
+        if (description.length() > MAX_DESCRIPTION) description = description.substring(0, MAX_DESCRIPTION - 3) + "...";
+        Embed embed = new Embed(description, color, System.currentTimeMillis());
+        if (stopped) {
+            writeOutbox(List.of(embed));
+        } else if (!queue.offerLast(embed)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    // ==============================================================
+
+    private void run() {
+        List<Embed> batch = List.of();
+        try {
+            while (!stopped) {
+                long now = System.currentTimeMillis();
+                if (now >= outboxRetryAt) {
+                    restoreOutbox();
+                    outboxRetryAt = Long.MAX_VALUE;
+                }
+
+                batch = nextBatch();
+                if (batch.isEmpty()) continue;
+                if (outboxRetryAt != Long.MAX_VALUE) {
+                    // The last delivery failed: don't wait for timeouts again until the retry is due
+                    writeOutbox(batch);
+                } else if (!deliver(batch)) {
+                    writeOutbox(batch);
+                    outboxRetryAt = Math.max(System.currentTimeMillis() + OUTBOX_RETRY_MILLIS, bucketResetAt);
+                }
+                batch = List.of();
+
+                long lost = dropped.getAndSet(0);
+                if (lost > 0) logger.warning("Discord queue was full, " + lost + " message(s) dropped");
+            }
+        } catch (InterruptedException e) {
+            // shutdown()
+        }
+        List<Embed> rest = new ArrayList<>(batch);
+        rest.addAll(drainQueue());
+        writeOutbox(rest);
+    }
+
+    /** Waits for the first message, then adds more as long as they come in quickly and fit. */
+    private List<Embed> nextBatch() throws InterruptedException {
+        Embed first = queue.pollFirst(1, TimeUnit.SECONDS);
+        if (first == null) return List.of();
+
+        List<Embed> batch = new ArrayList<>(MAX_EMBEDS);
+        batch.add(first);
+        int chars = first.description().length();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+        try {
+            while (batch.size() < MAX_EMBEDS) {
+                long wait = deadline - System.nanoTime();
+                Embed next = wait > 0 ? queue.pollFirst(wait, TimeUnit.NANOSECONDS) : queue.pollFirst();
+                if (next == null) break;
+                if (chars + next.description().length() > MAX_TOTAL_CHARS) {
+                    queue.offerFirst(next);
+                    break;
+                }
+                batch.add(next);
+                chars += next.description().length();
+            }
+        } catch (InterruptedException e) {
+            // Back to the front of the queue, run() moves it to the outbox
+            for (int i = batch.size() - 1; i >= 0; i--) queue.offerFirst(batch.get(i));
+            throw e;
+        }
+        return batch;
+    }
+
+    /**
+     * Sends one batch, waiting for the rate limit and retrying 429s and server / network errors.
+     *
+     * @return false if the batch should go to the outbox
+     */
+    private boolean deliver(List<Embed> batch) throws InterruptedException {
+        String url = webhookUrl.get();
+        if (url == null || url.isBlank()) return true;
+        if (!url.equals(lastUrl)) {
+            // Another webhook, another bucket
+            lastUrl = url;
+            bucket = null;
+            bucketResetAt = 0L;
+        }
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(10))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(toJson(batch), StandardCharsets.UTF_8))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            logger.severe("Discord webhook URL is invalid, " + batch.size() + " message(s) dropped");
+            return true;
+        }
+
+        int failures = 0;
+        while (true) {
+            long wait = bucketResetAt - System.currentTimeMillis();
+            if (wait > MAX_WAIT_MILLIS) return false;
+            if (wait > 0) Thread.sleep(wait);
+
+            HttpResponse<String> response;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                if (++failures >= MAX_ATTEMPTS) {
+                    logger.warning("Discord webhook unreachable (" + e.getMessage() + "), "
+                            + batch.size() + " message(s) moved to the outbox");
+                    return false;
+                }
+                Thread.sleep(1000L << failures);
+                continue;
+            }
+
+            readRateLimit(response);
+            int status = response.statusCode();
+            if (status / 100 == 2) return true;
+
+            if (status == 429) {
+                // Counts as a wait, not as a failure; the loop sleeps until the reset
+                bucketResetAt = Math.max(bucketResetAt, System.currentTimeMillis()
+                        + parseSeconds(response.headers().firstValue("Retry-After").orElse(null), 1000L));
+                continue;
+            }
+            if (status >= 500) {
+                if (++failures >= MAX_ATTEMPTS) {
+                    logger.warning("Discord webhook error: HTTP " + status + ", "
+                            + batch.size() + " message(s) moved to the outbox");
+                    return false;
+                }
+                Thread.sleep(1000L << failures);
+                continue;
+            }
+
+            // Deleted webhook, invalid payload, ...: sending again won't help
+            logger.severe("Discord webhook error: HTTP " + status + ", " + batch.size() + " message(s) dropped");
+            return true;
+        }
+    }
+
+    private void readRateLimit(HttpResponse<?> response) {
+        String id = response.headers().firstValue("X-RateLimit-Bucket").orElse(null);
+        if (id != null && !id.equals(bucket)) {
+            bucket = id;
+            bucketResetAt = 0L;
+        }
+        String remaining = response.headers().firstValue("X-RateLimit-Remaining").orElse(null);
+        String resetAfter = response.headers().firstValue("X-RateLimit-Reset-After").orElse(null);
+        if ("0".equals(remaining) && resetAfter != null) {
+            bucketResetAt = System.currentTimeMillis() + parseSeconds(resetAfter, 1000L);
+        }
+    }
+
+    /** Discord sends seconds with a fraction ("1.5"). */
+    private static long parseSeconds(String value, long fallbackMillis) {
+        if (value == null) return fallbackMillis;
+        try {
+            return Math.max(0L, (long) Math.ceil(Double.parseDouble(value) * 1000.0));
+        } catch (NumberFormatException e) {
+            return fallbackMillis;
+        }
+    }
+
+    static String toJson(List<Embed> batch) {
+        // No @everyone / role / user pings from names or reasons
+        StringBuilder json = new StringBuilder("{\"allowed_mentions\":{\"parse\":[]},\"embeds\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            Embed embed = batch.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"description\":");
+            JsonUtils.appendString(json, embed.description());
+            json.append(",\"color\":").append(embed.color() & 0xFFFFFF)
+                    .append(",\"timestamp\":\"").append(Instant.ofEpochMilli(embed.createdAt())).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    // ==============================================================
+    // Outbox: one message per line, "createdAt<TAB>color<TAB>description" with \ escapes
+
+    private List<Embed> drainQueue() {
+        List<Embed> rest = new ArrayList<>(queue.size());
+        queue.drainTo(rest);
+        return rest;
+    }
+
+    /** Moves the outbox in front of the queue; whatever doesn't fit stays in the file. */
+    private void restoreOutbox() {
+        synchronized (outboxLock) {
+            if (!Files.exists(outbox)) return;
+            List<Embed> embeds = new ArrayList<>();
+            try {
+                for (String line : Files.readAllLines(outbox, StandardCharsets.UTF_8)) {
+                    Embed embed = decode(line);
+                    if (embed != null) embeds.add(embed);
+                }
+                Files.delete(outbox);
+            } catch (IOException e) {
+                logger.severe("Couldn't read the Discord outbox " + outbox);
+                e.printStackTrace();
+                return;
+            }
+
+            List<Embed> overflow = new ArrayList<>();
+            for (int i = embeds.size() - 1; i >= 0; i--) {
+                if (!queue.offerFirst(embeds.get(i))) overflow.add(0, embeds.get(i));
+            }
+            writeOutbox(overflow);
+            if (!embeds.isEmpty()) logger.info("Retrying " + embeds.size() + " undelivered Discord message(s)");
+        }
+    }
+
+    private void writeOutbox(List<Embed> embeds) {
+        if (embeds.isEmpty()) return;
+        synchronized (outboxLock) {
+            appendOutbox(embeds);
+        }
+    }
+
+    private void appendOutbox(List<Embed> embeds) {
+        try {
+            List<String> lines = Files.exists(outbox)
+                    ? new ArrayList<>(Files.readAllLines(outbox, StandardCharsets.UTF_8))
+                    : new ArrayList<>();
+            for (Embed embed : embeds) lines.add(encode(embed));
+            if (lines.size() > MAX_OUTBOX) {
+                logger.warning("Discord outbox is full, " + (lines.size() - MAX_OUTBOX) + " oldest message(s) dropped");
+                lines = lines.subList(lines.size() - MAX_OUTBOX, lines.size());
+            }
+
+            if (outbox.getParent() != null) Files.createDirectories(outbox.getParent());
+            Path tmp = outbox.resolveSibling(outbox.getFileName() + ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, outbox, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.severe("Couldn't write the Discord outbox, " + embeds.size() + " message(s) lost");
+            e.printStackTrace();
+        }
+    }
+
+    private static String encode(Embed embed) {
+        StringBuilder line = new StringBuilder().append(embed.createdAt()).append('\t').append(embed.color()).append('\t');
+        String text = embed.description();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> line.append(c);
+            }
+        }
+        return line.toString();
+    }
+
+    /** @return null for a malformed line */
+    private static Embed decode(String line) {
+        String[] parts = line.split("\t", 3);
+        if (parts.length != 3) return null;
+        try {
+            StringBuilder text = new StringBuilder(parts[2].length());
+            for (int i = 0; i < parts[2].length(); i++) {
+                char c = parts[2].charAt(i);
+                if (c == '\\' && i + 1 < parts[2].length()) {
+                    c = switch (parts[2].charAt(++i)) {
+                        case 'n' -> '\n';
+                        case 'r' -> '\r';
+                        case 't' -> '\t';
+                        default -> parts[2].charAt(i);
+                    };
+                }
+                text.append(c);
+            }
+            return new Embed(text.toString(), Integer.parseInt(parts[1]), Long.parseLong(parts[0]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
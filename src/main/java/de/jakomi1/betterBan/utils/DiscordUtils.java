@@ -1,72 +1,53 @@
 package de.jakomi1.betterBan.utils;
 
-import de.jakomi1.betterBan.scheduler.Scheduler;
 import org.bukkit.Bukkit;
 
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.io.File;
 
+import static de.jakomi1.betterBan.BetterBan.dataFolder;
 import static de.jakomi1.betterBan.BetterBan.plugin;
-import static de.jakomi1.betterBan.scheduler.Scheduler.runAsync;
 
 public class DiscordUtils {
 
-    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    // Created on first use, so messages sent before start() are queued as well
+    private static DiscordDispatcher dispatcher;
+
+    /** Starts the dispatcher thread; undelivered messages from the outbox are sent first. */
+    public static synchronized void start() {
+        dispatcher().start();
+    }
 
     /**
-     * Sends an embed message with a custom color (asynchronously).
+     * Stops the dispatcher; whatever is not delivered yet goes to the outbox for the next start.
+     * Used from onDisable().
+     */
+    public static synchronized void shutdown() {
+        // Kept afterwards: messages sent later during shutdown go straight to the outbox
+        if (dispatcher != null) dispatcher.shutdown();
+    }
+
+    /**
+     * Sends an embed message with a custom color (asynchronously, batched with other messages).
      */
     public static void sendColoredMessage(String content, int color) {
         if (content == null || content.isEmpty()) {
             Bukkit.getLogger().warning("Discord webhook: message is empty, not sending!");
             return;
         }
-
-        runAsync(() -> {
-            try {
-                String escaped = content.replace("\"", "\\\"").replace("\n", "\\n");
-                String jsonPayload = "{"
-                        + "\"embeds\":[{"
-                        + "\"description\":\"" +"**"+ ConfigUtils.getPrefixRaw()+"** " + escaped + "\","
-                        + "\"color\":" + color
-                        + "}]"
-                        + "}";
-                sendWebhook(jsonPayload);
-            } catch (Exception e) {
-                Bukkit.getLogger().severe("Error sending Discord webhook:");
-                e.printStackTrace();
-            }
-        });
-    }
-
-    /**
-     * Helper method to send a JSON payload to Discord.
-     * Performs a network operation — should only be called from an asynchronous thread.
-     */
-    private static void sendWebhook(String jsonPayload) throws Exception {
         if (!ConfigUtils.isWebhookEnabled()) return;
-        URL url = new URL(ConfigUtils.getWebhook());
 
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setDoOutput(true);
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(5000);
-
-        try (OutputStream os = connection.getOutputStream()) {
-            byte[] input = jsonPayload.getBytes(StandardCharsets.UTF_8);
-            os.write(input, 0, input.length);
-        }
+        dispatcher().send("**" + ConfigUtils.getPrefixRaw() + "** " + content, color);
+    }
 
-        int responseCode = connection.getResponseCode();
-        if (responseCode != 204) {
-            Bukkit.getLogger().severe("Discord webhook error: HTTP " + responseCode);
+    private static synchronized DiscordDispatcher dispatcher() {
+        if (dispatcher == null) {
+            // Read per request, so a changed or disabled webhook applies to queued messages as well
+            dispatcher = new DiscordDispatcher(
+                    () -> ConfigUtils.isWebhookEnabled() ? ConfigUtils.getWebhook() : null,
+                    new File(dataFolder, "discord-outbox.txt").toPath(),
+                    plugin.getLogger());
         }
+        return dispatcher;
     }
 
 }
@@ -0,0 +1,126 @@
+package de.jakomi1.betterBan.utils;
+
+import de.jakomi1.betterBan.cache.IpRange;
+import de.jakomi1.betterBan.cache.RateLimiter;
+import de.jakomi1.betterBan.events.ModerationEvent;
+import de.jakomi1.betterBan.events.ModerationEvents;
+import de.jakomi1.betterBan.scheduler.Scheduler;
+import org.bukkit.ChatColor;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Connection-flood protection for the pre-login path.
+ * <p>
+ * Every login attempt takes a token from the bucket of its address and of its subnet (/24, IPv6 /48), see
+ * {@link RateLimiter}. A global bucket counts all attempts; once it runs dry the server goes into lockdown and
+ * only admits players that joined before, until the rate has stayed below the threshold for the configured time.
+ * <p>
+ * Everything here is in memory and lock-free, so it runs before the ban checks and any database access.
+ */
+public final class FloodUtils {
+
+    private static final RateLimiter addresses = new RateLimiter();
+    private static final RateLimiter subnets = new RateLimiter();
+    private static final AtomicLong global = new AtomicLong(System.nanoTime());
+
+    private static final AtomicLong lockdownUntil = new AtomicLong(System.nanoTime());
+    // Only for the enabled / ended messages, isLockdown() goes by lockdownUntil
+    private static final AtomicBoolean lockdownAnnounced = new AtomicBoolean();
+
+    // Full buckets are dropped every 30 seconds
+    private static final long EVICTION_INTERVAL_TICKS = 30L * 20L;
+
+    private FloodUtils() {}
+
+    // ==============================================================
+
+    /**
+     * Counts a login attempt from {@code address}.
+     *
+     * @return the kick message if the address or its subnet is over its limit, otherwise null
+     */
+    public static String checkConnection(InetAddress address) {
+        if (!ConfigUtils.isFloodProtectionEnabled()) return null;
+        long now = System.nanoTime();
+
+        int joinsPerSecond = Math.max(1, ConfigUtils.getLockdownJoinsPerSecond());
+        if (!RateLimiter.tryAcquire(global, now, TimeUnit.SECONDS.toNanos(1) / joinsPerSecond, joinsPerSecond)) {
+            startLockdown(now);
+        }
+
+        long host = IpRange.hostKey(address.getAddress());
+        int maxTracked = Math.max(1, ConfigUtils.getFloodMaxTracked());
+        RateLimiter.Result subnet = subnets.tryAcquire(subnetKey(host), now,
+                interval(ConfigUtils.getFloodSubnetPerMinute()), Math.max(1, ConfigUtils.getFloodSubnetBurst()), maxTracked);
+        RateLimiter.Result single = addresses.tryAcquire(host, now,
+                interval(ConfigUtils.getFloodAddressPerMinute()), Math.max(1, ConfigUtils.getFloodAddressBurst()), maxTracked);
+
+        // Too many distinct sources to track: that alone is a flood, only known players get in
+        if (subnet == RateLimiter.Result.UNTRACKED || single == RateLimiter.Result.UNTRACKED) startLockdown(now);
+
+        if (subnet == RateLimiter.Result.LIMITED || single == RateLimiter.Result.LIMITED) {
+            return chatPrefix + ChatColor.RED + "Too many connections, please wait a moment before reconnecting.";
+        }
+        return null;
+    }
+
+    /** True while only players that joined before are admitted. */
+    public static boolean isLockdown() {
+        return ConfigUtils.isFloodProtectionEnabled() && lockdownUntil.get() - System.nanoTime() > 0;
+    }
+
+    public static String getLockdownMessage() {
+        return chatPrefix + ChatColor.RED + "The server is currently not accepting new players, please try again later.";
+    }
+
+    // ==============================================================
+
+    /** Periodically drops idle buckets and announces the end of a lockdown. */
+    public static void startEvictionTask() {
+        Scheduler.runLaterAsync(() -> {
+            try {
+                long now = System.nanoTime();
+                addresses.evictIdle(now);
+                subnets.evictIdle(now);
+                if (lockdownUntil.get() - now <= 0 && lockdownAnnounced.compareAndSet(true, false)) {
+                    announce(ModerationEvent.Type.LOCKDOWN_ENDED);
+                }
+            } finally {
+                startEvictionTask();
+            }
+        }, EVICTION_INTERVAL_TICKS);
+    }
+
+    private static void startLockdown(long now) {
+        long until = now + TimeUnit.SECONDS.toNanos(Math.max(1, ConfigUtils.getLockdownDurationSeconds()));
+        lockdownUntil.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+        if (lockdownAnnounced.compareAndSet(false, true)) {
+            announce(ModerationEvent.Type.LOCKDOWN);
+        }
+    }
+
+    /** Logs the change; the staff broadcast and Discord get it from the moderation event bus. */
+    private static void announce(ModerationEvent.Type type) {
+        ModerationEvent event = ModerationEvent.of(type, null, "server", Moderator.SYSTEM, 0L, null);
+        plugin.getLogger().warning(event.describe());
+        ModerationEvents.publish(event);
+    }
+
+    // ==============================================================
+
+    private static long interval(int perMinute) {
+        return TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+    }
+
+    // /24 for IPv4, /48 for IPv6 host keys
+    private static long subnetKey(long hostKey) {
+        return IpRange.isIpv4HostKey(hostKey) ? hostKey & 0xFFFFFF00L : hostKey & 0xFFFF_FFFF_FFFF_0000L;
+    }
+}
@@ -0,0 +1,134 @@
+package de.jakomi1.betterBan.utils;
+
+import de.jakomi1.betterBan.cache.Punishment;
+import de.jakomi1.betterBan.database.Database;
+import de.jakomi1.betterBan.database.HistoryAction;
+import de.jakomi1.betterBan.database.HistoryEntry;
+import de.jakomi1.betterBan.database.PunishmentStore;
+import de.jakomi1.betterBan.database.PunishmentType;
+import de.jakomi1.betterBan.database.SearchQuery;
+import de.jakomi1.betterBan.database.WriteBehindQueue;
+import de.jakomi1.betterBan.scheduler.Scheduler;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Append-only punishment history: every create / expire / revoke is recorded with executor,
+ * timestamps and reason. The caches never read it.
+ * Old rows are moved to punishment_history_archive in small chunks by {@link #startArchiveTask()}.
+ */
+public final class HistoryUtils {
+
+    // History writes must never be coalesced, so each one gets its own queue key
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private HistoryUtils() {}
+
+    // ==============================================================
+
+    public static void record(UUID uuid, PunishmentType type, HistoryAction action, Moderator by, Punishment punishment) {
+        HistoryEntry entry = entry(uuid, type, action, by, punishment);
+        WriteBehindQueue.submit("history:" + sequence.incrementAndGet(), writer -> writer.appendHistory(entry));
+    }
+
+    /** Builds an entry for callers that write it as part of a larger batch. */
+    public static HistoryEntry entry(UUID uuid, PunishmentType type, HistoryAction action, Moderator by, Punishment punishment) {
+        return new HistoryEntry(0L, uuid, type, action, by.uuid(), by.name(), punishment.reason(),
+                punishment.endTimestamp(), System.currentTimeMillis());
+    }
+
+    /** "ban", "chat-ban" or "IP ban", for history listings. */
+    public static String typeLabel(HistoryEntry entry) {
+        if (IpBanUtils.isHistoryId(entry.uuid())) return "IP ban";
+        return switch (entry.type()) {
+            case BAN -> "ban";
+            case CHAT_BAN -> "chat-ban";
+        };
+    }
+
+    /** Player name or banned range of a history entry, the UUID if neither is known. */
+    public static String targetName(UUID uuid) {
+        if (IpBanUtils.isHistoryId(uuid)) return IpBanUtils.getHistoryName(uuid).orElse("an IP range");
+        return BanUtils.getName(uuid).orElse(uuid.toString());
+    }
+
+    /** History of a player or an IP range ({@link IpBanUtils#historyId}), newest first. Runs off the main thread. */
+    public static CompletableFuture<List<HistoryEntry>> getHistory(UUID uuid, int limit) {
+        return Scheduler.supplyAsync(() -> {
+            try {
+                return Database.getStore().getHistory(uuid, limit);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /** Actions of a moderator in [from, to), newest first. Runs off the main thread. */
+    public static CompletableFuture<List<HistoryEntry>> getHistoryByExecutor(UUID executor, long from, long to, int limit) {
+        return Scheduler.supplyAsync(() -> {
+            try {
+                return Database.getStore().getHistoryByExecutor(executor, from, to, limit);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Issued punishments whose reason matches the query, best match first. Runs off the main thread;
+     * pending writes are flushed first, so punishments from a moment ago are found too.
+     */
+    public static CompletableFuture<List<HistoryEntry>> search(SearchQuery query, int offset, int limit) {
+        return Scheduler.supplyAsync(() -> {
+            try {
+                WriteBehindQueue.flush().join();
+                return Database.getStore().searchHistory(query, offset, limit);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    // ==============================================================
+
+    /**
+     * Periodically moves history rows older than history.retention-days into the archive table.
+     * Each chunk is its own short transaction, so the write-behind queue is never blocked for long.
+     */
+    public static void startArchiveTask() {
+        long intervalTicks = Math.max(1L, ConfigUtils.getHistoryArchiveIntervalMinutes()) * 60L * 20L;
+        Scheduler.runLaterAsync(() -> {
+            try {
+                archive();
+            } finally {
+                startArchiveTask();
+            }
+        }, intervalTicks);
+    }
+
+    private static void archive() {
+        int chunkSize = Math.max(1, ConfigUtils.getHistoryArchiveChunkSize());
+        long before = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ConfigUtils.getHistoryRetentionDays());
+        PunishmentStore store = Database.getStore();
+
+        long total = 0;
+        try {
+            int moved;
+            do {
+                moved = store.archiveHistory(before, chunkSize);
+                total += moved;
+            } while (moved == chunkSize && plugin.isEnabled());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        if (total > 0) plugin.getLogger().info("Archived " + total + " punishment history rows");
+    }
+}
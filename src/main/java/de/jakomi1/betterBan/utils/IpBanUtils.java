@@ -0,0 +1,290 @@
+package de.jakomi1.betterBan.utils;
+
+import de.jakomi1.betterBan.cache.IpBanTrie;
+import de.jakomi1.betterBan.cache.IpRange;
+import de.jakomi1.betterBan.cache.Punishment;
+import de.jakomi1.betterBan.database.Database;
+import de.jakomi1.betterBan.database.HistoryAction;
+import de.jakomi1.betterBan.database.PunishmentType;
+import de.jakomi1.betterBan.database.WriteBehindQueue;
+import de.jakomi1.betterBan.events.ModerationEvent;
+import de.jakomi1.betterBan.events.ModerationEvents;
+import de.jakomi1.betterBan.scheduler.Scheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.jakomi1.betterBan.BetterBan.chatPrefix;
+
+/**
+ * Bans on single IPv4 / IPv6 addresses and CIDR ranges.
+ * <p>
+ * All bans are held in an {@link IpBanTrie}, so the login check is one lock-free walk over the address bits.
+ * Writes go to the database through the {@link WriteBehindQueue}, like player bans, and bans, unbans and
+ * expiries are recorded in the punishment history under {@link #historyId(IpRange)}.
+ */
+public final class IpBanUtils {
+
+    /** Command flag that allows a range wider than ip-bans.min-prefix-ipv4 / -ipv6. */
+    public static final String CONFIRM_FLAG = "-confirm";
+
+    private static final IpBanTrie trie = new IpBanTrie();
+
+    // Temporary IP bans ordered by end timestamp, see expire(); stale entries are skipped like in ExpiryScheduler
+    private record Scheduled(IpRange range, Punishment punishment) {}
+    private static final PriorityQueue<Scheduled> expiry = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.punishment().endTimestamp(), b.punishment().endTimestamp()));
+    private static final AtomicLong expireBatches = new AtomicLong();
+
+    // History ids seen since startup, so history listings can show the range instead of the id
+    private static final Map<UUID, String> historyNames = new ConcurrentHashMap<>();
+
+    private IpBanUtils() {}
+
+    // ==============================================================
+
+    /**
+     * Loads all IP bans from the database. Called once during startup, before logins are accepted.
+     *
+     * @return false if the database couldn't be read
+     */
+    public static boolean init() {
+        Map<IpRange, Punishment> loaded = new HashMap<>();
+        try {
+            Database.getStore().loadIpBans((address, prefixLength, end, reason) -> {
+                try {
+                    loaded.put(IpRange.of(address, prefixLength), new Punishment(end, reason));
+                } catch (IllegalArgumentException e) {
+                    e.printStackTrace();
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+        loaded.keySet().forEach(IpBanUtils::historyId);
+        trie.replaceAll(loaded);
+        synchronized (expiry) {
+            expiry.clear();
+            loaded.forEach((range, punishment) -> {
+                if (!punishment.isPermanent()) expiry.add(new Scheduled(range, punishment));
+            });
+        }
+        return true;
+    }
+
+    // ==============================================================
+
+    /**
+     * Creates or replaces the ban on {@code range} and kicks every online player whose address lies in it.
+     *
+     * @return names of the players that are kicked
+     */
+    public static List<String> ban(IpRange range, long endTimestamp, String reason, Moderator by) {
+        Punishment punishment = new Punishment(endTimestamp, reason);
+        trie.put(range, punishment);
+        if (!punishment.isPermanent()) {
+            synchronized (expiry) {
+                expiry.add(new Scheduled(range, punishment));
+            }
+        }
+
+        byte[] address = range.address();
+        int prefixLength = range.prefixLength();
+        WriteBehindQueue.submit(writeKey(range),
+                writer -> writer.upsertIpBan(address, prefixLength, endTimestamp, reason));
+        HistoryUtils.record(historyId(range), PunishmentType.BAN, HistoryAction.CREATE, by, punishment);
+        ModerationEvents.publish(ModerationEvent.of(ModerationEvent.Type.IP_BAN, null, range.toString(), by,
+                endTimestamp, reason));
+
+        List<Player> targets = getOnlinePlayers(range);
+        List<String> names = new ArrayList<>(targets.size());
+        for (Player player : targets) names.add(player.getName());
+        if (!targets.isEmpty()) {
+            String message = getIpBanMessage(punishment);
+            Runnable kick = () -> targets.forEach(player -> player.kickPlayer(message));
+            if (Bukkit.isPrimaryThread()) {
+                kick.run();
+            } else {
+                Scheduler.run(kick);
+            }
+        }
+        return names;
+    }
+
+    public static List<String> permanentBan(IpRange range, String reason, Moderator by) {
+        return ban(range, Punishment.PERMANENT, reason, by);
+    }
+
+    public static List<String> tempBan(IpRange range, long durationMillis, String reason, Moderator by) {
+        return ban(range, System.currentTimeMillis() + durationMillis, reason, by);
+    }
+
+    /**
+     * Lifts the ban on exactly this address / range. Narrower or wider ranges are not touched.
+     *
+     * @return false if there was no such ban
+     */
+    public static boolean unban(IpRange range, Moderator by) {
+        Punishment removed = trie.remove(range);
+        byte[] address = range.address();
+        int prefixLength = range.prefixLength();
+        WriteBehindQueue.submit(writeKey(range), writer -> writer.deleteIpBan(address, prefixLength));
+        if (removed == null) return false;
+
+        HistoryUtils.record(historyId(range), PunishmentType.BAN, HistoryAction.REVOKE, by, removed);
+        ModerationEvents.publish(ModerationEvent.of(ModerationEvent.Type.IP_UNBAN, null, range.toString(), by,
+                0L, null));
+        return true;
+    }
+
+    /**
+     * Command argument to range: the current address of an online player with that exact name,
+     * otherwise an address or CIDR range literal.
+     *
+     * @throws IllegalArgumentException if it is neither
+     */
+    public static IpRange parseTarget(String arg) {
+        Player player = Bukkit.getPlayerExact(arg);
+        if (player != null && player.getAddress() != null && player.getAddress().getAddress() != null) {
+            return IpRange.of(player.getAddress().getAddress());
+        }
+        return IpRange.parse(arg);
+    }
+
+    /** Shortest prefix a ban on this address family may have without {@link #CONFIRM_FLAG}. */
+    public static int getMinPrefixLength(IpRange range) {
+        return range.isIpv4() ? ConfigUtils.getIpBanMinPrefixIpv4() : ConfigUtils.getIpBanMinPrefixIpv6();
+    }
+
+    /** Whether banning {@code range} needs {@link #CONFIRM_FLAG}, e.g. 0.0.0.0/0 would ban everyone. */
+    public static boolean needsConfirmation(IpRange range) {
+        return range.prefixLength() < getMinPrefixLength(range);
+    }
+
+    /**
+     * Key of an address / range in the punishment history, which is keyed by UUID. Name-based like offline-mode
+     * UUIDs, but with version 8 instead of 3, so it never equals the UUID of a player.
+     */
+    public static UUID historyId(IpRange range) {
+        UUID hashed = UUID.nameUUIDFromBytes(("ip:" + range).getBytes(StandardCharsets.UTF_8));
+        UUID id = new UUID((hashed.getMostSignificantBits() & ~0xF000L) | 0x8000L, hashed.getLeastSignificantBits());
+        historyNames.putIfAbsent(id, range.toString());
+        return id;
+    }
+
+    public static boolean isHistoryId(UUID uuid) {
+        return uuid.version() == 8;
+    }
+
+    /** The range behind a history id, if it was banned, unbanned or looked up since startup. */
+    public static Optional<String> getHistoryName(UUID uuid) {
+        return Optional.ofNullable(historyNames.get(uuid));
+    }
+
+    private static String writeKey(IpRange range) {
+        return "ip_bans:" + range;
+    }
+
+    // ==============================================================
+
+    /**
+     * Login check: the most specific active ban covering the address, or null.
+     */
+    public static Punishment getActiveBan(InetAddress address) {
+        return trie.match(address.getAddress(), System.currentTimeMillis());
+    }
+
+    /** The ban on exactly this address / range, or null. */
+    public static Punishment getActiveBan(IpRange range) {
+        Punishment punishment = trie.get(range);
+        return punishment != null && punishment.isActive(System.currentTimeMillis()) ? punishment : null;
+    }
+
+    public static Map<IpRange, Punishment> getAllIpBans() {
+        Map<IpRange, Punishment> bans = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        trie.forEach((range, punishment) -> {
+            if (punishment.isActive(now)) bans.put(range, punishment);
+        });
+        return bans;
+    }
+
+    /** Online players whose current address lies in {@code range}. */
+    public static List<Player> getOnlinePlayers(IpRange range) {
+        List<Player> players = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            InetSocketAddress socket = player.getAddress();
+            if (socket != null && socket.getAddress() != null && range.contains(socket.getAddress())) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+
+    // ==============================================================
+
+    /**
+     * Removes up to {@code maxBatch} IP bans that ran out and deletes them from the database in one write.
+     *
+     * @return number of expired entries
+     */
+    public static int expire(int maxBatch) {
+        long now = System.currentTimeMillis();
+        List<Scheduled> expired = new ArrayList<>();
+        while (expired.size() < maxBatch) {
+            Scheduled entry;
+            synchronized (expiry) {
+                entry = expiry.peek();
+                if (entry == null || entry.punishment().endTimestamp() > now) break;
+                expiry.poll();
+            }
+            if (trie.remove(entry.range(), entry.punishment())) expired.add(entry);
+        }
+        if (expired.isEmpty()) return 0;
+
+        WriteBehindQueue.submit("ip_bans:expire:" + expireBatches.incrementAndGet(), writer -> {
+            for (Scheduled e : expired) {
+                writer.deleteExpiredIpBan(e.range().address(), e.range().prefixLength(),
+                        e.punishment().endTimestamp());
+                writer.appendHistory(HistoryUtils.entry(historyId(e.range()), PunishmentType.BAN,
+                        HistoryAction.EXPIRE, Moderator.SYSTEM, e.punishment()));
+            }
+        });
+        for (Scheduled e : expired) {
+            ModerationEvents.publish(ModerationEvent.of(ModerationEvent.Type.IP_BAN_EXPIRED, null,
+                    e.range().toString(), Moderator.SYSTEM, e.punishment().endTimestamp(), e.punishment().reason()));
+        }
+        return expired.size();
+    }
+
+    // ==============================================================
+
+    public static String getIpBanMessage(Punishment ban) {
+        String base = ban.isPermanent()
+                ? chatPrefix + ChatColor.RED + "Your IP address is permanently banned!"
+                : chatPrefix + ChatColor.RED + "Your IP address is banned for "
+                        + BanUtils.formatDuration(ban.endTimestamp() - System.currentTimeMillis()) + "!";
+
+        if (ban.hasReason()) {
+            base += ChatColor.GRAY + "\nReason: " + ban.reason();
+        }
+
+        return base;
+    }
+}
@@ -0,0 +1,31 @@
+package de.jakomi1.betterBan.utils;
+
+/**
+ * Minimal JSON writing for the few hand-built payloads (Discord webhooks, audit log); there is no JSON
+ * library on the classpath that works on every server version.
+ */
+public final class JsonUtils {
+
+    private JsonUtils() {}
+
+    /** Appends {@code value} as a quoted JSON string, or {@code null}. */
+    public static StringBuilder appendString(StringBuilder json, String value) {
+        if (value == null) return json.append("null");
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+                }
+            }
+        }
+        return json.append('"');
+    }
+}
@@ -0,0 +1,22 @@
+package de.jakomi1.betterBan.utils;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+
+/**
+ * Who issued or lifted a punishment. Recorded in the punishment history.
+ *
+ * @param uuid null for the console and for automatic actions
+ */
+public record Moderator(UUID uuid, String name) {
+
+    public static final Moderator CONSOLE = new Moderator(null, "Console");
+    /** Actions taken by the plugin itself (expiry, chat filter, spam detection). */
+    public static final Moderator SYSTEM = new Moderator(null, "BetterBan");
+
+    public static Moderator of(CommandSender sender) {
+        return sender instanceof Player player ? new Moderator(player.getUniqueId(), player.getName()) : CONSOLE;
+    }
+}
@@ -0,0 +1,104 @@
+package de.jakomi1.betterBan.utils;
+
+import de.jakomi1.betterBan.cache.LruCache;
+import de.jakomi1.betterBan.database.Database;
+import de.jakomi1.betterBan.scheduler.Scheduler;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Player name to UUID for commands, answered locally: Mojang is never asked, so there is no
+ * {@code Bukkit.getOfflinePlayer(name)} and no blocking profile lookup.
+ * <p>
+ * A lookup goes through an LRU of recent answers (O(1)), then the name index of all known players, and only
+ * then to the database, which also knows the earlier names of every player (name_history). The LRU keeps
+ * misses as well, so a mistyped or old name costs one indexed query and not one per command.
+ * {@link BanUtils#markJoined} drops both names of a player from the LRU when they join under a new one.
+ */
+public final class NameResolver {
+
+    /** A known player; {@code name} is their current name, which may differ from the one looked up. */
+    public record Resolved(UUID uuid, String name) {}
+
+    // Cached "nobody known carries or carried this name"
+    private static final UUID UNKNOWN = new UUID(0L, 0L);
+
+    // Lowercase name -> UUID; created on first use with the configured size
+    private static volatile LruCache<String, UUID> cache;
+
+    private NameResolver() {}
+
+    // ==============================================================
+
+    /**
+     * Resolves a name as typed by a command sender (ignoring case). Completes immediately if the answer is in
+     * memory; otherwise the database is queried on an async thread.
+     *
+     * @return empty if no player with this name (now or earlier) has ever joined
+     */
+    public static CompletableFuture<Optional<Resolved>> resolve(String name) {
+        if (name == null || name.isBlank()) return CompletableFuture.completedFuture(Optional.empty());
+        String key = name.toLowerCase(Locale.ROOT);
+        LruCache<String, UUID> lru = cache();
+
+        UUID cached = lru.get(key);
+        if (cached != null && !cached.equals(UNKNOWN)) {
+            return CompletableFuture.completedFuture(Optional.of(resolved(cached, name)));
+        }
+
+        // Checked on a cached miss too: a player joining while their miss was being looked up is not invalidated
+        UUID known = BanUtils.getKnownUuid(name);
+        if (known != null) {
+            lru.put(key, known);
+            return CompletableFuture.completedFuture(Optional.of(resolved(known, name)));
+        }
+        if (cached != null) return CompletableFuture.completedFuture(Optional.empty());
+
+        return Scheduler.supplyAsync(() -> {
+            Optional<UUID> found;
+            try {
+                found = Database.getStore().findUuidByName(name);
+            } catch (SQLException e) {
+                // Not cached, the next command tries again
+                e.printStackTrace();
+                return Optional.empty();
+            }
+            lru.put(key, found.orElse(UNKNOWN));
+            return found.map(uuid -> resolved(uuid, name));
+        });
+    }
+
+    /**
+     * Forgets the cached answers for a player's previous and new name, called when they join under a new
+     * name (or for the first time).
+     */
+    static void invalidate(String oldName, String newName) {
+        LruCache<String, UUID> lru = cache;
+        if (lru == null) return;
+        if (oldName != null) lru.remove(oldName.toLowerCase(Locale.ROOT));
+        lru.remove(newName.toLowerCase(Locale.ROOT));
+    }
+
+    private static Resolved resolved(UUID uuid, String typed) {
+        return new Resolved(uuid, Objects.requireNonNullElse(BanUtils.knownName(uuid), typed));
+    }
+
+    private static LruCache<String, UUID> cache() {
+        LruCache<String, UUID> lru = cache;
+        if (lru == null) {
+            synchronized (NameResolver.class) {
+                lru = cache;
+                if (lru == null) {
+                    lru = new LruCache<>(Math.max(16, ConfigUtils.getNameResolverCacheSize()));
+                    cache = lru;
+                }
+            }
+        }
+        return lru;
+    }
+}
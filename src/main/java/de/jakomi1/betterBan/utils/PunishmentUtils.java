@@ -0,0 +1,299 @@
+package de.jakomi1.betterBan.utils;
+
+import de.jakomi1.betterBan.cache.CacheReconciler;
+import de.jakomi1.betterBan.cache.ExpiryScheduler;
+import de.jakomi1.betterBan.cache.NameIndex;
+import de.jakomi1.betterBan.cache.Punishment;
+import de.jakomi1.betterBan.cache.PunishmentCache;
+import de.jakomi1.betterBan.cache.PunishmentKey;
+import de.jakomi1.betterBan.cache.PunishmentListIndex;
+import de.jakomi1.betterBan.cache.PunishmentSet;
+import de.jakomi1.betterBan.database.Database;
+import de.jakomi1.betterBan.database.HistoryAction;
+import de.jakomi1.betterBan.database.PunishmentType;
+import de.jakomi1.betterBan.database.WriteBehindQueue;
+import de.jakomi1.betterBan.events.ModerationEvent;
+import de.jakomi1.betterBan.events.ModerationEvents;
+
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * The punishment engine: one cache, one table and one expiry path for every {@link PunishmentType}.
+ * {@link BanUtils} and {@link ChatBanUtils} are thin facades over it.
+ * <p>
+ * Reads are answered from memory only. Writes update the cache right away and reach the database
+ * through the {@link WriteBehindQueue}; every change is also recorded in the history.
+ */
+public final class PunishmentUtils {
+
+    // (UUID, type) -> Punishment, all types of a player are found with one probe
+    private static final PunishmentCache cache = PunishmentCache.create();
+    // All cache writes go through it, so a background reload never overwrites newer entries
+    private static final CacheReconciler reconciler = new CacheReconciler(cache);
+
+    // Temporary entries of all types ordered by end timestamp, see expire()
+    private static final ExpiryScheduler expiry = new ExpiryScheduler(cache);
+    private static final Map<PunishmentType, List<BiConsumer<UUID, Punishment>>> expiryListeners =
+            new EnumMap<>(PunishmentType.class);
+    private static final AtomicLong expireBatches = new AtomicLong();
+
+    // Names of currently punished players per type, for tab completion
+    private static final Map<PunishmentType, NameIndex> punishedNames = new EnumMap<>(PunishmentType.class);
+
+    // Punishments per type in list order, for /banlist and /chatbanlist
+    private static final Map<PunishmentType, PunishmentListIndex> listings = new EnumMap<>(PunishmentType.class);
+
+    static {
+        for (PunishmentType type : PunishmentType.values()) {
+            expiryListeners.put(type, new CopyOnWriteArrayList<>());
+            punishedNames.put(type, new NameIndex());
+            listings.put(type, new PunishmentListIndex());
+        }
+    }
+
+    private PunishmentUtils() {}
+
+    // ==============================================================
+
+    /**
+     * Loads (or reconciles) the cache from the database. Safe to call while the cache is in use.
+     *
+     * @return false if the database couldn't be read
+     */
+    public static boolean init() {
+        Map<PunishmentKey, Punishment> loaded = new HashMap<>();
+        reconciler.begin();
+        try {
+            // Everything written before begin() must be visible to the load below
+            WriteBehindQueue.flush().join();
+            Database.getStore().loadPunishments((uuid, type, end, reason) ->
+                    loaded.put(new PunishmentKey(uuid, type), new Punishment(end, reason)));
+        } catch (SQLException | CompletionException e) {
+            e.printStackTrace();
+            // Keep what we have instead of reconciling against a partial load
+            reconciler.abort();
+            return false;
+        }
+        // Loaded up front, so each new listing entry is sorted in once, with its creation time
+        Map<PunishmentKey, Long> created = loadCreated();
+        reconciler.finish(loaded, (key, punishment) -> {
+            expiry.schedule(key.uuid(), key.type(), punishment);
+            addPunishedName(key.uuid(), key.type());
+            listings.get(key.type()).put(key.uuid(), BanUtils.knownName(key.uuid()), punishment,
+                    created.getOrDefault(key, 0L));
+        }, key -> {
+            punishedNames.get(key.type()).remove(key.uuid());
+            listings.get(key.type()).remove(key.uuid());
+        });
+        // Entries that were already cached and didn't change (i.e. restored from a snapshot) aren't indexed yet
+        reconciler.forEach((uuid, type, punishment) -> {
+            if (punishedNames.get(type).getName(uuid) == null) addPunishedName(uuid, type);
+            listings.get(type).putIfAbsent(uuid, BanUtils.knownName(uuid), punishment,
+                    created.getOrDefault(new PunishmentKey(uuid, type), 0L));
+        });
+        return true;
+    }
+
+    /** When the cached punishments were issued; empty if the history couldn't be read. */
+    private static Map<PunishmentKey, Long> loadCreated() {
+        Map<PunishmentKey, Long> created = new HashMap<>();
+        try {
+            Database.getStore().loadPunishmentCreated((uuid, type, createdAt) ->
+                    created.put(new PunishmentKey(uuid, type), createdAt));
+        } catch (SQLException e) {
+            // Only the "created" order of /banlist suffers
+            e.printStackTrace();
+        }
+        return created;
+    }
+
+    /**
+     * Fills the cache from a snapshot of the last shutdown, see {@link StartupUtils}. Only what login
+     * checks and expiry need; the name and list indexes are built by the following {@link #init()}.
+     */
+    static void restore(Map<PunishmentKey, Punishment> punishments) {
+        cache.replaceAll(punishments);
+        expiry.scheduleAll();
+    }
+
+    static PunishmentCache getCache() {
+        return cache;
+    }
+
+    // ==============================================================
+
+    /**
+     * Creates or replaces the punishment of the given type.
+     *
+     * @param endTimestamp end in epoch millis, {@link Punishment#PERMANENT} for permanent
+     */
+    public static void punish(UUID uuid, PunishmentType type, long endTimestamp, String reason, Moderator by) {
+        // Update cache
+        Punishment punishment = new Punishment(endTimestamp, reason);
+        reconciler.write(new PunishmentKey(uuid, type), () -> {
+            cache.put(uuid, type, punishment);
+            expiry.schedule(uuid, type, punishment);
+            addPunishedName(uuid, type);
+            listings.get(type).put(uuid, BanUtils.knownName(uuid), punishment, System.currentTimeMillis());
+        });
+
+        WriteBehindQueue.submit(writeKey(uuid, type),
+                writer -> writer.upsertPunishment(type, uuid, endTimestamp, reason));
+        HistoryUtils.record(uuid, type, HistoryAction.CREATE, by, punishment);
+        ModerationEvents.publish(ModerationEvent.of(ModerationEvent.Type.issued(type), uuid,
+                BanUtils.knownName(uuid), by, endTimestamp, reason));
+    }
+
+    /**
+     * Lifts the punishment of the given type.
+     *
+     * @return the removed punishment, or null if there was none
+     */
+    public static Punishment revoke(UUID uuid, PunishmentType type, Moderator by) {
+        // Remove from cache
+        Punishment[] removed = new Punishment[1];
+        reconciler.write(new PunishmentKey(uuid, type), () -> {
+            removed[0] = cache.remove(uuid, type);
+            punishedNames.get(type).remove(uuid);
+            listings.get(type).remove(uuid);
+        });
+
+        WriteBehindQueue.submit(writeKey(uuid, type), writer -> writer.deletePunishment(type, uuid));
+        if (removed[0] != null) {
+            HistoryUtils.record(uuid, type, HistoryAction.REVOKE, by, removed[0]);
+            ModerationEvents.publish(ModerationEvent.of(ModerationEvent.Type.revoked(type), uuid,
+                    BanUtils.knownName(uuid), by, 0L, null));
+        }
+        return removed[0];
+    }
+
+    private static String writeKey(UUID uuid, PunishmentType type) {
+        return "punishments:" + type + ":" + uuid;
+    }
+
+    // ==============================================================
+
+    /** Every punishment of the player with a single cache probe; entries may already be expired. */
+    public static PunishmentSet getAll(UUID uuid) {
+        return cache.getAll(uuid);
+    }
+
+    /** Raw entry, may already be expired. */
+    public static Punishment get(UUID uuid, PunishmentType type) {
+        return cache.get(uuid, type);
+    }
+
+    /** The active punishment of the given type, or null. */
+    public static Punishment getActive(UUID uuid, PunishmentType type) {
+        return cache.getActive(uuid, type, System.currentTimeMillis());
+    }
+
+    public static boolean isPunished(UUID uuid, PunishmentType type) {
+        return getActive(uuid, type) != null;
+    }
+
+    /** All active punishments of the given type. */
+    public static Map<UUID, Punishment> getAllActive(PunishmentType type) {
+        Map<UUID, Punishment> active = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        cache.forEach((uuid, entryType, punishment) -> {
+            if (entryType == type && punishment.isActive(now)) active.put(uuid, punishment);
+        });
+        return active;
+    }
+
+    // ==============================================================
+
+    /** Expires everything that is due right now, in batches. */
+    public static void clearExpired() {
+        // Everything that is due goes through the expiry path, so each removal ends up in the history
+        int batchSize = Math.max(1, ConfigUtils.getExpiryBatchSize());
+        while (expire(batchSize) == batchSize) {
+            // keep draining
+        }
+    }
+
+    /**
+     * Removes up to {@code maxBatch} punishments of any type that ran out from the cache and deletes them
+     * from the database in one write. Called periodically; O(log n) per expired entry.
+     *
+     * @return number of expired entries
+     */
+    public static int expire(int maxBatch) {
+        List<ExpiryScheduler.Expired> expired = expiry.expire(System.currentTimeMillis(), maxBatch, e -> {
+            // Like revoke(): the indexes only change together with the cache entry, so a punishment
+            // re-issued in the meantime keeps its name and listing
+            boolean[] removed = {false};
+            reconciler.write(new PunishmentKey(e.uuid(), e.type()), () -> {
+                removed[0] = cache.remove(e.uuid(), e.type(), e.punishment());
+                if (removed[0]) {
+                    punishedNames.get(e.type()).remove(e.uuid());
+                    listings.get(e.type()).remove(e.uuid());
+                }
+            });
+            return removed[0];
+        });
+        if (expired.isEmpty()) return 0;
+        WriteBehindQueue.submit("punishments:expire:" + expireBatches.incrementAndGet(), writer -> {
+            for (ExpiryScheduler.Expired e : expired) {
+                writer.deleteExpired(e.type(), e.uuid(), e.punishment().endTimestamp());
+                writer.appendHistory(HistoryUtils.entry(e.uuid(), e.type(), HistoryAction.EXPIRE,
+                        Moderator.SYSTEM, e.punishment()));
+            }
+        });
+
+        for (ExpiryScheduler.Expired e : expired) {
+            ModerationEvents.publish(ModerationEvent.of(ModerationEvent.Type.expired(e.type()), e.uuid(),
+                    BanUtils.knownName(e.uuid()), Moderator.SYSTEM, e.punishment().endTimestamp(),
+                    e.punishment().reason()));
+            for (BiConsumer<UUID, Punishment> listener : expiryListeners.get(e.type())) {
+                try {
+                    listener.accept(e.uuid(), e.punishment());
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+        return expired.size();
+    }
+
+    /** Registers a callback that runs whenever a temporary punishment of the given type expires. */
+    public static void onExpire(PunishmentType type, BiConsumer<UUID, Punishment> listener) {
+        expiryListeners.get(type).add(listener);
+    }
+
+    // ==============================================================
+
+    /** Names of players with an active punishment of the given type, for tab completion. */
+    public static List<String> completePunishedNames(PunishmentType type, String prefix) {
+        return punishedNames.get(type).complete(prefix, BanUtils.COMPLETION_LIMIT, uuid -> isPunished(uuid, type));
+    }
+
+    /** Punishments of the given type in list order; entries may already be expired. */
+    public static PunishmentListIndex getListing(PunishmentType type) {
+        return listings.get(type);
+    }
+
+    /** Carries a name change over to the name indexes of the player's punishments. */
+    static void rename(UUID uuid, String name) {
+        for (PunishmentType type : PunishmentType.values()) {
+            if (punishedNames.get(type).getName(uuid) != null) punishedNames.get(type).put(uuid, name);
+            listings.get(type).rename(uuid, name);
+        }
+    }
+
+    private static void addPunishedName(UUID uuid, PunishmentType type) {
+        String name = BanUtils.knownName(uuid);
+        if (name != null) punishedNames.get(type).put(uuid, name);
+    }
+}
@@ -0,0 +1,76 @@
+package de.jakomi1.betterBan.utils;
+
+import de.jakomi1.betterBan.cache.MessageHistory;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Automatic chat-bans for spam: too many messages in a short time, or the same message over and over.
+ * <p>
+ * Each online player has a {@link MessageHistory} of their last messages (timestamps and hashes only).
+ * Entries are created on the first message and removed on quit, so memory is bounded by the number of
+ * online players.
+ */
+public final class SpamUtils {
+
+    // Messages with fewer letters are never treated as duplicates ("gg", "ok")
+    private static final int MIN_DUPLICATE_LETTERS = 4;
+    private static final long FALLBACK_BAN_MILLIS = 10 * 60_000L;
+
+    private static final ConcurrentHashMap<UUID, MessageHistory> histories = new ConcurrentHashMap<>();
+
+    private SpamUtils() {}
+
+    // ==============================================================
+
+    /**
+     * Records a chat message and checks it against the limits. Safe to call from the async chat thread.
+     */
+    public static MessageHistory.Verdict check(UUID uuid, String message) {
+        if (!ConfigUtils.isSpamProtectionEnabled()) return MessageHistory.Verdict.OK;
+
+        int rateMessages = Math.max(1, ConfigUtils.getSpamRateMessages());
+        int dupMessages = Math.max(1, ConfigUtils.getSpamDuplicateMessages());
+        // One slot more than the larger limit, so the message that exceeds it is still in the buffer
+        int capacity = Math.max(rateMessages, dupMessages) + 1;
+
+        MessageHistory history = histories.computeIfAbsent(uuid, key -> new MessageHistory(capacity));
+        return history.record(System.currentTimeMillis(), MessageHistory.hash(message, MIN_DUPLICATE_LETTERS),
+                rateMessages, Math.max(1, ConfigUtils.getSpamRateSeconds()) * 1000L,
+                dupMessages, Math.max(1, ConfigUtils.getSpamDuplicateSeconds()) * 1000L);
+    }
+
+    /**
+     * Chat-bans the player for spamming and resets their history.
+     *
+     * @return the message for the player
+     */
+    public static String punish(UUID uuid, MessageHistory.Verdict verdict) {
+        MessageHistory history = histories.get(uuid);
+        if (history != null) history.clear();
+
+        long duration = getBanDuration();
+        String reason = verdict == MessageHistory.Verdict.DUPLICATE ? "Spam (repeated messages)" : "Spam (too many messages)";
+        ChatBanUtils.chatTempBan(uuid, duration, reason, Moderator.SYSTEM);
+        return ChatBanUtils.getChatBanMessage(uuid);
+    }
+
+    /** Drops the history of a player that left. */
+    public static void forget(UUID uuid) {
+        histories.remove(uuid);
+    }
+
+    private static long getBanDuration() {
+        String value = ConfigUtils.getSpamChatBanDuration().trim().toLowerCase(Locale.ROOT);
+        try {
+            return ChatFilterUtils.parseDuration(value);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid spam chat-ban duration '" + value + "', using 10m");
+            return FALLBACK_BAN_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package de.jakomi1.betterBan.utils;
+
+import de.jakomi1.betterBan.cache.CacheSnapshot;
+import de.jakomi1.betterBan.database.Database;
+import de.jakomi1.betterBan.database.MemoryPunishmentStore;
+import de.jakomi1.betterBan.database.PunishmentStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static de.jakomi1.betterBan.BetterBan.dataFolder;
+import static de.jakomi1.betterBan.BetterBan.plugin;
+
+/**
+ * Loads the punishment cache and the known players without blocking server startup.
+ * <p>
+ * On shutdown the caches are written to a binary {@link CacheSnapshot} together with the store's
+ * {@link PunishmentStore#highWaterMark() high-water mark} (latest history ids, punishment count and checksums,
+ * known-player count). On startup the mark is queried again and the snapshot is only used if both match,
+ * i.e. nothing was written to the database since - neither by this server after its last snapshot (e.g.
+ * before a crash) nor by another server sharing the database.
+ * <p>
+ * Either way the caches are then (re)loaded from the database on a background thread. The snapshot only
+ * restores what login checks need (bans, expiry order, known UUIDs); the name and list indexes for tab
+ * completion and /banlist are built by that load.
+ * {@link #awaitReady(long)} completes as soon as the bans are known: right after a snapshot passed the
+ * check, otherwise once the database load is done.
+ */
+public final class StartupUtils {
+
+    private static final String SNAPSHOT_FILE = "cache.snapshot";
+
+    private static final CompletableFuture<Void> ready = new CompletableFuture<>();
+    // True once the caches match the database; only then a snapshot may be written
+    private static volatile boolean loaded;
+
+    private StartupUtils() {}
+
+    // ==============================================================
+
+    /**
+     * Restores the snapshot (if valid) and starts the background load. Called from {@link Database#init()}
+     * after the write-behind queue is running.
+     */
+    public static void loadCaches() {
+        long start = System.nanoTime();
+        PunishmentStore store = Database.getStore();
+
+        // IP bans are few and not part of the snapshot; load them before the first login
+        if (!IpBanUtils.init()) plugin.getLogger().severe("Couldn't load IP bans from " + store.name());
+
+        if (ConfigUtils.isCacheSnapshotEnabled() && restoreSnapshot(store)) {
+            ready.complete(null);
+            plugin.getLogger().info("Restored caches from snapshot in " + millisSince(start) + " ms");
+        }
+
+        Thread loader = new Thread(() -> {
+            long loadStart = System.nanoTime();
+            try {
+                boolean players = BanUtils.loadKnownPlayers();
+                boolean punishments = PunishmentUtils.init();
+                if (players && punishments) {
+                    loaded = true;
+                    plugin.getLogger().info((ready.isDone() ? "Reconciled" : "Loaded") + " caches from "
+                            + store.name() + " in " + millisSince(loadStart) + " ms");
+                } else {
+                    plugin.getLogger().severe("Couldn't load all punishments from " + store.name());
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                ready.complete(null);
+            }
+
+            // Not needed for login checks, so it is loaded after the caches are ready
+            try {
+                if (!AltUtils.init()) plugin.getLogger().warning("Couldn't load login addresses from " + store.name());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, "BetterBan-CacheLoader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Blocks until the ban cache is usable or the timeout passes.
+     *
+     * @return true if the caches are ready
+     */
+    public static boolean awaitReady(long timeoutMillis) {
+        if (ready.isDone()) return true;
+        try {
+            ready.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // fall through
+        }
+        return false;
+    }
+
+    public static boolean isReady() {
+        return ready.isDone();
+    }
+
+    /**
+     * Writes the cache snapshot. Called from {@link Database#shutdown()} after the write-behind queue
+     * is drained, so the caches and the database hold the same state.
+     */
+    public static void saveSnapshot() {
+        PunishmentStore store = Database.getStore();
+        if (!ConfigUtils.isCacheSnapshotEnabled() || store == null || store instanceof MemoryPunishmentStore) return;
+        if (!loaded) {
+            plugin.getLogger().warning("Caches were not fully loaded, skipping cache snapshot");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            CacheSnapshot.write(new File(dataFolder, SNAPSHOT_FILE), store.highWaterMark(),
+                    PunishmentUtils.getCache(), BanUtils.getKnownNames());
+            plugin.getLogger().info("Wrote cache snapshot in " + millisSince(start) + " ms");
+        } catch (IOException | SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ==============================================================
+
+    private static boolean restoreSnapshot(PunishmentStore store) {
+        try {
+            CacheSnapshot.Data snapshot = CacheSnapshot.read(new File(dataFolder, SNAPSHOT_FILE));
+            if (snapshot == null) return false;
+            if (!snapshot.highWaterMark().equals(store.highWaterMark())) {
+                plugin.getLogger().info("Cache snapshot is outdated, loading caches from " + store.name());
+                return false;
+            }
+
+            BanUtils.restore(snapshot.joined());
+            PunishmentUtils.restore(snapshot.punishments());
+            return true;
+        } catch (IOException | SQLException e) {
+            plugin.getLogger().warning("Ignoring cache snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
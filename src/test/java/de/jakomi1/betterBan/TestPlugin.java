@@ -0,0 +1,54 @@
+package de.jakomi1.betterBan;
+
+import de.jakomi1.betterBan.utils.ConfigUtils;
+import org.bukkit.plugin.Plugin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+/**
+ * Stands in for the running plugin: {@link BetterBan#plugin} answers getDataFolder() and getLogger(), and the
+ * config is read from a folder of its own. There is one folder per test JVM, as {@code Database} resolves the
+ * SQLite file from it once.
+ */
+public final class TestPlugin {
+
+    private static final Logger LOGGER = Logger.getLogger("BetterBan");
+    private static Path dataFolder;
+
+    private TestPlugin() {}
+
+    public static synchronized Path dataFolder() {
+        if (dataFolder == null) {
+            try {
+                dataFolder = Files.createTempDirectory("betterban-test");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            dataFolder.toFile().deleteOnExit();
+            Path folder = dataFolder;
+            BetterBan.plugin = (Plugin) Proxy.newProxyInstance(TestPlugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getDataFolder" -> folder.toFile();
+                        case "getLogger" -> LOGGER;
+                        case "getName", "toString" -> "BetterBan";
+                        case "isEnabled" -> true;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+            BetterBan.dataFolder = folder.toFile();
+        }
+        return dataFolder;
+    }
+
+    /** Writes {@code yaml} as config.yml and (re)loads it. */
+    public static void install(String yaml) throws IOException {
+        Files.writeString(dataFolder().resolve("config.yml"), yaml);
+        ConfigUtils.loadConfig();
+    }
+}
@@ -0,0 +1,240 @@
+package de.jakomi1.betterBan.cache;
+
+import de.jakomi1.betterBan.database.PunishmentType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers both cache implementations from several threads at once. Every record written carries its end
+ * timestamp in the reason as well, so a reader that sees parts of two different writes notices.
+ */
+class PunishmentCacheConcurrencyTest {
+
+    private static final PunishmentType[] TYPES = PunishmentType.values();
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int KEYS_PER_WRITER = 256;
+    private static final int WRITES_PER_WRITER = 50_000;
+
+    private static PunishmentCache create(String implementation) {
+        return switch (implementation) {
+            case "packed" -> new PackedPunishmentCache();
+            default -> new MapPunishmentCache();
+        };
+    }
+
+    private static Punishment punishment(long endTimestamp) {
+        return new Punishment(endTimestamp, Long.toString(endTimestamp));
+    }
+
+    /** A torn read shows up as a reason that doesn't match the end timestamp. */
+    private static void check(Punishment punishment, ConcurrentLinkedQueue<String> errors) {
+        if (punishment != null && !Long.toString(punishment.endTimestamp()).equals(punishment.reason())) {
+            errors.add("torn record " + punishment);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"map", "packed"})
+    void concurrentReadsAndWrites(String implementation) throws Exception {
+        PunishmentCache cache = create(implementation);
+        UUID[][] keys = new UUID[WRITERS][KEYS_PER_WRITER];
+        for (UUID[] row : keys) {
+            for (int i = 0; i < row.length; i++) row[i] = UUID.randomUUID();
+        }
+        // Each writer owns its keys, so its own log is the expected end state
+        List<Map<PunishmentKey, Punishment>> expected = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) expected.add(new HashMap<>());
+
+        ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        List<Thread> others = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(new Thread(() -> {
+                await(start);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Map<PunishmentKey, Punishment> log = expected.get(writer);
+                for (int n = 0; n < WRITES_PER_WRITER; n++) {
+                    UUID uuid = keys[writer][random.nextInt(KEYS_PER_WRITER)];
+                    PunishmentType type = TYPES[random.nextInt(TYPES.length)];
+                    PunishmentKey key = new PunishmentKey(uuid, type);
+                    if (random.nextInt(3) == 0) {
+                        Punishment removed = cache.remove(uuid, type);
+                        if (!Objects.equals(removed, log.remove(key))) {
+                            errors.add("remove returned " + removed + " for " + key);
+                        }
+                    } else {
+                        Punishment punishment = punishment(random.nextBoolean() ? Punishment.PERMANENT
+                                : random.nextLong(1L, Long.MAX_VALUE));
+                        cache.put(uuid, type, punishment);
+                        log.put(key, punishment);
+                    }
+                }
+            }, "writer-" + w));
+        }
+        for (int r = 0; r < READERS; r++) {
+            others.add(new Thread(() -> {
+                await(start);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (writing.get()) {
+                    UUID uuid = keys[random.nextInt(WRITERS)][random.nextInt(KEYS_PER_WRITER)];
+                    PunishmentSet set = cache.getAll(uuid);
+                    for (PunishmentType type : TYPES) check(set.get(type), errors);
+                    check(cache.get(uuid, TYPES[random.nextInt(TYPES.length)]), errors);
+                    reads.incrementAndGet();
+                }
+            }, "reader-" + r));
+        }
+        others.add(new Thread(() -> {
+            await(start);
+            while (writing.get()) cache.forEach((uuid, type, punishment) -> check(punishment, errors));
+        }, "iterator"));
+
+        writers.forEach(Thread::start);
+        others.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : writers) thread.join();
+        writing.set(false);
+        for (Thread thread : others) thread.join();
+
+        assertTrue(errors.isEmpty(), () -> errors.size() + " errors, first: " + errors.peek());
+        assertTrue(reads.get() > 0);
+        int total = 0;
+        for (Map<PunishmentKey, Punishment> log : expected) {
+            total += log.size();
+            for (UUID[] row : keys) {
+                for (UUID uuid : row) {
+                    for (PunishmentType type : TYPES) {
+                        PunishmentKey key = new PunishmentKey(uuid, type);
+                        if (log.containsKey(key)) assertEquals(log.get(key), cache.get(uuid, type));
+                    }
+                }
+            }
+        }
+        assertEquals(total, cache.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"map", "packed"})
+    void conditionalRemoveHasExactlyOneWinner(String implementation) throws Exception {
+        PunishmentCache cache = create(implementation);
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID uuid = UUID.randomUUID();
+            uuids.add(uuid);
+            cache.put(uuid, PunishmentType.BAN, punishment(i + 1));
+        }
+
+        AtomicInteger removed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < uuids.size(); i++) {
+                    if (cache.remove(uuids.get(i), PunishmentType.BAN, punishment(i + 1))) removed.incrementAndGet();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(uuids.size(), removed.get());
+        assertEquals(0, cache.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"map", "packed"})
+    void removeExpiredKeepsRenewedEntries(String implementation) throws Exception {
+        PunishmentCache cache = create(implementation);
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID uuid = UUID.randomUUID();
+            uuids.add(uuid);
+            cache.put(uuid, PunishmentType.CHAT_BAN, punishment(1L));
+        }
+
+        AtomicBoolean renewing = new AtomicBoolean(true);
+        Thread expiry = new Thread(() -> {
+            while (renewing.get()) cache.removeExpired(System.currentTimeMillis());
+        });
+        expiry.start();
+        // Renewed while the expiry runs: must never be taken away with the expired record
+        for (UUID uuid : uuids) cache.put(uuid, PunishmentType.CHAT_BAN, punishment(Punishment.PERMANENT));
+        renewing.set(false);
+        expiry.join();
+        cache.removeExpired(System.currentTimeMillis());
+
+        assertEquals(uuids.size(), cache.size());
+        for (UUID uuid : uuids) assertEquals(punishment(Punishment.PERMANENT), cache.get(uuid, PunishmentType.CHAT_BAN));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"map", "packed"})
+    void replaceAllSwapsWholeSnapshots(String implementation) throws Exception {
+        PunishmentCache cache = create(implementation);
+        Map<PunishmentKey, Punishment> first = new HashMap<>();
+        Map<PunishmentKey, Punishment> second = new HashMap<>();
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            UUID uuid = UUID.randomUUID();
+            uuids.add(uuid);
+            first.put(new PunishmentKey(uuid, PunishmentType.BAN), punishment(1_000L));
+            second.put(new PunishmentKey(uuid, PunishmentType.BAN), punishment(2_000L));
+        }
+        cache.replaceAll(first);
+
+        ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+        AtomicBoolean swapping = new AtomicBoolean(true);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (swapping.get()) {
+                    Punishment punishment = cache.get(uuids.get(random.nextInt(uuids.size())), PunishmentType.BAN);
+                    // Every key is in both snapshots, so it is never missing
+                    if (punishment == null) errors.add("missing entry during replaceAll");
+                    else check(punishment, errors);
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        for (int n = 0; n < 200; n++) cache.replaceAll(n % 2 == 0 ? second : first);
+        swapping.set(false);
+        for (Thread thread : readers) thread.join();
+
+        assertTrue(errors.isEmpty(), () -> errors.size() + " errors, first: " + errors.peek());
+        assertEquals(first.size(), cache.size());
+        for (UUID uuid : uuids) assertEquals(punishment(1_000L), cache.get(uuid, PunishmentType.BAN));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
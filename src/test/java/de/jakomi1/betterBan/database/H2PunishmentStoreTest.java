@@ -0,0 +1,16 @@
+package de.jakomi1.betterBan.database;
+
+import java.util.UUID;
+
+class H2PunishmentStoreTest extends PunishmentStoreTest {
+
+    @Override
+    protected String type() {
+        return "h2";
+    }
+
+    @Override
+    protected String config() {
+        return "storage:\n  type: h2\n  jdbc-url: \"jdbc:h2:mem:" + UUID.randomUUID() + "\"\n";
+    }
+}
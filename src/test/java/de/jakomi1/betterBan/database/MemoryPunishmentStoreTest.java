@@ -0,0 +1,19 @@
+package de.jakomi1.betterBan.database;
+
+class MemoryPunishmentStoreTest extends PunishmentStoreTest {
+
+    @Override
+    protected String type() {
+        return "memory";
+    }
+
+    @Override
+    protected String config() {
+        return "storage:\n  type: memory\n";
+    }
+
+    @Override
+    protected boolean keepsArchivedHistory() {
+        return false;
+    }
+}
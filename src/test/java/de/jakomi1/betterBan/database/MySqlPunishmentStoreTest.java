@@ -0,0 +1,144 @@
+package de.jakomi1.betterBan.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The MySQL dialect against H2 in MySQL mode. PostgreSQL has no counterpart here, as H2 doesn't support its
+ * ON CONFLICT DO UPDATE upserts.
+ * <p>
+ * MySQL commits every DDL statement, so a migration that fails halfway stays half applied. The migration
+ * tests rebuild such states and open the store again.
+ */
+class MySqlPunishmentStoreTest extends PunishmentStoreTest {
+
+    @Override
+    protected String type() {
+        return "mysql";
+    }
+
+    @Override
+    protected String config() {
+        // DB_CLOSE_DELAY keeps the database over reopen(), which closes every connection
+        return "storage:\n  type: mysql\n  jdbc-url: \"jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1\"\n"
+                + "database:\n  migration-chunk-size: 2\n";
+    }
+
+    private static void execute(String... statements) throws SQLException {
+        try (Connection conn = Database.getWriteConnection();
+             Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            for (String sql : statements) stmt.executeUpdate(sql);
+            conn.commit();
+        }
+    }
+
+    private static int count(String sql) throws SQLException {
+        try (Connection conn = Database.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private void reopen() throws SQLException {
+        Database.closePool();
+        store = Database.openStore(type());
+    }
+
+    private void joinPlayers(int players) throws SQLException {
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            for (int i = 0; i < players; i++) writer.markJoined(UUID.randomUUID(), "Player" + i);
+            writer.commit();
+        }
+    }
+
+    @Test
+    void uuidSwapResumesAfterTheOldTableWasDropped() throws Exception {
+        joinPlayers(5);
+        // Stopped between DROP TABLE has_joined and the rename of has_joined_v2
+        execute("ALTER TABLE has_joined RENAME TO has_joined_v2",
+                "DELETE FROM schema_version WHERE name = 'binary_uuid_has_joined'",
+                "INSERT INTO schema_version (name, version) VALUES ('binary_uuid_has_joined:chunks-done', 4)");
+        reopen();
+
+        assertEquals(5, count("SELECT COUNT(*) FROM has_joined"));
+        assertEquals(0, count("SELECT COUNT(*) FROM schema_version WHERE name LIKE '%:chunks-done'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM schema_version WHERE name = 'binary_uuid_has_joined'"));
+    }
+
+    @Test
+    void uuidSwapIsNotCopiedAgainAfterTheRename() throws Exception {
+        joinPlayers(5);
+        // Stopped after the rename, before the migration was recorded
+        execute("DELETE FROM schema_version WHERE name = 'binary_uuid_has_joined'",
+                "INSERT INTO schema_version (name, version) VALUES ('binary_uuid_has_joined:chunks-done', 4)");
+        reopen();
+
+        assertEquals(5, count("SELECT COUNT(*) FROM has_joined"));
+        Map<UUID, String> joined = new HashMap<>();
+        store.loadJoined(joined::put);
+        assertEquals(5, joined.size());
+    }
+
+    @Test
+    void mergeResumesWithoutDuplicates() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.upsertPunishment(PunishmentType.CHAT_BAN, uuid, -1, "merged");
+            writer.commit();
+        }
+        // chat_bans still there after its rows were copied, and the index missing
+        execute("DELETE FROM schema_version WHERE name = 'merge_punishment_tables'",
+                "DROP INDEX idx_punishments_end_timestamp ON punishments",
+                "CREATE TABLE chat_bans (uuid BINARY(16) PRIMARY KEY, end_timestamp BIGINT NOT NULL, reason TEXT)",
+                "INSERT INTO chat_bans SELECT uuid, end_timestamp, reason FROM punishments",
+                "INSERT INTO chat_bans VALUES (X'00112233445566778899aabbccddeeff', -1, 'not merged yet')");
+        reopen();
+
+        assertEquals(2, count("SELECT COUNT(*) FROM punishments WHERE type = 'CHAT_BAN'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM schema_version WHERE name = 'merge_punishment_tables'"));
+    }
+
+    @Test
+    void simpleMigrationsCanRunAgain() throws Exception {
+        execute("DROP INDEX idx_history_executor ON punishment_history",
+                "DELETE FROM schema_version WHERE version >= 5");
+        reopen();
+
+        assertEquals(((JdbcPunishmentStore) store).migrations().size(), count("SELECT COUNT(*) FROM schema_version"));
+        try (Connection conn = Database.getReadConnection()) {
+            assertTrue(SqlPunishmentStore.hasIndex(conn, "punishment_history", "idx_history_executor"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void connectionsClosedByTheServerAreReopened() throws Exception {
+        joinPlayers(3);
+        // What wait_timeout does: the server ends connections behind the pool's back
+        Field writer = Database.class.getDeclaredField("writer");
+        Field readers = Database.class.getDeclaredField("allReaders");
+        writer.setAccessible(true);
+        readers.setAccessible(true);
+        ((Connection) writer.get(null)).close();
+        for (Connection conn : (List<Connection>) readers.get(null)) conn.close();
+        Thread.sleep(1100L);
+
+        joinPlayers(2);
+        assertEquals(5, count("SELECT COUNT(*) FROM has_joined"));
+    }
+}
@@ -0,0 +1,280 @@
+package de.jakomi1.betterBan.database;
+
+import de.jakomi1.betterBan.TestPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour every {@link PunishmentStore} must share. Subclasses pick the backend; each test gets an empty
+ * store with all migrations applied.
+ */
+abstract class PunishmentStoreTest {
+
+    protected PunishmentStore store;
+
+    /** Value of storage.type. */
+    protected abstract String type();
+
+    /** The storage section of config.yml, fresh database per call. */
+    protected abstract String config();
+
+    /** Runs before the store is opened, with the pool closed. */
+    protected void reset() throws Exception {
+    }
+
+    /** The memory store drops archived history instead of keeping it. */
+    protected boolean keepsArchivedHistory() {
+        return true;
+    }
+
+    @BeforeEach
+    void open() throws Exception {
+        reset();
+        TestPlugin.install(config());
+        store = Database.openStore(type());
+    }
+
+    @AfterEach
+    void close() {
+        Database.closePool();
+    }
+
+    private Map<String, String> loadPunishments() throws Exception {
+        Map<String, String> loaded = new HashMap<>();
+        store.loadPunishments((uuid, type, end, reason) -> loaded.put(uuid + "/" + type, end + "/" + reason));
+        return loaded;
+    }
+
+    private static HistoryEntry create(UUID uuid, PunishmentType type, String reason, long createdAt) {
+        return new HistoryEntry(0, uuid, type, HistoryAction.CREATE, null, "Console", reason, -1, createdAt);
+    }
+
+    // ==============================================================
+
+    @Test
+    void punishmentsAreUpsertedPerType() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.upsertPunishment(PunishmentType.BAN, uuid, -1, "first");
+            writer.upsertPunishment(PunishmentType.BAN, uuid, 5000, "second");
+            writer.upsertPunishment(PunishmentType.CHAT_BAN, uuid, 7000, null);
+            writer.commit();
+        }
+        assertEquals(Map.of(uuid + "/BAN", "5000/second", uuid + "/CHAT_BAN", "7000/null"), loadPunishments());
+
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.deletePunishment(PunishmentType.BAN, uuid);
+            writer.commit();
+        }
+        assertEquals(Map.of(uuid + "/CHAT_BAN", "7000/null"), loadPunishments());
+    }
+
+    @Test
+    void rollbackDiscardsWrites() throws Exception {
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.upsertPunishment(PunishmentType.BAN, UUID.randomUUID(), -1, "never committed");
+            writer.rollback();
+        }
+        assertTrue(loadPunishments().isEmpty());
+    }
+
+    @Test
+    void expiredDeletesOnlyTheExpectedRecord() throws Exception {
+        UUID renewed = UUID.randomUUID(), expired = UUID.randomUUID(), permanent = UUID.randomUUID();
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.upsertPunishment(PunishmentType.BAN, renewed, 9000, "renewed");
+            writer.upsertPunishment(PunishmentType.BAN, expired, 1000, "expired");
+            writer.upsertPunishment(PunishmentType.BAN, permanent, -1, "permanent");
+            writer.commit();
+        }
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            // Expiry of the record that ended at 1000; the player has been banned again since
+            writer.deleteExpired(PunishmentType.BAN, renewed, 1000);
+            writer.deleteExpired(PunishmentType.BAN, expired, 1000);
+            writer.commit();
+        }
+        assertEquals(Map.of(renewed + "/BAN", "9000/renewed", permanent + "/BAN", "-1/permanent"), loadPunishments());
+
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.deleteExpired(PunishmentType.BAN, 10_000);
+            writer.commit();
+        }
+        assertEquals(Map.of(permanent + "/BAN", "-1/permanent"), loadPunishments());
+    }
+
+    @Test
+    void historyIsNewestFirstAndSurvivesArchiving() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.appendHistory(create(uuid, PunishmentType.BAN, "one", 1000));
+            writer.appendHistory(new HistoryEntry(0, uuid, PunishmentType.BAN, HistoryAction.REVOKE,
+                    null, "Console", null, -1, 2000));
+            writer.appendHistory(create(uuid, PunishmentType.BAN, "three", 3000));
+            writer.commit();
+        }
+        List<Long> times = new ArrayList<>();
+        for (HistoryEntry entry : store.getHistory(uuid, 10)) times.add(entry.createdAt());
+        assertEquals(List.of(3000L, 2000L, 1000L), times);
+        assertEquals(HistoryAction.REVOKE, store.getHistory(uuid, 10).get(1).action());
+
+        assertEquals(2, store.archiveHistory(2500, 100));
+        assertEquals(0, store.archiveHistory(2500, 100));
+        assertEquals(keepsArchivedHistory() ? 3 : 1, store.getHistory(uuid, 10).size());
+        assertEquals(3000L, store.getHistory(uuid, 10).get(0).createdAt());
+    }
+
+    @Test
+    void searchMatchesAllWordsOfCreateRows() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.appendHistory(create(uuid, PunishmentType.BAN, "Griefing at spawn", 1000));
+            writer.appendHistory(create(uuid, PunishmentType.BAN, "Advertising another server", 2000));
+            writer.appendHistory(create(uuid, PunishmentType.CHAT_BAN, "Advertising in chat", 3000));
+            writer.appendHistory(new HistoryEntry(0, uuid, PunishmentType.BAN, HistoryAction.REVOKE,
+                    null, "Console", "Griefing at spawn", -1, 4000));
+            writer.commit();
+        }
+        assertEquals(1, store.searchHistory(SearchQuery.of("griefing", null, 0, Long.MAX_VALUE), 0, 10).size());
+        assertEquals(2, store.searchHistory(SearchQuery.of("adver*", null, 0, Long.MAX_VALUE), 0, 10).size());
+        assertEquals(1, store.searchHistory(SearchQuery.of("advertising chat", null, 0, Long.MAX_VALUE), 0, 10).size());
+
+        List<HistoryEntry> chat = store.searchHistory(SearchQuery.of("advertising", PunishmentType.CHAT_BAN, 0, Long.MAX_VALUE), 0, 10);
+        assertEquals(1, chat.size());
+        assertEquals("Advertising in chat", chat.get(0).reason());
+
+        assertTrue(store.searchHistory(SearchQuery.of("griefing", null, 1500, Long.MAX_VALUE), 0, 10).isEmpty());
+        assertEquals(1, store.searchHistory(SearchQuery.of("adver*", null, 0, Long.MAX_VALUE), 1, 10).size());
+    }
+
+    @Test
+    void createdTimeIsTheLatestCreate() throws Exception {
+        UUID uuid = UUID.randomUUID(), unknown = UUID.randomUUID();
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.upsertPunishment(PunishmentType.BAN, uuid, -1, "again");
+            writer.upsertPunishment(PunishmentType.BAN, unknown, -1, "no history");
+            writer.appendHistory(create(uuid, PunishmentType.BAN, "first", 1000));
+            writer.appendHistory(create(uuid, PunishmentType.BAN, "again", 5000));
+            writer.commit();
+        }
+        Map<UUID, Long> created = new HashMap<>();
+        store.loadPunishmentCreated((id, type, createdAt) -> created.put(id, createdAt));
+        assertEquals(Map.of(uuid, 5000L), created);
+    }
+
+    @Test
+    void namesAreFoundIgnoringCaseAndAfterRenames() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.markJoined(uuid, "Steve");
+            writer.recordName(uuid, "Steve", 1000);
+            writer.commit();
+        }
+        assertTrue(store.hasJoined(uuid));
+        assertFalse(store.hasJoined(UUID.randomUUID()));
+        assertEquals("Steve", store.getName(uuid).orElseThrow());
+        assertEquals(uuid, store.findUuidByName("STEVE").orElseThrow());
+
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.markJoined(uuid, "Alex");
+            writer.recordName(uuid, "Alex", 2000);
+            writer.commit();
+        }
+        assertEquals("Alex", store.getName(uuid).orElseThrow());
+        assertEquals(uuid, store.findUuidByName("alex").orElseThrow());
+        assertEquals(uuid, store.findUuidByName("steve").orElseThrow());
+        assertTrue(store.findUuidByName("Herobrine").isEmpty());
+
+        Map<UUID, String> joined = new HashMap<>();
+        store.loadJoined(joined::put);
+        assertEquals(Map.of(uuid, "Alex"), joined);
+    }
+
+    @Test
+    void namesLongerThanMinecraftNamesAreKept() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        String bedrock = ".BedrockPlayerWithALongName";
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.markJoined(uuid, bedrock);
+            writer.recordName(uuid, bedrock, 1000);
+            writer.appendHistory(new HistoryEntry(0, uuid, PunishmentType.BAN, HistoryAction.CREATE,
+                    null, "CONSOLE (Discord)", "reason", -1, 1000));
+            writer.commit();
+        }
+        assertEquals(bedrock, store.getName(uuid).orElseThrow());
+        assertEquals(uuid, store.findUuidByName(bedrock.toLowerCase()).orElseThrow());
+        assertEquals("CONSOLE (Discord)", store.getHistory(uuid, 10).get(0).executorName());
+    }
+
+    @Test
+    void ipBansAreKeyedByAddressAndPrefix() throws Exception {
+        byte[] network = {10, 0, 0, 0};
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.upsertIpBan(network, 8, 9000, "range");
+            writer.upsertIpBan(network, 32, -1, "host");
+            writer.commit();
+        }
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.deleteExpiredIpBan(network, 8, 1000);
+            writer.deleteIpBan(network, 32);
+            writer.commit();
+        }
+        List<String> bans = new ArrayList<>();
+        store.loadIpBans((address, prefixLength, end, reason) -> {
+            assertArrayEquals(network, address);
+            bans.add(prefixLength + "/" + end + "/" + reason);
+        });
+        assertEquals(List.of("8/9000/range"), bans);
+    }
+
+    @Test
+    void highWaterMarkFollowsEveryWrite() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        String empty = store.highWaterMark();
+        assertEquals(empty, store.highWaterMark());
+
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.upsertPunishment(PunishmentType.BAN, uuid, 5000, "reason");
+            writer.commit();
+        }
+        String banned = store.highWaterMark();
+        assertNotEquals(empty, banned);
+
+        // Same row count, only the end changed
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.upsertPunishment(PunishmentType.BAN, uuid, 6000, "reason");
+            writer.commit();
+        }
+        assertNotEquals(banned, store.highWaterMark());
+
+        String extended = store.highWaterMark();
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.markJoined(uuid, "Steve");
+            writer.commit();
+        }
+        assertNotEquals(extended, store.highWaterMark());
+    }
+
+    @Test
+    void metaValuesAreReplaced() throws Exception {
+        assertTrue(store.getMeta("key").isEmpty());
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.setMeta("key", "one");
+            writer.setMeta("key", "two");
+            writer.commit();
+        }
+        assertEquals("two", store.getMeta("key").orElseThrow());
+    }
+}
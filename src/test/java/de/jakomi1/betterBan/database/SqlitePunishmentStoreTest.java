@@ -0,0 +1,64 @@
+package de.jakomi1.betterBan.database;
+
+import de.jakomi1.betterBan.TestPlugin;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlitePunishmentStoreTest extends PunishmentStoreTest {
+
+    @Override
+    protected String type() {
+        return "sqlite";
+    }
+
+    @Override
+    protected String config() {
+        return "storage:\n  type: sqlite\n";
+    }
+
+    @Override
+    protected void reset() throws Exception {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(TestPlugin.dataFolder().resolve("database.db" + suffix));
+        }
+    }
+
+    @Test
+    void punishmentsFromBeforeTheHistoryBecomeSearchable() throws Exception {
+        UUID old = UUID.randomUUID(), recent = UUID.randomUUID();
+        try (PunishmentStore.Writer writer = store.openWriter()) {
+            writer.upsertPunishment(PunishmentType.BAN, old, -1, "Griefing before the history");
+            writer.upsertPunishment(PunishmentType.BAN, recent, -1, "Griefing with history");
+            writer.appendHistory(new HistoryEntry(0, recent, PunishmentType.BAN, HistoryAction.CREATE,
+                    null, "Console", "Griefing with history", -1, 1000));
+            writer.commit();
+        }
+        // As if the backfill had not run yet
+        try (Connection conn = Database.getWriteConnection();
+             Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            stmt.executeUpdate("DELETE FROM schema_version WHERE name = 'backfill_history_creates'");
+            conn.commit();
+        }
+        Database.closePool();
+        store = Database.openStore(type());
+
+        List<HistoryEntry> found = store.searchHistory(SearchQuery.of("griefing", null, 0, Long.MAX_VALUE), 0, 10);
+        assertEquals(2, found.size());
+        HistoryEntry backfilled = store.getHistory(old, 10).get(0);
+        assertFalse(backfilled.hasCreatedAt());
+        assertEquals("Griefing before the history", backfilled.reason());
+        assertEquals(1, store.getHistory(recent, 10).size());
+        // Unknown time: left out as soon as the search has a lower bound
+        assertTrue(store.searchHistory(SearchQuery.of("before", null, 1, Long.MAX_VALUE), 0, 10).isEmpty());
+    }
+}
@@ -0,0 +1,84 @@
+package de.jakomi1.betterBan.database;
+
+import de.jakomi1.betterBan.TestPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Failing writes must neither stop the writer thread nor go unnoticed by {@link WriteBehindQueue#flush()}.
+ */
+class WriteBehindQueueTest {
+
+    private PunishmentStore store;
+
+    /** Database has no setter for the store; init() would also load the caches. */
+    private static void useStore(PunishmentStore store) throws Exception {
+        Field field = Database.class.getDeclaredField("store");
+        field.setAccessible(true);
+        field.set(null, store);
+    }
+
+    private static void flush() throws Exception {
+        WriteBehindQueue.flush().get(30, TimeUnit.SECONDS);
+    }
+
+    @BeforeEach
+    void start() throws Exception {
+        TestPlugin.install("storage:\n  type: memory\n");
+        store = Database.openStore("memory");
+        useStore(store);
+        WriteBehindQueue.start();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        WriteBehindQueue.shutdown();
+        useStore(null);
+    }
+
+    @Test
+    void failingWriteFailsTheFlushOnly() throws Exception {
+        WriteBehindQueue.submit("broken", writer -> {
+            throw new IllegalStateException("broken write");
+        });
+        WriteBehindQueue.submit("meta", writer -> writer.setMeta("key", "one"));
+        assertThrows(ExecutionException.class, WriteBehindQueueTest::flush);
+        assertEquals("one", store.getMeta("key").orElseThrow());
+
+        // The writer is still running, and the failure was reported once
+        WriteBehindQueue.submit("meta", writer -> writer.setMeta("key", "two"));
+        flush();
+        assertEquals("two", store.getMeta("key").orElseThrow());
+    }
+
+    @Test
+    void batchIsRetriedUntilTheStoreIsBack() throws Exception {
+        useStore(null);
+        WriteBehindQueue.submit("meta", writer -> writer.setMeta("key", "kept"));
+        Thread.sleep(400L);
+        useStore(store);
+
+        flush();
+        assertEquals("kept", store.getMeta("key").orElseThrow());
+    }
+
+    @Test
+    void lostBatchFailsTheFlush() throws Exception {
+        useStore(null);
+        WriteBehindQueue.submit("meta", writer -> writer.setMeta("key", "lost"));
+        assertThrows(ExecutionException.class, WriteBehindQueueTest::flush);
+
+        useStore(store);
+        WriteBehindQueue.submit("meta", writer -> writer.setMeta("key", "written"));
+        flush();
+        assertEquals("written", store.getMeta("key").orElseThrow());
+    }
+}
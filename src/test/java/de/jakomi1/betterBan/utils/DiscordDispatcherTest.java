@@ -0,0 +1,168 @@
+package de.jakomi1.betterBan.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs the dispatcher against a local stub of the webhook endpoint.
+ */
+class DiscordDispatcherTest {
+
+    /** Answers one request of the stub server; the body is already recorded. */
+    @FunctionalInterface
+    private interface Responder {
+        void respond(HttpExchange exchange, int call) throws IOException;
+    }
+
+    private static final Logger LOGGER = Logger.getLogger("BetterBan");
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+    private String url;
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final List<Long> times = new CopyOnWriteArrayList<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile Responder responder = (exchange, call) -> exchange.sendResponseHeaders(204, -1);
+    private DiscordDispatcher dispatcher;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/webhook", exchange -> {
+            times.add(System.currentTimeMillis());
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            responder.respond(exchange, calls.incrementAndGet());
+            exchange.close();
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/webhook";
+    }
+
+    @AfterEach
+    void stop() {
+        if (dispatcher != null) dispatcher.shutdown();
+        server.stop(0);
+    }
+
+    private DiscordDispatcher start() {
+        dispatcher = new DiscordDispatcher(() -> url, dir.resolve("outbox.txt"), LOGGER);
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    private static int embeds(String body) {
+        return body.split("\"description\":", -1).length - 1;
+    }
+
+    private int delivered() {
+        return bodies.stream().mapToInt(DiscordDispatcherTest::embeds).sum();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("Timed out");
+            Thread.sleep(20L);
+        }
+    }
+
+    // ==============================================================
+
+    @Test
+    void batchesUpToTenEmbedsPerRequest() throws Exception {
+        DiscordDispatcher dispatcher = new DiscordDispatcher(() -> url, dir.resolve("outbox.txt"), LOGGER);
+        this.dispatcher = dispatcher;
+        for (int i = 0; i < 25; i++) dispatcher.send("Ban " + i, 0xFF0000);
+        dispatcher.start();
+
+        await(() -> delivered() == 25);
+        assertEquals(List.of(10, 10, 5), bodies.stream().map(DiscordDispatcherTest::embeds).toList());
+        // Names and reasons never ping anyone
+        assertTrue(bodies.get(0).startsWith("{\"allowed_mentions\":{\"parse\":[]}"));
+    }
+
+    @Test
+    void retriesAfterTooManyRequests() throws Exception {
+        responder = (exchange, call) -> {
+            if (call == 1) {
+                exchange.getResponseHeaders().add("Retry-After", "0.3");
+                exchange.sendResponseHeaders(429, -1);
+            } else {
+                exchange.sendResponseHeaders(204, -1);
+            }
+        };
+        start().send("Ban", 1);
+
+        await(() -> calls.get() == 2);
+        assertEquals(bodies.get(0), bodies.get(1));
+        assertTrue(times.get(1) - times.get(0) >= 300L);
+    }
+
+    @Test
+    void waitsForAnEmptyBucketToReset() throws Exception {
+        responder = (exchange, call) -> {
+            exchange.getResponseHeaders().add("X-RateLimit-Bucket", "bucket");
+            exchange.getResponseHeaders().add("X-RateLimit-Remaining", call == 1 ? "0" : "5");
+            exchange.getResponseHeaders().add("X-RateLimit-Reset-After", "0.5");
+            exchange.sendResponseHeaders(204, -1);
+        };
+        DiscordDispatcher dispatcher = start();
+        dispatcher.send("First", 1);
+        await(() -> calls.get() == 1);
+        dispatcher.send("Second", 1);
+
+        await(() -> calls.get() == 2);
+        assertTrue(times.get(1) - times.get(0) >= 500L);
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() throws Exception {
+        responder = (exchange, call) -> exchange.sendResponseHeaders(call == 1 ? 404 : 204, -1);
+        DiscordDispatcher dispatcher = start();
+        dispatcher.send("Dropped", 1);
+        await(() -> calls.get() == 1);
+        dispatcher.send("Delivered", 1);
+
+        await(() -> calls.get() == 2);
+        assertTrue(bodies.get(1).contains("Delivered"));
+        assertFalse(Files.exists(dir.resolve("outbox.txt")));
+    }
+
+    @Test
+    void outboxIsDeliveredAfterRestart() throws Exception {
+        // Queued but never sent: shutdown() moves it to the outbox
+        DiscordDispatcher stopped = new DiscordDispatcher(() -> url, dir.resolve("outbox.txt"), LOGGER);
+        stopped.send("Line one\nline \"two\"\twith tab", 0x00FF00);
+        stopped.shutdown();
+        stopped.send("After shutdown", 0x00FF00);
+        assertEquals(2, Files.readAllLines(dir.resolve("outbox.txt")).size());
+        assertEquals(0, calls.get());
+
+        start();
+        await(() -> delivered() == 2);
+        assertTrue(bodies.get(0).contains("\"Line one\\nline \\\"two\\\"\\twith tab\""), bodies.get(0));
+        await(() -> !Files.exists(dir.resolve("outbox.txt")));
+    }
+}
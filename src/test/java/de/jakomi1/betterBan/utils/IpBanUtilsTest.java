@@ -0,0 +1,44 @@
+package de.jakomi1.betterBan.utils;
+
+import de.jakomi1.betterBan.TestPlugin;
+import de.jakomi1.betterBan.cache.IpRange;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IpBanUtilsTest {
+
+    @Test
+    void wideRangesNeedConfirmation() throws Exception {
+        TestPlugin.install("storage:\n  type: memory\n");
+        assertTrue(IpBanUtils.needsConfirmation(IpRange.parse("0.0.0.0/0")));
+        assertTrue(IpBanUtils.needsConfirmation(IpRange.parse("10.0.0.0/8")));
+        assertFalse(IpBanUtils.needsConfirmation(IpRange.parse("10.1.0.0/16")));
+        assertFalse(IpBanUtils.needsConfirmation(IpRange.parse("10.1.2.3")));
+        assertTrue(IpBanUtils.needsConfirmation(IpRange.parse("::/0")));
+        assertFalse(IpBanUtils.needsConfirmation(IpRange.parse("2001:db8::/32")));
+
+        TestPlugin.install("ip-bans:\n  min-prefix-ipv4: 8\n  min-prefix-ipv6: 48\n");
+        assertFalse(IpBanUtils.needsConfirmation(IpRange.parse("10.0.0.0/8")));
+        assertTrue(IpBanUtils.needsConfirmation(IpRange.parse("2001:db8::/32")));
+    }
+
+    @Test
+    void historyIdsNeverEqualPlayerUuids() {
+        UUID range = IpBanUtils.historyId(IpRange.parse("10.0.0.0/8"));
+        assertEquals(range, IpBanUtils.historyId(IpRange.parse("10.0.0.0/8")));
+        assertNotEquals(range, IpBanUtils.historyId(IpRange.parse("10.0.0.0/9")));
+        assertTrue(IpBanUtils.isHistoryId(range));
+        assertEquals("10.0.0.0/8", IpBanUtils.getHistoryName(range).orElseThrow());
+
+        // Online and offline-mode players
+        assertFalse(IpBanUtils.isHistoryId(UUID.randomUUID()));
+        assertFalse(IpBanUtils.isHistoryId(UUID.nameUUIDFromBytes("OfflinePlayer:Steve".getBytes(StandardCharsets.UTF_8))));
+    }
+}